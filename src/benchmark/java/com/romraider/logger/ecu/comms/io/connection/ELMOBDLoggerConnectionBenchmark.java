@@ -0,0 +1,100 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.io.connection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import com.romraider.Settings;
+import com.romraider.io.elm327.ElmConnectionManager;
+import com.romraider.io.elm327.ElmEmulator;
+import com.romraider.logger.ecu.comms.manager.PollingStateImpl;
+import com.romraider.logger.ecu.comms.query.EcuQuery;
+import com.romraider.logger.ecu.comms.query.EcuQueryImpl;
+import com.romraider.logger.ecu.definition.EcuAddressImpl;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuParameterImpl;
+import com.romraider.logger.ecu.definition.Module;
+import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
+
+/**
+ * Times mode 01 polling of an emulated ELM327 at 38400 baud with a fixed
+ * adapter and ECU reply delay, reading the PIDs one per request as on
+ * K-line and up to six per request as on CAN.
+ * <p>
+ * Usage: <code>ELMOBDLoggerConnectionBenchmark [pids] [cycles] [delay ms]</code>
+ */
+public final class ELMOBDLoggerConnectionBenchmark {
+    private static final int BAUD_RATE = 38400;
+    private static final Module ECU = new Module("ECU",
+            new byte[]{0x00, 0x00, 0x07, (byte) 0xE0}, "Engine",
+            new byte[]{0x00, 0x00, 0x07, (byte) 0xDF}, false);
+
+    private ELMOBDLoggerConnectionBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        final int pids = args.length > 0 ? Integer.parseInt(args[0]) : 12;
+        final int cycles = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        final long delay = args.length > 2 ? Long.parseLong(args[2]) : 30L;
+
+        final List<EcuQuery> queries = new ArrayList<EcuQuery>();
+        for (int i = 0; i < pids; i++) {
+            queries.add(query(0x03 + i));
+        }
+        run("One PID per request", false, queries, cycles, delay);
+        run("Six PIDs per request", true, queries, cycles, delay);
+    }
+
+    private static void run(String name, boolean can, List<EcuQuery> queries,
+            int cycles, long delay) {
+
+        final ElmEmulator elm = new ElmEmulator(BAUD_RATE, delay);
+        elm.setCan(can);
+        for (int pid = 0x03; pid < 0x03 + queries.size(); pid++) {
+            elm.setPid(pid, 0x12, 0x34);
+        }
+        final ElmConnectionManager manager = new ElmConnectionManager(elm);
+        manager.resetAndInit(can ? "iso15765" : "iso19141-2", "7E0", "7DF");
+        final ELMOBDLoggerConnection connection = new ELMOBDLoggerConnection(manager);
+        final PollingStateImpl pollState = new PollingStateImpl();
+
+        final int requests = elm.getDataRequests();
+        final long start = System.nanoTime();
+        for (int i = 0; i < cycles; i++) {
+            connection.sendAddressReads(queries, ECU, pollState);
+        }
+        final double millis = (System.nanoTime() - start) / 1e6 / cycles;
+        System.out.printf("%-22s %3d requests per cycle %8.2f ms per cycle %6.2f Hz%n",
+                name, (elm.getDataRequests() - requests) / cycles, millis, 1000 / millis);
+    }
+
+    private static EcuQuery query(int pid) {
+        final String id = "P" + pid;
+        final EcuDataConvertor convertor = new EcuParameterConvertorImpl("raw", "x",
+                "0", -1, "uint16", Settings.Endian.BIG,
+                new HashMap<String, String>(), new GaugeMinMax(0, 100, 10));
+        return new EcuQueryImpl(new EcuParameterImpl(id, id, "",
+                new EcuAddressImpl(String.format("0x%02X", pid), 1, -1),
+                null, null, null, new EcuDataConvertor[] {convertor}));
+    }
+}
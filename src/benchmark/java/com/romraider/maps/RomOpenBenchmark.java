@@ -0,0 +1,141 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import com.romraider.maps.checksum.ChecksumManager;
+import com.romraider.maps.checksum.ChecksumSTD;
+import com.romraider.swing.JProgressPane;
+import com.romraider.util.SettingsManager;
+import com.romraider.xml.DOMRomUnmarshaller;
+import com.romraider.xml.DefinitionElement;
+import com.romraider.xml.DefinitionReader;
+
+/**
+ * Times opening an image against a large synthetic definition: every
+ * table is populated eagerly and the checksums are validated, as done
+ * when a ROM is opened in the editor.
+ * <p>
+ * Usage: <code>RomOpenBenchmark [tables] [runs]</code>
+ */
+public final class RomOpenBenchmark {
+    private static final int IMAGE_SIZE = 1024 * 1024;
+    private static final int CHECKSUMS = 4;
+    private static final int SIZE_X = 16;
+    private static final int SIZE_Y = 16;
+
+    private RomOpenBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int tables = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        final int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        SettingsManager.getSettings().setPopulateTablesOnDemand(false);
+        final byte[] image = image();
+        final DefinitionElement root = DefinitionReader.read(
+                new ByteArrayInputStream(definition(tables).getBytes("UTF-8")));
+        final JProgressPane progress = new JProgressPane();
+        final File definition = new File("synthetic.xml");
+
+        for (int run = 0; run <= runs; run++) {
+            final DOMRomUnmarshaller unmarshaller = new DOMRomUnmarshaller();
+            final DefinitionElement romNode = unmarshaller.checkDefinitionMatch(root, image);
+            final Rom rom = unmarshaller.unmarshallXMLDefinition(definition,
+                    root, romNode, image, progress);
+
+            final long start = System.nanoTime();
+            rom.populateTables(image.clone(), progress);
+            final long populated = System.nanoTime();
+            final int valid = rom.validateChecksum();
+            final long validated = System.nanoTime();
+
+            // the first run only warms up
+            if (run > 0) {
+                System.out.printf(
+                        "Run %d: %d tables populated in %.1f ms, %d/%d checksums valid after %.1f ms%n",
+                        run, rom.getTableNodes().size(), (populated - start) / 1e6,
+                        valid, rom.getTotalAmountOfChecksums(), (validated - start) / 1e6);
+            }
+            rom.clearByteMapping();
+        }
+    }
+
+    private static String definition(int tables) {
+        final StringBuilder xml = new StringBuilder();
+        xml.append("<roms><rom><romid><xmlid>BENCH</xmlid>")
+           .append("<internalidaddress>0</internalidaddress>")
+           .append("<internalidstring>BENCHROM</internalidstring>")
+           .append("<filesize>1024kb</filesize><memmodel>SH7058</memmodel></romid>");
+        final int range = IMAGE_SIZE / CHECKSUMS;
+        for (int i = 0; i < CHECKSUMS; i++) {
+            xml.append(String.format(
+                    "<checksum type=\"std\" start=\"0x%X\" end=\"0x%X\" sumloc=\"0x%X\" xorloc=\"0x%X\"/>",
+                    i * range, (i + 1) * range, (i + 1) * range - 8, (i + 1) * range - 4));
+        }
+        final int tableBytes = SIZE_X * SIZE_Y * 2;
+        final int axesBytes = (SIZE_X + SIZE_Y) * 2;
+        int address = 0x100;
+        for (int i = 0; i < tables; i++) {
+            if (address + tableBytes + axesBytes >= IMAGE_SIZE) {
+                address = 0x100;
+            }
+            xml.append(String.format(
+                    "<table type=\"3D\" name=\"T3D %d\" category=\"Cat%d\" storagetype=\"uint16\" endian=\"big\" sizex=\"%d\" sizey=\"%d\" storageaddress=\"0x%X\">",
+                    i, i % 50, SIZE_X, SIZE_Y, address))
+               .append("<scaling units=\"x\" expression=\"x*0.1\" to_byte=\"x/0.1\" format=\"0.0\" fineincrement=\"0.1\" coarseincrement=\"1\"/>")
+               .append(String.format(
+                    "<table type=\"X Axis\" name=\"RPM\" storagetype=\"uint16\" storageaddress=\"0x%X\">",
+                    address + tableBytes))
+               .append("<scaling units=\"rpm\" expression=\"x\" to_byte=\"x\" format=\"0\" fineincrement=\"1\" coarseincrement=\"10\"/></table>")
+               .append(String.format(
+                    "<table type=\"Y Axis\" name=\"Load\" storagetype=\"uint16\" storageaddress=\"0x%X\">",
+                    address + tableBytes + SIZE_X * 2))
+               .append("<scaling units=\"g\" expression=\"x*0.01\" to_byte=\"x/0.01\" format=\"0.00\" fineincrement=\"0.01\" coarseincrement=\"0.1\"/></table>")
+               .append("</table>");
+            address += tableBytes + axesBytes;
+        }
+        xml.append("</rom></roms>");
+        return xml.toString();
+    }
+
+    private static byte[] image() {
+        final byte[] image = new byte[IMAGE_SIZE];
+        new Random(42).nextBytes(image);
+        System.arraycopy("BENCHROM".getBytes(), 0, image, 0, 8);
+        final int range = IMAGE_SIZE / CHECKSUMS;
+        for (int i = 0; i < CHECKSUMS; i++) {
+            final Map<String, String> vars = new HashMap<String, String>();
+            vars.put("start", Integer.toHexString(i * range));
+            vars.put("end", Integer.toHexString((i + 1) * range));
+            vars.put("sumloc", Integer.toHexString((i + 1) * range - 8));
+            vars.put("xorloc", Integer.toHexString((i + 1) * range - 4));
+            final ChecksumManager checksum = new ChecksumSTD();
+            checksum.configure(vars);
+            checksum.update(image);
+        }
+        return image;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.romraider.swing.JProgressPane;
+import com.romraider.xml.DOMRomUnmarshaller;
+import com.romraider.xml.DefinitionElement;
+import com.romraider.xml.DefinitionReader;
+
+/**
+ * Reports the heap retained by ROMs opened with a definition, the way
+ * they are held while comparing several ROMs in the editor.
+ * <p>
+ * Usage: <code>TableMemoryBenchmark definition.xml image.bin [count]</code>
+ */
+public final class TableMemoryBenchmark {
+
+    private TableMemoryBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println(
+                    "Usage: TableMemoryBenchmark definition.xml image.bin [count]");
+            System.exit(1);
+        }
+        final File definition = new File(args[0]);
+        final byte[] image = read(new File(args[1]));
+        final int count = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        final DefinitionElement root = DefinitionReader.read(definition);
+        final JProgressPane progress = new JProgressPane();
+
+        final long baseline = usedHeap();
+        final List<Rom> roms = new ArrayList<Rom>();
+        int cells = 0;
+        int tables = 0;
+        long populateNanos = 0;
+        for (int i = 0; i < count; i++) {
+            final DOMRomUnmarshaller unmarshaller = new DOMRomUnmarshaller();
+            final DefinitionElement romNode = unmarshaller.checkDefinitionMatch(root, image);
+            if (romNode == null) {
+                System.err.println("Definition does not match the image");
+                System.exit(1);
+            }
+            final Rom rom = unmarshaller.unmarshallXMLDefinition(definition,
+                    root, romNode, image, progress);
+            final long start = System.nanoTime();
+            rom.populateTables(image.clone(), progress);
+            populateNanos += System.nanoTime() - start;
+            roms.add(rom);
+            cells += rom.byteCellMapping.size();
+            tables += rom.getTableNodes().size();
+        }
+        final long retained = usedHeap() - baseline;
+
+        System.out.printf("ROMs:           %d%n", roms.size());
+        System.out.printf("Tables:         %d%n", tables);
+        System.out.printf("Cells:          %d%n", cells);
+        System.out.printf("Retained heap:  %d KiB%n", retained / 1024);
+        System.out.printf("Bytes per cell: %.1f%n", (double) retained / Math.max(cells, 1));
+        System.out.printf("Populate time:  %.1f ms per ROM%n",
+                populateNanos / 1e6 / roms.size());
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        final Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static byte[] read(File file) throws IOException {
+        final byte[] data = new byte[(int) file.length()];
+        final InputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            while (offset < data.length) {
+                final int n = in.read(data, offset, data.length - offset);
+                if (n < 0) {
+                    break;
+                }
+                offset += n;
+            }
+        }
+        finally {
+            in.close();
+        }
+        return data;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.swing.RepaintManager;
+
+import com.romraider.swing.JProgressPane;
+import com.romraider.util.SettingsManager;
+import com.romraider.xml.DOMRomUnmarshaller;
+import com.romraider.xml.DefinitionElement;
+import com.romraider.xml.DefinitionReader;
+
+/**
+ * Times opening, painting and redrawing several large 3D tables with a
+ * label per cell and with the cells painted by one grid component.  The
+ * views are laid out and painted into an image, so it runs headless.
+ * <p>
+ * Usage: <code>TableViewBenchmark [tables] [size] [runs]</code>
+ */
+public final class TableViewBenchmark {
+    private static final int IMAGE_SIZE = 1024 * 1024;
+
+    private TableViewBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int tables = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        final int size = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        final int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        RepaintManager.currentManager(null).setDoubleBufferingEnabled(false);
+        final byte[] image = new byte[IMAGE_SIZE];
+        new Random(42).nextBytes(image);
+        System.arraycopy("BENCHROM".getBytes(), 0, image, 0, 8);
+        final DefinitionElement root = DefinitionReader.read(
+                new ByteArrayInputStream(definition(tables, size).getBytes("UTF-8")));
+        final DOMRomUnmarshaller unmarshaller = new DOMRomUnmarshaller();
+        final DefinitionElement romNode = unmarshaller.checkDefinitionMatch(root, image);
+        final Rom rom = unmarshaller.unmarshallXMLDefinition(new File("synthetic.xml"),
+                root, romNode, image, new JProgressPane());
+        rom.populateTables(image, new JProgressPane());
+        final List<Table3D> tables3d = new ArrayList<Table3D>();
+        for (Table table : rom.getTables()) {
+            if (table instanceof Table3D) {
+                tables3d.add((Table3D) table);
+            }
+        }
+
+        for (int run = 0; run <= runs; run++) {
+            for (boolean grid : new boolean[] {false, true}) {
+                SettingsManager.getSettings().setPaintTableGrid(grid);
+                final long start = System.nanoTime();
+                final List<Table3DView> views = new ArrayList<Table3DView>();
+                for (Table3D table : tables3d) {
+                    final Table3DView view = new Table3DView(table);
+                    table.setTableView(view);
+                    view.populateTableVisual();
+                    view.drawTable();
+                    view.setSize(view.getPreferredSize());
+                    layout(view);
+                    views.add(view);
+                }
+                final long opened = System.nanoTime();
+                for (Table3DView view : views) {
+                    paint(view);
+                }
+                final long painted = System.nanoTime();
+                for (Table3DView view : views) {
+                    view.drawTable();
+                    paint(view);
+                }
+                final long redrawn = System.nanoTime();
+
+                // the first run only warms up
+                if (run > 0) {
+                    System.out.printf(
+                            "Run %d %-6s: open %.1f ms, paint %.1f ms, redraw %.1f ms for %d tables%n",
+                            run, grid ? "grid" : "labels", (opened - start) / 1e6,
+                            (painted - opened) / 1e6, (redrawn - painted) / 1e6,
+                            views.size());
+                }
+                for (Table3D table : tables3d) {
+                    table.setTableView(null);
+                }
+            }
+        }
+    }
+
+    private static void layout(Component component) {
+        if (component instanceof Container) {
+            final Container container = (Container) component;
+            container.doLayout();
+            for (Component child : container.getComponents()) {
+                layout(child);
+            }
+        }
+    }
+
+    private static void paint(Component component) {
+        final Dimension size = component.getSize();
+        final BufferedImage image = new BufferedImage(Math.max(size.width, 1),
+                Math.max(size.height, 1), BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g = image.createGraphics();
+        try {
+            component.paint(g);
+        }
+        finally {
+            g.dispose();
+        }
+    }
+
+    private static String definition(int tables, int size) {
+        final StringBuilder xml = new StringBuilder();
+        xml.append("<roms><rom><romid><xmlid>BENCH</xmlid>")
+           .append("<internalidaddress>0</internalidaddress>")
+           .append("<internalidstring>BENCHROM</internalidstring>")
+           .append("<filesize>1024kb</filesize><memmodel>SH7058</memmodel></romid>");
+        final int tableBytes = size * size * 2;
+        int address = 0x100;
+        for (int i = 0; i < tables; i++) {
+            xml.append(String.format(
+                    "<table type=\"3D\" name=\"T3D %d\" category=\"Cat\" storagetype=\"uint16\" endian=\"big\" sizex=\"%d\" sizey=\"%d\" storageaddress=\"0x%X\">",
+                    i, size, size, address))
+               .append("<scaling units=\"x\" expression=\"x*0.1\" to_byte=\"x/0.1\" format=\"0.0\" fineincrement=\"0.1\" coarseincrement=\"1\"/>")
+               .append(String.format(
+                    "<table type=\"X Axis\" name=\"RPM\" storagetype=\"uint16\" storageaddress=\"0x%X\">",
+                    address + tableBytes))
+               .append("<scaling units=\"rpm\" expression=\"x\" to_byte=\"x\" format=\"0\" fineincrement=\"1\" coarseincrement=\"10\"/></table>")
+               .append(String.format(
+                    "<table type=\"Y Axis\" name=\"Load\" storagetype=\"uint16\" storageaddress=\"0x%X\">",
+                    address + tableBytes + size * 2))
+               .append("<scaling units=\"g\" expression=\"x*0.01\" to_byte=\"x/0.01\" format=\"0.00\" fineincrement=\"0.01\" coarseincrement=\"0.1\"/></table>")
+               .append("</table>");
+            address += tableBytes + size * 4;
+        }
+        xml.append("</rom></roms>");
+        return xml.toString();
+    }
+}
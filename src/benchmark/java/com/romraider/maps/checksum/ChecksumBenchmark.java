@@ -0,0 +1,117 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps.checksum;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Times saving a 2MB image after a few table edits, with each checksum
+ * calculated over its whole range and with only the blocks written since
+ * the last save recalculated.
+ * <p>
+ * Usage: <code>ChecksumBenchmark [edits] [saves]</code>
+ */
+public final class ChecksumBenchmark {
+    private static final int IMAGE_SIZE = 2 * 1024 * 1024;
+    private static final int[] E38_INDEX = {0x24, 0x48, 0x6b, 0x8e, 0xb1, 0xd4};
+    private static final String[][] CHECKSUMS = {
+        {"STD", "start", "0", "end", "100000", "sumloc", "FFFF8", "xorloc", "FFFFC"},
+        {"ALT", "start", "100000", "end", "200000", "sumloc", "1FFFF8", "xorloc", "1FFFFC"},
+        {"ALT2", "start", "0", "end", "200000", "sumloc", "1F000", "xorloc", "1F004", "skiploc", "20000"},
+        {"BYTEXOR", "start", "0", "end", "200000", "xorloc", "1FFFFF"},
+        {"MOTRONICSINGLE", "start", "0", "end", "1FFFFD", "loc", "1FFFFE"},
+        {"MOTRONICDOUBLE", "start", "0", "end", "FFFFF", "loc", "1FFFFE",
+            "startsecond", "100000", "endsecond", "1FFFFD"},
+        {"E38PCM"},
+    };
+
+    private ChecksumBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int edits = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        final int saves = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        for (String[] type : CHECKSUMS) {
+            final byte[] image = image();
+            final DirtyRegions dirty = new DirtyRegions(IMAGE_SIZE);
+            final ChecksumManager full = checksum(type);
+            final ChecksumManager incremental = checksum(type);
+            ((IncrementalChecksum) incremental).setDirtyRegions(dirty);
+            full.validate(image);
+            incremental.validate(image);
+
+            final Random random = new Random(1);
+            long fullNanos = 0;
+            long incrementalNanos = 0;
+            for (int save = 0; save < saves; save++) {
+                for (int i = 0; i < edits; i++) {
+                    // edit a 16 bit cell away from the E38 segment index
+                    final int offset = 0x20000 + random.nextInt(IMAGE_SIZE - 0x20002);
+                    image[offset] = (byte) random.nextInt();
+                    image[offset + 1] = (byte) random.nextInt();
+                    dirty.mark(offset, 2);
+                }
+                final byte[] copy = image.clone();
+                long start = System.nanoTime();
+                full.update(copy);
+                fullNanos += System.nanoTime() - start;
+                start = System.nanoTime();
+                incremental.update(image);
+                incrementalNanos += System.nanoTime() - start;
+                if (!Arrays.equals(copy, image)) {
+                    throw new IllegalStateException(type[0] + " checksums differ");
+                }
+            }
+            System.out.printf("%-15s full %8.3f ms, incremental %8.3f ms per save%n",
+                    type[0], fullNanos / 1e6 / saves, incrementalNanos / 1e6 / saves);
+        }
+    }
+
+    private static ChecksumManager checksum(String[] type) throws Exception {
+        final ChecksumManager checksum = (ChecksumManager) Class.forName(
+                ChecksumBenchmark.class.getPackage().getName() + ".Checksum" + type[0])
+                .newInstance();
+        final Map<String, String> vars = new HashMap<String, String>();
+        for (int i = 1; i < type.length; i += 2) {
+            vars.put(type[i], type[i + 1]);
+        }
+        checksum.configure(vars);
+        return checksum;
+    }
+
+    private static byte[] image() {
+        final byte[] image = new byte[IMAGE_SIZE];
+        new Random(42).nextBytes(image);
+        for (int i = 0; i < E38_INDEX.length; i++) {
+            final int start = 0x20000 + i * 0x20000;
+            final int end = start + 0x1FFFF;
+            final int offset = 0x10000 + E38_INDEX[i];
+            for (int j = 0; j < 4; j++) {
+                image[offset + j] = (byte) (start >>> (24 - 8 * j));
+                image[offset + 4 + j] = (byte) (end >>> (24 - 8 * j));
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.nfunk.jep.JEP;
+
+/**
+ * Compares the previous interpreted JEP evaluation, a global synchronized
+ * 32 entry LRU of parsers, with {@link CompiledExpression}.  Run with the
+ * benchmark Ant target, the thread count is an optional argument.
+ */
+public final class CompiledExpressionBenchmark {
+    private static final int EXPRESSIONS = 64;
+    private static final int ITERATIONS = 50000;
+    private static final Map<String, JEP> parserCache = new LinkedHashMap<String, JEP>(32, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JEP> eldest) {
+            return size() >= 32;
+        }
+    };
+
+    private CompiledExpressionBenchmark() {
+    }
+
+    private static synchronized double interpreted(String expression, double value) {
+        JEP parser = parserCache.get(expression);
+        if (parser == null) {
+            parser = new JEP();
+            parser.addStandardFunctions();
+            parser.initSymTab();
+            parser.addVariable("x", value);
+            parser.parseExpression(expression);
+            parserCache.put(expression, parser);
+        } else {
+            parser.setVarValue("x", value);
+        }
+        return parser.getValue();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        final String[] expressions = new String[EXPRESSIONS];
+        final CompiledExpression[] compiled = new CompiledExpression[EXPRESSIONS];
+        for (int i = 0; i < EXPRESSIONS; i++) {
+            expressions[i] = "(x*" + (i + 1) + "/256)-" + i;
+            compiled[i] = CompiledExpression.compile(expressions[i]);
+        }
+        for (int pass = 0; pass < 3; pass++) {
+            final long jep = run(threads, new Evaluator() {
+                public double evaluate(int i, double x) {
+                    return interpreted(expressions[i], x);
+                }
+            });
+            final long compiledTime = run(threads, new Evaluator() {
+                public double evaluate(int i, double x) {
+                    return compiled[i].evaluate(x);
+                }
+            });
+            System.out.printf("threads: %d, JEP: %d ms, compiled: %d ms%n",
+                    threads, jep / 1000000, compiledTime / 1000000);
+        }
+    }
+
+    private interface Evaluator {
+        double evaluate(int i, double x);
+    }
+
+    private static long run(int threads, final Evaluator evaluator)
+            throws InterruptedException {
+
+        final Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread() {
+                @Override
+                public void run() {
+                    double sum = 0;
+                    for (int n = 0; n < ITERATIONS; n++) {
+                        sum += evaluator.evaluate(n % EXPRESSIONS, n & 0xff);
+                    }
+                    if (sum == Double.MIN_VALUE) System.out.println(sum);
+                }
+            };
+        }
+        final long start = System.nanoTime();
+        for (Thread worker : workers) worker.start();
+        for (Thread worker : workers) worker.join();
+        return System.nanoTime() - start;
+    }
+}
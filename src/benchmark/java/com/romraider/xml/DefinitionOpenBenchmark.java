@@ -0,0 +1,147 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.xml;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+
+import com.romraider.maps.Rom;
+import com.romraider.swing.JProgressPane;
+
+/**
+ * Times reading a definition and building the matching ROM, and measures
+ * the heap retained by several such ROMs: once streaming the definition,
+ * and once parsing it into a DOM which is kept with each ROM, as the
+ * editor did before.
+ * <p>
+ * Usage: <code>DefinitionOpenBenchmark definition.xml image.bin [count] [runs]</code>
+ */
+public final class DefinitionOpenBenchmark {
+
+    private DefinitionOpenBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println(
+                    "Usage: DefinitionOpenBenchmark definition.xml image.bin [count] [runs]");
+            System.exit(1);
+        }
+        final File definition = new File(args[0]);
+        final byte[] image = read(new File(args[1]));
+        final int count = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        final int runs = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        for (int run = 0; run <= runs; run++) {
+            final long stream = open(definition, image, false, null);
+            final long dom = open(definition, image, true, null);
+            // the first run only warms up
+            if (run > 0) {
+                System.out.printf("Run %d: stream %.1f ms, DOM %.1f ms%n",
+                        run, stream / 1e6, dom / 1e6);
+            }
+        }
+
+        for (int i = 0; i < 2; i++) {
+            final boolean dom = i == 1;
+            final List<Object> held = new ArrayList<Object>();
+            final long baseline = usedHeap();
+            for (int j = 0; j < count; j++) {
+                open(definition, image, dom, held);
+            }
+            final long retained = usedHeap() - baseline;
+            System.out.printf("%s: %d ROMs retain %d KiB%n",
+                    dom ? "DOM" : "Stream", count, retained / 1024);
+            held.clear();
+        }
+    }
+
+    // returns the nanoseconds taken, the ROM and any DOM are added to held
+    private static long open(File definition, byte[] image, boolean dom, List<Object> held)
+            throws Exception {
+        final long start = System.nanoTime();
+        final DefinitionElement root;
+        Document doc = null;
+        if (dom) {
+            final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setXIncludeAware(true);
+            doc = factory.newDocumentBuilder().parse(definition);
+            root = DefinitionElement.fromNode(doc.getDocumentElement());
+        }
+        else {
+            root = DefinitionReader.read(definition);
+        }
+        final DOMRomUnmarshaller unmarshaller = new DOMRomUnmarshaller();
+        final DefinitionElement romNode = unmarshaller.checkDefinitionMatch(root, image);
+        if (romNode == null) {
+            System.err.println("Definition does not match the image");
+            System.exit(1);
+        }
+        final Rom rom = unmarshaller.unmarshallXMLDefinition(definition,
+                root, romNode, image, new JProgressPane());
+        final long nanos = System.nanoTime() - start;
+        if (held != null) {
+            held.add(rom);
+            if (doc != null) {
+                held.add(doc);
+            }
+        }
+        return nanos;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        final Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static byte[] read(File file) throws IOException {
+        final byte[] data = new byte[(int) file.length()];
+        final InputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            while (offset < data.length) {
+                final int n = in.read(data, offset, data.length - offset);
+                if (n < 0) {
+                    break;
+                }
+                offset += n;
+            }
+        }
+        finally {
+            in.close();
+        }
+        return data;
+    }
+}
@@ -27,6 +27,7 @@ import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.GraphicsEnvironment;
 import java.awt.Point;
 import java.io.File;
 import java.io.Serializable;
@@ -186,6 +187,9 @@ public class Settings implements Serializable {
     private boolean saveDebugTables = true;
     private boolean displayHighTables = true;
     private boolean valueLimitWarning = true;
+    private boolean populateTablesOnDemand = true;
+    private int tableCacheSize = 64;
+    private boolean paintTableGrid = true;
 
     private Font tableFont = new Font("Arial", Font.BOLD, 11);
     private Dimension cellSize = new Dimension(42, 18);
@@ -216,6 +220,7 @@ public class Settings implements Serializable {
     private String fileLoggingControllerSwitchId = "S20"; // defogger switch by default
     private boolean fileLoggingControllerSwitchActive = false;
     private boolean fileLoggingAbsoluteTimestamp;
+    private boolean fileLoggingBinary;
     private String logfileNameText;
     private boolean logExternalsOnly;
     private boolean autoConnectOnStartup = true;
@@ -283,7 +288,10 @@ public class Settings implements Serializable {
 	private Boolean searchElm327 = false;
 
     public Settings() {
-        //center window by default
+        //center window by default, there is no screen when run headless
+        if (GraphicsEnvironment.isHeadless()) {
+            return;
+        }
         Dimension screenSize = java.awt.Toolkit.getDefaultToolkit().getScreenSize();
         windowLocation.move(((int) (screenSize.getWidth() - windowSize.getWidth()) / 2),
                 ((int) (screenSize.getHeight() - windowSize.getHeight()) / 2));
@@ -529,6 +537,30 @@ public class Settings implements Serializable {
         this.saveDebugTables = saveDebugTables;
     }
 
+    public boolean isPopulateTablesOnDemand() {
+        return populateTablesOnDemand;
+    }
+
+    public void setPopulateTablesOnDemand(boolean populateTablesOnDemand) {
+        this.populateTablesOnDemand = populateTablesOnDemand;
+    }
+
+    public int getTableCacheSize() {
+        return tableCacheSize;
+    }
+
+    public void setTableCacheSize(int tableCacheSize) {
+        this.tableCacheSize = tableCacheSize;
+    }
+
+    public boolean isPaintTableGrid() {
+        return paintTableGrid;
+    }
+
+    public void setPaintTableGrid(boolean paintTableGrid) {
+        this.paintTableGrid = paintTableGrid;
+    }
+
     public boolean isDisplayHighTables() {
         return displayHighTables;
     }
@@ -666,6 +698,14 @@ public class Settings implements Serializable {
         this.fileLoggingAbsoluteTimestamp = fileLoggingAbsoluteTimestamp;
     }
 
+    public boolean isFileLoggingBinary() {
+        return fileLoggingBinary;
+    }
+
+    public void setFileLoggingBinary(boolean fileLoggingBinary) {
+        this.fileLoggingBinary = fileLoggingBinary;
+    }
+
     public ConnectionProperties getLoggerConnectionProperties() {
         return loggerConnectionProperties;
     }
@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.SwingUtilities;
 
@@ -44,6 +45,8 @@ public class DataflowSimulation {
 	private LinkedList<GenericAction> dataflow = new LinkedList<GenericAction>();
 	private boolean updateFromLogger = false;
 	private DataflowFrame frame = null;
+	// a frame update is queued, later logger values are picked up by it
+	private final AtomicBoolean frameUpdatePending = new AtomicBoolean();
 
 	public DataflowSimulation(Rom rom, String name) {
 		this.name = name;
@@ -139,10 +142,11 @@ public class DataflowSimulation {
 	public void updateVariableFromLogger(String key, double dataValue) {
 		if (updateFromLogger) {
 			setVariableValue(key, dataValue);
-			if (frame != null) {
+			if (frame != null && frameUpdatePending.compareAndSet(false, true)) {
 				SwingUtilities.invokeLater(new Runnable() {
 					@Override
 					public void run() {
+						frameUpdatePending.set(false);
 						frame.updateContentPanel();
 					}
 				});
@@ -333,13 +333,15 @@ public class ECUEditor extends AbstractFrame {
                 if(!fileToSave.getName().toLowerCase().endsWith(".xml"))
                         fileToSave = new File(fileToSave.getAbsoluteFile() + ".xml");
 
-                String s = ConversionLayer.convertDocumentToString(r.getDocument());
-
                 try {
+                    // the definition is not kept once the ROM is built, so
+                    // it is read again for the export
+                    String s = ConversionLayer.convertDocumentToString(
+                            OpenImageWorker.createDocument(r.getDefinitionPath()));
                     BufferedWriter writer = new BufferedWriter(new FileWriter(fileToSave));
                     writer.write(s);
                     writer.close();
-                } catch (IOException e) {
+                } catch (Exception e) {
                     e.printStackTrace();
                 }
             }
@@ -476,6 +478,12 @@ public class ECUEditor extends AbstractFrame {
     private void openClosedTable(TableTreeNode node)
     {
         Table t = node.getTable();
+        if (!t.ensurePopulated()) {
+            // the table was removed from its ROM
+            RomTree.getRomNode(node).refreshDisplayedTables();
+            refreshUI();
+            return;
+        }
         TableView v = getTableViewForTable(t);
         t.setTableView(v);
         try {
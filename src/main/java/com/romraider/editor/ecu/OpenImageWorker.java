@@ -39,7 +39,6 @@ import javax.xml.parsers.ParserConfigurationException;
 
 import org.apache.log4j.Logger;
 import org.w3c.dom.Document;
-import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
@@ -48,6 +47,9 @@ import com.romraider.maps.Rom;
 import com.romraider.swing.DefinitionFilter;
 import com.romraider.util.SettingsManager;
 import com.romraider.xml.DOMRomUnmarshaller;
+import com.romraider.xml.DefinitionElement;
+import com.romraider.xml.DefinitionIndex;
+import com.romraider.xml.DefinitionReader;
 import com.romraider.xml.ConversionLayer.ConversionLayer;
 import com.romraider.xml.ConversionLayer.ConversionLayerFactory;
 
@@ -98,7 +100,30 @@ public class OpenImageWorker extends SwingWorker<Void, Void> {
 	      this.rom = rom;     
     }
 
-    private Document createDocument(File f) throws Exception {
+    /**
+     * Read a definition file for unmarshalling.  Plain XML definitions are
+     * streamed, the others are parsed into a DOM which is dropped once
+     * copied.
+     */
+    private static DefinitionElement readDefinition(File f) throws Exception {
+        if (!ConversionLayerFactory.requiresConversionLayer(f)) {
+            final DefinitionElement root = DefinitionReader.read(f);
+            if (root != null) {
+                return root;
+            }
+        }
+        final Document doc = createDocument(f);
+        if (doc == null) {
+            throw new SAXParseException(ECUEditor.rb.getString("UNREADABLEDEF"), null);
+        }
+        return DefinitionElement.fromNode(doc.getDocumentElement());
+    }
+
+    /**
+     * Parse a definition file into a DOM, converting it first if it is not
+     * in the editor format.
+     */
+    static Document createDocument(File f) throws Exception {
 	    Document doc = null;
 	    FileInputStream fileStream = null;
 
@@ -162,16 +187,16 @@ public class OpenImageWorker extends SwingWorker<Void, Void> {
         	ex.printStackTrace();
     }
     
-	 private Rom openRomWithDefinition(File f, Document doc, Node romNode, byte[] input) {
+	 private Rom openRomWithDefinition(File f, DefinitionElement root,
+	         DefinitionElement romNode, byte[] input) {
 	        ECUEditor editor = ECUEditorManager.getECUEditor();
 	        final String errorLoading = MessageFormat.format(
 	                ECUEditor.rb.getString("ERRORFILE"),
 	                inputFile.getName());
 
 	        try {
-	            Rom rom = new DOMRomUnmarshaller().unmarshallXMLDefinition(f, doc.getDocumentElement(), romNode,
+	            Rom rom = new DOMRomUnmarshaller().unmarshallXMLDefinition(f, root, romNode,
 	            		input, editor.getStatusPanel());
-	    	    rom.setDocument(doc);
 	    	    rom.setDefinitionPath(f);
 	    	    loadRom(rom, input);
 
@@ -215,6 +240,7 @@ public class OpenImageWorker extends SwingWorker<Void, Void> {
         setProgress(10);
 
         boolean found = false;
+        final DefinitionIndex index = DefinitionIndex.getInstance();
 
         // parse ecu definition files until result found
         for (int i = 0; i < settings.getEcuDefinitionFiles().size(); i++) {
@@ -232,23 +258,29 @@ public class OpenImageWorker extends SwingWorker<Void, Void> {
                 continue;
             }
 
-            Node romNode = null;
-            Document doc = null;
+            // skip files known not to define this image without parsing them
+            if (!index.mayMatch(f, input)) {
+                continue;
+            }
+
+            DefinitionElement romNode = null;
+            DefinitionElement root = null;
 
             try {
-            	doc = createDocument(f);
-				romNode = new DOMRomUnmarshaller().checkDefinitionMatch(doc.getDocumentElement(), input);
+            	root = readDefinition(f);
+				romNode = new DOMRomUnmarshaller().checkDefinitionMatch(root, input);
             }
             catch(Exception e) {
             	showExceptionPopup(e, f);
             }
 
             if(romNode != null) {
-            	openRomWithDefinition(f, doc, romNode, input);
+            	openRomWithDefinition(f, root, romNode, input);
             	found = true;
             	break;
             }
          }
+        index.save();
 
         if(!found) {
         	showNoDefinitionFoundPopup(input);
@@ -278,12 +310,12 @@ public class OpenImageWorker extends SwingWorker<Void, Void> {
                 File file = fc.getSelectedFile();
             	settings.setLastDefinitionDir(file.getParentFile());
 
-                Node romNode;
-                Document doc = null;
+                DefinitionElement romNode;
+                DefinitionElement root = null;
 
 				try {
-					doc = createDocument(file);
-					romNode = new DOMRomUnmarshaller().checkDefinitionMatch(doc.getDocumentElement(), input);
+					root = readDefinition(file);
+					romNode = new DOMRomUnmarshaller().checkDefinitionMatch(root, input);
 				} catch (Exception e) {
 					showExceptionPopup(e, file);
 					return;
@@ -300,12 +332,12 @@ public class OpenImageWorker extends SwingWorker<Void, Void> {
 	                        options[0]);
 
 	                if(answerForceLoad == 0) {
-	                	Node n = DOMRomUnmarshaller.findFirstRomNode(doc.getDocumentElement());
-	                	openRomWithDefinition(file, doc, n, input);
+	                	DefinitionElement n = DOMRomUnmarshaller.findFirstRomNode(root);
+	                	openRomWithDefinition(file, root, n, input);
 	                }
             	}
             	else {
-                	openRomWithDefinition(file, doc, romNode, input);
+                	openRomWithDefinition(file, root, romNode, input);
             	}
             }
         }
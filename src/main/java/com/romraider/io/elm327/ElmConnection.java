@@ -20,38 +20,64 @@
 package com.romraider.io.elm327;
 
 import static com.fazecast.jSerialComm.SerialPort.FLOW_CONTROL_DISABLED;
+import static com.fazecast.jSerialComm.SerialPort.LISTENING_EVENT_DATA_AVAILABLE;
 import static com.fazecast.jSerialComm.SerialPort.TIMEOUT_READ_SEMI_BLOCKING;
 import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
 import static com.romraider.util.ThreadUtil.sleep;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.apache.log4j.Logger.getLogger;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.InputStreamReader;
 
 import org.apache.log4j.Logger;
 
 import com.fazecast.jSerialComm.SerialPort;
+import com.fazecast.jSerialComm.SerialPortDataListener;
+import com.fazecast.jSerialComm.SerialPortEvent;
 import com.fazecast.jSerialComm.SerialPortInvalidPortException;
-import com.romraider.io.serial.connection.SerialConnectionImpl;
+import com.romraider.io.serial.connection.SerialConnection;
 import com.romraider.logger.ecu.exception.ConfigurationException;
 import com.romraider.logger.ecu.exception.NotConnectedException;
 import com.romraider.logger.ecu.exception.SerialCommunicationException;
 
 
-public final class ElmConnection {
-    private static final Logger LOGGER = getLogger(SerialConnectionImpl.class);
+public final class ElmConnection implements SerialConnection {
+    private static final Logger LOGGER = getLogger(ElmConnection.class);
+    private static final long MAX_EVENT_WAIT = MILLISECONDS.toNanos(50L);
     private SerialPort serialPort;
-    private PrintWriter os;
+    private BufferedOutputStream os;
     private BufferedInputStream is;
+    private BufferedReader reader;
+    // notified by the port's event thread whenever bytes arrive
+    private final Object dataAvailable = new Object();
 
     public ElmConnection(String portName, int baudrate) {
         checkNotNullOrEmpty(portName, "portName");
 
         try {
             serialPort = connect(portName, baudrate);
-            os = new PrintWriter(serialPort.getOutputStream());
+            os = new BufferedOutputStream(serialPort.getOutputStream());
             is = new BufferedInputStream(serialPort.getInputStream());
+            reader = new BufferedReader(new InputStreamReader(is));
+            serialPort.addDataListener(new SerialPortDataListener() {
+                @Override
+                public int getListeningEvents() {
+                    return LISTENING_EVENT_DATA_AVAILABLE;
+                }
+
+                @Override
+                public void serialEvent(SerialPortEvent event) {
+                    synchronized (dataAvailable) {
+                        dataAvailable.notifyAll();
+                    }
+                }
+            });
 
         } catch (Exception e) {
             close();
@@ -59,109 +85,120 @@ public final class ElmConnection {
         }
     }
 
-    public void flush() {
+    @Override
+    public void write(byte[] bytes) {
         try {
+            os.write(bytes, 0, bytes.length);
             os.flush();
-        } catch (Exception e) {
-            throw new SerialCommunicationException(e);
+        } catch (IOException e) {
+            throw new SerialCommunicationException("Write bytes: " + e);
         }
     }
 
-
-    public void write(String command) {
+    @Override
+    public int available() {
         try {
-            os.println(command);
-            os.flush();
-        } catch (Exception e) {
-            throw new SerialCommunicationException(e);
+            return is.available();
+        } catch (IOException e) {
+            throw new SerialCommunicationException("Available: " + e);
         }
     }
 
-    public int available() {
-        try {
-			return is.available();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-
-        return 0;
+    @Override
+    public boolean waitForBytes(int numBytes, long timeout) {
+        final long deadline = nanoTime() + MILLISECONDS.toNanos(timeout);
+        synchronized (dataAvailable) {
+            while (available() < numBytes) {
+                final long remaining = deadline - nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                // a missed event only delays the wait by one slice
+                waitForEvent(Math.min(remaining, MAX_EVENT_WAIT));
+            }
+        }
+        return true;
     }
 
-    public String read() {
+    @Override
+    public int read() {
         try {
-			return "" + (char)is.read();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-
-        return "";
+            waitForBytes(1);
+            return is.read();
+        } catch (IOException e) {
+            throw new SerialCommunicationException("Read: " + e);
+        }
     }
 
-    //Reads up to numChars
-    public String read(int numChars) {
-        StringBuilder response = new StringBuilder();
-
+    @Override
+    public void read(byte[] bytes) {
         try {
-            for(int i = 0; i < numChars && available() > 0; i++) {
-                response.append((char)is.read());
-            }
-
-        } catch (Exception e) {
-            throw new SerialCommunicationException(e);
+            waitForBytes(bytes.length);
+            is.read(bytes, 0, bytes.length);
+        } catch (IOException e) {
+            throw new SerialCommunicationException("Read bytes: " + e);
         }
-
-        return response.toString();
     }
 
-    //Reads everything that is available
-    public String readAvailable() {
-        String response = "";
+    @Override
+    public String readLine() {
+        try {
+            waitForBytes(1);
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new SerialCommunicationException("Read line: " + e);
+        }
+    }
 
-        response += read(available());
+    @Override
+    public byte[] readAvailable() {
+        byte[] response = new byte[available()];
+        read(response);
         return response;
     }
 
+    @Override
     public void readStaleData() {
-    	while(available() > 0)
-			try {
-				is.read();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+        try {
+            while (available() > 0) {
+                is.skip(available());
+            }
+        } catch (IOException e) {
+            throw new SerialCommunicationException("Read stale data: " + e);
+        }
     }
 
+    @Override
     public void close() {
         if (os != null) {
             try {
                 os.close();
-            } catch (Exception e) {
+            } catch (IOException e) {
                 LOGGER.error("Error closing output stream", e);
             }
         }
         if (is != null) {
             try {
-				is.close();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+                is.close();
+            } catch (IOException e) {
+                LOGGER.error("Error closing input stream", e);
+            }
         }
         if (serialPort != null) {
+            serialPort.removeDataListener();
             if (!serialPort.closePort())
                 LOGGER.error("Error closing serial port: " + serialPort.getSystemPortName());
         }
         LOGGER.info("Connection closed.");
-        try {
-			Thread.sleep(500);
-		} catch (InterruptedException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
+        // give the adapter time to drop the connection before a reopen
+        sleep(500L);
     }
 
-    public void sendBreak(long duration) {
+    @Override
+    public void sendBreak(int duration) {
         if (!serialPort.setBreak())
             throw new SerialCommunicationException("Send Break");
-        sleep(duration);
+        sleep((long) duration);
         if (!serialPort.clearBreak())
             throw new SerialCommunicationException("Clear Break");
     }
@@ -201,4 +238,21 @@ public final class ElmConnection {
             throw new UnsupportedOperationException(e);
         }
     }
+
+    private void waitForBytes(int numBytes) {
+        synchronized (dataAvailable) {
+            while (available() < numBytes) {
+                waitForEvent(MAX_EVENT_WAIT);
+            }
+        }
+    }
+
+    private void waitForEvent(long nanos) {
+        try {
+            NANOSECONDS.timedWait(dataAvailable, nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SerialCommunicationException("Wait for bytes interrupted");
+        }
+    }
 }
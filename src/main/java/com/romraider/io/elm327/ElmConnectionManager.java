@@ -21,26 +21,28 @@ package com.romraider.io.elm327;
 
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
-import static com.romraider.util.ThreadUtil.sleep;
-
-import static java.lang.System.currentTimeMillis;
 import static org.apache.log4j.Logger.getLogger;
 
 import org.apache.log4j.Logger;
 
 import com.romraider.io.connection.ConnectionManager;
 import com.romraider.io.connection.ConnectionProperties;
+import com.romraider.io.serial.connection.SerialConnection;
 
 import com.romraider.logger.ecu.comms.manager.PollingState;
 import com.romraider.logger.ecu.exception.SerialCommunicationException;
 
 public final class ElmConnectionManager implements ConnectionManager {
-    private ElmConnection connection;
+    private final SerialConnection connection;
+    private final ElmResponseReader reader = new ElmResponseReader();
+    private static final char PROMPT = '>';
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
 
     private static final Logger LOGGER = getLogger(ElmConnectionManager.class);
     private static int baudrate = 9600;
 
     private int elmMode = 0;
+    private boolean canProtocol;
     private String portName;
 
     public static enum ERROR_TYPE{NO_ERROR, UNKNOWN_PROTOCOL, ELM_NOT_FOUND,
@@ -60,6 +62,16 @@ public final class ElmConnectionManager implements ConnectionManager {
        // readTimeout = timeout;
     }
 
+    /**
+     * Use an already open connection to an ELM327, such as an emulator.
+     */
+    public ElmConnectionManager(SerialConnection connection) {
+        checkNotNull(connection, "connection");
+
+        this.portName = connection.getClass().getSimpleName();
+        this.connection = connection;
+    }
+
     @Override
     public void open(byte[] start, byte[] stop) {
     }
@@ -68,6 +80,14 @@ public final class ElmConnectionManager implements ConnectionManager {
     	return elmMode;
     }
 
+    /**
+     * @return true if the ELM327 talks ISO 15765 CAN to the ECU, which
+     * allows up to six PIDs in one mode 01 request
+     */
+    public boolean isCanProtocol() {
+        return canProtocol;
+    }
+
     private int parseProtocolType(String protocol) {
     	String s = protocol.toLowerCase().trim();
 
@@ -224,7 +244,10 @@ public final class ElmConnectionManager implements ConnectionManager {
 	                if (LOGGER.isDebugEnabled())
                         LOGGER.debug("ELM327 accepted Protocol Init!");
 
-	            LOGGER.info("Current Protocol: " + getCurrentProtcol());
+	            final String protocol = getCurrentProtcol();
+	            LOGGER.info("Current Protocol: " + protocol);
+	            canProtocol = (elmMode >= 6 && elmMode <= 9)
+	                    || protocol.contains("15765");
 
 	            result = sendAndWaitForChar("0100", 5000, ">").trim();
 	            if (LOGGER.isDebugEnabled())
@@ -252,7 +275,7 @@ public final class ElmConnectionManager implements ConnectionManager {
     public void send(String command) {
         checkNotNull(command, "bytes");
         connection.readStaleData();
-        connection.write(command);
+        connection.write(encodeCommand(command));
     }
 
     // Send request and wait specified time for response with exact length
@@ -260,20 +283,69 @@ public final class ElmConnectionManager implements ConnectionManager {
     	return sendAndWaitForChar(command, timeout, "\n");
     }
 
-    // Send request and wait specified time for response with exact length
+    // Send request and wait up to the timeout for the response to end with
+    // the given character, partial responses are returned on timeout
     public String sendAndWaitForChar(String command, int timeout, String charac) {
+        send(command);
+        reader.read(connection, charac.charAt(0), timeout);
+        return reader.getText();
+    }
+
+    /**
+     * Send a prepared command and decode the hex data of the response.
+     * @param command - the command bytes including the carriage return,
+     *                  see {@link #encodeCommand(byte[], int, int)}
+     * @param timeout - the maximum time to wait for the prompt in ms
+     * @return the number of data bytes in {@link #getResponseData()}, zero
+     * if the response carried no data
+     */
+    public int sendAndReadData(byte[] command, int timeout) {
         connection.readStaleData();
         connection.write(command);
-        long lastChange = currentTimeMillis();
+        if (!reader.read(connection, PROMPT, timeout)) {
+            LOGGER.warn("ELM327 response timeout: " + reader.getText());
+        }
+        return reader.decode();
+    }
+
+    /**
+     * @return the data of the last response read by
+     * {@link #sendAndReadData(byte[], int)}, valid until the next request
+     */
+    public byte[] getResponseData() {
+        return reader.getData();
+    }
 
-        String response = "";
-        while(!response.contains(charac)) {
-            response += connection.readAvailable();
-        	if(currentTimeMillis() - lastChange > timeout) break;
-        	sleep(1);
+    /**
+     * @return the first line of the last response which was not hex data,
+     * such as <code>NO DATA</code>, or null if there was none
+     */
+    public String getResponseStatus() {
+        return reader.getStatus();
+    }
+
+    /**
+     * @return the bytes as an ELM327 hex command terminated by a carriage
+     * return, for example <code>010C0D\r</code>
+     */
+    public static byte[] encodeCommand(byte[] bytes, int offset, int length) {
+        final byte[] command = new byte[length * 2 + 1];
+        for (int i = 0; i < length; i++) {
+            final int b = bytes[offset + i] & 0xFF;
+            command[i * 2] = (byte) HEX_DIGITS[b >> 4];
+            command[i * 2 + 1] = (byte) HEX_DIGITS[b & 0x0F];
         }
+        command[command.length - 1] = '\r';
+        return command;
+    }
 
-        return response.replace(charac, "").trim();
+    private static byte[] encodeCommand(String command) {
+        final byte[] bytes = new byte[command.length() + 1];
+        for (int i = 0; i < command.length(); i++) {
+            bytes[i] = (byte) command.charAt(i);
+        }
+        bytes[bytes.length - 1] = '\r';
+        return bytes;
     }
 
 
@@ -0,0 +1,209 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.elm327;
+
+import static java.lang.System.currentTimeMillis;
+
+import com.romraider.io.serial.connection.SerialConnection;
+
+/**
+ * Reads ELM327 responses byte by byte into a reusable buffer and decodes
+ * the hex data lines they carry.  Responses spanning several CAN frames
+ * are printed by the ELM327 as a three digit byte count followed by one
+ * line per frame prefixed with the frame index, for example:
+ * <pre>
+ * 00A
+ * 0: 41 0C 1A F8 0D 40
+ * 1: 05 7B 00 00 00 00 00
+ * </pre>
+ * The frame data is joined and cut to the byte count, which removes the
+ * padding of the last frame.  Any line that is not hex data, such as
+ * <code>NO DATA</code> or <code>SEARCHING...</code>, is kept as the
+ * response status.
+ */
+final class ElmResponseReader {
+    private byte[] text = new byte[256];
+    private int textLength;
+    private byte[] data = new byte[64];
+    private int dataLength;
+    private String status;
+
+    /**
+     * Read a response up to the terminator character, which is not kept.
+     * @param connection - the connection to read from
+     * @param terminator - the character ending the response
+     * @param timeout - the maximum time to wait in milliseconds
+     * @return true if the terminator was read, false if the timeout passed
+     */
+    boolean read(SerialConnection connection, int terminator, long timeout) {
+        textLength = 0;
+        final long deadline = currentTimeMillis() + timeout;
+        while (true) {
+            final long remaining = deadline - currentTimeMillis();
+            if (remaining <= 0 || !connection.waitForBytes(1, remaining)) {
+                return false;
+            }
+            for (int available = connection.available(); available > 0; available--) {
+                final int b = connection.read();
+                if (b == terminator) {
+                    return true;
+                }
+                // some adapters send a null byte ahead of the prompt
+                if (b > 0) {
+                    appendText(b);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the text of the last response without leading and trailing
+     * white space
+     */
+    String getText() {
+        int start = 0;
+        int end = textLength;
+        while (start < end && text[start] <= ' ') start++;
+        while (end > start && text[end - 1] <= ' ') end--;
+        return asText(start, end);
+    }
+
+    /**
+     * Decode the hex data of the last response.
+     * @return the number of data bytes, available from {@link #getData()}
+     */
+    int decode() {
+        dataLength = 0;
+        status = null;
+        int expected = -1;
+        int start = 0;
+        while (start < textLength) {
+            int end = start;
+            while (end < textLength && text[end] != '\r' && text[end] != '\n') end++;
+            expected = decodeLine(start, end, expected);
+            start = end + 1;
+        }
+        if (expected >= 0 && dataLength > expected) {
+            dataLength = expected;
+        }
+        return dataLength;
+    }
+
+    /**
+     * @return the buffer holding the decoded data, valid until the next
+     * response is decoded
+     */
+    byte[] getData() {
+        return data;
+    }
+
+    /**
+     * @return the first line of the last response that is not hex data,
+     * or null if there was none
+     */
+    String getStatus() {
+        return status;
+    }
+
+    // returns the expected byte count of a multi-frame response
+    private int decodeLine(int start, int end, int expected) {
+        while (start < end && text[start] == ' ') start++;
+        while (end > start && text[end - 1] == ' ') end--;
+        if (start == end) {
+            return expected;
+        }
+        if (end - start == 3 && isHex(start, end)) {
+            return (hexValue(text[start]) << 8)
+                    | (hexValue(text[start + 1]) << 4)
+                    | hexValue(text[start + 2]);
+        }
+        int from = start;
+        if (end - start > 2 && text[start + 1] == ':' && hexValue(text[start]) >= 0) {
+            from += 2;
+        }
+        final int mark = dataLength;
+        int digits = 0;
+        int value = 0;
+        for (int i = from; i < end; i++) {
+            final byte b = text[i];
+            if (b == ' ') {
+                if ((digits & 1) != 0) break;
+                continue;
+            }
+            final int nibble = hexValue(b);
+            if (nibble < 0) {
+                digits = -1;
+                break;
+            }
+            value = (value << 4) | nibble;
+            if ((++digits & 1) == 0) {
+                appendData(value);
+                value = 0;
+            }
+        }
+        if (digits <= 0 || (digits & 1) != 0) {
+            dataLength = mark;
+            if (status == null) {
+                status = asText(start, end);
+            }
+        }
+        return expected;
+    }
+
+    private boolean isHex(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (hexValue(text[i]) < 0) return false;
+        }
+        return true;
+    }
+
+    private static int hexValue(byte b) {
+        if (b >= '0' && b <= '9') return b - '0';
+        if (b >= 'A' && b <= 'F') return b - 'A' + 10;
+        if (b >= 'a' && b <= 'f') return b - 'a' + 10;
+        return -1;
+    }
+
+    private void appendText(int b) {
+        if (textLength == text.length) {
+            final byte[] larger = new byte[text.length * 2];
+            System.arraycopy(text, 0, larger, 0, textLength);
+            text = larger;
+        }
+        text[textLength++] = (byte) b;
+    }
+
+    private void appendData(int b) {
+        if (dataLength == data.length) {
+            final byte[] larger = new byte[data.length * 2];
+            System.arraycopy(data, 0, larger, 0, dataLength);
+            data = larger;
+        }
+        data[dataLength++] = (byte) b;
+    }
+
+    private String asText(int start, int end) {
+        final char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = (char) (text[i] & 0xFF);
+        }
+        return new String(chars);
+    }
+}
@@ -19,6 +19,8 @@
 
 package com.romraider.io.j2534.api;
 
+import java.nio.ByteBuffer;
+
 import com.romraider.io.j2534.api.J2534Impl.TxFlags;
 
 public interface J2534 {
@@ -59,6 +61,8 @@ public interface J2534 {
 
     void readMsg(int channelId, byte[] response, long timeout);
 
+    int readMsg(int channelId, int numMsg, ByteBuffer response, long timeout);
+
     void stopMsgFilter(int channelId, int msgId);
 
     void clearBuffers(int channelId);
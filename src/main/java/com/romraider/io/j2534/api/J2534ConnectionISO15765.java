@@ -23,6 +23,8 @@ import static com.romraider.util.HexUtil.asHex;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static org.apache.log4j.Logger.getLogger;
 
+import java.nio.ByteBuffer;
+
 import org.apache.log4j.Logger;
 
 import com.romraider.io.connection.ConnectionManager;
@@ -41,6 +43,9 @@ public final class J2534ConnectionISO15765 implements ConnectionManager {
     private int msgId;
     private final long timeout;
     private byte[] stopRequest;
+    // wraps the caller's response array, which is usually the same one
+    // from poll to poll
+    private ByteBuffer responseBuffer = ByteBuffer.allocate(0);
 
     public J2534ConnectionISO15765(
             ConnectionProperties connectionProperties,
@@ -78,8 +83,11 @@ public final class J2534ConnectionISO15765 implements ConnectionManager {
         pollState.setFastPoll(false);
         pollState.setCurrentState(PollingState.State.STATE_0);
         api.writeMsg(channelId, request, timeout, TxFlags.ISO15765_FRAME_PAD);
-        final byte[] readMsg = api.readMsg(channelId, 1, timeout);
-        System.arraycopy(readMsg, 0, response, 0, readMsg.length) ;
+        if (responseBuffer.array() != response) {
+            responseBuffer = ByteBuffer.wrap(response);
+        }
+        responseBuffer.clear();
+        api.readMsg(channelId, 1, responseBuffer, timeout);
     }
 
     // Send request and wait specified time for one response with unknown length
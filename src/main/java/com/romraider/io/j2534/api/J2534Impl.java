@@ -23,10 +23,9 @@ import static java.lang.System.arraycopy;
 import static java.lang.System.currentTimeMillis;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.apache.log4j.Logger;
@@ -39,6 +38,7 @@ import com.romraider.io.j2534.api.J2534_v0404.SCONFIG_LIST;
 import com.romraider.util.HexUtil;
 import com.sun.jna.Native;
 import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
 import com.sun.jna.ptr.NativeLongByReference;
 
 /**
@@ -49,6 +49,17 @@ public final class J2534Impl implements J2534 {
     private final NativeLong protocolID;
     private boolean loopback;
     private static J2534_v0404 lib;
+    // native messages reused by every read and write, read messages are
+    // decoded from native memory without copying the whole structure
+    private final PASSTHRU_MSG writeMsg;
+    private PASSTHRU_MSG[] readMsgs = new PASSTHRU_MSG[0];
+    private final NativeLongByReference pNumMsgs = new NativeLongByReference();
+    private final int maxDataSize;
+    private final int rxStatusOffset;
+    private final int timestampOffset;
+    private final int dataSizeOffset;
+    private final int dataOffset;
+    private ByteBuffer readBuffer;
 
 
     /**
@@ -562,9 +573,35 @@ public final class J2534Impl implements J2534 {
      * @exception    J2534Exception on various non-zero return status
      */
     public J2534Impl(Protocol protocol, String library) {
+        this(protocol, load(library));
+    }
+
+    /**
+     * Constructor declaration for an already loaded library
+     * @param         protocol - <b>Protocol</b> enum specified by J2534-1
+     * @param        library  - the PassThru functions of the J2534 device
+     */
+    J2534Impl(Protocol protocol, J2534_v0404 library) {
         this.protocolID = new NativeLong(protocol.getValue());
+        lib = library;
+        writeMsg = passThruMessage();
+        writeMsg.rxStatus = new NativeLong(0);
+        writeMsg.timestamp = new NativeLong(0);
+        writeMsg.dataSize = new NativeLong(0);
+        writeMsg.extraDataIndex = new NativeLong(0);
+        writeMsg.write();
+        readPool(1);
+        maxDataSize = writeMsg.data.length;
+        rxStatusOffset = writeMsg.getFieldOffset("rxStatus");
+        timestampOffset = writeMsg.getFieldOffset("timestamp");
+        dataSizeOffset = writeMsg.getFieldOffset("dataSize");
+        dataOffset = writeMsg.getFieldOffset("data");
+        readBuffer = ByteBuffer.allocate(maxDataSize * 2);
+    }
+
+    private static J2534_v0404 load(String library) {
         try {
-            lib = new J2534_v0404(library);
+            return new J2534_v0404(library);
         }
         catch (Throwable t) {
             throw new J2534Exception(t.getMessage(), t);
@@ -898,15 +935,23 @@ public final class J2534Impl implements J2534 {
      */
     @Override
     public void writeMsg(int channelId, byte[] data, long timeout, TxFlags flag) {
-        PASSTHRU_MSG msg = passThruMessage(flag, data);
-        if (LOGGER.isTraceEnabled())
+        final PASSTHRU_MSG msg = writeMsg;
+        msg.protocolID = protocolID;
+        msg.txFlags = new NativeLong(flag.getValue());
+        msg.dataSize = new NativeLong(data.length);
+        msg.writeField("protocolID");
+        msg.writeField("txFlags");
+        msg.writeField("dataSize");
+        msg.getPointer().write(dataOffset, data, 0, data.length);
+        if (LOGGER.isTraceEnabled()) {
+            msg.read();
             LOGGER.trace("Write Msg: " + toString(msg));
-        NativeLongByReference numMsg = new NativeLongByReference();
-        numMsg.setValue(new NativeLong(1));
+        }
+        pNumMsgs.setValue(new NativeLong(1));
         NativeLong ret = lib.PassThruWriteMsgs(
                 new NativeLong(channelId),
                 msg.getPointer(),
-                numMsg,
+                pNumMsgs,
                 new NativeLong(timeout)
             );
         if (ret.intValue() != Status.NOERROR.getValue()) handleError(
@@ -923,48 +968,30 @@ public final class J2534Impl implements J2534 {
      */
     @Override
     public void readMsg(int channelId, byte[] response, long timeout) {
-        int index = 0;
+        final ByteBuffer buffer = ByteBuffer.wrap(response);
         long start = currentTimeMillis();
         long end = start + timeout;
         long current = start;
-        int len = 0;
         do {
             if (currentTimeMillis() >= end) {
                 String errString = String.format(
                     "readMsg error: timeout expired waiting for %d more bytes",
-                    response.length - index);
+                    buffer.remaining());
                 throw new J2534Exception(errString);
             }
-            PASSTHRU_MSG msg = doReadMsg(channelId, timeout);
-            if (LOGGER.isTraceEnabled())
-                LOGGER.trace("Read B Msg: " + toString(msg));
-            if (!isResponse(msg)) continue;
-            // if we get a large msg back, only read what will fit in the response buffer
-            len = 0;
-            if (msg.dataSize.intValue() <= (response.length - index)) {
-                len = msg.dataSize.intValue();
-            }
-            else if (msg.dataSize.intValue() == (response.length - index)) {
-                len = response.length;
+            if (readPool(channelId, 1, timeout) == 1) {
+                final PASSTHRU_MSG msg = readMsgs[0];
                 if (LOGGER.isTraceEnabled())
-                    LOGGER.trace(String.format(
-                        "readMsg: only read %d of %d bytes from response message",
-                        len, msg.dataSize.intValue()));
-            }
-            else if (msg.dataSize.intValue() > (response.length - index)) {
-                len = response.length - index;
-                LOGGER.trace(String.format(
-                        "readMsg: only read %d of %d bytes from response message",
-                        len, msg.dataSize.intValue()));
+                    LOGGER.trace("Read B Msg: " + toString(msg));
+                // if we get a large msg back, only read what will fit in the response buffer
+                if (isResponse(msg)) putData(msg, buffer);
             }
-            arraycopy(msg.data, 0, response, index, len);
-            index += len;
             current = currentTimeMillis();
-        } while ((current <= end) && (index < response.length));
+        } while ((current <= end) && buffer.hasRemaining());
         if (LOGGER.isTraceEnabled())
             LOGGER.trace(String.format(
                 "readMsg: read %d of %d bytes in %d msecs",
-                index, response.length, (current - start)));
+                buffer.position(), response.length, (current - start)));
     }
 
     /**
@@ -975,16 +1002,20 @@ public final class J2534Impl implements J2534 {
      */
     @Override
     public byte[] readMsg(int channelId, long maxWait) {
-        List<byte[]> responses = new ArrayList<byte[]>();
+        readBuffer.clear();
         long end = currentTimeMillis() + maxWait;
         do {
-            PASSTHRU_MSG msg = doReadMsg(channelId, maxWait);
-            if (LOGGER.isTraceEnabled())
-                LOGGER.trace("Read W Msg: " + toString(msg));
-            if (isResponse(msg))
-                responses.add(data(msg));
+            if (readPool(channelId, 1, maxWait) == 1) {
+                final PASSTHRU_MSG msg = readMsgs[0];
+                if (LOGGER.isTraceEnabled())
+                    LOGGER.trace("Read W Msg: " + toString(msg));
+                if (isResponse(msg)) {
+                    ensureReadBuffer(maxDataSize);
+                    putData(msg, readBuffer);
+                }
+            }
         } while (currentTimeMillis() <= end);
-        return concat(responses);
+        return Arrays.copyOf(readBuffer.array(), readBuffer.position());
     }
 
     /**
@@ -998,10 +1029,33 @@ public final class J2534Impl implements J2534 {
      */
     @Override
     public byte[] readMsg(int channelId, int numMsg, long timeout) {
+        readBuffer.clear();
+        ensureReadBuffer((numMsg + 1) * maxDataSize);
+        final int length = readMsg(channelId, numMsg, readBuffer, timeout);
+        return Arrays.copyOf(readBuffer.array(), length);
+    }
+
+    /**
+     * Retrieve the indicated number of messages through the existing communication
+     * channel from the vehicle into a buffer, starting at its position. Each
+     * PassThruReadMsgs call asks for all of the messages still expected, into
+     * native messages reused from call to call, and the message data is copied
+     * from native memory straight into the buffer. Data which does not fit in
+     * the remaining space of the buffer is dropped. If the number of messages
+     * can not be read before the timeout expires, throw an exception.
+     * @param    channelId - handle to the open communications channel
+     * @param    numMsg    - number of valid messages to retrieve
+     * @param    response  - buffer to be populated with the vehicle network messages
+     * @param    timeout   - maximum time (in milliseconds) for read completion
+     * @return   number of bytes read into the buffer
+     * @throws   J2534Exception
+     */
+    @Override
+    public int readMsg(int channelId, int numMsg, ByteBuffer response, long timeout) {
         if (loopback) {
             numMsg++;
         }
-        List<byte[]> responses = new ArrayList<byte[]>();
+        final int start = response.position();
         long end = currentTimeMillis() + timeout;
         do {
             if (currentTimeMillis() >= end) {
@@ -1010,18 +1064,18 @@ public final class J2534Impl implements J2534 {
                     numMsg);
                 throw new J2534Exception(errString);
             }
-            PASSTHRU_MSG[] msgs = doReadMsg(channelId, numMsg, timeout);  // num of msgs to read
-            for (PASSTHRU_MSG msg : msgs) {
+            final int cnt = readPool(channelId, numMsg, timeout);  // num of msgs to read
+            for (int i = 0; i < cnt && numMsg != 0; i++) {
+                final PASSTHRU_MSG msg = readMsgs[i];
                 if (LOGGER.isTraceEnabled())
                     LOGGER.trace("Read # Msg: " + toString(msg));
                 if (isResponse(msg)) {
-                    responses.add(data(msg));
+                    putData(msg, response);
                     numMsg--;
                 }
-                if (numMsg == 0) break;
             }
         } while (numMsg != 0);
-        return concat(responses);
+        return response.position() - start;
     }
 
     /**
@@ -1086,20 +1140,8 @@ public final class J2534Impl implements J2534 {
                 "PassThruClose", ret.intValue());
         }
 
-    private byte[] concat(List<byte[]> responses) {
-        int length = 0;
-        for (byte[] response : responses) length += response.length;
-        byte[] result = new byte[length];
-        int index = 0;
-        for (byte[] response : responses) {
-            if (response.length == 0) continue;
-            System.arraycopy(response, 0, result, index, response.length);
-            index += response.length;
-        }
-        return result;
-    }
-
     private String toString(PASSTHRU_MSG msg) {
+        msg.read();
         byte[] bytes = new byte[msg.dataSize.intValue()];
         arraycopy(msg.data, 0, bytes, 0, bytes.length);
         String str = String.format(
@@ -1116,8 +1158,8 @@ public final class J2534Impl implements J2534 {
     }
 
     private boolean isResponse(PASSTHRU_MSG msg) {
-        if (msg.timestamp.intValue() != 0) {
-            switch (RxStatus.get(msg.rxStatus.intValue())) {
+        if (nativeLong(msg, timestampOffset) != 0) {
+            switch (RxStatus.get(nativeLong(msg, rxStatusOffset))) {
                 case RX_INDICATION:
                     return true;
 
@@ -1152,28 +1194,18 @@ public final class J2534Impl implements J2534 {
         return false;
     }
 
-    private PASSTHRU_MSG doReadMsg(int channelId, long timeout) {
-        PASSTHRU_MSG msg = passThruMessage();
-        NativeLongByReference pNumMsgs = new NativeLongByReference();
-        pNumMsgs.setValue(new NativeLong(1));
-        NativeLong status = lib.PassThruReadMsgs(
-                new NativeLong(channelId),
-                msg.getPointer(),
-                pNumMsgs,
-                new NativeLong(timeout)
-            );
-        if (status.intValue() != Status.NOERROR.getValue() &&
-            status.intValue() != Status.ERR_TIMEOUT.getValue() &&
-            status.intValue() != Status.ERR_BUFFER_EMPTY.getValue())
-                handleError("PassThruReadMsgs", status.intValue());
-        msg.read();
-        return msg;
-    }
-
-    private PASSTHRU_MSG[] doReadMsg(int channelId, int nm, long timeout) {
-        PASSTHRU_MSG[] msgs =
-        (PASSTHRU_MSG[]) new PASSTHRU_MSG.ByReference().toArray(nm);
-        NativeLongByReference pNumMsgs = new NativeLongByReference();
+    /**
+     * Read up to the given number of messages in one PassThruReadMsgs call
+     * into the reused native messages. Only the messages reported as read
+     * are valid, the timestamps of the others are cleared so they are not
+     * mistaken for responses.
+     * @return the number of messages read
+     */
+    private int readPool(int channelId, int nm, long timeout) {
+        final PASSTHRU_MSG[] msgs = readPool(nm);
+        for (int i = 0; i < nm; i++) {
+            setNativeLong(msgs[i], timestampOffset, 0);
+        }
         pNumMsgs.setValue(new NativeLong(nm));
         NativeLong status = lib.PassThruReadMsgs(
                 new NativeLong(channelId),
@@ -1186,12 +1218,63 @@ public final class J2534Impl implements J2534 {
             status.intValue() != Status.ERR_BUFFER_EMPTY.getValue())
                 handleError("PassThruReadMsgs", status.intValue());
         int cnt = pNumMsgs.getValue().intValue();
-        if (cnt > nm && LOGGER.isTraceEnabled())
-            LOGGER.trace(cnt - nm + " msgs dropped");
-        for (int i = 0; i < cnt ; i++) {
-            msgs[i].read();
+        if (cnt > nm) {
+            if (LOGGER.isTraceEnabled())
+                LOGGER.trace(cnt - nm + " msgs dropped");
+            cnt = nm;
+        }
+        return cnt;
+    }
+
+    private PASSTHRU_MSG[] readPool(int nm) {
+        if (readMsgs.length < nm) {
+            readMsgs = (PASSTHRU_MSG[]) new PASSTHRU_MSG.ByReference().toArray(nm);
+        }
+        return readMsgs;
+    }
+
+    private void ensureReadBuffer(int remaining) {
+        if (readBuffer.remaining() < remaining) {
+            final ByteBuffer larger = ByteBuffer.allocate(
+                    Math.max(readBuffer.capacity() * 2, readBuffer.position() + remaining));
+            readBuffer.flip();
+            larger.put(readBuffer);
+            readBuffer = larger;
+        }
+    }
+
+    // copy the message data from native memory to the buffer
+    private void putData(PASSTHRU_MSG msg, ByteBuffer response) {
+        final int size = nativeLong(msg, dataSizeOffset);
+        final int len = Math.min(size, response.remaining());
+        if (len < size && LOGGER.isTraceEnabled())
+            LOGGER.trace(String.format(
+                "readMsg: only read %d of %d bytes from response message",
+                len, size));
+        final Pointer pointer = msg.getPointer();
+        if (response.hasArray()) {
+            pointer.read(dataOffset, response.array(),
+                    response.arrayOffset() + response.position(), len);
+            response.position(response.position() + len);
+        }
+        else {
+            response.put(pointer.getByteBuffer(dataOffset, len));
+        }
+    }
+
+    private static int nativeLong(PASSTHRU_MSG msg, int offset) {
+        return Native.LONG_SIZE == 8
+                ? (int) msg.getPointer().getLong(offset)
+                : msg.getPointer().getInt(offset);
+    }
+
+    private static void setNativeLong(PASSTHRU_MSG msg, int offset, int value) {
+        if (Native.LONG_SIZE == 8) {
+            msg.getPointer().setLong(offset, value);
+        }
+        else {
+            msg.getPointer().setInt(offset, value);
         }
-        return msgs;
     }
 
     private ConfigItem[] configItems(SCONFIG_LIST sConfigs) {
@@ -1279,13 +1362,6 @@ public final class J2534Impl implements J2534 {
         return msg;
     }
 
-    private byte[] data(PASSTHRU_MSG msg) {
-        int length = msg.dataSize.intValue();
-        byte[] data = new byte[length];
-        arraycopy(msg.data, 0, data, 0, length);
-        return data;
-    }
-
     private int setMsgFilter(int channelId, int filterType,
             PASSTHRU_MSG maskMsg, PASSTHRU_MSG patternMsg,
             PASSTHRU_MSG flowMsg) {
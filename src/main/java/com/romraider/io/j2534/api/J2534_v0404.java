@@ -38,6 +38,13 @@ public class J2534_v0404 implements Library {
         Native.register(library);
     }
 
+    /**
+     * For implementations of the PassThru functions in Java which do not
+     * load a native library, such as a simulated device for testing.
+     */
+    protected J2534_v0404() {
+    }
+
     public native NativeLong PassThruOpen(
             Pointer pName,
             NativeLongByReference pDeviceID
@@ -164,6 +171,13 @@ public class J2534_v0404 implements Library {
                     "protocolID", "rxStatus", "txFlags",
                     "timestamp", "dataSize", "extraDataIndex", "data"});
         }
+        /**
+         * @return the offset in bytes of the named field from the start of
+         * the message in native memory
+         */
+        public int getFieldOffset(String name) {
+            return fieldOffset(name);
+        }
         public static class ByReference
             extends PASSTHRU_MSG
             implements Structure.ByReference {
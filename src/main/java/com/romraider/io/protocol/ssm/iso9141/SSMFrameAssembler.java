@@ -0,0 +1,49 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.protocol.ssm.iso9141;
+
+import static com.romraider.io.protocol.ssm.iso9141.SSMProtocol.HEADER;
+import static com.romraider.io.protocol.ssm.iso9141.SSMProtocol.RESPONSE_NON_DATA_BYTES;
+
+import com.romraider.io.serial.connection.FrameAssembler;
+
+/**
+ * Completes an SSM response once its data size byte has been received.
+ * The K-line echoes the request, so the response packet follows the
+ * request bytes.
+ */
+public final class SSMFrameAssembler implements FrameAssembler {
+    // header, destination, source and data size
+    private static final int HEADER_BYTES = 4;
+
+    @Override
+    public int getResponseLength(byte[] request, byte[] received, int count) {
+        final int start = request.length;
+        if (count < start + HEADER_BYTES) {
+            return UNKNOWN;
+        }
+        if (received[start] != HEADER) {
+            // no echo or not an SSM packet, wait for the line to go quiet
+            return UNKNOWN;
+        }
+        // the data size counts the command byte
+        return start + RESPONSE_NON_DATA_BYTES - 1 + (received[start + 3] & 0xFF);
+    }
+}
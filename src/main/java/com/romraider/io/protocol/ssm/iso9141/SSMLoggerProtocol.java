@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2015 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -22,9 +22,12 @@ package com.romraider.io.protocol.ssm.iso9141;
 import static com.romraider.io.protocol.ssm.iso9141.SSMProtocol.ADDRESS_SIZE;
 import static com.romraider.io.protocol.ssm.iso9141.SSMProtocol.DATA_SIZE;
 import static com.romraider.io.protocol.ssm.iso9141.SSMProtocol.REQUEST_NON_DATA_BYTES;
+import static com.romraider.io.protocol.ssm.iso9141.SSMProtocol.READ_ADDRESS_COMMAND;
 import static com.romraider.io.protocol.ssm.iso9141.SSMProtocol.RESPONSE_NON_DATA_BYTES;
 import static com.romraider.io.protocol.ssm.iso9141.SSMResponseProcessor.extractResponseData;
 import static com.romraider.io.protocol.ssm.iso9141.SSMResponseProcessor.filterRequestFromResponse;
+import static com.romraider.io.protocol.ssm.iso9141.SSMResponseProcessor.responseDataOffset;
+import static com.romraider.io.protocol.ssm.iso9141.SSMResponseProcessor.validateResponse;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
 import static java.lang.System.arraycopy;
@@ -32,6 +35,9 @@ import static java.lang.System.arraycopy;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.romraider.io.protocol.Protocol;
@@ -43,7 +49,11 @@ import com.romraider.logger.ecu.comms.query.EcuQuery;
 import com.romraider.logger.ecu.definition.Module;
 
 public final class SSMLoggerProtocol implements LoggerProtocol {
+    // the poll scheduler may alternate between several query sets
+    private static final int MAX_READ_PLANS = 16;
     private final Protocol protocol = new SSMProtocol();
+    private final List<ReadPlan> readPlans = new ArrayList<ReadPlan>();
+    private ReadPlan readPlan;
 
     public byte[] constructEcuInitRequest(Module module) {
         return protocol.constructEcuInitRequest(module);
@@ -54,13 +64,38 @@ public final class SSMLoggerProtocol implements LoggerProtocol {
     }
 
     public byte[] constructReadAddressRequest(Module module, Collection<EcuQuery> queries) {
-        Collection<EcuQuery> filteredQueries = filterDuplicates(queries);
-        return protocol.constructReadAddressRequest(module, convertToByteAddresses(filteredQueries));
+        ReadPlan plan = findReadPlan(module, queries);
+        if (plan == null) {
+            Collection<EcuQuery> filteredQueries = filterDuplicates(queries);
+            byte[] request = protocol.constructReadAddressRequest(module, convertToByteAddresses(filteredQueries));
+            plan = new ReadPlan(module, queries, request);
+            if (readPlans.size() == MAX_READ_PLANS) {
+                readPlans.remove(0);
+            }
+            readPlans.add(plan);
+        }
+        else {
+            // the response validation reads the module set by the request build
+            SSMProtocol.module = module;
+        }
+        readPlan = plan;
+        return plan.request;
     }
 
     public byte[] constructReadAddressResponse(Collection<EcuQuery> queries, PollingState pollState) {
         checkNotNullOrEmpty(queries, "queries");
         checkNotNull(pollState, "pollState");
+        final ReadPlan plan = readPlan;
+        if (plan != null && plan.matches(queries)) {
+            switch (pollState.getCurrentState()) {
+                case STATE_0:
+                return plan.echoedResponse;
+                case STATE_1:
+                return plan.response;
+            default:
+                throw new UnsupportedOperationException("Poll mode not supported:" + pollState.getCurrentState());
+            }
+        }
         // 0x80 0xF0 0x10 data_length 0xE8 value1 value2 ... valueN checksum
         Collection<EcuQuery> filteredQueries = filterDuplicates(queries);
         int numAddresses = 0;
@@ -78,6 +113,24 @@ public final class SSMLoggerProtocol implements LoggerProtocol {
     }
 
     public byte[] preprocessResponse(byte[] request, byte[] response, PollingState pollState) {
+        final ReadPlan plan = readPlan;
+        if (plan != null && request == plan.request && request[4] == READ_ADDRESS_COMMAND) {
+            switch (pollState.getCurrentState()) {
+                case STATE_0:
+                if (response == plan.echoedResponse) {
+                    arraycopy(response, request.length, plan.response, 0, plan.response.length);
+                    return plan.response;
+                }
+                break;
+                case STATE_1:
+                if (response == plan.response) {
+                    return response;
+                }
+                break;
+            default:
+                break;
+            }
+        }
         return filterRequestFromResponse(request, response, pollState);
     }
 
@@ -98,6 +151,17 @@ public final class SSMLoggerProtocol implements LoggerProtocol {
     public void processReadAddressResponses(Collection<EcuQuery> queries, byte[] response, PollingState pollState) {
         checkNotNullOrEmpty(queries, "queries");
         checkNotNullOrEmpty(response, "response");
+        final ReadPlan plan = readPlan;
+        if (plan != null && response.length == plan.response.length && plan.matches(queries)) {
+            validateResponse(response);
+            final int dataOffset = responseDataOffset();
+            int i = 0;
+            for (EcuQuery query : queries) {
+                query.setResponse(response, dataOffset + plan.offsets[i], plan.lengths[i]);
+                i++;
+            }
+            return;
+        }
         byte[] responseData = extractResponseData(response);
         Collection<EcuQuery> filteredQueries = filterDuplicates(queries);
         Map<String, byte[]> addressResults = new HashMap<String, byte[]>();
@@ -129,6 +193,19 @@ public final class SSMLoggerProtocol implements LoggerProtocol {
         protocol.checkValidWriteResponse(data, response);
     }
 
+    private ReadPlan findReadPlan(Module module, Collection<EcuQuery> queries) {
+        final ReadPlan plan = readPlan;
+        if (plan != null && plan.module == module && plan.matches(queries)) {
+            return plan;
+        }
+        for (ReadPlan cached : readPlans) {
+            if (cached.module == module && cached.matches(queries)) {
+                return cached;
+            }
+        }
+        return null;
+    }
+
     private Collection<EcuQuery> filterDuplicates(Collection<EcuQuery> queries) {
         Collection<EcuQuery> filteredQueries = new ArrayList<EcuQuery>();
         for (EcuQuery query : queries) {
@@ -154,4 +231,59 @@ public final class SSMLoggerProtocol implements LoggerProtocol {
         }
         return addresses;
     }
+
+    /**
+     * The request frame and response layout for one set of queries.  The
+     * logger polls the same query lists every cycle, so the frame, the
+     * response buffers and each query's position in the response data are
+     * built once and reused until the lists change.
+     */
+    private static final class ReadPlan {
+        private final Module module;
+        private final EcuQuery[] queries;
+        private final byte[] request;
+        private final byte[] response;
+        private final byte[] echoedResponse;
+        private final int[] offsets;
+        private final int[] lengths;
+
+        private ReadPlan(Module module, Collection<EcuQuery> queries, byte[] request) {
+            this.module = module;
+            this.queries = queries.toArray(new EcuQuery[queries.size()]);
+            this.request = request;
+            this.offsets = new int[this.queries.length];
+            this.lengths = new int[this.queries.length];
+            // duplicate queries are read once and share the response bytes
+            final Map<String, Integer> addressOffsets = new LinkedHashMap<String, Integer>();
+            int dataLength = 0;
+            for (int i = 0; i < this.queries.length; i++) {
+                final EcuQuery query = this.queries[i];
+                final int length = DATA_SIZE * (query.getBytes().length / ADDRESS_SIZE);
+                Integer offset = addressOffsets.get(query.getHex());
+                if (offset == null) {
+                    offset = dataLength;
+                    addressOffsets.put(query.getHex(), offset);
+                    dataLength += length;
+                }
+                offsets[i] = offset;
+                lengths[i] = length;
+            }
+            // 0x80 0xF0 0x10 data_length 0xE8 value1 value2 ... valueN checksum
+            this.response = new byte[dataLength + RESPONSE_NON_DATA_BYTES];
+            this.echoedResponse = new byte[request.length + response.length];
+        }
+
+        private boolean matches(Collection<EcuQuery> queries) {
+            if (queries.size() != this.queries.length) {
+                return false;
+            }
+            final Iterator<EcuQuery> iterator = queries.iterator();
+            for (EcuQuery query : this.queries) {
+                if (iterator.next() != query) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
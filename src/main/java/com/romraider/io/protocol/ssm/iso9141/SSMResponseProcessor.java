@@ -38,6 +38,9 @@ import com.romraider.logger.ecu.comms.manager.PollingState;
 import com.romraider.logger.ecu.exception.InvalidResponseException;
 
 public final class SSMResponseProcessor {
+    private static final byte[] VALID_RESPONSES = {ECU_INIT_RESPONSE,
+            READ_ADDRESS_RESPONSE, READ_MEMORY_RESPONSE, WRITE_ADDRESS_RESPONSE,
+            WRITE_MEMORY_RESPONSE};
 
     private SSMResponseProcessor() {
         throw new UnsupportedOperationException();
@@ -64,13 +67,24 @@ public final class SSMResponseProcessor {
         assertTrue(response.length > RESPONSE_NON_DATA_BYTES, "Invalid response length");
         assertEquals(HEADER, response[i++], "Invalid header");
         assertEquals(module.getTester()[0], response[i++], "Invalid diagnostic tool id");
-        assertEquals(module.getAddress()[0], response[i++],
-                "Invalid " + module.getName() + " id");
+        if (response[i] != module.getAddress()[0]) {
+            assertEquals(module.getAddress()[0], response[i],
+                    "Invalid " + module.getName() + " id");
+        }
+        i++;
         assertEquals(asByte(response.length - RESPONSE_NON_DATA_BYTES + 1), response[i++], "Invalid response data length");
-        assertOneOf(new byte[]{ECU_INIT_RESPONSE, READ_ADDRESS_RESPONSE, READ_MEMORY_RESPONSE, WRITE_ADDRESS_RESPONSE, WRITE_MEMORY_RESPONSE}, response[i], "Invalid response code");
+        assertOneOf(VALID_RESPONSES, response[i], "Invalid response code");
         assertEquals(calculateChecksum(response), response[response.length - 1], "Invalid checksum");
     }
 
+    /**
+     * @return the offset of the response data in a validated response
+     */
+    public static int responseDataOffset() {
+        // 0x80 0xF0 0x10 data_length 0xE8 response_data checksum
+        return RESPONSE_NON_DATA_BYTES - 1;
+    }
+
     public static byte[] extractResponseData(byte[] response) {
         checkNotNullOrEmpty(response, "response");
         // 0x80 0xF0 0x10 data_length 0xE8 response_data checksum
@@ -0,0 +1,44 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.serial.connection;
+
+/**
+ * A FrameAssembler is implemented by a protocol to tell the serial
+ * connection manager when a response of unknown length is complete, so
+ * that it does not have to wait for the line to go quiet.
+ */
+public interface FrameAssembler {
+
+    /**
+     * Returned while the length of the response can not be determined yet.
+     */
+    int UNKNOWN = -1;
+
+    /**
+     * Determine the length of a response from the bytes received so far.
+     * @param request - the bytes sent to the Module
+     * @param received - the bytes received so far, including any echo of
+     *                   the request
+     * @param count - the number of valid bytes in <code>received</code>
+     * @return the total number of bytes of the response, or UNKNOWN if
+     * more bytes are needed to tell
+     */
+    int getResponseLength(byte[] request, byte[] received, int count);
+}
@@ -0,0 +1,192 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.serial.connection;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+import com.romraider.logger.ecu.exception.SerialCommunicationException;
+
+/**
+ * An in-process stand-in for a K-line serial port.  Written bytes are
+ * echoed and followed by the reply of a {@link Responder}, and every byte
+ * becomes available only after the time it takes on the wire at the
+ * configured baud rate, so that the connection managers can be exercised
+ * and timed without hardware.
+ */
+final class LoopbackSerialConnection implements SerialConnection {
+
+    /**
+     * Simulates the Module on the other end of the line.
+     */
+    interface Responder {
+        /**
+         * @return the reply to the request, without the echo
+         */
+        byte[] respond(byte[] request);
+    }
+
+    private final Responder responder;
+    private final long byteNanos;
+    private final long replyDelayNanos;
+    private byte[] line = new byte[256];
+    private long[] arrivals = new long[256];
+    private int readIndex;
+    private int writeIndex;
+
+    /**
+     * @param responder - produces the reply to each write
+     * @param baudRate - line speed, each byte takes ten bit times
+     * @param replyDelay - time in milliseconds between the end of the
+     *                     request and the start of the reply
+     */
+    LoopbackSerialConnection(Responder responder, int baudRate, long replyDelay) {
+        this.responder = responder;
+        this.byteNanos = 10L * 1000000000L / baudRate;
+        this.replyDelayNanos = MILLISECONDS.toNanos(replyDelay);
+    }
+
+    @Override
+    public synchronized void write(byte[] bytes) {
+        long time = Math.max(nanoTime(), lastArrival());
+        time = queue(bytes, time);
+        final byte[] reply = responder.respond(bytes);
+        if (reply != null) {
+            queue(reply, time + replyDelayNanos);
+        }
+    }
+
+    @Override
+    public synchronized int available() {
+        final long now = nanoTime();
+        int index = readIndex;
+        while (index < writeIndex && arrivals[index] <= now) {
+            index++;
+        }
+        return index - readIndex;
+    }
+
+    @Override
+    public boolean waitForBytes(int numBytes, long timeout) {
+        final long deadline = nanoTime() + MILLISECONDS.toNanos(timeout);
+        // bytes are only queued by write, which is called by the waiting
+        // thread, so the arrival time of the last byte needed is known
+        final long arrival = arrivalOf(numBytes);
+        if (arrival == Long.MAX_VALUE || arrival - deadline > 0) {
+            parkUntil(deadline);
+            return false;
+        }
+        parkUntil(arrival);
+        return true;
+    }
+
+    @Override
+    public int read() {
+        final byte[] bytes = new byte[1];
+        read(bytes);
+        return bytes[0] & 0xFF;
+    }
+
+    @Override
+    public String readLine() {
+        final StringBuilder sb = new StringBuilder();
+        for (int b = read(); b != '\n'; b = read()) {
+            sb.append((char) b);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void read(byte[] bytes) {
+        final long arrival = arrivalOf(bytes.length);
+        if (arrival == Long.MAX_VALUE) {
+            throw new SerialCommunicationException(
+                    "Read bytes: nothing more was sent on the loopback");
+        }
+        parkUntil(arrival);
+        synchronized (this) {
+            System.arraycopy(line, readIndex, bytes, 0, bytes.length);
+            readIndex += bytes.length;
+        }
+    }
+
+    @Override
+    public byte[] readAvailable() {
+        final byte[] bytes = new byte[available()];
+        read(bytes);
+        return bytes;
+    }
+
+    @Override
+    public void readStaleData() {
+        readAvailable();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void sendBreak(int duration) {
+        LockSupport.parkNanos(MILLISECONDS.toNanos(duration));
+    }
+
+    private synchronized long arrivalOf(int numBytes) {
+        final int index = readIndex + numBytes - 1;
+        if (numBytes <= 0) {
+            return nanoTime();
+        }
+        return index < writeIndex ? arrivals[index] : Long.MAX_VALUE;
+    }
+
+    private static void parkUntil(long time) {
+        for (long remaining = time - nanoTime(); remaining > 0;
+                remaining = time - nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private long lastArrival() {
+        return writeIndex > readIndex ? arrivals[writeIndex - 1] : 0L;
+    }
+
+    // queue bytes sent back to back starting at time, returns the time the
+    // last byte arrives
+    private long queue(byte[] bytes, long time) {
+        if (readIndex == writeIndex) {
+            readIndex = 0;
+            writeIndex = 0;
+        }
+        if (writeIndex + bytes.length > line.length) {
+            final int capacity = Math.max(line.length * 2, writeIndex + bytes.length);
+            line = Arrays.copyOf(line, capacity);
+            arrivals = Arrays.copyOf(arrivals, capacity);
+        }
+        for (byte b : bytes) {
+            time += byteNanos;
+            line[writeIndex] = b;
+            arrivals[writeIndex++] = time;
+        }
+        return time;
+    }
+}
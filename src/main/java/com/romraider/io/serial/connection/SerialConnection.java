@@ -24,6 +24,14 @@ public interface SerialConnection {
 
     int available();
 
+    /**
+     * Wait until at least <code>numBytes</code> bytes can be read.
+     * @param numBytes - the number of bytes to wait for
+     * @param timeout - the maximum time to wait in milliseconds
+     * @return true if the bytes are available, false if the timeout passed
+     */
+    boolean waitForBytes(int numBytes, long timeout);
+
     int read();
 
     String readLine();
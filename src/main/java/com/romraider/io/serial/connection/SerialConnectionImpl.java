@@ -20,12 +20,16 @@
 package com.romraider.io.serial.connection;
 
 import static com.fazecast.jSerialComm.SerialPort.FLOW_CONTROL_DISABLED;
+import static com.fazecast.jSerialComm.SerialPort.LISTENING_EVENT_DATA_AVAILABLE;
 import static com.fazecast.jSerialComm.SerialPort.TIMEOUT_READ_SEMI_BLOCKING;
 import static com.romraider.util.HexUtil.asHex;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
 import static com.romraider.util.ThreadUtil.sleep;
 import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.apache.log4j.Logger.getLogger;
 
 import java.io.BufferedInputStream;
@@ -37,6 +41,8 @@ import java.io.InputStreamReader;
 import org.apache.log4j.Logger;
 
 import com.fazecast.jSerialComm.SerialPort;
+import com.fazecast.jSerialComm.SerialPortDataListener;
+import com.fazecast.jSerialComm.SerialPortEvent;
 import com.fazecast.jSerialComm.SerialPortInvalidPortException;
 import com.romraider.io.connection.ConnectionProperties;
 import com.romraider.logger.ecu.exception.ConfigurationException;
@@ -45,10 +51,14 @@ import com.romraider.logger.ecu.exception.SerialCommunicationException;
 
 public class SerialConnectionImpl implements SerialConnection {
     private static final Logger LOGGER = getLogger(SerialConnectionImpl.class);
+    private static final long MAX_EVENT_WAIT = MILLISECONDS.toNanos(50L);
     private final SerialPort serialPort;
     private final BufferedOutputStream os;
     private final BufferedInputStream is;
     private final BufferedReader reader;
+    // notified by the port's event thread whenever bytes arrive
+    private final Object dataAvailable = new Object();
+    private volatile Runnable dataListener;
 
     public SerialConnectionImpl(String portName, ConnectionProperties connectionProperties) {
         checkNotNullOrEmpty(portName, "portName");
@@ -58,6 +68,21 @@ public class SerialConnectionImpl implements SerialConnection {
             os = new BufferedOutputStream(serialPort.getOutputStream());
             is = new BufferedInputStream(serialPort.getInputStream());
             reader = new BufferedReader(new InputStreamReader(is));
+            serialPort.addDataListener(new SerialPortDataListener() {
+                @Override
+                public int getListeningEvents() {
+                    return LISTENING_EVENT_DATA_AVAILABLE;
+                }
+
+                @Override
+                public void serialEvent(SerialPortEvent event) {
+                    synchronized (dataAvailable) {
+                        dataAvailable.notifyAll();
+                    }
+                    final Runnable listener = dataListener;
+                    if (listener != null) listener.run();
+                }
+            });
             LOGGER.info("Serial connection initialised: " + connectionProperties);
         } catch (Exception e) {
             close();
@@ -65,6 +90,14 @@ public class SerialConnectionImpl implements SerialConnection {
         }
     }
 
+    /**
+     * @param listener - run on the port's event thread whenever bytes
+     * arrive, it must not block
+     */
+    public void setDataListener(Runnable listener) {
+        dataListener = listener;
+    }
+
     @Override
     public void write(byte[] bytes) {
         try {
@@ -84,6 +117,22 @@ public class SerialConnectionImpl implements SerialConnection {
         }
     }
 
+    @Override
+    public boolean waitForBytes(int numBytes, long timeout) {
+        final long deadline = nanoTime() + MILLISECONDS.toNanos(timeout);
+        synchronized (dataAvailable) {
+            while (available() < numBytes) {
+                final long remaining = deadline - nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                // a missed event only delays the wait by one slice
+                waitForEvent(Math.min(remaining, MAX_EVENT_WAIT));
+            }
+        }
+        return true;
+    }
+
     @Override
     public int read() {
         try {
@@ -129,8 +178,7 @@ public class SerialConnectionImpl implements SerialConnection {
             byte[] staleBytes = readAvailable();
             if (LOGGER.isDebugEnabled())
                 LOGGER.debug("Stale data read: " + asHex(staleBytes));
-            sleep(2);
-        } while (  (available() > 0)
+        } while (  waitForBytes(1, 2L)
                 && (currentTimeMillis() <= end));
     }
 
@@ -160,6 +208,7 @@ public class SerialConnectionImpl implements SerialConnection {
             }
         }
         if (serialPort != null) {
+            serialPort.removeDataListener();
             if (!serialPort.closePort())
                 LOGGER.error("Error closing serial port: " + serialPort.getSystemPortName());
         }
@@ -212,6 +261,19 @@ public class SerialConnectionImpl implements SerialConnection {
     }
 
     private void waitForBytes(int numBytes) {
-        while (available() < numBytes) sleep(2L);
+        synchronized (dataAvailable) {
+            while (available() < numBytes) {
+                waitForEvent(MAX_EVENT_WAIT);
+            }
+        }
+    }
+
+    private void waitForEvent(long nanos) {
+        try {
+            NANOSECONDS.timedWait(dataAvailable, nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SerialCommunicationException("Wait for bytes interrupted");
+        }
     }
 }
@@ -23,9 +23,8 @@ import static com.romraider.io.protocol.ssm.iso9141.SSMChecksumCalculator.calcul
 import static com.romraider.util.HexUtil.asHex;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
-import static com.romraider.util.ThreadUtil.sleep;
 import static java.lang.System.arraycopy;
-import static java.lang.System.currentTimeMillis;
+import static java.util.Arrays.copyOf;
 import static org.apache.log4j.Logger.getLogger;
 
 import org.apache.log4j.Logger;
@@ -40,19 +39,36 @@ public final class SerialConnectionManager implements ConnectionManager {
     private final ConnectionProperties connectionProperties;
     private byte[] lastResponse;
     private final long timeout;
-    private long readTimeout;
+    private FrameAssembler frameAssembler;
 
     public SerialConnectionManager(String portName, ConnectionProperties connectionProperties) {
         checkNotNullOrEmpty(portName, "portName");
         checkNotNull(connectionProperties, "connectionProperties");
         this.connectionProperties = connectionProperties;
         timeout = connectionProperties.getConnectTimeout();
-        readTimeout = timeout;
         // Use TestSerialConnection for testing!!
         connection = new SerialConnectionImpl(portName, connectionProperties);
         //connection = new TestSerialConnection2(portName, connectionProperties);
     }
 
+    // Use an in-process connection, such as LoopbackSerialConnection
+    SerialConnectionManager(SerialConnection connection, ConnectionProperties connectionProperties) {
+        checkNotNull(connection, "connection");
+        checkNotNull(connectionProperties, "connectionProperties");
+        this.connectionProperties = connectionProperties;
+        this.timeout = connectionProperties.getConnectTimeout();
+        this.connection = connection;
+    }
+
+    /**
+     * Set the protocol specific assembler used to tell when a response of
+     * unknown length is complete.  Without one such a response is complete
+     * once no bytes arrived for the connect timeout.
+     */
+    public void setFrameAssembler(FrameAssembler frameAssembler) {
+        this.frameAssembler = frameAssembler;
+    }
+
     @Override
     public void open(byte[] start, byte[] stop) {
     }
@@ -73,17 +89,12 @@ public final class SerialConnectionManager implements ConnectionManager {
             connection.readStaleData();
             connection.write(request);
         }
-        while (connection.available() < response.length) {
-            sleep(1);
-            readTimeout -= 1;
-            if (readTimeout <= 0) {
-                byte[] badBytes = connection.readAvailable();
-                if (LOGGER.isDebugEnabled())
-                    LOGGER.debug("Serial Bad Read response (read timeout): " + asHex(badBytes));
-                return; // this will reinitialize the connection
-            }
+        if (!connection.waitForBytes(response.length, timeout)) {
+            byte[] badBytes = connection.readAvailable();
+            if (LOGGER.isDebugEnabled())
+                LOGGER.debug("Serial Bad Read response (read timeout): " + asHex(badBytes));
+            return; // this will reinitialize the connection
         }
-        readTimeout = timeout;
         connection.read(response);
 
         if (pollState.getCurrentState() == PollingState.State.STATE_1){
@@ -114,18 +125,25 @@ public final class SerialConnectionManager implements ConnectionManager {
         if (LOGGER.isTraceEnabled())
             LOGGER.trace("Writing bytes");
         connection.write(bytes);
-        int available = 0;
-        boolean keepLooking = true;
-        long lastChange = currentTimeMillis();
-        while (keepLooking) {
-            sleep(2);
-            if (connection.available() != available) {
-                available = connection.available();
-                lastChange = currentTimeMillis();
+        byte[] received = new byte[bytes.length + 64];
+        int count = 0;
+        // every new byte restarts the timeout, the response is complete once
+        // the line is quiet for that long or the assembler says so
+        while (connection.waitForBytes(1, timeout)) {
+            final byte[] data = connection.readAvailable();
+            if (count + data.length > received.length) {
+                received = copyOf(received, Math.max(received.length * 2, count + data.length));
+            }
+            arraycopy(data, 0, received, count, data.length);
+            count += data.length;
+            if (frameAssembler != null) {
+                final int length = frameAssembler.getResponseLength(bytes, received, count);
+                if (length != FrameAssembler.UNKNOWN && count >= length) {
+                    break;
+                }
             }
-            keepLooking = (currentTimeMillis() - lastChange) < timeout;
         }
-        return connection.readAvailable();
+        return copyOf(received, count);
     }
 
     @Override
@@ -138,12 +156,11 @@ public final class SerialConnectionManager implements ConnectionManager {
             LOGGER.debug("Serial sending line break of duration: " + duration + " msec");
         connection.sendBreak(duration);
         do {
-            sleep(2);
+            connection.waitForBytes(1, 2L);
             byte[] badBytes = connection.readAvailable();
             if (LOGGER.isDebugEnabled())
                 LOGGER.debug("Serial clearing line (stale data): " + asHex(badBytes));
-            sleep(10);
-        } while (connection.available() > 0 );
+        } while (connection.waitForBytes(1, 10L));
     }
 
     @Override
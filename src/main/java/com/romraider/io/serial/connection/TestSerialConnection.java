@@ -71,6 +71,10 @@ final class TestSerialConnection implements SerialConnection {
         request = bytes;
     }
 
+    public boolean waitForBytes(int numBytes, long timeout) {
+        return available() >= numBytes;
+    }
+
     public int available() {
         if (isEcuInitRequest()) {
             String init = "";
@@ -89,6 +89,10 @@ final class TestSerialConnection2 implements SerialConnection {
         request = bytes;
     }
 
+    public boolean waitForBytes(int numBytes, long timeout) {
+        return available() >= numBytes;
+    }
+
     public int available() {
         if (close) return 0;
         if (pollState.isLastQuery() && !pollState.isNewQuery() && 
@@ -124,6 +124,7 @@ import com.romraider.logger.ecu.comms.globaladjust.GlobalAdjustManager;
 import com.romraider.logger.ecu.comms.globaladjust.SSMGlobalAdjustManager;
 import com.romraider.logger.ecu.comms.learning.LearningTableValues;
 import com.romraider.logger.ecu.comms.learning.LearningTableValuesFactory;
+import com.romraider.logger.ecu.comms.manager.PollRate;
 import com.romraider.logger.ecu.comms.query.EcuInit;
 import com.romraider.logger.ecu.comms.query.EcuInitCallback;
 import com.romraider.logger.ecu.comms.readcodes.ReadCodesManager;
@@ -173,7 +174,6 @@ import com.romraider.logger.ecu.ui.handler.table.TableUpdateHandler;
 import com.romraider.logger.ecu.ui.paramlist.ParameterListTable;
 import com.romraider.logger.ecu.ui.paramlist.ParameterListTableModel;
 import com.romraider.logger.ecu.ui.paramlist.ParameterRow;
-import com.romraider.logger.ecu.ui.playback.PlaybackManagerImpl;
 import com.romraider.logger.ecu.ui.swing.layout.BetterFlowLayout;
 import com.romraider.logger.ecu.ui.swing.menubar.EcuLoggerMenuBar;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LearningTableValuesAction;
@@ -756,6 +756,9 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
             applyUserProfileToDashTabParameters(dashboardTabParamListTableModel, profile);
             applyUserProfileToDashTabParameters(dashboardTabSwitchListTableModel, profile);
             applyUserProfileToDashTabParameters(dashboardTabExternalListTableModel, profile);
+            applyUserProfilePollRates(dataTabParamListTableModel, profile);
+            applyUserProfilePollRates(dataTabSwitchListTableModel, profile);
+            applyUserProfileLatencies(dataTabExternalListTableModel, profile);
             return true;
         }
         return false;
@@ -788,6 +791,31 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
         }
     }
 
+    private void applyUserProfilePollRates(ParameterListTableModel paramListTableModel, UserProfile profile) {
+        List<ParameterRow> rows = paramListTableModel.getParameterRows();
+        for (ParameterRow row : rows) {
+            LoggerData loggerData = row.getLoggerData();
+            try {
+                controller.setPollRate(loggerData, profile.getPollRate(loggerData));
+            } catch (Exception e) {
+                reportError(e);
+            }
+        }
+    }
+
+    private void applyUserProfileLatencies(ParameterListTableModel paramListTableModel, UserProfile profile) {
+        List<ParameterRow> rows = paramListTableModel.getParameterRows();
+        for (ParameterRow row : rows) {
+            LoggerData loggerData = row.getLoggerData();
+            if (!(loggerData instanceof ExternalData)) continue;
+            try {
+                ((ExternalData) loggerData).setLatency(profile.getLatency(loggerData));
+            } catch (Exception e) {
+                reportError(e);
+            }
+        }
+    }
+
     private void addConvertorUpdateListeners(List<EcuParameter> ecuParams) {
         for (EcuParameter ecuParam : ecuParams) {
             ecuParam.addConvertorUpdateListener(fileUpdateHandler);
@@ -936,7 +964,14 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
             boolean dataTabSelected = dataTabRow.isSelected();
             boolean graphTabSelected = isEcuDataSelected(id, graphTabRows);
             boolean dashTabSelected = isEcuDataSelected(id, dashTabRows);
-            profileItems.put(id, new UserProfileItemImpl(units, dataTabSelected, graphTabSelected, dashTabSelected));
+            PollRate pollRate = controller.getPollRate(dataTabRow.getLoggerData());
+            String rate = PollRate.EVERY_CYCLE.equals(pollRate) ? null : pollRate.toString();
+            String latency = null;
+            if (dataTabRow.getLoggerData() instanceof ExternalData) {
+                long millis = ((ExternalData) dataTabRow.getLoggerData()).getLatency();
+                if (millis > 0) latency = String.valueOf(millis);
+            }
+            profileItems.put(id, new UserProfileItemImpl(units, dataTabSelected, graphTabSelected, dashTabSelected, rate, latency));
         }
         return profileItems;
     }
@@ -1368,33 +1403,10 @@ public final class EcuLogger extends AbstractFrame implements MessageListener {
         }
 
         controlPanel.add(buildPortsComboBox(), WEST);
-        //TODO: Finish log playback stuff...
-        //        controlPanel.add(buildPlaybackControls(), CENTER);
         controlPanel.add(buildStatusIndicator(), EAST);
         return controlPanel;
     }
 
-    private Component buildPlaybackControls() {
-        JButton playButton = new JButton("Play");
-        playButton.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent actionEvent) {
-                ThreadUtil.runAsDaemon(new Runnable() {
-                    @Override
-                    public void run() {
-                        PlaybackManagerImpl playbackManager = new PlaybackManagerImpl(ecuParams, liveDataUpdateHandler, graphUpdateHandler, dashboardUpdateHandler, mafUpdateHandler, dynoUpdateHandler,
-                                TableUpdateHandler.getInstance());
-                        playbackManager.load(new File("foo.csv"));
-                        playbackManager.play();
-                    }
-                });
-            }
-        });
-        JPanel panel = new JPanel();
-        panel.add(playButton);
-        return panel;
-    }
-
     private Component buildFileNameExtention() {
         JLabel fileNameLabel = new JLabel(rb.getString("LOGFILETEXT"));
         final JTextField fileNameExtention = new JTextField("",8);
@@ -19,6 +19,7 @@
 
 package com.romraider.logger.ecu.comms.controller;
 
+import com.romraider.logger.ecu.comms.manager.PollRate;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.StatusChangeListener;
 import com.romraider.logger.ecu.ui.handler.file.FileLoggerControllerSwitchMonitor;
@@ -31,6 +32,10 @@ public interface LoggerController {
 
     void removeLogger(String callerId, LoggerData loggerData);
 
+    void setPollRate(LoggerData loggerData, PollRate pollRate);
+
+    PollRate getPollRate(LoggerData loggerData);
+
     boolean isStarted();
 
     void start();
@@ -24,6 +24,7 @@ import static com.romraider.util.ThreadUtil.runAsDaemon;
 
 import org.apache.log4j.Logger;
 
+import com.romraider.logger.ecu.comms.manager.PollRate;
 import com.romraider.logger.ecu.comms.manager.QueryManager;
 import com.romraider.logger.ecu.comms.manager.QueryManagerImpl;
 import com.romraider.logger.ecu.comms.query.EcuInitCallback;
@@ -73,6 +74,19 @@ public final class LoggerControllerImpl implements LoggerController {
         queryManager.removeQuery(callerId, loggerData);
     }
 
+    @Override
+    public void setPollRate(LoggerData loggerData, PollRate pollRate) {
+        checkNotNull(loggerData, "loggerData");
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("Poll rate:       [" + loggerData.getId() + "] " + loggerData.getName() + " " + pollRate);
+        queryManager.setPollRate(loggerData, pollRate);
+    }
+
+    @Override
+    public PollRate getPollRate(LoggerData loggerData) {
+        return queryManager.getPollRate(loggerData);
+    }
+
     @Override
     public synchronized boolean isStarted() {
         return queryManager.isRunning();
@@ -241,6 +241,11 @@ public final class DS2LoggerConnection implements LoggerConnection {
         manager.clearLine();
     }
 
+    @Override
+    public QueryFrameLimit getQueryFrameLimit() {
+        return QueryFrameLimit.UNLIMITED;
+    }
+
     @Override
     public void close() {
         clearQueryCount();
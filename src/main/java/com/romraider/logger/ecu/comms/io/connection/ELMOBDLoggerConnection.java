@@ -19,13 +19,18 @@
 
 package com.romraider.logger.ecu.comms.io.connection;
 
+import static com.romraider.util.HexUtil.asHex;
 import static com.romraider.util.ParamChecker.checkNotNull;
+import static java.util.Arrays.copyOf;
 
 import static org.apache.log4j.Logger.getLogger;
 import org.apache.log4j.Logger;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.romraider.Settings;
@@ -37,15 +42,20 @@ import com.romraider.logger.ecu.comms.io.protocol.LoggerProtocolOBD;
 import com.romraider.logger.ecu.comms.manager.PollingState;
 import com.romraider.logger.ecu.comms.query.EcuInitCallback;
 import com.romraider.logger.ecu.comms.query.EcuQuery;
+import com.romraider.logger.ecu.comms.query.EcuQueryData;
 import com.romraider.logger.ecu.definition.Module;
 import com.romraider.logger.ecu.exception.SerialCommunicationException;
 
 public final class ELMOBDLoggerConnection implements LoggerConnection {
     private static final Logger LOGGER = getLogger(OBDLoggerConnection.class);
+    // SAE J1979 allows up to six PIDs in one mode 01 request on CAN
+    private static final int MAX_PIDS = 6;
+    private static final int RESPONSE_TIMEOUT = 2500;
+    private static final int MAX_CACHED_BATCHES = 64;
     private final LoggerProtocolOBD protocol;
     private final ElmConnectionManager manager;
-    private Collection<EcuQuery> obdQueries = new ArrayList<EcuQuery>();
-    final Settings settings = SettingsManager.getSettings();
+    private final Map<Collection<EcuQuery>, Request> requests =
+            new IdentityHashMap<Collection<EcuQuery>, Request>();
 
     public ELMOBDLoggerConnection(ElmConnectionManager manager) {
         checkNotNull(manager, "manager");
@@ -68,6 +78,7 @@ public final class ELMOBDLoggerConnection implements LoggerConnection {
     	String moduleStr =  concatBytes(module.getAddress());
     	String testerStr =  concatBytes(module.getTester());
 
+    	final Settings settings = SettingsManager.getSettings();
     	ERROR_TYPE result = manager.resetAndInit(settings.getTransportProtocol(),
     			moduleStr, testerStr);
 
@@ -107,66 +118,174 @@ public final class ELMOBDLoggerConnection implements LoggerConnection {
 
 
     @Override
-    //TODO: CAN supports requesting multiple PIDs at once
-    //This still has to be implemented
     public final void sendAddressReads(Collection<EcuQuery> queries, Module module,
     		PollingState pollState) {
 
-        final int obdQueryListLength = queries.size();
-        for (int i = 0; i < obdQueryListLength; i++) {
-
-        	EcuQuery query = ((ArrayList<EcuQuery>) queries).get(i);
-            obdQueries.add(query);
-
-            final byte[] request = protocol.constructReadAddressRequest(module, obdQueries);
-            String reqStr = String.format("%02X %02X", (int)request[4], (int)request[5]);
+        for (Batch batch : getBatches(queries, module)) {
+            final int length = manager.sendAndReadData(batch.command, RESPONSE_TIMEOUT);
+            final String status = manager.getResponseStatus();
             if (LOGGER.isTraceEnabled())
-                LOGGER.trace("Request: " + reqStr);
-            String result = manager.sendAndWaitForChar(reqStr, 2500, ">");
-            if (LOGGER.isTraceEnabled())
-                LOGGER.trace("ELM: " + result);
-
-           	if(result.contains("BUS INIT"))
-           	{
-           		LOGGER.warn("ELM 327 still initializing bus while querying!");
-           		continue;
-           	}
-           	else if(result.contains("STOPPED")) {
-            	LOGGER.warn("ELM327 stopped trying to connect to the ECU!");
-            	continue;
-            }
-           	else if(result.contains("NO DATA")) {
-            	LOGGER.warn("ELM327 received no response from ECU!");
-            	continue;
+                LOGGER.trace("Request: " + batch + " ELM: "
+                        + asHex(copyOf(manager.getResponseData(), length))
+                        + (status == null ? "" : " " + status));
+
+            if (length == 0) {
+               	if (status == null) {
+                    LOGGER.warn("ELM327 returned no response!");
+               	}
+               	else if(status.contains("BUS INIT")) {
+               		LOGGER.warn("ELM 327 still initializing bus while querying!");
+               	}
+               	else if(status.contains("STOPPED")) {
+                	LOGGER.warn("ELM327 stopped trying to connect to the ECU!");
+                }
+               	else if(status.contains("NO DATA")) {
+                	LOGGER.warn("ELM327 received no response from ECU!");
+                }
+               	else {
+               	    LOGGER.warn("ELM327 returned: " + status);
+               	}
+               	continue;
             }
+            batch.process(manager.getResponseData(), length);
+        }
+    }
 
-           	boolean found = false;
-
-           	String[] resultSplit = result.split("\r");
+    // the request lists of the poll scheduler are reused from cycle to
+    // cycle, so their commands are encoded once
+    private Batch[] getBatches(Collection<EcuQuery> queries, Module module) {
+        Request cached = requests.get(queries);
+        if (cached == null || !cached.isFor(queries)) {
+            if (requests.size() == MAX_CACHED_BATCHES) {
+                requests.clear();
+            }
+            cached = new Request(queries, createBatches(queries, module));
+            requests.put(queries, cached);
+        }
+        return cached.batches;
+    }
 
-           	for(String s : resultSplit) {
-		        String[] bytesSplit = s.split(" ");
+    private Batch[] createBatches(Collection<EcuQuery> queries, Module module) {
+        // queries sharing a PID are requested once
+        final Map<String, List<EcuQuery>> byPid =
+                new LinkedHashMap<String, List<EcuQuery>>();
+        for (EcuQuery query : queries) {
+            List<EcuQuery> sharing = byPid.get(query.getHex());
+            if (sharing == null) {
+                sharing = new ArrayList<EcuQuery>(1);
+                byPid.put(query.getHex(), sharing);
+            }
+            sharing.add(query);
+        }
+        final int pidsPerRequest = manager.isCanProtocol() ? MAX_PIDS : 1;
+        final List<List<EcuQuery>> groups = new ArrayList<List<EcuQuery>>(byPid.values());
+        final Batch[] created = new Batch[(groups.size() + pidsPerRequest - 1) / pidsPerRequest];
+        for (int i = 0; i < created.length; i++) {
+            final List<List<EcuQuery>> pids = groups.subList(
+                    i * pidsPerRequest, Math.min((i + 1) * pidsPerRequest, groups.size()));
+            final List<EcuQuery> first = new ArrayList<EcuQuery>(pids.size());
+            for (List<EcuQuery> sharing : pids) {
+                first.add(sharing.get(0));
+            }
+            // four byte CAN ID followed by the mode and the PIDs
+            final byte[] request = protocol.constructReadAddressRequest(module, first);
+            created[i] = new Batch(ElmConnectionManager.encodeCommand(
+                    request, 4, request.length - 4), request[4], pids);
+        }
+        return created;
+    }
 
-		        for(int j = 0; j < bytesSplit.length; j++) {
+    // the batches built for a list of queries, kept with the queries the
+    // list held so that a list changed by its owner is batched again
+    private static final class Request {
+        private final EcuQuery[] queries;
+        private final Batch[] batches;
 
-		        	if(bytesSplit[j].equals(String.format("%02X",(int)request[5]))) {
+        private Request(Collection<EcuQuery> queries, Batch[] batches) {
+            this.queries = queries.toArray(new EcuQuery[queries.size()]);
+            this.batches = batches;
+        }
 
-			            byte[] response = new byte[bytesSplit.length - j - 1];
+        private boolean isFor(Collection<EcuQuery> current) {
+            if (current.size() != queries.length) return false;
+            int i = 0;
+            for (EcuQuery query : current) {
+                if (query != queries[i++]) return false;
+            }
+            return true;
+        }
+    }
 
-			            for(int k = 0; k < response.length; k++) {
-			            		response[k] = (byte) Integer.parseInt(bytesSplit[k + j + 1], 16);
-			            }
+    // the PIDs sent in one request and the queries reading each of them
+    private static final class Batch {
+        private final byte[] command;
+        private final byte[][] pids;
+        private final int[] dataLengths;
+        private final EcuQuery[][] queries;
+        private final byte responseMode;
+
+        private Batch(byte[] command, byte mode, List<List<EcuQuery>> pidQueries) {
+            this.command = command;
+            this.responseMode = (byte) (mode + 0x40);
+            this.pids = new byte[pidQueries.size()][];
+            this.dataLengths = new int[pids.length];
+            this.queries = new EcuQuery[pids.length][];
+            for (int i = 0; i < pids.length; i++) {
+                final List<EcuQuery> sharing = pidQueries.get(i);
+                pids[i] = sharing.get(0).getBytes();
+                dataLengths[i] = EcuQueryData.getDataLength(sharing.get(0));
+                queries[i] = sharing.toArray(new EcuQuery[sharing.size()]);
+            }
+        }
 
-			            query.setResponse(response);
-			            found = true;
-			            break;
-		            }
-		        }
+        // the response is the mode followed by each PID and its data, in
+        // the order the ECU chose to answer them
+        private void process(byte[] data, int length) {
+            if (data[0] != responseMode) {
+                LOGGER.warn(String.format("ELM327 response mode %02X does not match request %s",
+                        data[0], this));
+                return;
+            }
+            int i = 1;
+            while (i < length) {
+                final int pid = find(data, i, length);
+                if (pid < 0) {
+                    LOGGER.warn(String.format("ELM327 response has unexpected PID %02X for request %s",
+                            data[i], this));
+                    return;
+                }
+                final int offset = i + pids[pid].length;
+                if (offset + dataLengths[pid] > length) {
+                    LOGGER.warn("ELM327 response is too short for request " + this);
+                    return;
+                }
+                for (EcuQuery query : queries[pid]) {
+                    query.setResponse(data, offset, dataLengths[pid]);
+                }
+                i = offset + dataLengths[pid];
+            }
+        }
 
-		        if(found) break;
-           	}
+        private int find(byte[] data, int offset, int length) {
+            for (int i = 0; i < pids.length; i++) {
+                final byte[] pid = pids[i];
+                if (offset + pid.length > length) continue;
+                boolean match = true;
+                for (int j = 0; j < pid.length && match; j++) {
+                    match = data[offset + j] == pid[j];
+                }
+                if (match) return i;
+            }
+            return -1;
+        }
 
-            obdQueries.clear();
+        @Override
+        public String toString() {
+            final char[] chars = new char[command.length - 1];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) command[i];
+            }
+            return new String(chars);
         }
     }
 
@@ -175,6 +294,11 @@ public final class ELMOBDLoggerConnection implements LoggerConnection {
         manager.clearLine();
     }
 
+    @Override
+    public QueryFrameLimit getQueryFrameLimit() {
+        return QueryFrameLimit.UNLIMITED;
+    }
+
     @Override
     public void close() {
         manager.close();
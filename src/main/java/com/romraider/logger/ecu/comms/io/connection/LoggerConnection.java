@@ -58,6 +58,14 @@ public interface LoggerConnection {
      */
     void sendAddressReads(Collection<EcuQuery> queries, Module module, PollingState pollState);
 
+    /**
+     * Use this method to get the number of queries the protocol can read
+     * in one request, so larger query sets can be split over several
+     * calls to sendAddressReads.
+     * @return the QueryFrameLimit of this connection
+     */
+    QueryFrameLimit getQueryFrameLimit();
+
     /**
      * Use this method to clear the communications line of any erroneous data.
      * It can be called before closing off communications to clear buffers
@@ -26,6 +26,7 @@ import static org.apache.log4j.Logger.getLogger;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.ResourceBundle;
 
@@ -48,11 +49,13 @@ import com.romraider.logger.ecu.exception.SerialCommunicationException;
 
 public final class NCSLoggerConnection implements LoggerConnection {
     private static final Logger LOGGER = getLogger(NCSLoggerConnection.class);
+    private static final int KLINE_MAX_DATA = 61;
     private static final ResourceBundle rb = new ResourceUtil().getBundle(
             NCSLoggerConnection.class.getName());
     private final LoggerProtocolNCS protocol;
     private final ConnectionManager manager;
     private int queryCount;
+    private Collection<EcuQuery> loadedQueries;
     private final Settings settings = SettingsManager.getSettings();
     private final Collection<EcuQuery> scQuery = new ArrayList<EcuQuery>();
     private final Collection<EcuQuery> ramQuery = new ArrayList<EcuQuery>();
@@ -264,6 +267,28 @@ public final class NCSLoggerConnection implements LoggerConnection {
         queryCount = -1;
     }
 
+    @Override
+    public QueryFrameLimit getQueryFrameLimit() {
+        if (settings.isCanBus()) {
+            return QueryFrameLimit.UNLIMITED;
+        }
+        return new QueryFrameLimit() {
+            @Override
+            public int getCapacity() {
+                return KLINE_MAX_DATA;
+            }
+
+            @Override
+            public int getSize(EcuQuery query) {
+                int length = 0;
+                for (final String address : query.getAddresses()) {
+                    length += calcLength(address);
+                }
+                return length;
+            }
+        };
+    }
+
     @Override
     public void clearLine() {
         clearQueryCount();
@@ -310,24 +335,27 @@ public final class NCSLoggerConnection implements LoggerConnection {
             Module module,
             PollingState pollState) {
 
+        // the poll scheduler may alternate between several query sets,
+        // each of which has to be loaded before it is read
+        final boolean load = queries != loadedQueries
+                || queries.size() != queryCount
+                || pollState.isNewQuery();
         // k-line max data bytes is 63 when length encoded into format byte
-        if (queries.size() != queryCount
-                || pollState.isNewQuery()) {
+        if (load) {
             int dataLength = 0;
-            for (EcuQuery query : queries) {
+            for (EcuQuery query : new LinkedHashSet<EcuQuery>(queries)) {
                 for (final String address : query.getAddresses()) {
                     dataLength += calcLength(address);
                 }
             }
             // if length is too big then notify user to un-select some parameters
-            if (dataLength > 61) {
+            if (dataLength > KLINE_MAX_DATA) {
                 throw new SerialCommunicationException(
                         rb.getString("TOOLARGE"));
             }
         }
 
-        if (queries.size() != queryCount
-                || pollState.isNewQuery()) {
+        if (load) {
             final byte[] request = protocol.constructLoadAddressRequest(queries);
             if (LOGGER.isDebugEnabled())
                 LOGGER.debug(String.format("Mode:%s %s Load address request  ---> %s",
@@ -340,6 +368,7 @@ public final class NCSLoggerConnection implements LoggerConnection {
             protocol.validateLoadAddressResponse(
                     sendRcv(module, request, response, pollState));
             queryCount = queries.size();
+            loadedQueries = queries;
         }
         final byte[] request = protocol.constructReadAddressRequest(
                 module, queries, pollState);
@@ -180,6 +180,11 @@ public final class OBDLoggerConnection implements LoggerConnection {
         manager.clearLine();
     }
 
+    @Override
+    public QueryFrameLimit getQueryFrameLimit() {
+        return QueryFrameLimit.UNLIMITED;
+    }
+
     @Override
     public void close() {
         manager.close();
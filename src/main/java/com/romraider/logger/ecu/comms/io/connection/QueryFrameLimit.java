@@ -0,0 +1,55 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.io.connection;
+
+import com.romraider.logger.ecu.comms.query.EcuQuery;
+
+/**
+ * The number of request bytes a protocol can carry in one read request,
+ * used to split the selected queries over several requests.  Queries
+ * sharing an address are read once and count once.
+ */
+public interface QueryFrameLimit {
+
+    /**
+     * A limit for protocols which split large requests themselves.
+     */
+    QueryFrameLimit UNLIMITED = new QueryFrameLimit() {
+        @Override
+        public int getCapacity() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public int getSize(EcuQuery query) {
+            return 0;
+        }
+    };
+
+    /**
+     * @return the maximum number of address bytes in one request
+     */
+    int getCapacity();
+
+    /**
+     * @return the number of address bytes the query takes in a request
+     */
+    int getSize(EcuQuery query);
+}
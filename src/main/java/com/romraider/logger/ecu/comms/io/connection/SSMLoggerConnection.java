@@ -33,6 +33,8 @@ import org.apache.log4j.Logger;
 import com.romraider.Settings;
 import com.romraider.io.connection.ConnectionManager;
 import com.romraider.io.protocol.ProtocolFactory;
+import com.romraider.io.protocol.ssm.iso9141.SSMFrameAssembler;
+import com.romraider.io.serial.connection.SerialConnectionManager;
 import com.romraider.logger.ecu.comms.io.protocol.LoggerProtocol;
 import com.romraider.logger.ecu.comms.manager.PollingState;
 import com.romraider.logger.ecu.comms.manager.PollingStateImpl;
@@ -43,6 +45,19 @@ import com.romraider.util.SettingsManager;
 
 public final class SSMLoggerConnection implements LoggerConnection {
     private static final Logger LOGGER = getLogger(SSMLoggerConnection.class);
+    // the data size byte of a K-line read address request counts the
+    // command and padding bytes and three bytes per address
+    private static final QueryFrameLimit KLINE_FRAME_LIMIT = new QueryFrameLimit() {
+        @Override
+        public int getCapacity() {
+            return 0xFF - 2;
+        }
+
+        @Override
+        public int getSize(EcuQuery query) {
+            return query.getBytes().length;
+        }
+    };
     private final LoggerProtocol protocol;
     private final ConnectionManager manager;
     private List<EcuQuery> tcuQueries = new ArrayList<EcuQuery>();
@@ -52,6 +67,10 @@ public final class SSMLoggerConnection implements LoggerConnection {
     public SSMLoggerConnection(ConnectionManager manager) {
         checkNotNull(manager, "manager");
         this.manager = manager;
+        if (manager instanceof SerialConnectionManager) {
+            ((SerialConnectionManager) manager).setFrameAssembler(
+                    new SSMFrameAssembler());
+        }
 
         this.protocol = ProtocolFactory.getProtocol(
                 settings.getLoggerProtocol(),
@@ -146,6 +165,13 @@ public final class SSMLoggerConnection implements LoggerConnection {
         }
     }
 
+    @Override
+    public QueryFrameLimit getQueryFrameLimit() {
+        // CAN requests are segmented by the transport, TCU queries are
+        // split into single reads in sendAddressReads
+        return settings.isCanBus() ? QueryFrameLimit.UNLIMITED : KLINE_FRAME_LIMIT;
+    }
+
     @Override
     public void clearLine() {
         manager.clearLine();
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2021 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,67 +19,166 @@
 
 package com.romraider.logger.ecu.comms.manager;
 
-
-import java.util.Vector;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.log4j.Logger;
-import com.romraider.logger.ecu.comms.query.Response;
-import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
 
+import com.romraider.logger.ecu.comms.manager.ResponseRingBuffer.Consumer;
+import com.romraider.logger.ecu.comms.query.ResponseFrame;
+import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
+import com.romraider.logger.ecu.ui.handler.dash.DashboardUpdateHandler;
+import com.romraider.logger.ecu.ui.handler.dataflow.DataflowSimulationHandler;
+import com.romraider.logger.ecu.ui.handler.file.FileUpdateHandler;
+import com.romraider.logger.ecu.ui.handler.livedata.LiveDataUpdateHandler;
+import com.romraider.logger.ecu.ui.handler.table.TableUpdateHandler;
 
-public class AsyncDataUpdateHandler extends Thread {
+/**
+ * Hands the responses of the poll loop to the data update handlers.  The
+ * poll loop fills preallocated frames of a ring buffer and each handler
+ * is run on its own thread, reading the ring at its own pace according to
+ * its {@link OverflowPolicy}, so a slow handler only delays itself.
+ */
+public class AsyncDataUpdateHandler {
     private static final Logger LOGGER = Logger.getLogger(AsyncDataUpdateHandler.class);
+    private static final int CAPACITY = 64;
+    private static final long FRAME_INTERVAL = 16000000L; // 60 FPS
+
+    private final ResponseRingBuffer ring = new ResponseRingBuffer(CAPACITY);
+    private final ConsumerThread[] threads;
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile boolean stop;
+
+    public AsyncDataUpdateHandler(DataUpdateHandler[] handlers) {
+        this(handlers, new HashMap<DataUpdateHandler, OverflowPolicy>());
+    }
+
+    /**
+     * @param handlers - the handlers to update
+     * @param policies - overflow policies overriding the default policy of
+     * a handler, see {@link #defaultPolicy(DataUpdateHandler)}
+     */
+    public AsyncDataUpdateHandler(DataUpdateHandler[] handlers,
+            Map<DataUpdateHandler, OverflowPolicy> policies) {
+        threads = new ConsumerThread[handlers.length];
+        for (int i = 0; i < handlers.length; i++) {
+            OverflowPolicy policy = policies.get(handlers[i]);
+            if (policy == null) {
+                policy = defaultPolicy(handlers[i]);
+            }
+            threads[i] = new ConsumerThread(
+                    handlers[i], ring.addConsumer(policy));
+        }
+    }
+
+    /**
+     * The file logger must see every sample, displays only need the latest
+     * one and the analysis tabs prefer every sample but can drop some.
+     */
+    public static OverflowPolicy defaultPolicy(DataUpdateHandler handler) {
+        if (handler instanceof FileUpdateHandler) {
+            return OverflowPolicy.BLOCK;
+        }
+        if (handler instanceof LiveDataUpdateHandler
+                || handler instanceof DashboardUpdateHandler
+                || handler instanceof TableUpdateHandler
+                || handler instanceof DataflowSimulationHandler) {
+            return OverflowPolicy.COALESCE;
+        }
+        return OverflowPolicy.DROP_OLDEST;
+    }
 
-    Vector<Response> responsesToUpdate = new Vector<Response>();
-	DataUpdateHandler[] handlers;
-	private  boolean stop = false;
-	private volatile boolean isRunning = false;
-	
-	public AsyncDataUpdateHandler(DataUpdateHandler[] handlers) {
-		this.handlers = handlers;
-		setName("AsyncDataUpdater");
-	}
-	
-    public void run(){
-    	LOGGER.info("Starting AsyncDataUpdateHandler");
-    	stop = false;
-    	
-    	while(!stop) {	    	
-    		isRunning = true;	
-    		
-	    	synchronized(responsesToUpdate) {		   
-	    		Response r;	    		
-	    		while(!responsesToUpdate.isEmpty()) {
-	    			r = responsesToUpdate.get(0);
-	    			
-		    	   for(DataUpdateHandler handler: handlers) {
-		    		   handler.handleDataUpdate(r);
-		    	   }	
-		    	   
-		    	   responsesToUpdate.remove(0);		    	   
-			  }
-	    	}
-		       
-	       try {
-	    	   Thread.sleep(16); //60 FPS
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
-       }
-    	
-    	LOGGER.info("AsyncDataUpdater stopped.");
-    	isRunning = false;
+    public void start() {
+        LOGGER.info("Starting AsyncDataUpdateHandler");
+        stop = false;
+        for (ConsumerThread thread : threads) {
+            running.incrementAndGet();
+            thread.start();
+        }
     }
-    
+
     public void stopUpdater() {
-    	stop = true;
+        stop = true;
+        ring.close();
     }
-    
+
     public boolean isRunning() {
-    	return isRunning;
+        return running.get() > 0;
+    }
+
+    /**
+     * Claim the next frame to fill, it must be followed by
+     * {@link #publish()}.
+     */
+    public ResponseFrame claim() {
+        return ring.claim();
+    }
+
+    /**
+     * Hand the last claimed frame to the handlers.
+     */
+    public void publish() {
+        ring.publish();
     }
-    
-    public void addResponse(Response response) {
-    	responsesToUpdate.add(response);   
+
+    private final class ConsumerThread extends Thread {
+        private final DataUpdateHandler handler;
+        private final Consumer consumer;
+        private final ResponseFrame frame = new ResponseFrame();
+
+        private ConsumerThread(DataUpdateHandler handler, Consumer consumer) {
+            this.handler = handler;
+            this.consumer = consumer;
+            setName("AsyncDataUpdater-" + handler.getClass().getSimpleName());
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stop) {
+                    if (consumer.poll(frame)) {
+                        update();
+                        if (consumer.getPolicy() == OverflowPolicy.COALESCE) {
+                            pause(FRAME_INTERVAL);
+                        }
+                    }
+                    else {
+                        consumer.await(FRAME_INTERVAL);
+                    }
+                }
+                if (consumer.getPolicy() == OverflowPolicy.BLOCK) {
+                    while (consumer.poll(frame)) {
+                        update();
+                    }
+                }
+            }
+            finally {
+                if (consumer.getDropped() > 0)
+                    LOGGER.debug(getName() + " skipped " + consumer.getDropped() + " responses");
+                if (running.decrementAndGet() == 0)
+                    LOGGER.info("AsyncDataUpdater stopped.");
+            }
+        }
+
+        private void update() {
+            try {
+                handler.handleDataUpdate(frame);
+            }
+            catch (Exception e) {
+                LOGGER.error("Error updating " + handler.getClass().getSimpleName(), e);
+            }
+        }
+
+        private void pause(long nanos) {
+            final long end = System.nanoTime() + nanos;
+            long remaining = nanos;
+            while (!stop && remaining > 0) {
+                LockSupport.parkNanos(this, remaining);
+                remaining = end - System.nanoTime();
+            }
+        }
     }
-  }
\ No newline at end of file
+}
@@ -0,0 +1,131 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.manager;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.romraider.logger.ecu.comms.query.ExternalQuery;
+import com.romraider.logger.ecu.comms.query.Query;
+import com.romraider.logger.ecu.comms.query.ResponseFrame;
+import com.romraider.logger.ecu.definition.ExternalData;
+
+/**
+ * Holds the ECU responses of each cycle until the external sensors have
+ * reported readings up to the time the ECU was sampled, then publishes
+ * them in order with the external values interpolated at that time.  A
+ * cycle is not held more than {@link #MAX_WAIT} past the time a sensor
+ * reading is expected, so a sensor which stopped reporting only delays
+ * the log.  Plans without external queries are published at once.
+ */
+final class ExternalAlignmentQueue {
+    static final long MAX_WAIT = MILLISECONDS.toNanos(250L);
+    // cycles held before the oldest is published regardless
+    private static final int MAX_PENDING = 1024;
+
+    private final Deque<Pending> pending = new ArrayDeque<Pending>();
+    private final Deque<Pending> pool = new ArrayDeque<Pending>();
+
+    private static final class Pending {
+        private QueryPlan plan;
+        private long timestamp;
+        private long sampleTime;
+        private double[] values = new double[0];
+    }
+
+    /**
+     * Queue the responses of a cycle.
+     * @param timestamp - the time in milliseconds the frame is logged at
+     * @param sampleTime - the {@link System#nanoTime()} the ECU was sampled
+     */
+    void add(QueryPlan plan, long timestamp, long sampleTime) {
+        final Pending cycle = pool.isEmpty() ? new Pending() : pool.pop();
+        final Query[] queries = plan.getQueries();
+        if (cycle.values.length < queries.length) {
+            cycle.values = new double[queries.length];
+        }
+        for (int i = 0; i < queries.length; i++) {
+            if (!(queries[i] instanceof ExternalQuery)) {
+                cycle.values[i] = queries[i].getResponse();
+            }
+        }
+        cycle.plan = plan;
+        cycle.timestamp = timestamp;
+        cycle.sampleTime = sampleTime;
+        pending.addLast(cycle);
+    }
+
+    /**
+     * Publish the queued cycles, oldest first, until one is found which
+     * is still waiting for external readings.
+     * @param now - the current {@link System#nanoTime()}
+     * @param flush - publish all queued cycles without waiting
+     */
+    void publish(AsyncDataUpdateHandler dataUpdater, long now, boolean flush) {
+        while (!pending.isEmpty()) {
+            final Pending cycle = pending.peekFirst();
+            if (!flush && pending.size() <= MAX_PENDING && !isReady(cycle, now)) {
+                return;
+            }
+            pending.removeFirst();
+            publish(dataUpdater, cycle);
+            cycle.plan = null;
+            pool.push(cycle);
+        }
+    }
+
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    private static boolean isReady(Pending cycle, long now) {
+        for (ExternalQuery query : cycle.plan.getExternalQueries()) {
+            final ExternalData data = (ExternalData) query.getLoggerData();
+            if (!data.isSampled(cycle.sampleTime)
+                    && now - cycle.sampleTime
+                    < MILLISECONDS.toNanos(data.getLatency()) + MAX_WAIT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void publish(AsyncDataUpdateHandler dataUpdater, Pending cycle) {
+        final Query[] queries = cycle.plan.getQueries();
+        final int[] slots = cycle.plan.getSlots();
+        final ResponseFrame frame = dataUpdater.claim();
+        frame.reset(cycle.plan.getLayout(), cycle.timestamp);
+        for (int i = 0; i < queries.length; i++) {
+            if (queries[i] instanceof ExternalQuery) {
+                final ExternalQuery query = (ExternalQuery) queries[i];
+                final double value = ((ExternalData) query.getLoggerData())
+                        .getValueAt(cycle.sampleTime);
+                query.setResponse(value);
+                frame.setValue(slots[i], value);
+            }
+            else {
+                frame.setValue(slots[i], cycle.values[i]);
+            }
+        }
+        dataUpdater.publish();
+    }
+}
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,10 +17,18 @@
  * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
  */
 
-package com.romraider.logger.external.te.io;
+package com.romraider.logger.ecu.comms.manager;
 
-public interface TEConnection {
-    byte readByte();
-
-    void close();
+/**
+ * How a data update handler's consumer behaves when it falls behind the
+ * logger's poll rate.
+ */
+public enum OverflowPolicy {
+    /** Every frame is delivered; the poll loop waits for the handler. */
+    BLOCK,
+    /** Frames are delivered in order; the oldest are skipped when the
+     *  handler is more than a buffer behind. */
+    DROP_OLDEST,
+    /** Only the most recent frame is delivered. */
+    COALESCE
 }
@@ -0,0 +1,121 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.manager;
+
+import static com.romraider.util.ParamChecker.checkGreaterThanZero;
+import static com.romraider.util.ParamChecker.isNullOrEmpty;
+
+/**
+ * How often a parameter is read from the Module: on every poll cycle, on
+ * every Nth poll cycle or once per second.  Slowly changing parameters such
+ * as coolant temperature or barometric pressure can be read less often so
+ * that each cycle carries fewer bytes on the bus.
+ * <p>
+ * The text form used in user profiles is <code>cycle</code>,
+ * <code>cycle/N</code> or <code>second</code>.
+ */
+public final class PollRate {
+    public static final PollRate EVERY_CYCLE = new PollRate(1, 0L);
+    public static final PollRate ONCE_PER_SECOND = new PollRate(0, 1000L);
+    private static final String CYCLE = "cycle";
+    private static final String SECOND = "second";
+    private final int cycles;
+    private final long period;
+
+    private PollRate(int cycles, long period) {
+        this.cycles = cycles;
+        this.period = period;
+    }
+
+    public static PollRate everyNthCycle(int n) {
+        checkGreaterThanZero(n, "n");
+        return n == 1 ? EVERY_CYCLE : new PollRate(n, 0L);
+    }
+
+    /**
+     * @param rate - the text form of a poll rate, null or empty for
+     *               every cycle
+     * @throws IllegalArgumentException if the text is not a poll rate
+     */
+    public static PollRate valueOf(String rate) {
+        if (isNullOrEmpty(rate) || CYCLE.equalsIgnoreCase(rate.trim())) {
+            return EVERY_CYCLE;
+        }
+        final String value = rate.trim().toLowerCase();
+        if (SECOND.equals(value)) {
+            return ONCE_PER_SECOND;
+        }
+        if (value.startsWith(CYCLE + "/")) {
+            try {
+                final int n = Integer.parseInt(value.substring(CYCLE.length() + 1));
+                if (n > 0) {
+                    return everyNthCycle(n);
+                }
+            }
+            catch (NumberFormatException e) {
+                // reported below
+            }
+        }
+        throw new IllegalArgumentException("Invalid poll rate: " + rate);
+    }
+
+    /**
+     * @return true if the rate counts poll cycles, false if it counts time
+     */
+    public boolean isCycleBased() {
+        return period == 0L;
+    }
+
+    /**
+     * @return the number of poll cycles between reads of a cycle based rate
+     */
+    public int getCycles() {
+        return cycles;
+    }
+
+    /**
+     * @return the milliseconds between reads of a time based rate
+     */
+    public long getPeriod() {
+        return period;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (!(object instanceof PollRate)) {
+            return false;
+        }
+        final PollRate other = (PollRate) object;
+        return cycles == other.cycles && period == other.period;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * cycles + (int) period;
+    }
+
+    @Override
+    public String toString() {
+        if (!isCycleBased()) {
+            return SECOND;
+        }
+        return cycles == 1 ? CYCLE : CYCLE + "/" + cycles;
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.manager;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.romraider.logger.ecu.comms.io.connection.QueryFrameLimit;
+import com.romraider.logger.ecu.comms.query.EcuQuery;
+
+/**
+ * Decides which ECU queries are read on each poll cycle and packs them
+ * into as few requests as the protocol's {@link QueryFrameLimit} allows.
+ * <p>
+ * Queries read every Nth cycle are spread over the N cycles, and queries
+ * read once per second are staggered over the second, so each cycle
+ * carries a similar share of the slower parameters.  Every query is read
+ * on the first cycle.  The request lists for each combination of due
+ * queries are built once and returned again when the same combination is
+ * due, so protocols can keep caching their request frames.
+ */
+final class PollScheduler {
+    private static final int MAX_CACHED_CYCLES = 64;
+    private static final List<List<EcuQuery>> NONE =
+            Collections.emptyList();
+    private final Group[] groups;
+    private final QueryFrameLimit limit;
+    private final Map<BitSet, List<List<EcuQuery>>> frames =
+            new HashMap<BitSet, List<List<EcuQuery>>>();
+    private final BitSet due;
+    private final int maxCycles;
+    private final boolean singleFrame;
+    private long cycle;
+
+    /**
+     * @param queries - the ECU queries to poll
+     * @param rates - the poll rate of each query
+     * @param limit - the request size limit of the protocol
+     * @param now - the current time in milliseconds
+     */
+    PollScheduler(List<EcuQuery> queries, PollRate[] rates,
+            QueryFrameLimit limit, long now) {
+
+        this.limit = limit;
+        // queries sharing an address are read once, at the fastest rate
+        // of any of them, and always travel in the same request
+        final Map<String, Group> byAddress = new LinkedHashMap<String, Group>();
+        for (int i = 0; i < rates.length; i++) {
+            final EcuQuery query = queries.get(i);
+            Group group = byAddress.get(query.getHex());
+            if (group == null) {
+                group = new Group(limit.getSize(query));
+                byAddress.put(query.getHex(), group);
+            }
+            group.add(query, rates[i]);
+        }
+        // queries read every cycle lead the requests
+        final List<Group> ordered = new ArrayList<Group>();
+        for (Group group : byAddress.values()) {
+            if (group.rate.equals(PollRate.EVERY_CYCLE)) {
+                ordered.add(group);
+            }
+        }
+        final boolean everyCycle = ordered.size() == byAddress.size();
+        for (Group group : byAddress.values()) {
+            if (!group.rate.equals(PollRate.EVERY_CYCLE)) {
+                ordered.add(group);
+            }
+        }
+        this.groups = ordered.toArray(new Group[ordered.size()]);
+        this.due = new BitSet(groups.length);
+
+        // spread the members of each rate class over its cycles or period
+        final Map<PollRate, List<Group>> classes =
+                new HashMap<PollRate, List<Group>>();
+        int max = 1;
+        for (Group group : groups) {
+            List<Group> members = classes.get(group.rate);
+            if (members == null) {
+                members = new ArrayList<Group>();
+                classes.put(group.rate, members);
+            }
+            members.add(group);
+            if (group.rate.isCycleBased()) {
+                max = Math.max(max, group.rate.getCycles());
+            }
+        }
+        for (Map.Entry<PollRate, List<Group>> entry : classes.entrySet()) {
+            final PollRate rate = entry.getKey();
+            final List<Group> members = entry.getValue();
+            for (int i = 0; i < members.size(); i++) {
+                final Group group = members.get(i);
+                if (rate.isCycleBased()) {
+                    group.phase = i % rate.getCycles();
+                }
+                else {
+                    group.nextDue = now + rate.getPeriod() * i / members.size();
+                }
+            }
+        }
+        this.maxCycles = max;
+        this.singleFrame = everyCycle && pack(allDue()).size() <= 1;
+    }
+
+    /**
+     * @return true if all queries are read every cycle in one request, so
+     * the protocol's continuous polling mode can be used
+     */
+    boolean isSingleFrame() {
+        return singleFrame;
+    }
+
+    /**
+     * Select the queries due on the next poll cycle.  Cycles on which no
+     * cycle based query is due are skipped.
+     * @param now - the current time in milliseconds
+     * @return the requests to send on this cycle, each one a list of
+     * queries within the protocol's request size limit, or an empty list
+     * when only time based queries are selected and none is due yet
+     */
+    List<List<EcuQuery>> nextCycle(long now) {
+        if (groups.length == 0) {
+            return NONE;
+        }
+        due.clear();
+        if (cycle == 0) {
+            due.set(0, groups.length);
+            for (Group group : groups) {
+                if (!group.rate.isCycleBased()) {
+                    group.polled(now);
+                }
+            }
+            cycle++;
+            return framesFor(due);
+        }
+        for (int i = 0; i < groups.length; i++) {
+            final Group group = groups[i];
+            if (!group.rate.isCycleBased() && now >= group.nextDue) {
+                due.set(i);
+                group.polled(now);
+            }
+        }
+        // every window of N cycles holds a due member of each class
+        int skipped = 0;
+        do {
+            for (int i = 0; i < groups.length; i++) {
+                final Group group = groups[i];
+                if (group.rate.isCycleBased()
+                        && cycle % group.rate.getCycles() == group.phase) {
+                    due.set(i);
+                }
+            }
+            cycle++;
+        } while (due.isEmpty() && ++skipped < maxCycles);
+        if (due.isEmpty()) {
+            return NONE;
+        }
+        return framesFor(due);
+    }
+
+    /**
+     * @return the milliseconds until the next time based query is due
+     */
+    long getMillisUntilDue(long now) {
+        long next = Long.MAX_VALUE;
+        for (Group group : groups) {
+            if (!group.rate.isCycleBased()) {
+                next = Math.min(next, group.nextDue);
+            }
+        }
+        return next == Long.MAX_VALUE ? 0L : Math.max(next - now, 0L);
+    }
+
+    private BitSet allDue() {
+        final BitSet all = new BitSet(groups.length);
+        all.set(0, groups.length);
+        return all;
+    }
+
+    private List<List<EcuQuery>> framesFor(BitSet dueGroups) {
+        List<List<EcuQuery>> requests = frames.get(dueGroups);
+        if (requests == null) {
+            if (frames.size() == MAX_CACHED_CYCLES) {
+                frames.clear();
+            }
+            requests = pack(dueGroups);
+            frames.put((BitSet) dueGroups.clone(), requests);
+        }
+        return requests;
+    }
+
+    // first fit in query order, a query larger than the limit is sent
+    // alone and left for the connection to report
+    private List<List<EcuQuery>> pack(BitSet dueGroups) {
+        final List<List<EcuQuery>> requests = new ArrayList<List<EcuQuery>>();
+        List<EcuQuery> request = null;
+        int size = 0;
+        for (int i = dueGroups.nextSetBit(0); i >= 0; i = dueGroups.nextSetBit(i + 1)) {
+            final Group group = groups[i];
+            if (request == null || size + group.size > limit.getCapacity()) {
+                request = new ArrayList<EcuQuery>();
+                requests.add(request);
+                size = 0;
+            }
+            request.addAll(group.queries);
+            size += group.size;
+        }
+        return requests;
+    }
+
+    private static final class Group {
+        private final List<EcuQuery> queries = new ArrayList<EcuQuery>(1);
+        private final int size;
+        private PollRate rate;
+        private int phase;
+        private long nextDue;
+
+        private Group(int size) {
+            this.size = size;
+        }
+
+        private void add(EcuQuery query, PollRate queryRate) {
+            queries.add(query);
+            if (rate == null || faster(queryRate, rate)) {
+                rate = queryRate;
+            }
+        }
+
+        private void polled(long now) {
+            nextDue += rate.getPeriod();
+            if (nextDue <= now) {
+                nextDue = now + rate.getPeriod();
+            }
+        }
+
+        // cycle based rates are treated as faster than time based ones
+        private static boolean faster(PollRate a, PollRate b) {
+            if (a.isCycleBased() != b.isCycleBased()) {
+                return a.isCycleBased();
+            }
+            return a.isCycleBased()
+                    ? a.getCycles() < b.getCycles()
+                    : a.getPeriod() < b.getPeriod();
+        }
+    }
+}
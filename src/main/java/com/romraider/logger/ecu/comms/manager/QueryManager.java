@@ -31,6 +31,10 @@ public interface QueryManager extends Runnable {
 
     void removeQuery(String callerId, LoggerData loggerData);
 
+    void setPollRate(LoggerData loggerData, PollRate pollRate);
+
+    PollRate getPollRate(LoggerData loggerData);
+
     boolean isRunning();
 
     void stop();
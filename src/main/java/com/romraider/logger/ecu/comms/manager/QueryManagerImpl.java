@@ -25,12 +25,13 @@ import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ParamChecker.isNullOrEmpty;
 import static com.romraider.util.ThreadUtil.sleep;
 import static java.lang.System.currentTimeMillis;
+import static java.lang.System.nanoTime;
 import static java.util.Collections.synchronizedList;
 import static java.util.Collections.synchronizedMap;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -48,11 +49,8 @@ import com.romraider.logger.ecu.comms.io.connection.LoggerConnection;
 import com.romraider.logger.ecu.comms.query.EcuInitCallback;
 import com.romraider.logger.ecu.comms.query.EcuQuery;
 import com.romraider.logger.ecu.comms.query.EcuQueryImpl;
-import com.romraider.logger.ecu.comms.query.ExternalQuery;
 import com.romraider.logger.ecu.comms.query.ExternalQueryImpl;
 import com.romraider.logger.ecu.comms.query.Query;
-import com.romraider.logger.ecu.comms.query.Response;
-import com.romraider.logger.ecu.comms.query.ResponseImpl;
 import com.romraider.logger.ecu.definition.EcuData;
 import com.romraider.logger.ecu.definition.ExternalData;
 import com.romraider.logger.ecu.definition.LoggerData;
@@ -74,6 +72,9 @@ public final class QueryManagerImpl implements QueryManager {
             synchronizedMap(new HashMap<String, Query>());
     private final Map<String, Query> addList = new HashMap<String, Query>();
     private final List<String> removeList = new ArrayList<String>();
+    private final Map<String, PollRate> pollRates = new HashMap<String, PollRate>();
+    private boolean pollRatesChanged;
+    private QueryPlan queryPlan = QueryPlan.EMPTY;
     private static final PollingState pollState = new PollingStateImpl();
     private static final Settings settings = SettingsManager.getSettings();
     private static final String EXT = "Externals";
@@ -85,6 +86,7 @@ public final class QueryManagerImpl implements QueryManager {
     private static boolean started;
     private static boolean stop;
     private AsyncDataUpdateHandler dataUpdater;
+    private final ExternalAlignmentQueue alignmentQueue = new ExternalAlignmentQueue();
     private DataUpdateHandler[] updateHandlers;
     private int queryCounter;
     private long queryStart;
@@ -148,6 +150,28 @@ public final class QueryManagerImpl implements QueryManager {
 
     }
 
+    @Override
+    public synchronized void setPollRate(LoggerData loggerData, PollRate pollRate) {
+        checkNotNull(loggerData, "loggerData");
+        final PollRate rate = pollRate == null ? PollRate.EVERY_CYCLE : pollRate;
+        if (!rate.equals(getPollRate(loggerData))) {
+            if (rate.equals(PollRate.EVERY_CYCLE)) {
+                pollRates.remove(loggerData.getId());
+            }
+            else {
+                pollRates.put(loggerData.getId(), rate);
+            }
+            pollRatesChanged = true;
+        }
+    }
+
+    @Override
+    public synchronized PollRate getPollRate(LoggerData loggerData) {
+        checkNotNull(loggerData, "loggerData");
+        final PollRate pollRate = pollRates.get(loggerData.getId());
+        return pollRate == null ? PollRate.EVERY_CYCLE : pollRate;
+    }
+
     @Override
     public Thread getThread() {
         return queryManagerThread;
@@ -269,6 +293,8 @@ public final class QueryManagerImpl implements QueryManager {
         queryStart = currentTimeMillis();
         queryCounter = 1;
         long end = currentTimeMillis();
+        QueryPlan scheduledPlan = null;
+        PollScheduler scheduler = null;
 
         try {
             txManager.start();
@@ -282,25 +308,44 @@ public final class QueryManagerImpl implements QueryManager {
 
             boolean lastPollState = settings.isFastPoll();
             while (!stop) {
-                pollState.setFastPoll(settings.isFastPoll());
-                updateQueryList();
-                if (queryMap.isEmpty()) {
+                final QueryPlan plan = updateQueryList();
+                if (plan != scheduledPlan) {
+                    scheduler = new PollScheduler(plan.getEcuQueries(),
+                            plan.getEcuPollRates(), txManager.getQueryFrameLimit(),
+                            currentTimeMillis());
+                    scheduledPlan = plan;
+                }
+                // continuous polling streams one fixed request
+                pollState.setFastPoll(settings.isFastPoll() && scheduler.isSingleFrame());
+                if (plan.isEmpty()) {
                     if (pollState.isLastQuery() &&
                             pollState.getCurrentState() == PollingState.State.STATE_0) {
                         endEcuQueries(txManager);
                         pollState.setLastState(PollingState.State.STATE_0);
                     }
 
+                    alignmentQueue.publish(dataUpdater, nanoTime(), true);
                     messageListener.reportMessage(rb.getString("SELECTPARAMS"));
                     sleep(100L);
                 } else {
                     end = currentTimeMillis() + 1L; // update once every 1msec
-                    final List<EcuQuery> ecuQueries =
-                            filterEcuQueries(queryMap.values());
+                    final List<List<EcuQuery>> requests =
+                            scheduler.nextCycle(currentTimeMillis());
+                    if (requests.isEmpty() && !plan.getEcuQueries().isEmpty()
+                            && !settings.isLogExternalsOnly()) {
+                        // only once per second parameters are selected
+                        sleep(Math.max(scheduler.getMillisUntilDue(currentTimeMillis()), 1L));
+                        continue;
+                    }
 
+                    long sampleTime = nanoTime();
                     if (!settings.isLogExternalsOnly()) {
-                        if (!ecuQueries.isEmpty()) {
-                            sendEcuQueries(txManager);
+                        if (!plan.getEcuQueries().isEmpty()) {
+                            for (List<EcuQuery> request : requests) {
+                                txManager.sendQueries(request, pollState);
+                            }
+                            // the ECU values are taken as read half way through
+                            sampleTime += (nanoTime() - sampleTime) / 2;
                             if (!pollState.isFastPoll() && lastPollState) {
                                 endEcuQueries(txManager);
                             }
@@ -343,13 +388,12 @@ public final class QueryManagerImpl implements QueryManager {
                             }
                         }
                     }
-                    sendExternalQueries();
                     // waiting until at least 1msec has passed since last query set
                     while (currentTimeMillis() < end) {
                         sleep(1L);
                     }
 
-                    handleQueryResponse();
+                    handleQueryResponse(plan, sampleTime);
                     queryCounter++;
                     messageListener.reportMessage(MessageFormat.format(
                             rb.getString("QUERYING"), moduleName));
@@ -361,72 +405,31 @@ public final class QueryManagerImpl implements QueryManager {
             sleep(500L);
         } finally {
             messageListener.reportMessage(rb.getString("STOPPING"));
+            alignmentQueue.publish(dataUpdater, nanoTime(), true);
             txManager.stop();
             pollState.setCurrentState(PollingState.State.STATE_0);
             pollState.setNewQuery(true);
         }
     }
 
-    private void sendEcuQueries(TransmissionManager txManager) {
-        final List<EcuQuery> ecuQueries = filterEcuQueries(queryMap.values());
-        if (fileLoggerQuery != null
-                && settings.isFileLoggingControllerSwitchActive())
-            ecuQueries.add(fileLoggerQuery);
-            txManager.sendQueries(ecuQueries, pollState);
-    }
-
-    private void sendExternalQueries() {
-        final List<ExternalQuery> externalQueries =
-                filterExternalQueries(queryMap.values());
-        for (ExternalQuery externalQuery : externalQueries) {
-            //FIXME: This is a hack!!
-            externalQuery.setResponse(
-                    externalQuery.getLoggerData().getSelectedConvertor().convert(null));
-        }
-    }
-
     private void endEcuQueries(TransmissionManager txManager) {
         txManager.endQueries();
         pollState.setLastQuery(false);
     }
 
-    private void handleQueryResponse() {
-        if (settings.isFileLoggingControllerSwitchActive())
-            monitor.monitorFileLoggerSwitch(fileLoggerQuery.getResponse());
-        final Response response = buildResponse(queryMap.values());
-
-
-        dataUpdater.addResponse(response);
-    }
-
-    private Response buildResponse(Collection<Query> queries) {
-        final Response response = new ResponseImpl();
-        for (final Query query : queries) {
-            response.setDataValue(query.getLoggerData(), query.getResponse());
-        }
-        return response;
-    }
-
-    //FIXME: This is a hack!!
-    private List<EcuQuery> filterEcuQueries(Collection<Query> queries) {
-        List<EcuQuery> filtered = new ArrayList<EcuQuery>();
-        for (Query query : queries) {
-            if (EcuQuery.class.isAssignableFrom(query.getClass())) {
-                filtered.add((EcuQuery) query);
-            }
-        }
-        return filtered;
-    }
-
-    //FIXME: This is a hack!!
-    private List<ExternalQuery> filterExternalQueries(Collection<Query> queries) {
-        List<ExternalQuery> filtered = new ArrayList<ExternalQuery>();
-        for (Query query : queries) {
-            if (ExternalQuery.class.isAssignableFrom(query.getClass())) {
-                filtered.add((ExternalQuery) query);
-            }
-        }
-        return filtered;
+    /**
+     * Queue the responses of the cycle, to be published once the external
+     * sensors have reported their readings at the sample time.
+     * @param sampleTime - the {@link System#nanoTime()} the ECU was sampled
+     */
+    private void handleQueryResponse(QueryPlan plan, long sampleTime) {
+        if (plan.getFileLoggerQuery() != null)
+            monitor.monitorFileLoggerSwitch(plan.getFileLoggerQuery().getResponse());
+        final long now = nanoTime();
+        final long timestamp = currentTimeMillis()
+                - NANOSECONDS.toMillis(now - sampleTime);
+        alignmentQueue.add(plan, timestamp, sampleTime);
+        alignmentQueue.publish(dataUpdater, now, false);
     }
 
     @Override
@@ -438,23 +441,39 @@ public final class QueryManagerImpl implements QueryManager {
         return callerId + "_" + loggerData.getName();
     }
 
-    private synchronized void updateQueryList() {
-        addQueries();
-        removeQueries();
+    /**
+     * Apply pending query additions and removals.  The query plan is only
+     * rebuilt when the query set, the poll rates or the file logger switch
+     * state changed, otherwise the plan of the previous cycle is returned.
+     */
+    private synchronized QueryPlan updateQueryList() {
+        final EcuQuery switchQuery =
+                settings.isFileLoggingControllerSwitchActive()
+                ? fileLoggerQuery : null;
+        final boolean changed = addQueries() | removeQueries() | pollRatesChanged;
+        pollRatesChanged = false;
+        if (changed || switchQuery != queryPlan.getFileLoggerQuery()) {
+            queryPlan = new QueryPlan(queryMap.values(), switchQuery, pollRates);
+        }
+        return queryPlan;
     }
 
-    private void addQueries() {
+    private boolean addQueries() {
+        if (addList.isEmpty()) return false;
         for (String queryId : addList.keySet()) {
             queryMap.put(queryId, addList.get(queryId));
         }
         addList.clear();
+        return true;
     }
 
-    private void removeQueries() {
+    private boolean removeQueries() {
+        if (removeList.isEmpty()) return false;
         for (String queryId : removeList) {
             queryMap.remove(queryId);
         }
         removeList.clear();
+        return true;
     }
 
     private String buildStatsMessage(long start, int count) {
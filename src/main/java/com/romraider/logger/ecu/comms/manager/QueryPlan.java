@@ -0,0 +1,139 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.romraider.logger.ecu.comms.query.EcuQuery;
+import com.romraider.logger.ecu.comms.query.ExternalQuery;
+import com.romraider.logger.ecu.comms.query.Query;
+import com.romraider.logger.ecu.comms.query.ResponseLayout;
+import com.romraider.logger.ecu.definition.LoggerData;
+
+/**
+ * The set of queries polled on each cycle, split by type.  A plan is built
+ * only when the query set or the poll rates change; the ECU query list is
+ * never modified, so the request lists scheduled from it can be cached by
+ * the protocols.
+ */
+final class QueryPlan {
+    static final QueryPlan EMPTY = new QueryPlan(new ArrayList<Query>(),
+            null, new HashMap<String, PollRate>());
+
+    private final Query[] queries;
+    private final List<EcuQuery> ecuQueries;
+    private final PollRate[] ecuPollRates;
+    private final ExternalQuery[] externalQueries;
+    private final EcuQuery fileLoggerQuery;
+    private final ResponseLayout layout;
+    private final int[] slots;
+
+    QueryPlan(Collection<Query> queries, EcuQuery fileLoggerQuery,
+            Map<String, PollRate> pollRates) {
+        this.queries = queries.toArray(new Query[queries.size()]);
+        this.fileLoggerQuery = fileLoggerQuery;
+        final List<EcuQuery> ecu = new ArrayList<EcuQuery>();
+        final List<ExternalQuery> external = new ArrayList<ExternalQuery>();
+        for (Query query : this.queries) {
+            if (query instanceof EcuQuery) {
+                ecu.add((EcuQuery) query);
+            }
+            else if (query instanceof ExternalQuery) {
+                external.add((ExternalQuery) query);
+            }
+        }
+        this.externalQueries = external.toArray(new ExternalQuery[external.size()]);
+        if (fileLoggerQuery != null && !ecu.isEmpty()) {
+            ecu.add(fileLoggerQuery);
+        }
+        this.ecuQueries = ecu;
+        // the file logger switch is read every cycle
+        this.ecuPollRates = new PollRate[ecu.size()];
+        for (int i = 0; i < ecuPollRates.length; i++) {
+            final PollRate rate = ecu.get(i) == fileLoggerQuery ? null
+                    : pollRates.get(ecu.get(i).getLoggerData().getId());
+            ecuPollRates[i] = rate == null ? PollRate.EVERY_CYCLE : rate;
+        }
+        final List<LoggerData> data = new ArrayList<LoggerData>();
+        for (Query query : this.queries) {
+            data.add(query.getLoggerData());
+        }
+        this.layout = new ResponseLayout(data);
+        this.slots = new int[this.queries.length];
+        for (int i = 0; i < this.queries.length; i++) {
+            slots[i] = layout.getSlot(this.queries[i].getLoggerData());
+        }
+    }
+
+    boolean isEmpty() {
+        return queries.length == 0;
+    }
+
+    /**
+     * @return all queries selected for logging, excluding the file logger
+     * switch query
+     */
+    Query[] getQueries() {
+        return queries;
+    }
+
+    /**
+     * @return the ECU queries, including the file logger switch query
+     * when it is active
+     */
+    List<EcuQuery> getEcuQueries() {
+        return ecuQueries;
+    }
+
+    /**
+     * @return the poll rate of each query returned by
+     * {@link #getEcuQueries()}
+     */
+    PollRate[] getEcuPollRates() {
+        return ecuPollRates;
+    }
+
+    ExternalQuery[] getExternalQueries() {
+        return externalQueries;
+    }
+
+    EcuQuery getFileLoggerQuery() {
+        return fileLoggerQuery;
+    }
+
+    /**
+     * @return the response layout of the parameters of all queries
+     */
+    ResponseLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @return the response slot of each query returned by
+     * {@link #getQueries()}
+     */
+    int[] getSlots() {
+        return slots;
+    }
+}
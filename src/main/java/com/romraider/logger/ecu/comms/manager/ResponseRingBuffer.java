@@ -0,0 +1,228 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.manager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.romraider.logger.ecu.comms.query.ResponseFrame;
+
+/**
+ * Single producer, multiple consumer ring of preallocated response frames.
+ * The poll loop claims a frame, fills it and publishes it; each consumer
+ * keeps its own cursor and copies published frames out according to its
+ * {@link OverflowPolicy}.  Only {@link OverflowPolicy#BLOCK} consumers
+ * hold back the producer, the others skip frames overwritten before they
+ * got to them.
+ * <p>
+ * The ring is not lock-free.  Each frame has its own lock, held by the
+ * producer from claim to publish and by a consumer while it copies the
+ * frame, so a copy never mixes the data of two cycles.  The producer and a
+ * consumer only contend when they are on the same frame.
+ */
+final class ResponseRingBuffer {
+    private static final long BLOCK_WAIT = 100000L; // 100 usec
+
+    private final ResponseFrame[] frames;
+    // the sequence held by each frame, guarded by the frame's lock
+    private final long[] sequences;
+    private final ReentrantLock[] locks;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1L);
+    private final AtomicLong published = new AtomicLong(-1L);
+    private final List<Consumer> consumers = new CopyOnWriteArrayList<Consumer>();
+    private volatile boolean closed;
+    // the lock of the claimed frame, only used by the producer
+    private ReentrantLock held;
+
+    /**
+     * @param capacity - number of frames, rounded up to a power of two
+     */
+    ResponseRingBuffer(int capacity) {
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        frames = new ResponseFrame[size];
+        sequences = new long[size];
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            frames[i] = new ResponseFrame();
+            sequences[i] = -1L;
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    int getCapacity() {
+        return frames.length;
+    }
+
+    Consumer addConsumer(OverflowPolicy policy) {
+        final Consumer consumer = new Consumer(policy, published.get() + 1L);
+        consumers.add(consumer);
+        return consumer;
+    }
+
+    /**
+     * Claim the next frame for writing.  Waits while a blocking consumer
+     * has not yet read the frame being reused, unless the ring is closed.
+     */
+    ResponseFrame claim() {
+        final long next = claimed.get() + 1L;
+        final long wrap = next - frames.length;
+        for (Consumer consumer : consumers) {
+            if (consumer.policy == OverflowPolicy.BLOCK) {
+                while (!closed && consumer.cursor.get() <= wrap) {
+                    LockSupport.parkNanos(this, BLOCK_WAIT);
+                }
+            }
+        }
+        // a frame claimed and never published is abandoned
+        release();
+        final int slot = (int) next & mask;
+        locks[slot].lock();
+        held = locks[slot];
+        claimed.set(next);
+        return frames[slot];
+    }
+
+    /**
+     * Make the last claimed frame visible to the consumers.
+     */
+    void publish() {
+        final long sequence = claimed.get();
+        if (held != null) {
+            sequences[(int) sequence & mask] = sequence;
+            release();
+        }
+        published.set(sequence);
+        for (Consumer consumer : consumers) {
+            consumer.wake();
+        }
+    }
+
+    private void release() {
+        if (held != null) {
+            held.unlock();
+            held = null;
+        }
+    }
+
+    void close() {
+        closed = true;
+        for (Consumer consumer : consumers) {
+            consumer.wake();
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    final class Consumer {
+        private final OverflowPolicy policy;
+        private final AtomicLong cursor;
+        private volatile Thread waiter;
+        private long dropped;
+
+        private Consumer(OverflowPolicy policy, long start) {
+            this.policy = policy;
+            this.cursor = new AtomicLong(start);
+        }
+
+        OverflowPolicy getPolicy() {
+            return policy;
+        }
+
+        /**
+         * @return the number of published frames this consumer skipped
+         */
+        long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * Copy the next frame due to this consumer into <b>target</b>.
+         * @return false if no frame is available
+         */
+        boolean poll(ResponseFrame target) {
+            while (true) {
+                final long available = published.get();
+                long sequence = cursor.get();
+                if (available < sequence) {
+                    return false;
+                }
+                if (policy == OverflowPolicy.COALESCE) {
+                    dropped += available - sequence;
+                    sequence = available;
+                }
+                else if (policy == OverflowPolicy.DROP_OLDEST) {
+                    // the producer may hold the frame after the last
+                    // published one
+                    final long oldest = available - frames.length + 2L;
+                    if (sequence < oldest) {
+                        dropped += oldest - sequence;
+                        sequence = oldest;
+                    }
+                }
+                final int slot = (int) sequence & mask;
+                final boolean copied;
+                locks[slot].lock();
+                try {
+                    copied = sequences[slot] == sequence
+                            && target.copyFrom(frames[slot]);
+                }
+                finally {
+                    locks[slot].unlock();
+                }
+                if (copied) {
+                    cursor.set(sequence + 1L);
+                    return true;
+                }
+                // overwritten while copying, retry from a newer frame
+                cursor.set(sequence + 1L);
+                dropped++;
+            }
+        }
+
+        /**
+         * Park the calling thread until a frame is published, the ring is
+         * closed or the timeout elapses.
+         */
+        void await(long nanos) {
+            waiter = Thread.currentThread();
+            if (!closed && published.get() < cursor.get()) {
+                LockSupport.parkNanos(this, nanos);
+            }
+            waiter = null;
+        }
+
+        private void wake() {
+            final Thread thread = waiter;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@
 
 package com.romraider.logger.ecu.comms.manager;
 
+import com.romraider.logger.ecu.comms.io.connection.QueryFrameLimit;
 import com.romraider.logger.ecu.comms.query.EcuQuery;
 import java.util.Collection;
 
@@ -27,6 +28,8 @@ public interface TransmissionManager {
     void start();
 
     void sendQueries(Collection<EcuQuery> queries, PollingState pollMode);
+
+    QueryFrameLimit getQueryFrameLimit();
     
     void endQueries();
 
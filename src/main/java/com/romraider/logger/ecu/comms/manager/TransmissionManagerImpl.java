@@ -29,6 +29,7 @@ import org.apache.log4j.Logger;
 
 import com.romraider.Settings;
 import com.romraider.logger.ecu.comms.io.connection.LoggerConnection;
+import com.romraider.logger.ecu.comms.io.connection.QueryFrameLimit;
 import com.romraider.logger.ecu.comms.query.EcuQuery;
 import com.romraider.logger.ecu.exception.NotConnectedException;
 import com.romraider.util.SettingsManager;
@@ -59,6 +60,12 @@ public final class TransmissionManagerImpl implements TransmissionManager {
         connection.sendAddressReads(queries, SettingsManager.getSettings().getDestinationTarget(), pollState);
     }
 
+    @Override
+    public QueryFrameLimit getQueryFrameLimit() {
+        if (connection == null) return QueryFrameLimit.UNLIMITED;
+        return connection.getQueryFrameLimit();
+    }
+
     @Override
     public void endQueries() {
         if (connection == null) throw new NotConnectedException("TransmissionManager must be started before ending queries!");
@@ -45,4 +45,13 @@ public interface EcuQuery extends Query {
      * @param bytes
      */
     void setResponse(byte[] bytes);
+
+    /**
+     * Set the response data for the query from a region of a larger
+     * response buffer, without copying it.
+     * @param bytes - the response buffer
+     * @param offset - the start of this query's data in <b>bytes</b>
+     * @param length - the length of this query's data
+     */
+    void setResponse(byte[] bytes, int offset, int length);
 }
@@ -61,6 +61,10 @@ public final class EcuQueryImpl implements EcuQuery {
         this.response = ecuData.getSelectedConvertor().convert(bytes);
     }
 
+    public void setResponse(byte[] bytes, int offset, int length) {
+        this.response = ecuData.getSelectedConvertor().convert(bytes, offset, length);
+    }
+
     public boolean equals(Object object) {
         return object instanceof EcuQueryImpl && getHex().equals(((EcuQueryImpl) object).getHex());
     }
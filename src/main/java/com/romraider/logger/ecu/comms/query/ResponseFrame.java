@@ -0,0 +1,112 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.query;
+
+import static java.lang.System.arraycopy;
+import static java.util.Arrays.fill;
+
+import java.util.Set;
+
+import com.romraider.logger.ecu.definition.LoggerData;
+
+/**
+ * A reusable {@link Response} holding one sample of every parameter as a
+ * primitive value, indexed by the slot of a {@link ResponseLayout}.
+ * Frames are preallocated and refilled every poll cycle, so a frame
+ * handed to a data update handler is only valid for the duration of that
+ * call; handlers deferring work to another thread must copy the values
+ * they need.
+ */
+public final class ResponseFrame implements Response {
+    private static final double ZERO = 0.0;
+    private ResponseLayout layout = ResponseLayout.EMPTY;
+    private double[] values = new double[0];
+    private long timestamp;
+
+    /**
+     * Prepare the frame for a new sample, all values are set to zero.
+     */
+    public void reset(ResponseLayout layout, long timestamp) {
+        final int size = layout.size();
+        if (values.length < size) {
+            values = new double[size];
+        }
+        else {
+            fill(values, 0, size, ZERO);
+        }
+        this.layout = layout;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Copy the sample held by another frame into this frame.
+     * @return false if the source frame was being refilled during the
+     * copy and its layout and values did not agree
+     */
+    public boolean copyFrom(ResponseFrame source) {
+        final ResponseLayout sourceLayout = source.layout;
+        final double[] sourceValues = source.values;
+        final int size = sourceLayout.size();
+        if (sourceValues.length < size) {
+            return false;
+        }
+        if (values.length < size) {
+            values = new double[size];
+        }
+        arraycopy(sourceValues, 0, values, 0, size);
+        layout = sourceLayout;
+        timestamp = source.timestamp;
+        return true;
+    }
+
+    public ResponseLayout getLayout() {
+        return layout;
+    }
+
+    public void setValue(int slot, double value) {
+        values[slot] = value;
+    }
+
+    public double getValue(int slot) {
+        return values[slot];
+    }
+
+    public void setDataValue(LoggerData data, double value) {
+        final int slot = layout.getSlot(data);
+        if (slot < 0) {
+            throw new IllegalArgumentException(
+                    "Parameter not part of the response layout: " + data.getId());
+        }
+        values[slot] = value;
+    }
+
+    public Set<LoggerData> getData() {
+        return layout.getData();
+    }
+
+    public double getDataValue(LoggerData data) {
+        final int slot = layout.getSlot(data);
+        return slot < 0 ? ZERO : values[slot];
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
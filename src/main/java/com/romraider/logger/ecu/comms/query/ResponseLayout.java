@@ -0,0 +1,82 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.query;
+
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.romraider.logger.ecu.definition.LoggerData;
+
+/**
+ * The stable assignment of logger parameters to value slots used by
+ * {@link ResponseFrame}.  A layout is built once per query set; a
+ * parameter keeps its slot until the query set changes.
+ */
+public final class ResponseLayout {
+    public static final ResponseLayout EMPTY =
+            new ResponseLayout(new LinkedHashSet<LoggerData>());
+
+    private final LoggerData[] data;
+    private final Map<LoggerData, Integer> slots;
+    private final Set<LoggerData> dataSet;
+
+    /**
+     * @param data - the parameters in slot order, duplicates share the
+     * slot of their first occurrence
+     */
+    public ResponseLayout(Collection<? extends LoggerData> data) {
+        final Set<LoggerData> distinct = new LinkedHashSet<LoggerData>(data);
+        this.data = distinct.toArray(new LoggerData[distinct.size()]);
+        this.slots = new HashMap<LoggerData, Integer>();
+        for (int i = 0; i < this.data.length; i++) {
+            slots.put(this.data[i], i);
+        }
+        this.dataSet = unmodifiableSet(distinct);
+    }
+
+    public int size() {
+        return data.length;
+    }
+
+    public LoggerData getData(int slot) {
+        return data[slot];
+    }
+
+    /**
+     * @return all parameters of this layout in slot order
+     */
+    public Set<LoggerData> getData() {
+        return dataSet;
+    }
+
+    /**
+     * @return the slot of the parameter, or -1 if it is not part of this
+     * layout
+     */
+    public int getSlot(LoggerData loggerData) {
+        final Integer slot = slots.get(loggerData);
+        return slot == null ? -1 : slot;
+    }
+}
@@ -19,6 +19,8 @@
 
 package com.romraider.logger.ecu.definition;
 
+import java.util.Map;
+
 import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
 
 
@@ -26,6 +28,15 @@ public interface EcuDataConvertor {
 
     double convert(byte[] bytes);
 
+    /**
+     * Convert the value held in a region of a larger response buffer.
+     * @param bytes - the response buffer
+     * @param offset - the start of the value in <b>bytes</b>
+     * @param length - the number of bytes of the value
+     * @return the converted value
+     */
+    double convert(byte[] bytes, int offset, int length);
+
     String format(double value);
 
     String getUnits();
@@ -37,4 +48,10 @@ public interface EcuDataConvertor {
     String getExpression();
 
     String getDataType();
+
+    /**
+     * @return the text substituted for formatted values by
+     * {@link #format(double)}, keyed by formatted value
+     */
+    Map<String, String> getReplaceMap();
 }
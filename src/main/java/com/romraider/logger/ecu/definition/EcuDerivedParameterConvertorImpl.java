@@ -20,22 +20,20 @@
 package com.romraider.logger.ecu.definition;
 
 import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
-import static com.romraider.util.JEPUtil.evaluate;
+import com.romraider.util.CompiledExpression;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
-import static java.util.Collections.synchronizedMap;
+import static java.util.Collections.unmodifiableMap;
 import java.text.DecimalFormat;
-import java.util.HashMap;
 import java.util.Map;
 
 public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParameterConvertor {
-    private EcuData[] ecuDatas;
     private final String units;
     private final String expression;
     private final DecimalFormat format;
     private final Map<String, String> replaceMap;
-    private final Map<String, ExpressionInfo> expressionInfoMap = synchronizedMap(new HashMap<String, ExpressionInfo>());
     private final GaugeMinMax gaugeMinMax;
+    private Binding binding;
 
     public EcuDerivedParameterConvertorImpl(String units, String expression, String format, Map<String, String> replaceMap, GaugeMinMax gaugeMinMax) {
         checkNotNullOrEmpty(units, "units");
@@ -51,19 +49,11 @@ public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParamet
     }
 
     public double convert(byte[] bytes) {
-        Map<String, Double> valueMap = new HashMap<String, Double>();
-        String exp = expression;
-        int index = 0;
-        for (EcuData ecuData : ecuDatas) {
-            int length = ecuData.getAddress().getLength();
-            byte[] tmp = new byte[length];
-            System.arraycopy(bytes, index, tmp, 0, length);
-            ExpressionInfo expressionInfo = expressionInfoMap.get(ecuData.getId());
-            valueMap.put(expressionInfo.getReplacementKey(), expressionInfo.getConvertor().convert(tmp));
-            exp = exp.replace(buildParameterKey(expressionInfo), expressionInfo.getReplacementKey());
-            index += length;
-        }
-        double result = evaluate(exp, valueMap);
+        return convert(bytes, 0, bytes.length);
+    }
+
+    public double convert(byte[] bytes, int offset, int length) {
+        final double result = binding.evaluate(bytes, offset);
         return Double.isNaN(result) || Double.isInfinite(result) ? 0.0 : result;
     }
 
@@ -88,12 +78,29 @@ public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParamet
         }
     }
 
+    /**
+     * Bind the dependent parameters.  Each parameter is assigned a variable
+     * slot and the offset of its value within the response, and the
+     * expression is compiled once against those slots.
+     */
     public void setEcuDatas(EcuData[] ecuDatas) {
         checkNotNullOrEmpty(ecuDatas, "ecuDatas");
-        this.ecuDatas = ecuDatas;
-        for (EcuData ecuData : ecuDatas) {
-            addExpressionInfo(ecuData);
+        final ExpressionInfo[] infos = new ExpressionInfo[ecuDatas.length];
+        final String[] variables = new String[ecuDatas.length];
+        final int[] offsets = new int[ecuDatas.length];
+        final int[] lengths = new int[ecuDatas.length];
+        String exp = expression;
+        int index = 0;
+        for (int i = 0; i < ecuDatas.length; i++) {
+            infos[i] = buildExpressionInfo(ecuDatas[i]);
+            variables[i] = infos[i].getReplacementKey();
+            exp = exp.replace(buildParameterKey(infos[i]), variables[i]);
+            offsets[i] = index;
+            lengths[i] = ecuDatas[i].getAddress().getLength();
+            index += lengths[i];
         }
+        binding = new Binding(infos, offsets, lengths,
+                CompiledExpression.compile(exp, variables));
     }
 
     public String toString() {
@@ -104,7 +111,7 @@ public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParamet
         return expression;
     }
 
-    private void addExpressionInfo(EcuData ecuData) {
+    private ExpressionInfo buildExpressionInfo(EcuData ecuData) {
         String id = ecuData.getId();
         String lookup = '[' + id + ':';
         int i = expression.indexOf(lookup);
@@ -119,9 +126,9 @@ public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParamet
                     selectedConvertor = convertor;
                 }
             }
-            expressionInfoMap.put(id, new ExpressionInfo(id, selectedConvertor, true));
+            return new ExpressionInfo(id, selectedConvertor, true);
         } else {
-            expressionInfoMap.put(id, new ExpressionInfo(id, ecuData.getSelectedConvertor(), false));
+            return new ExpressionInfo(id, ecuData.getSelectedConvertor(), false);
         }
     }
 
@@ -129,6 +136,37 @@ public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParamet
         return '[' + expressionInfo.getEcuDataId() + ':' + expressionInfo.getConvertor().getUnits() + ']';
     }
 
+    /**
+     * The dependent parameter convertors, the location of their values in
+     * the response and the expression compiled against their slots.
+     */
+    private static final class Binding {
+        private final EcuDataConvertor[] convertors;
+        private final int[] offsets;
+        private final int[] lengths;
+        private final CompiledExpression compiledExpression;
+        private final double[] values;
+
+        public Binding(ExpressionInfo[] infos, int[] offsets, int[] lengths,
+                CompiledExpression compiledExpression) {
+            this.convertors = new EcuDataConvertor[infos.length];
+            for (int i = 0; i < infos.length; i++) {
+                convertors[i] = infos[i].getConvertor();
+            }
+            this.offsets = offsets;
+            this.lengths = lengths;
+            this.compiledExpression = compiledExpression;
+            this.values = new double[infos.length];
+        }
+
+        public synchronized double evaluate(byte[] bytes, int offset) {
+            for (int i = 0; i < convertors.length; i++) {
+                values[i] = convertors[i].convert(bytes, offset + offsets[i], lengths[i]);
+            }
+            return compiledExpression.evaluate(values);
+        }
+    }
+
     private static final class ExpressionInfo {
         private final String ecuDataId;
         private final EcuDataConvertor convertor;
@@ -167,4 +205,8 @@ public final class EcuDerivedParameterConvertorImpl implements EcuDerivedParamet
     public String getDataType() {
         return null;
     }
+
+    public Map<String, String> getReplaceMap() {
+        return unmodifiableMap(replaceMap);
+    }
 }
@@ -20,6 +20,9 @@
 package com.romraider.logger.ecu.definition;
 
 import static com.romraider.util.ParamChecker.checkBit;
+import static java.util.Collections.emptyMap;
+
+import java.util.Map;
 
 import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
 
@@ -34,14 +37,18 @@ public final class EcuDtcConvertorImpl implements EcuDataConvertor {
     }
 
     public double convert(byte[] bytes) {
+        return convert(bytes, 0, bytes.length);
+    }
+
+    public double convert(byte[] bytes, int offset, int length) {
         final byte allOnes = (byte) 0xff;
         double result = 0;
-        if (bytes[0] == allOnes && bytes[1] == allOnes) {
+        if (bytes[offset] == allOnes && bytes[offset + 1] == allOnes) {
             result = -1;
         }
         else {
-            if ((bytes[0] & (1 << bit)) > 0) result++;
-            if ((bytes[1] & (1 << bit)) > 0) result+=2;
+            if ((bytes[offset] & (1 << bit)) > 0) result++;
+            if ((bytes[offset + 1] & (1 << bit)) > 0) result+=2;
         }
         return result;
     }
@@ -75,4 +82,8 @@ public final class EcuDtcConvertorImpl implements EcuDataConvertor {
     public String getDataType() {
         return null;
     }
+
+    public Map<String, String> getReplaceMap() {
+        return emptyMap();
+    }
 }
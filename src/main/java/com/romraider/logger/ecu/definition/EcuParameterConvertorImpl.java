@@ -20,29 +20,30 @@
 package com.romraider.logger.ecu.definition;
 
 import static com.romraider.logger.ecu.definition.xml.ConverterMaxMinDefaults.getDefault;
-import static com.romraider.util.ByteUtil.asUnsignedInt;
-import static com.romraider.util.JEPUtil.evaluate;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
+import static java.util.Collections.unmodifiableMap;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.text.DecimalFormat;
 import java.util.HashMap;
 import java.util.Map;
 
 import com.romraider.Settings;
 import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
+import com.romraider.util.CompiledExpression;
 
 public final class EcuParameterConvertorImpl implements EcuDataConvertor {
     private static final String FLOAT = "float";
     private static final String UINT = "uint";
     private final String units;
     private final String expression;
+    private final CompiledExpression compiledExpression;
     private final DecimalFormat format;
     private final int bit;
     private final String dataType;
     private final Settings.Endian endian;
+    private final boolean isFloat;
+    private final boolean isUnsigned;
     private final Map<String, String> replaceMap;
     private final GaugeMinMax gaugeMinMax;
 
@@ -61,42 +62,45 @@ public final class EcuParameterConvertorImpl implements EcuDataConvertor {
         checkNotNull(replaceMap, "replaceMap");
         this.units = units;
         this.expression = expression;
+        this.compiledExpression = CompiledExpression.compile(expression);
         this.format = new DecimalFormat(format);
         this.bit = bit;
         this.dataType = (dataType == null ? "uint8" : dataType);
         this.endian = endian;
+        this.isFloat = this.dataType.equalsIgnoreCase(FLOAT);
+        this.isUnsigned = this.dataType.toLowerCase().startsWith(UINT);
         this.replaceMap = replaceMap;
         this.gaugeMinMax = gaugeMinMax;
     }
 
     public double convert(byte[] bytes) {
-        final ByteBuffer bb = ByteBuffer.wrap(bytes);
-        if (endian == Settings.Endian.LITTLE) {
-            bb.order(ByteOrder.LITTLE_ENDIAN);
-        }
+        return convert(bytes, 0, bytes.length);
+    }
 
+    public double convert(byte[] bytes, int offset, int length) {
         double result = 0;
         if (bit >= 0 && bit <= 31) {
-            return (asUnsignedInt(bytes) & (1 << bit)) != 0 ? 1 : 0;
+            return (asUnsignedInt(bytes, offset, length) & (1 << bit)) != 0 ? 1 : 0;
         }
-        else if (dataType.equalsIgnoreCase(FLOAT)) {
-            result = evaluate(expression, bb.getFloat());
+        else if (isFloat) {
+            result = compiledExpression.evaluate(
+                    Float.intBitsToFloat(readInt(bytes, offset, 4)));
         }
         else {
             long value = 0;
-            switch (bb.capacity()) {
+            switch (length) {
                 case 1:
-                    value = bb.get();
+                    value = bytes[offset];
                     break;
                 case 2:
-                    value = bb.getShort();
+                    value = (short) readInt(bytes, offset, 2);
                     break;
                 case 4:
-                    value = bb.getInt();
+                    value = readInt(bytes, offset, 4);
                     break;
             }
-            if (dataType.toLowerCase().startsWith(UINT)) {
-                switch (bb.capacity()) {
+            if (isUnsigned) {
+                switch (length) {
                     case 1:
                         value = value & 0xff;
                         break;
@@ -108,7 +112,7 @@ public final class EcuParameterConvertorImpl implements EcuDataConvertor {
                         break;
                 }
             }
-            result = evaluate(expression, value);
+            result = compiledExpression.evaluate(value);
         }
         return Double.isNaN(result) || Double.isInfinite(result) ? 0.0 : result;
     }
@@ -146,4 +150,31 @@ public final class EcuParameterConvertorImpl implements EcuDataConvertor {
     public String getDataType() {
         return dataType;
     }
+
+    private int readInt(byte[] bytes, int offset, int length) {
+        int value = 0;
+        if (endian == Settings.Endian.LITTLE) {
+            for (int i = length - 1; i >= 0; i--) {
+                value = (value << 8) | (bytes[offset + i] & 0xff);
+            }
+        }
+        else {
+            for (int i = 0; i < length; i++) {
+                value = (value << 8) | (bytes[offset + i] & 0xff);
+            }
+        }
+        return value;
+    }
+
+    private static int asUnsignedInt(byte[] bytes, int offset, int length) {
+        int value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    public Map<String, String> getReplaceMap() {
+        return unmodifiableMap(replaceMap);
+    }
 }
@@ -21,6 +21,8 @@ package com.romraider.logger.ecu.definition;
 
 import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
 import static com.romraider.util.ParamChecker.checkBit;
+import static java.util.Collections.emptyMap;
+import java.util.Map;
 
 public final class EcuSwitchConvertorImpl implements EcuDataConvertor {
     private static final GaugeMinMax GAUGE_MIN_MAX = new GaugeMinMax(0.0, 1.0, 1.0);
@@ -37,7 +39,11 @@ public final class EcuSwitchConvertorImpl implements EcuDataConvertor {
     }
 
     public double convert(byte[] bytes) {
-        return (bytes[0] & (1 << bit)) > 0 ? 1 : 0;
+        return convert(bytes, 0, bytes.length);
+    }
+
+    public double convert(byte[] bytes, int offset, int length) {
+        return (bytes[offset] & (1 << bit)) > 0 ? 1 : 0;
     }
 
     public String getUnits() {
@@ -70,4 +76,8 @@ public final class EcuSwitchConvertorImpl implements EcuDataConvertor {
         // return "uint16"; // usually a bit within a byte
         return dataType;    // NCS provides a byte followed by a mask byte
     }
+
+    public Map<String, String> getReplaceMap() {
+        return emptyMap();
+    }
 }
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -23,4 +23,25 @@ public interface ExternalData extends LoggerData {
 
     void addConvertorUpdateListener(ConvertorUpdateListener listener);
 
+    /**
+     * @param time - the {@link System#nanoTime()} the value is wanted at
+     * @return the converted value the sensor read at the time, after
+     * compensating for its latency
+     */
+    double getValueAt(long time);
+
+    /**
+     * @return true when the sensor has reported a reading since the time
+     * plus its latency, or has never reported one
+     */
+    boolean isSampled(long time);
+
+    /**
+     * @param latency - the delay in milliseconds between the sensor
+     * measuring a value and the reading being received
+     */
+    void setLatency(long latency);
+
+    long getLatency();
+
 }
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2014 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,16 +19,19 @@
 
 package com.romraider.logger.ecu.definition;
 
-import static com.romraider.util.JEPUtil.evaluate;
+import static java.util.Collections.emptyMap;
 
 import java.text.DecimalFormat;
+import java.util.Map;
 
 import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
 import com.romraider.logger.external.core.ExternalDataItem;
+import com.romraider.util.CompiledExpression;
 
 public final class ExternalDataConvertorImpl implements EcuDataConvertor {
     private final String units;
     private final String expression;
+    private final CompiledExpression compiledExpression;
     private final GaugeMinMax gaugeMinMax;
     private final ExternalDataItem dataItem; 
     private DecimalFormat format;
@@ -40,13 +43,24 @@ public final class ExternalDataConvertorImpl implements EcuDataConvertor {
         this.dataItem = dataItem;
         this.units = units;
         this.expression = expression;
+        this.compiledExpression = CompiledExpression.compile(expression);
         this.format = new DecimalFormat(format);
         this.gaugeMinMax = gaugeMinMax;
     }
 
     public double convert(byte[] bytes) {
-        double value = dataItem.getData();
-        double result = evaluate(expression, value);
+        return convert(bytes, 0, 0);
+    }
+
+    public double convert(byte[] bytes, int offset, int length) {
+        return convert(dataItem.getData());
+    }
+
+    /**
+     * Convert a reading of the data item, such as one recorded earlier.
+     */
+    public double convert(double value) {
+        double result = compiledExpression.evaluate(value);
         return Double.isNaN(result) || Double.isInfinite(result) ? 0.0 : result;
     }
 
@@ -78,4 +92,8 @@ public final class ExternalDataConvertorImpl implements EcuDataConvertor {
     public String getDataType() {
         return null;
     }
+
+    public Map<String, String> getReplaceMap() {
+        return emptyMap();
+    }
 }
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -21,11 +21,15 @@ package com.romraider.logger.ecu.definition;
 
 import static com.romraider.logger.ecu.definition.EcuDataType.EXTERNAL;
 import static com.romraider.util.ParamChecker.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
 import java.util.HashSet;
 import java.util.Set;
 
 import com.romraider.logger.external.core.ExternalDataItem;
 import com.romraider.logger.external.core.ExternalDataSource;
+import com.romraider.logger.external.core.ExternalSamples;
 
 public final class ExternalDataImpl implements ExternalData {
     private final String id;
@@ -33,14 +37,18 @@ public final class ExternalDataImpl implements ExternalData {
     private final String description;
     private final ExternalDataSource dataSource;
     private final EcuDataConvertor[] convertors;
+    private final ExternalSamples samples;
     private final Set<ConvertorUpdateListener> listeners = new HashSet<ConvertorUpdateListener>();
     private int selectedConvertorIndex;
     private boolean selected;
+    // nanoseconds
+    private volatile long latency;
 
     public ExternalDataImpl(final ExternalDataItem dataItem, ExternalDataSource dataSource) {
         checkNotNull(dataItem, dataSource);
         this.dataSource = dataSource;
-        this.convertors = dataItem.getConvertors();            
+        this.convertors = dataItem.getConvertors();
+        this.samples = dataItem.getSamples();
         id = createId(dataItem);
         name = dataItem.getName();
         description = dataItem.getDescription();
@@ -99,6 +107,27 @@ public final class ExternalDataImpl implements ExternalData {
         return "X_" + dataItem.getName().replaceAll(" ", "_");
     }
 
+    public double getValueAt(long time) {
+        final EcuDataConvertor convertor = getSelectedConvertor();
+        final double value = samples.valueAt(time + latency);
+        if (Double.isNaN(value) || !(convertor instanceof ExternalDataConvertorImpl)) {
+            return convertor.convert(null);
+        }
+        return ((ExternalDataConvertorImpl) convertor).convert(value);
+    }
+
+    public boolean isSampled(long time) {
+        return samples.isEmpty() || samples.getLatestTime() >= time + latency;
+    }
+
+    public void setLatency(long latency) {
+        this.latency = MILLISECONDS.toNanos(Math.max(0L, latency));
+    }
+
+    public long getLatency() {
+        return NANOSECONDS.toMillis(latency);
+    }
+
     public void addConvertorUpdateListener(ConvertorUpdateListener listener) {
         checkNotNull(listener, "listener");
         listeners.add(listener);
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,10 +17,25 @@
  * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
  */
 
-package com.romraider.logger.external.plx.io;
+package com.romraider.logger.ecu.exception;
 
-public interface PlxConnection {
-    byte readByte();
+public final class PlaybackException extends RuntimeException {
 
-    void close();
-}
\ No newline at end of file
+    private static final long serialVersionUID = 4215737391870286412L;
+
+    public PlaybackException() {
+    }
+
+    public PlaybackException(String string) {
+        super(string);
+    }
+
+    public PlaybackException(String string, Throwable throwable) {
+        super(string, throwable);
+    }
+
+    public PlaybackException(Throwable throwable) {
+        super(throwable);
+    }
+
+}
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2014 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,6 +19,7 @@
 
 package com.romraider.logger.ecu.profile;
 
+import com.romraider.logger.ecu.comms.manager.PollRate;
 import com.romraider.logger.ecu.definition.EcuDataConvertor;
 import com.romraider.logger.ecu.definition.LoggerData;
 
@@ -34,6 +35,14 @@ public interface UserProfile {
 
     EcuDataConvertor getSelectedConvertor(LoggerData loggerData);
 
+    PollRate getPollRate(LoggerData loggerData);
+
+    /**
+     * @return the latency of an external sensor in milliseconds, zero if
+     * none is specified
+     */
+    long getLatency(LoggerData loggerData);
+
     byte[] getBytes();
 
     String getProtocol();
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2019 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -20,6 +20,7 @@
 package com.romraider.logger.ecu.profile;
 
 import com.romraider.Settings;
+import com.romraider.logger.ecu.comms.manager.PollRate;
 import com.romraider.logger.ecu.definition.EcuDataConvertor;
 import com.romraider.logger.ecu.definition.EcuParameter;
 import com.romraider.logger.ecu.definition.EcuSwitch;
@@ -99,6 +100,45 @@ public final class UserProfileImpl implements UserProfile {
         return loggerData.getSelectedConvertor();
     }
 
+    public PollRate getPollRate(LoggerData loggerData) {
+        checkNotNull(loggerData, "loggerData");
+        if (contains(loggerData)) {
+            final String pollRate = getUserProfileItem(loggerData).getPollRate();
+            try {
+                return PollRate.valueOf(pollRate);
+            }
+            catch (IllegalArgumentException e) {
+                throw new ConfigurationException(MessageFormat.format(
+                        rb.getString("UNKNPOLLRATE"),
+                        pollRate,
+                        loggerData.getId(),
+                        loggerData.getName()));
+            }
+        }
+        return PollRate.EVERY_CYCLE;
+    }
+
+    public long getLatency(LoggerData loggerData) {
+        checkNotNull(loggerData, "loggerData");
+        if (contains(loggerData)) {
+            final String latency = getUserProfileItem(loggerData).getLatency();
+            if (isNullOrEmpty(latency)) return 0L;
+            try {
+                final long millis = Long.parseLong(latency.trim());
+                if (millis >= 0L) return millis;
+            }
+            catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new ConfigurationException(MessageFormat.format(
+                    rb.getString("UNKNLATENCY"),
+                    latency,
+                    loggerData.getId(),
+                    loggerData.getName()));
+        }
+        return 0L;
+    }
+
     public byte[] getBytes() {
         byte[] profile = null;
         try {
@@ -154,6 +194,10 @@ public final class UserProfileImpl implements UserProfile {
             if (item.isDashSelected()) builder.append(" dash=\"selected\"");
             if (showUnits && !isNullOrEmpty(item.getUnits()))
                 builder.append(" units=\"").append(item.getUnits()).append("\"");
+            if (!isNullOrEmpty(item.getPollRate()))
+                builder.append(" pollrate=\"").append(item.getPollRate()).append("\"");
+            if (!isNullOrEmpty(item.getLatency()))
+                builder.append(" latency=\"").append(item.getLatency()).append("\"");
             builder.append("/>").append(NEW_LINE);
         }
     }
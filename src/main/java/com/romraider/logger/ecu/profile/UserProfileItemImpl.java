@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -24,12 +24,24 @@ public final class UserProfileItemImpl implements UserProfileItem {
     private final boolean liveDataSelected;
     private final boolean graphSelected;
     private final boolean dashSelected;
+    private final String pollRate;
+    private final String latency;
 
     public UserProfileItemImpl(String units, boolean liveDataSelected, boolean graphSelected, boolean dashSelected) {
+        this(units, liveDataSelected, graphSelected, dashSelected, null);
+    }
+
+    public UserProfileItemImpl(String units, boolean liveDataSelected, boolean graphSelected, boolean dashSelected, String pollRate) {
+        this(units, liveDataSelected, graphSelected, dashSelected, pollRate, null);
+    }
+
+    public UserProfileItemImpl(String units, boolean liveDataSelected, boolean graphSelected, boolean dashSelected, String pollRate, String latency) {
         this.units = units;
         this.liveDataSelected = liveDataSelected;
         this.graphSelected = graphSelected;
         this.dashSelected = dashSelected;
+        this.pollRate = pollRate;
+        this.latency = latency;
     }
 
     public boolean isDashSelected() {
@@ -48,4 +60,12 @@ public final class UserProfileItemImpl implements UserProfileItem {
         return units;
     }
 
+    public String getPollRate() {
+        return pollRate;
+    }
+
+    public String getLatency() {
+        return latency;
+    }
+
 }
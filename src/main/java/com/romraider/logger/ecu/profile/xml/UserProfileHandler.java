@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2014 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -40,6 +40,8 @@ public final class UserProfileHandler extends DefaultHandler {
     private static final String ATTR_LIVE_DATA = "livedata";
     private static final String ATTR_GRAPH = "graph";
     private static final String ATTR_DASH = "dash";
+    private static final String ATTR_POLL_RATE = "pollrate";
+    private static final String ATTR_LATENCY = "latency";
     private Map<String, UserProfileItem> params;
     private Map<String, UserProfileItem> switches;
     private Map<String, UserProfileItem> external;
@@ -72,7 +74,9 @@ public final class UserProfileHandler extends DefaultHandler {
                 attributes.getValue(ATTR_UNITS),
                 SELECTED.equalsIgnoreCase(attributes.getValue(ATTR_LIVE_DATA)),
                 SELECTED.equalsIgnoreCase(attributes.getValue(ATTR_GRAPH)),
-                SELECTED.equalsIgnoreCase(attributes.getValue(ATTR_DASH))
+                SELECTED.equalsIgnoreCase(attributes.getValue(ATTR_DASH)),
+                attributes.getValue(ATTR_POLL_RATE),
+                attributes.getValue(ATTR_LATENCY)
         );
     }
 
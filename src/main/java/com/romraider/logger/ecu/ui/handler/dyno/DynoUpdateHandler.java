@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2019 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -23,7 +23,6 @@ import com.romraider.logger.ecu.comms.query.Response;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
 import com.romraider.logger.ecu.ui.tab.dyno.DynoTab;
-import static java.lang.System.currentTimeMillis;
 import org.apache.log4j.Logger;
 import static org.apache.log4j.Logger.getLogger;
 import javax.swing.SwingUtilities;
@@ -122,7 +121,7 @@ public final class DynoUpdateHandler implements DataUpdateHandler {
                     ta = logThrottle[i];
                     i++;
                 } else {
-                    now = currentTimeMillis();
+                    now = response.getTimestamp();
                     rpm = findValue(response, RPM);
                     ta = findValue(response, TA);
                 }
@@ -141,7 +140,7 @@ public final class DynoUpdateHandler implements DataUpdateHandler {
                     tv = logTv[i];
                     i++;
                 } else {
-                    now = currentTimeMillis();
+                    now = response.getTimestamp();
                     rpm = findValue(response, RPM);
                     tv = findValue(response, TV);
                 }
@@ -160,7 +159,7 @@ public final class DynoUpdateHandler implements DataUpdateHandler {
                     now = logTime[i];
                     i++;
                 } else {
-                    now = currentTimeMillis();
+                    now = response.getTimestamp();
                     vs = findValue(response, VS);
                     ta = findValue(response, TA);
                 }
@@ -180,7 +179,7 @@ public final class DynoUpdateHandler implements DataUpdateHandler {
                     now = logTime[i];
                     i++;
                 } else {
-                    now = currentTimeMillis();
+                    now = response.getTimestamp();
                     vs = findValue(response, VS);
                     tv = findValue(response, TV);
                 }
@@ -198,7 +197,7 @@ public final class DynoUpdateHandler implements DataUpdateHandler {
                     now = logTime[i];
                     i++;
                 } else {
-                    now = currentTimeMillis();
+                    now = response.getTimestamp();
                     vs = findValue(response, VS);
                 }
                 valid = dynoTab.isValidET(now, vs);
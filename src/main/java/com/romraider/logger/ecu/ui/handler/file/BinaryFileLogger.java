@@ -0,0 +1,192 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.file;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.MessageFormat;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.exception.FileLoggerException;
+import com.romraider.logger.ecu.ui.MessageListener;
+import com.romraider.util.FormatFilename;
+import com.romraider.util.ResourceUtil;
+
+/**
+ * Writes log files in a compact binary format instead of CSV text.  Values
+ * are stored as raw doubles and formatted only when the file is exported
+ * with {@link BinaryLogConverter}.
+ * <p>
+ * All numbers are big endian.  A file starts with the magic bytes
+ * <code>RRLG</code> and a version byte, followed by blocks of:
+ * <ul>
+ * <li>a schema: <code>'S'</code>, column count, then per column the
+ * parameter id, name, units and format pattern as modified UTF-8 strings
+ * and the count and pairs of the format replacement strings</li>
+ * <li>a record: <code>'R'</code>, the timestamp in msec and one double
+ * per column of the preceding schema</li>
+ * </ul>
+ * A new schema is written whenever the logged parameters change.
+ */
+public final class BinaryFileLogger {
+    static final String EXTENSION = ".rrlog";
+    static final byte[] MAGIC = {'R', 'R', 'L', 'G'};
+    static final byte VERSION = 1;
+    static final byte SCHEMA = 'S';
+    static final byte RECORD = 'R';
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long FLUSH_INTERVAL = 1000L;
+    private static final ResourceBundle rb = new ResourceUtil().getBundle(
+            FileLoggerImpl.class.getName());
+    private final MessageListener messageListener;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private FileChannel channel;
+    private boolean started;
+    private int columns;
+    private long lastFlush;
+
+    public BinaryFileLogger(MessageListener messageListener) {
+        checkNotNull(messageListener);
+        this.messageListener = messageListener;
+    }
+
+    public void start() {
+        if (!started) {
+            final String filePath = FileLoggerImpl.buildFilePath(EXTENSION);
+            open(new File(filePath));
+            messageListener.reportMessageInTitleBar(MessageFormat.format(
+                    rb.getString("STARTLOG"),
+                    FormatFilename.getShortName(filePath)));
+        }
+    }
+
+    void open(File file) {
+        stop();
+        try {
+            channel = new FileOutputStream(file).getChannel();
+            buffer.clear();
+            buffer.put(MAGIC).put(VERSION);
+        } catch (Exception e) {
+            stop();
+            throw new FileLoggerException(e);
+        }
+        columns = 0;
+        lastFlush = System.currentTimeMillis();
+        started = true;
+    }
+
+    public void stop() {
+        if (channel != null) {
+            try {
+                flush();
+                channel.close();
+                messageListener.reportMessageInTitleBar(rb.getString("STOPLOG"));
+            } catch (Exception e) {
+                throw new FileLoggerException(e);
+            } finally {
+                channel = null;
+            }
+        }
+        started = false;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Start a new block of records for the parameters given, in column order.
+     */
+    public void writeSchema(LoggerData[] loggerDatas) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(SCHEMA);
+            out.writeInt(loggerDatas.length);
+            for (LoggerData loggerData : loggerDatas) {
+                final EcuDataConvertor convertor = loggerData.getSelectedConvertor();
+                out.writeUTF(loggerData.getId());
+                out.writeUTF(loggerData.getName());
+                out.writeUTF(convertor.getUnits());
+                out.writeUTF(convertor.getFormat());
+                final Map<String, String> replaceMap = convertor.getReplaceMap();
+                out.writeInt(replaceMap.size());
+                for (Map.Entry<String, String> replace : replaceMap.entrySet()) {
+                    out.writeUTF(replace.getKey());
+                    out.writeUTF(replace.getValue());
+                }
+            }
+            out.flush();
+            reserve(bytes.size());
+            buffer.put(bytes.toByteArray());
+            columns = loggerDatas.length;
+        } catch (IOException e) {
+            stop();
+            throw new FileLoggerException(e);
+        }
+    }
+
+    /**
+     * Write one value per column of the last schema.
+     */
+    public void writeRecord(long timestamp, double[] values) {
+        try {
+            reserve(9 + 8 * columns);
+            buffer.put(RECORD).putLong(timestamp);
+            for (int i = 0; i < columns; i++) {
+                buffer.putDouble(values[i]);
+            }
+            if (timestamp - lastFlush >= FLUSH_INTERVAL) {
+                flush();
+            }
+        } catch (IOException e) {
+            stop();
+            throw new FileLoggerException(e);
+        }
+    }
+
+    private void reserve(int size) throws IOException {
+        if (buffer.remaining() < size) {
+            flush();
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocateDirect(size);
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        lastFlush = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.file;
+
+import static com.romraider.logger.ecu.ui.handler.file.BinaryFileLogger.EXTENSION;
+import static com.romraider.logger.ecu.ui.handler.file.BinaryFileLogger.MAGIC;
+import static com.romraider.logger.ecu.ui.handler.file.BinaryFileLogger.RECORD;
+import static com.romraider.logger.ecu.ui.handler.file.BinaryFileLogger.SCHEMA;
+import static com.romraider.logger.ecu.ui.handler.file.BinaryFileLogger.VERSION;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.DecimalFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.romraider.util.SettingsManager;
+
+/**
+ * Streams a log written by {@link BinaryFileLogger} into the CSV layout
+ * written by {@link FileLoggerImpl}, using the delimiter, number format and
+ * timestamp style of the current settings.
+ */
+public final class BinaryLogConverter {
+    private static final String NEW_LINE = System.getProperty("line.separator");
+
+    private BinaryLogConverter() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Convert a binary log to a CSV file next to it.
+     * @return the CSV file written
+     */
+    public static File convert(File log) throws IOException {
+        String path = log.getPath();
+        if (path.endsWith(EXTENSION)) {
+            path = path.substring(0, path.length() - EXTENSION.length());
+        }
+        final File csv = new File(path + ".csv");
+        final InputStream in = new FileInputStream(log);
+        try {
+            final Writer out = new BufferedWriter(
+                    new OutputStreamWriter(new FileOutputStream(csv)), 64 * 1024);
+            try {
+                convert(in, out, FileLoggerImpl.delimiter(),
+                        SettingsManager.getSettings().isFileLoggingAbsoluteTimestamp());
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+        return csv;
+    }
+
+    /**
+     * Convert a binary log stream to CSV text.
+     * @param in - the binary log
+     * @param out - receives the CSV text
+     * @param delimiter - the CSV field delimiter
+     * @param absoluteTimestamp - write the time of day of each line instead
+     * of the msec since the first line
+     */
+    public static void convert(InputStream in, Writer out, String delimiter,
+            boolean absoluteTimestamp) throws IOException {
+
+        final DataInputStream data = new DataInputStream(
+                new BufferedInputStream(in, 64 * 1024));
+        readHeader(data);
+        final SimpleDateFormat timestampFormat = new SimpleDateFormat("HH:mm:ss.SSS");
+        final StringBuilder line = new StringBuilder();
+        Column[] columns = new Column[0];
+        long startTimestamp = 0;
+        int tag;
+        while ((tag = data.read()) != -1) {
+            line.setLength(0);
+            if (tag == SCHEMA) {
+                columns = readSchema(data);
+                line.append(absoluteTimestamp ? "Time" : "Time (msec)");
+                for (Column column : columns) {
+                    line.append(delimiter).append(column.name).append(" (")
+                    .append(column.units).append(')');
+                }
+            }
+            else if (tag == RECORD) {
+                final long timestamp = data.readLong();
+                if (absoluteTimestamp) {
+                    line.append(timestampFormat.format(new Date(timestamp)));
+                }
+                else {
+                    if (startTimestamp == 0) startTimestamp = timestamp;
+                    line.append(timestamp - startTimestamp);
+                }
+                for (Column column : columns) {
+                    line.append(delimiter).append(column.format(data.readDouble()));
+                }
+            }
+            else {
+                throw new IOException("Invalid block type in binary log: " + tag);
+            }
+            out.write(line.append(NEW_LINE).toString());
+        }
+        out.flush();
+    }
+
+    private static void readHeader(DataInputStream data) throws IOException {
+        final byte[] magic = new byte[MAGIC.length];
+        try {
+            data.readFully(magic);
+        } catch (EOFException e) {
+            throw new IOException("Not a binary log file");
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("Not a binary log file");
+            }
+        }
+        final int version = data.readUnsignedByte();
+        if (version > VERSION) {
+            throw new IOException("Unsupported binary log version: " + version);
+        }
+    }
+
+    private static Column[] readSchema(DataInputStream data) throws IOException {
+        final Column[] columns = new Column[data.readInt()];
+        for (int i = 0; i < columns.length; i++) {
+            data.readUTF(); // parameter id
+            final String name = data.readUTF();
+            final String units = data.readUTF();
+            final String format = data.readUTF();
+            final int replaceCount = data.readInt();
+            final Map<String, String> replaceMap = new HashMap<String, String>();
+            for (int j = 0; j < replaceCount; j++) {
+                replaceMap.put(data.readUTF(), data.readUTF());
+            }
+            columns[i] = new Column(name, units, new DecimalFormat(format), replaceMap);
+        }
+        return columns;
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: BinaryLogConverter <log" + EXTENSION + ">...");
+            System.exit(1);
+        }
+        for (String arg : args) {
+            try {
+                System.out.println(convert(new File(arg)).getPath());
+            } catch (IOException e) {
+                System.err.println(arg + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static final class Column {
+        private final String name;
+        private final String units;
+        private final DecimalFormat format;
+        private final Map<String, String> replaceMap;
+
+        private Column(String name, String units, DecimalFormat format,
+                Map<String, String> replaceMap) {
+            this.name = name;
+            this.units = units;
+            this.format = format;
+            this.replaceMap = replaceMap;
+        }
+
+        private String format(double value) {
+            final String formattedValue = format.format(value);
+            final String replacement = replaceMap.get(formattedValue);
+            return replacement == null ? formattedValue : replacement;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2020 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,6 +19,8 @@
 
 package com.romraider.logger.ecu.ui.handler.file;
 
+import static com.romraider.Settings.COMMA;
+import static com.romraider.Settings.SEMICOLON;
 import static com.romraider.util.ParamChecker.checkNotNull;
 
 import java.io.BufferedOutputStream;
@@ -27,8 +29,12 @@ import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.Set;
 
 import com.romraider.Settings;
 import com.romraider.logger.ecu.exception.FileLoggerException;
@@ -41,7 +47,18 @@ public final class FileLoggerImpl implements FileLogger {
     private static final String NEW_LINE = System.getProperty("line.separator");
     private static final ResourceBundle rb = new ResourceUtil().getBundle(
             FileLoggerImpl.class.getName());
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd_HHmmss");
+    // locales using a decimal comma, their CSV fields are separated by semicolons
+    private static final Set<String> locales = new HashSet<String>(
+            Arrays.asList(new String[] {
+                    "be_BY","bg_BG","ca_ES","cs_CZ","da_DK","de_AT","de_CH","de_DE","de_LU",
+                    "el_CY","el_GR","es_AR","es_BO","es_CL","es_CO","es_EC","es_ES","es_PE",
+                    "es_PY","es_UY","es_VE","et_EE","fi_FI","fr_BE","fr_CA","fr_CH","fr_FR",
+                    "fr_LU","hr_HR","hu_HU","in_ID","is_IS","it_CH","it_IT","lt_LT","lv_LV",
+                    "mk_MK","nl_BE","nl_NL","no_NO","no_NO_NY","pl_PL","pt_BR","pt_PT",
+                    "ro_RO","ru_RU","sk_SK","sl_SI","sq_AL","sr_BA","sr_CS","sr_ME","sr_RS",
+                    "sv_SE","tr_TR","uk_UA","vi_VN"
+            }
+                    ));
     private final SimpleDateFormat timestampFormat = new SimpleDateFormat("HH:mm:ss.SSS");
     private final MessageListener messageListener;
     private boolean started;
@@ -59,7 +76,7 @@ public final class FileLoggerImpl implements FileLogger {
         if (!started) {
             stop();
             try {
-                String filePath = buildFilePath();
+                String filePath = buildFilePath(".csv");
                 os = new BufferedOutputStream(new FileOutputStream(filePath));
                 messageListener.reportMessageInTitleBar(MessageFormat.format(
                         rb.getString("STARTLOG"),
@@ -129,7 +146,22 @@ public final class FileLoggerImpl implements FileLogger {
         return new StringBuilder(formattedTimestamp).append(line).toString();
     }
 
-    private String buildFilePath() {
+    /**
+     * @return the CSV field delimiter for the number format locale
+     */
+    static String delimiter() {
+        final String language = System.getProperty("user.language.format");
+        final String country = System.getProperty("user.country.format");
+        return language == null ?
+                locales.contains(Locale.getDefault().toString()) ? SEMICOLON : COMMA
+                        : locales.contains(language + "_" + country) ? SEMICOLON : COMMA;
+    }
+
+    /**
+     * @return the path of a new log file in the logger output directory
+     */
+    static String buildFilePath(String extension) {
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd_HHmmss");
         String logDir = SettingsManager.getSettings().getLoggerOutputDirPath();
         if (!logDir.endsWith(File.separator)) {
             logDir += File.separator;
@@ -140,7 +172,7 @@ public final class FileLoggerImpl implements FileLogger {
                 && !settings.getLogfileNameText().isEmpty()) {
             logDir += settings.getLogfileNameText() + "_";
         }
-        logDir += dateFormat.format(new Date()) + ".csv";
+        logDir += dateFormat.format(new Date()) + extension;
         return logDir;
     }
 
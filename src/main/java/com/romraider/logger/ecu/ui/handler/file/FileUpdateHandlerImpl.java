@@ -19,18 +19,14 @@
 
 package com.romraider.logger.ecu.ui.handler.file;
 
-import static com.romraider.Settings.COMMA;
-import static com.romraider.Settings.SEMICOLON;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static java.util.Collections.synchronizedList;
 import static java.util.Collections.synchronizedMap;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -39,33 +35,20 @@ import com.romraider.logger.ecu.definition.ConvertorUpdateListener;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.MessageListener;
 import com.romraider.logger.ecu.ui.StatusChangeListener;
+import com.romraider.util.SettingsManager;
 
 public final class FileUpdateHandlerImpl implements FileUpdateHandler, ConvertorUpdateListener {
     private final Map<LoggerData, Integer> loggerDatas = synchronizedMap(new LinkedHashMap<LoggerData, Integer>());
     private final List<StatusChangeListener> listeners = synchronizedList(new ArrayList<StatusChangeListener>());
     private final FileLogger fileLogger;
-    private final Set<String> locales = new HashSet<String>(
-            Arrays.asList(new String[] {
-                    "be_BY","bg_BG","ca_ES","cs_CZ","da_DK","de_AT","de_CH","de_DE","de_LU",
-                    "el_CY","el_GR","es_AR","es_BO","es_CL","es_CO","es_EC","es_ES","es_PE",
-                    "es_PY","es_UY","es_VE","et_EE","fi_FI","fr_BE","fr_CA","fr_CH","fr_FR",
-                    "fr_LU","hr_HR","hu_HU","in_ID","is_IS","it_CH","it_IT","lt_LT","lv_LV",
-                    "mk_MK","nl_BE","nl_NL","no_NO","no_NO_NY","pl_PL","pt_BR","pt_PT",
-                    "ro_RO","ru_RU","sk_SK","sl_SI","sq_AL","sr_BA","sr_CS","sr_ME","sr_RS",
-                    "sv_SE","tr_TR","uk_UA","vi_VN"
-            }
-                    ));
-    private final String language = System.getProperty("user.language.format");
-    private final String country = System.getProperty("user.country.format");
-
-    private final String delimiter = language == null ?
-            locales.contains(Locale.getDefault().toString()) ? SEMICOLON : COMMA
-                    : locales.contains(language + "_" + country) ? SEMICOLON : COMMA;
+    private final BinaryFileLogger binaryLogger;
+    private final String delimiter = FileLoggerImpl.delimiter();
 
     private Line currentLine = new Line(loggerDatas.keySet());
 
     public FileUpdateHandlerImpl(MessageListener messageListener) {
         fileLogger = new FileLoggerImpl(messageListener);
+        binaryLogger = new BinaryFileLogger(messageListener);
     }
 
     @Override
@@ -87,13 +70,17 @@ public final class FileUpdateHandlerImpl implements FileUpdateHandler, Convertor
 
     @Override
     public synchronized void handleDataUpdate(Response response) {
-        if (fileLogger.isStarted()) {
+        if (isStarted()) {
             for (LoggerData loggerData : response.getData()) {
-                currentLine.updateParamValue(loggerData, loggerData.getSelectedConvertor().format(response.getDataValue(loggerData)));
+                currentLine.updateParamValue(loggerData, response.getDataValue(loggerData));
             }
             if (currentLine.isFull()) {
-                fileLogger.writeLine(currentLine.values(), response.getTimestamp());
-                resetLine();
+                if (binaryLogger.isStarted()) {
+                    binaryLogger.writeRecord(response.getTimestamp(), currentLine.getValues());
+                } else {
+                    fileLogger.writeLine(currentLine.values(), response.getTimestamp());
+                }
+                currentLine.clear();
             }
         }
     }
@@ -114,6 +101,9 @@ public final class FileUpdateHandlerImpl implements FileUpdateHandler, Convertor
         if (fileLogger.isStarted()) {
             fileLogger.stop();
         }
+        if (binaryLogger.isStarted()) {
+            binaryLogger.stop();
+        }
     }
 
     @Override
@@ -128,8 +118,12 @@ public final class FileUpdateHandlerImpl implements FileUpdateHandler, Convertor
 
     @Override
     public synchronized void start() {
-        if (!fileLogger.isStarted()) {
-            fileLogger.start();
+        if (!isStarted()) {
+            if (SettingsManager.getSettings().isFileLoggingBinary()) {
+                binaryLogger.start();
+            } else {
+                fileLogger.start();
+            }
             notifyListeners(true);
             writeHeaders();
         }
@@ -137,18 +131,25 @@ public final class FileUpdateHandlerImpl implements FileUpdateHandler, Convertor
 
     @Override
     public synchronized void stop() {
-        if (fileLogger.isStarted()) {
+        if (isStarted()) {
             fileLogger.stop();
+            binaryLogger.stop();
             notifyListeners(false);
         }
     }
 
+    private boolean isStarted() {
+        return fileLogger.isStarted() || binaryLogger.isStarted();
+    }
+
     private void resetLine() {
         currentLine = new Line(loggerDatas.keySet());
     }
 
     private void writeHeaders() {
-        if (fileLogger.isStarted()) {
+        if (binaryLogger.isStarted()) {
+            binaryLogger.writeSchema(currentLine.getLoggerDatas());
+        } else if (fileLogger.isStarted()) {
             fileLogger.writeHeaders(currentLine.headers());
         }
     }
@@ -163,45 +164,71 @@ public final class FileUpdateHandlerImpl implements FileUpdateHandler, Convertor
         }
     }
 
+    /**
+     * The latest value of each logged parameter, in column order.  Values
+     * are kept as doubles and only formatted when a CSV line is written.
+     */
     private final class Line {
-        private final Map<LoggerData, String> loggerDataValues;
+        private final LoggerData[] loggerDatas;
+        private final Map<LoggerData, Integer> columns;
+        private final double[] values;
+        private final boolean[] updated;
+        private int updatedCount;
 
         public Line(Set<LoggerData> loggerDatas) {
-            this.loggerDataValues = new LinkedHashMap<LoggerData, String>();
-            for (LoggerData loggerData : loggerDatas) {
-                loggerDataValues.put(loggerData, null);
+            this.loggerDatas = loggerDatas.toArray(new LoggerData[0]);
+            this.columns = new HashMap<LoggerData, Integer>();
+            for (int i = 0; i < this.loggerDatas.length; i++) {
+                columns.put(this.loggerDatas[i], i);
             }
+            this.values = new double[this.loggerDatas.length];
+            this.updated = new boolean[this.loggerDatas.length];
         }
 
-        public synchronized void updateParamValue(LoggerData loggerData, String value) {
-            if (loggerDataValues.containsKey(loggerData)) {
-                loggerDataValues.put(loggerData, value);
+        public void updateParamValue(LoggerData loggerData, double value) {
+            final Integer column = columns.get(loggerData);
+            if (column != null) {
+                values[column] = value;
+                if (!updated[column]) {
+                    updated[column] = true;
+                    updatedCount++;
+                }
             }
         }
 
-        public synchronized boolean isFull() {
-            for (LoggerData loggerData : loggerDataValues.keySet()) {
-                if (loggerDataValues.get(loggerData) == null) {
-                    return false;
-                }
+        public boolean isFull() {
+            return updatedCount == values.length;
+        }
+
+        public void clear() {
+            for (int i = 0; i < updated.length; i++) {
+                updated[i] = false;
             }
-            return true;
+            updatedCount = 0;
         }
 
-        public synchronized String headers() {
+        public LoggerData[] getLoggerDatas() {
+            return loggerDatas;
+        }
+
+        public double[] getValues() {
+            return values;
+        }
+
+        public String headers() {
             final StringBuilder buffer = new StringBuilder();
-            for (LoggerData loggerData : loggerDataValues.keySet()) {
+            for (LoggerData loggerData : loggerDatas) {
                 buffer.append(delimiter).append(loggerData.getName()).append(" (")
                 .append(loggerData.getSelectedConvertor().getUnits()).append(')');
             }
             return buffer.toString();
         }
 
-        public synchronized String values() {
+        public String values() {
             final StringBuilder buffer = new StringBuilder();
-            for (LoggerData loggerData : loggerDataValues.keySet()) {
-                String value = loggerDataValues.get(loggerData);
-                buffer.append(delimiter).append(value);
+            for (int i = 0; i < loggerDatas.length; i++) {
+                buffer.append(delimiter).append(
+                        loggerDatas[i].getSelectedConvertor().format(values[i]));
             }
             return buffer.toString();
         }
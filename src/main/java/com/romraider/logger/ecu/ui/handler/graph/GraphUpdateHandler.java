@@ -56,6 +56,7 @@ import java.awt.event.ActionListener;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.Set;
 
 public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpdateListener {
     private static final ResourceBundle rb = new ResourceUtil().getBundle(
@@ -154,12 +155,20 @@ public final class GraphUpdateHandler implements DataUpdateHandler, ConvertorUpd
 
     public synchronized void handleDataUpdate(final Response response) {
     	if(!paused) {
+    	    // the response is reused once this call returns, copy the values
+    	    final Set<LoggerData> data = response.getData();
+    	    final LoggerData[] loggerDatas = data.toArray(new LoggerData[data.size()]);
+    	    final double[] values = new double[loggerDatas.length];
+    	    for (int i = 0; i < loggerDatas.length; i++) {
+    	        values[i] = response.getDataValue(loggerDatas[i]);
+    	    }
+    	    final long timestamp = response.getTimestamp();
 	        SwingUtilities.invokeLater(new Runnable() {
 	            public void run() {
-	                for (final LoggerData loggerData : response.getData()) {
-	                    final XYSeries series = seriesMap.get(loggerData);
+	                for (int i = 0; i < loggerDatas.length; i++) {
+	                    final XYSeries series = seriesMap.get(loggerDatas[i]);
 	                    if (series != null) {
-	                    	series.add((response.getTimestamp() - startTime) / 1000.0, response.getDataValue(loggerData));
+	                    	series.add((timestamp - startTime) / 1000.0, values[i]);
 	                    }
 	                }
 	            }
@@ -24,7 +24,6 @@ import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
 import com.romraider.logger.ecu.ui.tab.injector.InjectorTab;
 import static java.lang.Math.abs;
-import static java.lang.System.currentTimeMillis;
 import org.apache.log4j.Logger;
 import javax.swing.SwingUtilities;
 import java.util.Set;
@@ -121,7 +120,7 @@ public final class InjectorUpdateHandler implements DataUpdateHandler {
             // dMAFv/dt check
             if (valid && containsData(response, "P18")) {
                 double mafv = findValue(response, "P18");
-                long now = currentTimeMillis();
+                long now = response.getTimestamp();
                 double mafvChange = abs((mafv - lastMafv) / (now - lastUpdate) * 1000);
                 if (LOGGER.isTraceEnabled())
                     LOGGER.trace("INJ:[dMAFv/dt]: " + mafvChange);
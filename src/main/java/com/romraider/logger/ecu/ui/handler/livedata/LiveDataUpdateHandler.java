@@ -39,9 +39,11 @@ public final class LiveDataUpdateHandler implements DataUpdateHandler, Convertor
 
     public synchronized void handleDataUpdate(final Response response) {
         for (final LoggerData loggerData : response.getData()) {
+            // the response is reused once this call returns
+            final double value = response.getDataValue(loggerData);
             SwingUtilities.invokeLater(new Runnable() {
                 public void run() {
-                    dataTableModel.updateParam(loggerData, response.getDataValue(loggerData));
+                    dataTableModel.updateParam(loggerData, value);
                 }
             });
         }
@@ -24,7 +24,6 @@ import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
 import com.romraider.logger.ecu.ui.tab.maf.MafTab;
 import static java.lang.Math.abs;
-import static java.lang.System.currentTimeMillis;
 import org.apache.log4j.Logger;
 import static org.apache.log4j.Logger.getLogger;
 import javax.swing.SwingUtilities;
@@ -119,7 +118,7 @@ public final class MafUpdateHandler implements DataUpdateHandler {
             // dMAFv/dt check
             if (valid && containsData(response, "P18")) {
                 double mafv = findValue(response, "P18");
-                long now = currentTimeMillis();
+                long now = response.getTimestamp();
                 double mafvChange = abs((mafv - lastMafv) / (now - lastUpdate) * 1000);
                 if (LOGGER.isTraceEnabled())
                     LOGGER.trace("MAF:[dMAFv/dt]: " + mafvChange);
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2016 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -22,12 +22,16 @@ package com.romraider.logger.ecu.ui.handler.table;
 import static com.romraider.util.ParamChecker.isNullOrEmpty;
 import static java.util.Collections.synchronizedMap;
 
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 
+import javax.swing.Timer;
+
 import com.romraider.logger.ecu.comms.query.Response;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
@@ -36,12 +40,39 @@ import com.romraider.maps.Table2D;
 import com.romraider.maps.Table3D;
 import com.romraider.maps.TableView;
 
+/**
+ * Shows logged values in the tables of open ROMs.  Values arriving faster
+ * than the overlay is refreshed only replace the pending value of their
+ * parameter, and each refresh formats a value once for all its tables.
+ */
 public final class TableUpdateHandler implements DataUpdateHandler {
     private static final TableUpdateHandler INSTANCE = new TableUpdateHandler();
+    // milliseconds between refreshes of the live data overlay
+    private static final int REFRESH_INTERVAL = 50;
     private final Map<String, List<Table>> tableMap = synchronizedMap(new HashMap<String, List<Table>>());
+    // the latest value of each logged parameter shown in a table, guarded
+    // by itself
+    private final Map<String, LiveValue> liveValues = new LinkedHashMap<String, LiveValue>();
+    // copies of the pending values taken by each refresh
+    private final List<LiveValue> refreshed = new ArrayList<LiveValue>();
+    private final List<Table> refreshedTables = new ArrayList<Table>();
+    private final Timer refreshTimer;
+
+    private static final class LiveValue {
+        private LoggerData loggerData;
+        private double value;
+        private boolean pending;
+    }
 
     private TableUpdateHandler() {
         tableMap.clear();
+        refreshTimer = new Timer(REFRESH_INTERVAL, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refresh();
+            }
+        });
+        refreshTimer.setRepeats(false);
     }
 
     @Override
@@ -50,20 +81,68 @@ public final class TableUpdateHandler implements DataUpdateHandler {
 
     @Override
     public void handleDataUpdate(Response response) {
-    	if(!tableMap.isEmpty()) {
-	        for (LoggerData loggerData : response.getData()) {
-	        	synchronized(tableMap) {
-		            List<Table> tables = tableMap.get(loggerData.getId());
-		            if (tables != null && !tables.isEmpty()) {
-		                String formattedValue = loggerData.getSelectedConvertor().format(response.getDataValue(loggerData));
-		                for(ListIterator<Table> item = tables.listIterator(); item.hasNext();) {
-		                	TableView v = item.next().getTableView();
-		                	if(v!= null) v.highlightLiveData(formattedValue);
-		                }
-		            }
-		        }
-	    	}
-	    }
+        if (tableMap.isEmpty()) {
+            return;
+        }
+        boolean updated = false;
+        synchronized (liveValues) {
+            for (LoggerData loggerData : response.getData()) {
+                final String id = loggerData.getId();
+                if (!tableMap.containsKey(id)) {
+                    continue;
+                }
+                LiveValue live = liveValues.get(id);
+                if (live == null) {
+                    live = new LiveValue();
+                    liveValues.put(id, live);
+                }
+                live.loggerData = loggerData;
+                live.value = response.getDataValue(loggerData);
+                live.pending = true;
+                updated = true;
+            }
+        }
+        if (updated && !refreshTimer.isRunning()) {
+            refreshTimer.start();
+        }
+    }
+
+    // runs on the event dispatch thread
+    private void refresh() {
+        int count = 0;
+        synchronized (liveValues) {
+            for (LiveValue live : liveValues.values()) {
+                if (live.pending) {
+                    live.pending = false;
+                    if (count == refreshed.size()) {
+                        refreshed.add(new LiveValue());
+                    }
+                    final LiveValue copy = refreshed.get(count++);
+                    copy.loggerData = live.loggerData;
+                    copy.value = live.value;
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            final LiveValue live = refreshed.get(i);
+            refreshedTables.clear();
+            synchronized (tableMap) {
+                final List<Table> tables = tableMap.get(live.loggerData.getId());
+                if (tables != null) {
+                    refreshedTables.addAll(tables);
+                }
+            }
+            if (refreshedTables.isEmpty()) {
+                continue;
+            }
+            final String formattedValue =
+                    live.loggerData.getSelectedConvertor().format(live.value);
+            for (Table table : refreshedTables) {
+                final TableView v = table.getTableView();
+                if (v != null) v.highlightLiveData(live.value, formattedValue);
+            }
+        }
+        refreshedTables.clear();
     }
 
     @Override
@@ -74,6 +153,9 @@ public final class TableUpdateHandler implements DataUpdateHandler {
     public void cleanUp() {
     	for(List<Table> t: tableMap.values())t.clear();
     	tableMap.clear();
+        synchronized (liveValues) {
+            liveValues.clear();
+        }
     }
 
     @Override
@@ -83,10 +165,13 @@ public final class TableUpdateHandler implements DataUpdateHandler {
     public void registerTable(Table table) {
         String logParam = table.getLogParam();
         if (!isNullOrEmpty(logParam)) {
-            if (!tableMap.containsKey(logParam)) {
-                tableMap.put(logParam, new ArrayList<Table>());
+            // tables of a ROM are registered from several threads
+            synchronized(tableMap) {
+                if (!tableMap.containsKey(logParam)) {
+                    tableMap.put(logParam, new ArrayList<Table>());
+                }
+                tableMap.get(logParam).add(table);
             }
-            tableMap.get(logParam).add(table);
         }
         registerAxes(table);
     }
@@ -95,11 +180,13 @@ public final class TableUpdateHandler implements DataUpdateHandler {
     	if(table == null) return;
     	
         String logParam = table.getLogParam();
-        if (tableMap.containsKey(logParam)) {
-            List<Table> tables = tableMap.get(logParam);
-            tables.remove(table);
-            if (tables.isEmpty()) {
-                tableMap.remove(logParam);
+        synchronized(tableMap) {
+            if (tableMap.containsKey(logParam)) {
+                List<Table> tables = tableMap.get(logParam);
+                tables.remove(table);
+                if (tables.isEmpty()) {
+                    tableMap.remove(logParam);
+                }
             }
         }
         deregisterAxes(table);
@@ -0,0 +1,92 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.playback;
+
+/**
+ * A least squares line through the fuel per injection against the
+ * injector pulse width of accepted samples, the same fit as the injector
+ * tab interpolation.  Its slope gives the injector flow scaling and its
+ * intercept with the pulse width axis the latency.  The fit is kept as
+ * sums, so fits of separate chunks of logs are merged with
+ * {@link #add(InjectorFit)}.
+ */
+public final class InjectorFit {
+    private int samples;
+    private double sumX;
+    private double sumY;
+    private double sumXX;
+    private double sumXY;
+
+    /**
+     * Add a sample.
+     * @param pulseWidth - the injector pulse width in ms
+     * @param fuelcc - the fuel per injection in cc
+     */
+    public void add(double pulseWidth, double fuelcc) {
+        samples++;
+        sumX += pulseWidth;
+        sumY += fuelcc;
+        sumXX += pulseWidth * pulseWidth;
+        sumXY += pulseWidth * fuelcc;
+    }
+
+    public void add(InjectorFit other) {
+        samples += other.samples;
+        sumX += other.sumX;
+        sumY += other.sumY;
+        sumXX += other.sumXX;
+        sumXY += other.sumXY;
+    }
+
+    public int getSampleCount() {
+        return samples;
+    }
+
+    /**
+     * @return the fuel per ms of pulse width in cc, NaN if the samples do
+     * not define a line
+     */
+    public double getSlope() {
+        final double divisor = samples * sumXX - sumX * sumX;
+        return samples < 2 || divisor == 0.0
+                ? Double.NaN : (samples * sumXY - sumX * sumY) / divisor;
+    }
+
+    /**
+     * @return the fuel per injection at zero pulse width in cc
+     */
+    public double getIntercept() {
+        return (sumY - getSlope() * sumX) / samples;
+    }
+
+    /**
+     * @return the injector flow scaling in cc/min
+     */
+    public double getFlowScaling() {
+        return getSlope() * 1000 * 60;
+    }
+
+    /**
+     * @return the change of the injector latency in ms
+     */
+    public double getLatencyOffset() {
+        return -1 * getIntercept() / getSlope();
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.playback;
+
+import static java.lang.Math.abs;
+import static org.apache.log4j.Logger.getLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.util.ThreadUtil;
+
+/**
+ * Runs the sample filters of the MAF and injector update handlers over
+ * stored CSV logs.  The columns of each log are resolved once, then its
+ * lines are split into chunks which are filtered on a worker pool, each
+ * chunk into its own result, and the results are merged.  Logs are
+ * indexed one after another while the chunks of earlier logs are being
+ * analysed.
+ * <p>
+ * The handlers compute dMAFv/dt from the previous sample they checked, a
+ * log is analysed with the previous line of the log instead, so the first
+ * line of a log is never accepted.
+ */
+public final class LogAnalyzer {
+    private static final Logger LOGGER = getLogger(LogAnalyzer.class);
+    private static final String COOLANT_TEMP = "P2";
+    private static final String AF_CORRECTION_1 = "P3";
+    private static final String AF_LEARNING_1 = "P4";
+    private static final String ENGINE_SPEED = "P8";
+    private static final String INTAKE_AIR_TEMP = "P11";
+    private static final String MASS_AIR_FLOW = "P12";
+    private static final String MASS_AIR_FLOW_V = "P18";
+    private static final String AFR = "P58";
+    private static final String ENGINE_LOAD_16 = "E2";
+    private static final String CL_OL_16 = "E3";
+    private static final String TIP_IN_THROTTLE_16 = "E23";
+    private static final String PULSE_WIDTH_16 = "E28";
+    private static final String ENGINE_LOAD_32 = "E32";
+    private static final String CL_OL_32 = "E33";
+    private static final String TIP_IN_THROTTLE_32 = "E54";
+    private static final String PULSE_WIDTH_32 = "E60";
+    private static final int MIN_LINES_PER_TASK = PlaybackLog.BLOCK_LINES;
+    private final List<? extends LoggerData> loggerDatas;
+    private final LogFilter filter;
+
+    /**
+     * @param loggerDatas - the logger parameters the log columns are
+     *                      matched to
+     * @param filter - the filter samples must pass
+     */
+    public LogAnalyzer(List<? extends LoggerData> loggerDatas, LogFilter filter) {
+        this.loggerDatas = loggerDatas;
+        this.filter = filter;
+    }
+
+    /**
+     * Bin the A/F learning plus correction of accepted samples over the
+     * MAF voltage axis, as the MAF update handler does for live data.
+     * Logs without MAF voltage, A/F learning #1 and A/F correction #1 are
+     * skipped.
+     */
+    public MafCorrection analyzeMaf(List<File> logs, final double[] mafvAxis)
+            throws IOException, InterruptedException {
+        return analyze(logs, new Analysis<MafCorrection>(
+                new String[] {MASS_AIR_FLOW_V},
+                new String[] {AF_LEARNING_1},
+                new String[] {AF_CORRECTION_1}) {
+            @Override
+            MafCorrection newResult() {
+                return new MafCorrection(mafvAxis);
+            }
+
+            @Override
+            void add(MafCorrection result, double[] values) {
+                result.add(values[0], values[1] + values[2]);
+            }
+
+            @Override
+            void merge(MafCorrection result, MafCorrection other) {
+                result.add(other);
+            }
+        });
+    }
+
+    /**
+     * Fit the fuel per injection against the pulse width of accepted
+     * samples, as the injector update handler does for live data.  Logs
+     * without a pulse width and an engine load are skipped.
+     * @param stoichAfr - the stoichiometric AFR of the fuel
+     * @param fuelDensity - the fuel density in g/l
+     */
+    public InjectorFit analyzeInjectors(List<File> logs, final double stoichAfr,
+            final double fuelDensity) throws IOException, InterruptedException {
+        return analyze(logs, new Analysis<InjectorFit>(
+                new String[] {PULSE_WIDTH_16, PULSE_WIDTH_32},
+                new String[] {ENGINE_LOAD_16, ENGINE_LOAD_32}) {
+            @Override
+            InjectorFit newResult() {
+                return new InjectorFit();
+            }
+
+            @Override
+            void add(InjectorFit result, double[] values) {
+                final double fuelcc = values[1] / 2 / stoichAfr * 1000 / fuelDensity;
+                result.add(values[0], fuelcc);
+            }
+
+            @Override
+            void merge(InjectorFit result, InjectorFit other) {
+                result.add(other);
+            }
+        });
+    }
+
+    private <T> T analyze(List<File> logs, Analysis<T> analysis)
+            throws IOException, InterruptedException {
+        final T result = analysis.newResult();
+        final ExecutorService pool = ThreadUtil.newWorkerPool("Log Analysis");
+        try {
+            final CompletionService<T> completion = new ExecutorCompletionService<T>(pool);
+            final int cpus = Runtime.getRuntime().availableProcessors();
+            int tasks = 0;
+            for (File file : logs) {
+                final PlaybackLog log = new PlaybackLog(file);
+                final Columns columns = new Columns(log, analysis);
+                if (!columns.hasValues()) {
+                    LOGGER.warn("Log analysis: skipping " + file
+                            + ", it does not hold the parameters analysed");
+                    continue;
+                }
+                final int lines = log.getLineCount();
+                final int chunkSize = Math.max(MIN_LINES_PER_TASK, lines / (cpus * 8));
+                for (int i = 0; i < lines; i += chunkSize) {
+                    final int from = i;
+                    final int to = Math.min(i + chunkSize, lines);
+                    completion.submit(new Callable<T>() {
+                        @Override
+                        public T call() {
+                            return analyze(log, columns, analysis, from, to);
+                        }
+                    });
+                    tasks++;
+                }
+                // merge what is done while the next log is indexed
+                for (Future<T> done; (done = completion.poll()) != null; tasks--) {
+                    analysis.merge(result, getResult(done));
+                }
+            }
+            for (; tasks > 0; tasks--) {
+                analysis.merge(result, getResult(completion.take()));
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+        return result;
+    }
+
+    private <T> T analyze(PlaybackLog log, Columns columns, Analysis<T> analysis,
+            int from, int to) {
+        // the line before the chunk gives the first dMAFv/dt
+        final int start = Math.max(0, from - 1);
+        final double[][] data = new double[columns.read.length][to - start];
+        log.read(columns.read, start, to, data);
+        final T result = analysis.newResult();
+        final double[] values = new double[columns.values.length];
+        for (int line = from; line < to; line++) {
+            final int i = line - start;
+            if (!isValid(log, columns, data, line, i)) {
+                continue;
+            }
+            boolean numbers = true;
+            for (int v = 0; v < values.length; v++) {
+                values[v] = data[columns.values[v]][i];
+                numbers &= !Double.isNaN(values[v]);
+            }
+            if (numbers) {
+                analysis.add(result, values);
+            }
+        }
+        return result;
+    }
+
+    // the checks of the update handlers, in the same order
+    private boolean isValid(PlaybackLog log, Columns columns, double[][] data,
+            int line, int i) {
+        if (columns.clOl >= 0 && !filter.isValidClOl((int) data[columns.clOl][i])) {
+            return false;
+        }
+        if (columns.afr >= 0 && !filter.isValidAfr(data[columns.afr][i])) {
+            return false;
+        }
+        if (columns.rpm >= 0 && !filter.isValidRpm(data[columns.rpm][i])) {
+            return false;
+        }
+        if (columns.maf >= 0 && !filter.isValidMaf(data[columns.maf][i])) {
+            return false;
+        }
+        if (columns.iat >= 0 && !filter.isValidIntakeAirTemp(data[columns.iat][i])) {
+            return false;
+        }
+        if (columns.ect >= 0 && !filter.isValidCoolantTemp(data[columns.ect][i])) {
+            return false;
+        }
+        if (columns.mafv >= 0) {
+            if (line == 0) {
+                return false;
+            }
+            final double[] mafv = data[columns.mafv];
+            final double mafvChange = abs((mafv[i] - mafv[i - 1])
+                    / (log.getTimestamp(line) - log.getTimestamp(line - 1)) * 1000);
+            if (!filter.isValidMafvChange(mafvChange)) {
+                return false;
+            }
+        }
+        return columns.tipIn < 0 || filter.isValidTipInThrottle(data[columns.tipIn][i]);
+    }
+
+    private static <T> T getResult(Future<T> result) throws InterruptedException {
+        try {
+            return result.get();
+        }
+        catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * The values an analysis adds up from each accepted sample, and how
+     * results of chunks are merged.
+     */
+    private abstract static class Analysis<T> {
+        // the parameter ids of each value, the first found is used
+        private final String[][] ids;
+
+        Analysis(String[]... ids) {
+            this.ids = ids;
+        }
+
+        abstract T newResult();
+
+        abstract void add(T result, double[] values);
+
+        abstract void merge(T result, T other);
+    }
+
+    /**
+     * The columns of a log read by an analysis.  Each parameter id is
+     * resolved once to its position in the arrays read from the log.
+     */
+    private final class Columns {
+        private final Map<String, Integer> positions = new HashMap<String, Integer>();
+        private final int[] read;
+        private final int[] values;
+        private final int clOl;
+        private final int afr;
+        private final int rpm;
+        private final int maf;
+        private final int iat;
+        private final int ect;
+        private final int mafv;
+        private final int tipIn;
+
+        Columns(PlaybackLog log, Analysis<?> analysis) {
+            final Map<String, Integer> byId = new HashMap<String, Integer>();
+            for (Map.Entry<LoggerData, Integer> entry
+                    : log.matchColumns(loggerDatas).entrySet()) {
+                byId.put(entry.getKey().getId(), entry.getValue());
+            }
+            final List<Integer> columns = new ArrayList<Integer>();
+            for (String id : new String[] {CL_OL_16, CL_OL_32, AFR, ENGINE_SPEED,
+                    MASS_AIR_FLOW, INTAKE_AIR_TEMP, COOLANT_TEMP, MASS_AIR_FLOW_V,
+                    TIP_IN_THROTTLE_16, TIP_IN_THROTTLE_32}) {
+                add(id, byId, columns);
+            }
+            values = new int[analysis.ids.length];
+            for (int v = 0; v < values.length; v++) {
+                values[v] = -1;
+                for (String id : analysis.ids[v]) {
+                    if (add(id, byId, columns)) {
+                        values[v] = get(id);
+                        break;
+                    }
+                }
+            }
+            read = new int[columns.size()];
+            for (int i = 0; i < read.length; i++) {
+                read[i] = columns.get(i);
+            }
+            clOl = get(CL_OL_32) >= 0 ? get(CL_OL_32) : get(CL_OL_16);
+            afr = get(AFR);
+            rpm = get(ENGINE_SPEED);
+            maf = get(MASS_AIR_FLOW);
+            iat = get(INTAKE_AIR_TEMP);
+            ect = get(COOLANT_TEMP);
+            mafv = get(MASS_AIR_FLOW_V);
+            tipIn = get(TIP_IN_THROTTLE_32) >= 0
+                    ? get(TIP_IN_THROTTLE_32) : get(TIP_IN_THROTTLE_16);
+        }
+
+        boolean hasValues() {
+            for (int value : values) {
+                if (value < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // the position of the parameter, -1 if the log does not hold it
+        private int get(String id) {
+            final Integer position = positions.get(id);
+            return position == null ? -1 : position;
+        }
+
+        private boolean add(String id, Map<String, Integer> byId, List<Integer> columns) {
+            if (positions.containsKey(id)) {
+                return true;
+            }
+            final Integer column = byId.get(id);
+            if (column == null) {
+                return false;
+            }
+            positions.put(id, columns.size());
+            columns.add(column);
+            return true;
+        }
+    }
+}
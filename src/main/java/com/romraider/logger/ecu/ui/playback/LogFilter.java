@@ -0,0 +1,103 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.playback;
+
+/**
+ * The sample filters of the MAF and injector tabs as plain values, so
+ * stored logs can be analysed without the tabs.  A sample is accepted in
+ * closed loop with the throttle steady, within the AFR, RPM and MAF
+ * ranges, at or above the minimum coolant temperature, at or below the
+ * maximum intake air temperature and with the MAF voltage changing no
+ * faster than the maximum rate.  The defaults are those of the MAF tab.
+ */
+public final class LogFilter {
+    private static final double CLOSED_LOOP = 8;
+    private double afrMin = 13.0;
+    private double afrMax = 16.0;
+    private double rpmMin = 0;
+    private double rpmMax = 4500;
+    private double mafMin = 0;
+    private double mafMax = 100;
+    private double iatMax = 100;
+    private double coolantMin = 70;
+    private double mafvChangeMax = 0.1;
+
+    public void setAfrRange(double min, double max) {
+        afrMin = min;
+        afrMax = max;
+    }
+
+    public void setRpmRange(double min, double max) {
+        rpmMin = min;
+        rpmMax = max;
+    }
+
+    public void setMafRange(double min, double max) {
+        mafMin = min;
+        mafMax = max;
+    }
+
+    public void setIntakeAirTempMax(double max) {
+        iatMax = max;
+    }
+
+    public void setCoolantTempMin(double min) {
+        coolantMin = min;
+    }
+
+    /**
+     * @param max - the maximum change of the MAF voltage in V/s
+     */
+    public void setMafvChangeMax(double max) {
+        mafvChangeMax = max;
+    }
+
+    public boolean isValidClOl(double value) {
+        return value == CLOSED_LOOP;
+    }
+
+    public boolean isValidAfr(double value) {
+        return value >= afrMin && value <= afrMax;
+    }
+
+    public boolean isValidRpm(double value) {
+        return value >= rpmMin && value <= rpmMax;
+    }
+
+    public boolean isValidMaf(double value) {
+        return value >= mafMin && value <= mafMax;
+    }
+
+    public boolean isValidCoolantTemp(double value) {
+        return value >= coolantMin;
+    }
+
+    public boolean isValidIntakeAirTemp(double value) {
+        return value <= iatMax;
+    }
+
+    public boolean isValidMafvChange(double value) {
+        return value <= mafvChangeMax;
+    }
+
+    public boolean isValidTipInThrottle(double value) {
+        return value == 0.0;
+    }
+}
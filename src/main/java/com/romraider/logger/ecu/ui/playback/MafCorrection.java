@@ -0,0 +1,163 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.playback;
+
+import static java.util.Arrays.binarySearch;
+
+import com.romraider.maps.DataCell;
+import com.romraider.maps.Table2D;
+import com.romraider.maps.UserLevelException;
+
+/**
+ * The mean A/F learning plus correction of accepted samples, binned over
+ * the MAF voltage axis of the MAF sensor scaling table.  A sample between
+ * two axis voltages is shared between both bins in proportion to its
+ * distance from each, a sample outside the axis counts for the nearest
+ * end bin.  Corrections of separate chunks of logs are merged with
+ * {@link #add(MafCorrection)}.
+ */
+public final class MafCorrection {
+    private final double[] axis;
+    private final double[] weights;
+    private final double[] sums;
+    private int samples;
+
+    /**
+     * @param axis - the MAF voltages of the table axis in ascending order
+     */
+    public MafCorrection(double[] axis) {
+        this.axis = axis.clone();
+        this.weights = new double[axis.length];
+        this.sums = new double[axis.length];
+    }
+
+    /**
+     * @return the MAF voltages of the table axis of a MAF sensor scaling
+     * table
+     */
+    public static double[] getAxis(Table2D table) {
+        final DataCell[] cells = table.getAxis().getData();
+        final double[] axis = new double[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            axis[i] = cells[i].getRealValue();
+        }
+        return axis;
+    }
+
+    /**
+     * Add a sample.
+     * @param mafv - the MAF voltage
+     * @param correction - the A/F learning plus correction in percent
+     */
+    public void add(double mafv, double correction) {
+        final int n = axis.length;
+        if (n == 0) {
+            return;
+        }
+        samples++;
+        int i = binarySearch(axis, mafv);
+        if (i >= 0) {
+            addWeighted(i, 1.0, correction);
+            return;
+        }
+        i = -i - 1;
+        if (i == 0 || i == n) {
+            addWeighted(i == 0 ? 0 : n - 1, 1.0, correction);
+            return;
+        }
+        final double upper = (mafv - axis[i - 1]) / (axis[i] - axis[i - 1]);
+        addWeighted(i - 1, 1.0 - upper, correction);
+        addWeighted(i, upper, correction);
+    }
+
+    /**
+     * Add the samples of another correction over the same axis.
+     */
+    public void add(MafCorrection other) {
+        if (other.axis.length != axis.length) {
+            throw new IllegalArgumentException("MAF axis sizes differ");
+        }
+        for (int i = 0; i < axis.length; i++) {
+            weights[i] += other.weights[i];
+            sums[i] += other.sums[i];
+        }
+        samples += other.samples;
+    }
+
+    public int getSampleCount() {
+        return samples;
+    }
+
+    public int size() {
+        return axis.length;
+    }
+
+    public double getMafv(int bin) {
+        return axis[bin];
+    }
+
+    /**
+     * @return the number of samples in the bin, shared samples counting
+     * in part
+     */
+    public double getWeight(int bin) {
+        return weights[bin];
+    }
+
+    /**
+     * @return the mean correction of the bin in percent, NaN if the bin
+     * has no samples
+     */
+    public double getCorrection(int bin) {
+        return weights[bin] > 0.0 ? sums[bin] / weights[bin] : Double.NaN;
+    }
+
+    /**
+     * Scale the cells of a MAF sensor scaling table by the correction of
+     * their bin.
+     * @param table - the table the axis was read from
+     * @param mafvMin - the lowest MAF voltage to update
+     * @param mafvMax - the highest MAF voltage to update
+     * @param minWeight - the fewest samples a bin needs to be applied
+     * @return the number of cells updated
+     */
+    public int apply(Table2D table, double mafvMin, double mafvMax, double minWeight)
+            throws UserLevelException {
+        final DataCell[] cells = table.getData();
+        if (cells.length != axis.length) {
+            throw new IllegalArgumentException("MAF table size differs from the axis");
+        }
+        int updated = 0;
+        for (int i = 0; i < cells.length; i++) {
+            if (axis[i] >= mafvMin && axis[i] <= mafvMax
+                    && weights[i] > 0.0 && weights[i] >= minWeight) {
+                final double value = cells[i].getRealValue();
+                cells[i].setRealValue("" + (value * (1.0 + getCorrection(i) / 100.0)));
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    private void addWeighted(int bin, double weight, double correction) {
+        weights[bin] += weight;
+        sums[bin] += weight * correction;
+    }
+}
@@ -0,0 +1,554 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.playback;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static org.apache.log4j.Logger.getLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.romraider.logger.ecu.definition.LoggerData;
+
+/**
+ * A CSV log recorded by the logger, memory mapped and read in place.
+ * <p>
+ * Opening the log reads the header and the time of every line, and keeps
+ * the byte offset of every {@value #BLOCK_LINES}th line.  Parameter
+ * values are parsed on demand one block of lines at a time into a
+ * <code>double</code> array per column, so seeking into a long log only
+ * parses the blocks around the new position.
+ * <p>
+ * Column 0 holds the time, either in milliseconds from the start of the
+ * log or as the time of day, which is returned in milliseconds since
+ * midnight of the first day.  The remaining columns hold parameter
+ * values with headers of the form <code>name (units)</code>.  Values that
+ * are not numbers read as <code>NaN</code>.  A log converted from a
+ * binary log starts a new header when its parameters change; only the
+ * lines before the first different header are read.
+ */
+public final class PlaybackLog {
+    private static final Logger LOGGER = getLogger(PlaybackLog.class);
+    static final int BLOCK_LINES = 256;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final long DAY = 24L * 60L * 60L * 1000L;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15
+    };
+    private final ByteBuffer buffer;
+    private final int size;
+    private final Charset charset;
+    private final byte delimiter;
+    private final byte decimal;
+    private final String[] headers;
+    private final int lineCount;
+    private final int[] blockOffsets;
+    private final long[] timestamps;
+    private final double[][] values;
+    private final boolean[][] parsed;
+
+    /**
+     * Map the log file and index its lines.
+     * @throws IOException if the file cannot be read or is not a log
+     */
+    public PlaybackLog(File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Log file too large: " + file);
+            }
+            size = (int) channel.size();
+            buffer = channel.map(READ_ONLY, 0, size);
+        }
+        finally {
+            raf.close();
+        }
+
+        int start = 0;
+        // UTF-8 byte order mark
+        if (size >= 3 && buffer.get(0) == (byte) 0xEF
+                && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF) {
+            start = 3;
+        }
+        final int headerEnd = lineEnd(start);
+        charset = start == 3 ? UTF8 : charset(start, headerEnd);
+        final String header = text(start, headerEnd);
+        // locales with a decimal comma separate fields with semicolons
+        delimiter = header.indexOf(';') >= 0 ? (byte) ';' : (byte) ',';
+        decimal = delimiter == ';' ? (byte) ',' : (byte) '.';
+        headers = split(header, (char) delimiter);
+        if (headers.length == 0 || !headers[0].startsWith("Time")) {
+            throw new IOException("Not a logger CSV file: " + file);
+        }
+        final boolean timeOfDay = !headers[0].contains("(");
+
+        int[] offsets = new int[64];
+        long[] times = new long[1024];
+        int lines = 0;
+        long day = 0;
+        long last = Long.MIN_VALUE;
+        for (int offset = nextLine(headerEnd); offset < size; ) {
+            final int end = lineEnd(offset);
+            // logs converted from binary repeat the header when the
+            // parameters change, replay stops at a different header
+            if (end > offset && buffer.get(offset) == 'T') {
+                if (!text(offset, end).equals(header)) {
+                    break;
+                }
+            }
+            else if (end > offset) {
+                if (lines % BLOCK_LINES == 0) {
+                    final int block = lines / BLOCK_LINES;
+                    if (block == offsets.length) {
+                        offsets = grow(offsets);
+                    }
+                    offsets[block] = offset;
+                }
+                if (lines == times.length) {
+                    times = grow(times);
+                }
+                long time = timeOfDay
+                        ? parseTimeOfDay(offset, fieldEnd(offset, end))
+                        : parseLong(offset, fieldEnd(offset, end));
+                if (timeOfDay) {
+                    if (last != Long.MIN_VALUE && time + day < last - DAY / 2) {
+                        day += DAY;
+                    }
+                    time += day;
+                }
+                times[lines++] = time;
+                last = time;
+            }
+            offset = nextLine(end);
+        }
+        lineCount = lines;
+        blockOffsets = new int[(lines + BLOCK_LINES - 1) / BLOCK_LINES];
+        System.arraycopy(offsets, 0, blockOffsets, 0, blockOffsets.length);
+        timestamps = new long[lines];
+        System.arraycopy(times, 0, timestamps, 0, lines);
+        values = new double[headers.length][];
+        parsed = new boolean[headers.length][];
+    }
+
+    /**
+     * @return the number of columns, including the time in column 0
+     */
+    public int getColumnCount() {
+        return headers.length;
+    }
+
+    /**
+     * @return the header of the column as written in the log
+     */
+    public String getHeader(int column) {
+        return headers[column];
+    }
+
+    /**
+     * @return the parameter name of the column header
+     */
+    public String getName(int column) {
+        final String header = headers[column];
+        final int units = header.lastIndexOf(" (");
+        return units < 0 ? header : header.substring(0, units);
+    }
+
+    /**
+     * @return the units of the column header, or an empty string if the
+     * header has none
+     */
+    public String getUnits(int column) {
+        final String header = headers[column];
+        final int units = header.lastIndexOf(" (");
+        return units < 0 || !header.endsWith(")")
+                ? "" : header.substring(units + 2, header.length() - 1);
+    }
+
+    /**
+     * Match the columns to parameters of the same name.  A column is only
+     * matched if its units are those of the parameter's selected
+     * convertor, since the log holds converted values.
+     * @return the column of each matched parameter, in column order
+     */
+    public Map<LoggerData, Integer> matchColumns(List<? extends LoggerData> loggerDatas) {
+        final Map<String, LoggerData> byName = new HashMap<String, LoggerData>();
+        for (LoggerData loggerData : loggerDatas) {
+            if (!byName.containsKey(loggerData.getName())) {
+                byName.put(loggerData.getName(), loggerData);
+            }
+        }
+        final Map<LoggerData, Integer> matched = new LinkedHashMap<LoggerData, Integer>();
+        for (int column = 1; column < getColumnCount(); column++) {
+            final LoggerData loggerData = byName.get(getName(column));
+            if (loggerData == null || matched.containsKey(loggerData)) {
+                LOGGER.info("Playback: no parameter for column " + getHeader(column));
+            }
+            else if (!loggerData.getSelectedConvertor().getUnits().equals(getUnits(column))) {
+                LOGGER.warn("Playback: units of " + loggerData.getName() + " are "
+                        + loggerData.getSelectedConvertor().getUnits()
+                        + ", skipping column " + getHeader(column));
+            }
+            else {
+                matched.put(loggerData, column);
+            }
+        }
+        return matched;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @return the time of the line in milliseconds
+     */
+    public long getTimestamp(int line) {
+        return timestamps[line];
+    }
+
+    /**
+     * @return the first line logged at or after the time, or the line
+     * count if the time is past the end of the log
+     */
+    public int findLine(long timestamp) {
+        int low = 0;
+        int high = lineCount;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the value of a column on a line, parsing the block of lines
+     * holding it if it has not been read yet
+     */
+    public double getValue(int column, int line) {
+        final int block = line / BLOCK_LINES;
+        if (parsed[column] == null || !parsed[column][block]) {
+            parse(block, new int[] {column});
+        }
+        return values[column][line];
+    }
+
+    /**
+     * Parse the values of several columns on the block of lines holding
+     * the line, in one pass over the block.  Columns already parsed are
+     * skipped.
+     */
+    public void load(int[] columns, int line) {
+        final int block = line / BLOCK_LINES;
+        for (int column : columns) {
+            if (parsed[column] == null || !parsed[column][block]) {
+                parse(block, columns);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the values of a column on every line; the array is shared
+     * with the log and must not be modified
+     */
+    public double[] getColumn(int column) {
+        final int[] columns = {column};
+        for (int block = 0; block < blockOffsets.length; block++) {
+            if (parsed[column] == null || !parsed[column][block]) {
+                parse(block, columns);
+            }
+        }
+        return values[column] == null ? new double[0] : values[column];
+    }
+
+    /**
+     * Parse the values of several columns on a range of lines into the
+     * caller's arrays, without keeping them in the log.  The log is only
+     * read, so ranges may be read from several threads at once.
+     * @param columns - the columns to read
+     * @param from - the first line to read
+     * @param to - the line after the last line to read
+     * @param target - an array per column receiving the value of line
+     *                 <code>from + i</code> at index <code>i</code>
+     */
+    public void read(int[] columns, int from, int to, double[][] target) {
+        checkColumns(columns);
+        parse(from, Math.min(to, lineCount), columns, target, from);
+    }
+
+    private synchronized void parse(int block, int[] columns) {
+        checkColumns(columns);
+        int count = 0;
+        final int[] needed = new int[columns.length];
+        for (int column : columns) {
+            if (values[column] == null) {
+                values[column] = new double[lineCount];
+                parsed[column] = new boolean[blockOffsets.length];
+            }
+            if (!parsed[column][block]) {
+                parsed[column][block] = true;
+                needed[count++] = column;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        final int[] parseColumns = new int[count];
+        final double[][] target = new double[count][];
+        for (int i = 0; i < count; i++) {
+            parseColumns[i] = needed[i];
+            target[i] = values[needed[i]];
+        }
+        final int first = block * BLOCK_LINES;
+        parse(first, Math.min(lineCount, first + BLOCK_LINES), parseColumns, target, 0);
+    }
+
+    private void parse(int from, int to, int[] columns, double[][] target, int targetStart) {
+        int lastColumn = 0;
+        for (int column : columns) {
+            lastColumn = Math.max(lastColumn, column);
+        }
+        final int[] slots = new int[lastColumn + 1];
+        Arrays.fill(slots, -1);
+        for (int i = 0; i < columns.length; i++) {
+            slots[columns[i]] = i;
+        }
+        int line = from - from % BLOCK_LINES;
+        int offset = from < to ? blockOffsets[from / BLOCK_LINES] : size;
+        while (line < to && offset < size) {
+            final int end = lineEnd(offset);
+            if (end > offset && buffer.get(offset) != 'T') {
+                if (line >= from) {
+                    int fieldStart = offset;
+                    for (int column = 0; column <= lastColumn; column++) {
+                        final int fieldEnd = fieldStart <= end ? fieldEnd(fieldStart, end) : end;
+                        final int slot = slots[column];
+                        if (slot >= 0) {
+                            target[slot][line - targetStart] = fieldStart <= end
+                                    ? parseDouble(fieldStart, fieldEnd) : Double.NaN;
+                        }
+                        fieldStart = fieldEnd + 1;
+                    }
+                }
+                line++;
+            }
+            offset = nextLine(end);
+        }
+    }
+
+    private void checkColumns(int[] columns) {
+        for (int column : columns) {
+            if (column <= 0 || column >= headers.length) {
+                throw new IndexOutOfBoundsException("Column: " + column);
+            }
+        }
+    }
+
+    // the offset of the line break ending the line starting at offset
+    private int lineEnd(int offset) {
+        while (offset < size) {
+            final byte b = buffer.get(offset);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+            offset++;
+        }
+        return offset;
+    }
+
+    private int nextLine(int lineEnd) {
+        if (lineEnd < size && buffer.get(lineEnd) == '\r') {
+            lineEnd++;
+        }
+        if (lineEnd < size && buffer.get(lineEnd) == '\n') {
+            lineEnd++;
+        }
+        return lineEnd;
+    }
+
+    private int fieldEnd(int offset, int lineEnd) {
+        while (offset < lineEnd && buffer.get(offset) != delimiter) {
+            offset++;
+        }
+        return offset;
+    }
+
+    private double parseDouble(int start, int end) {
+        while (start < end && buffer.get(start) == ' ') start++;
+        while (end > start && buffer.get(end - 1) == ' ') end--;
+        if (start == end) {
+            return Double.NaN;
+        }
+        int i = start;
+        final boolean negative = buffer.get(i) == '-';
+        if (negative || buffer.get(i) == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            final byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            }
+            else if (b == decimal && scale < 0) {
+                scale = 0;
+            }
+            else {
+                break;
+            }
+        }
+        // exponents, grouping and long mantissas are left to the JDK
+        if (i < end || digits == 0 || digits > 15) {
+            try {
+                return Double.parseDouble(
+                        text(start, end).replace((char) decimal, '.'));
+            }
+            catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        double value = mantissa;
+        if (scale > 0) {
+            value /= POWERS_OF_TEN[scale];
+        }
+        return negative ? -value : value;
+    }
+
+    private long parseLong(int start, int end) throws IOException {
+        final double value = parseDouble(start, end);
+        if (Double.isNaN(value)) {
+            throw new IOException("Invalid log time: " + text(start, end));
+        }
+        return (long) value;
+    }
+
+    // HH:mm:ss.SSS
+    private long parseTimeOfDay(int start, int end) throws IOException {
+        long time = 0;
+        long field = 0;
+        int fractionDigits = -1;
+        for (int i = start; i < end; i++) {
+            final byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                field = field * 10 + (b - '0');
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            }
+            else if (b == ':' && fractionDigits < 0) {
+                time = (time + field) * 60;
+                field = 0;
+            }
+            else if (b == '.' && fractionDigits < 0) {
+                time = (time + field) * 1000;
+                field = 0;
+                fractionDigits = 0;
+            }
+            else if (b != ' ') {
+                throw new IOException("Invalid log time: " + text(start, end));
+            }
+        }
+        if (fractionDigits < 0) {
+            return (time + field) * 1000;
+        }
+        for (; fractionDigits < 3; fractionDigits++) {
+            field *= 10;
+        }
+        for (; fractionDigits > 3; fractionDigits--) {
+            field /= 10;
+        }
+        return time + field;
+    }
+
+    // the logger writes in the platform charset, but a log saved by another
+    // tool may be UTF-8, which is used when the header decodes as such
+    private Charset charset(int start, int end) {
+        final ByteBuffer header = buffer.duplicate();
+        header.limit(end).position(start);
+        try {
+            UTF8.newDecoder().decode(header);
+            return UTF8;
+        }
+        catch (CharacterCodingException e) {
+            return Charset.defaultCharset();
+        }
+    }
+
+    private String text(int start, int end) {
+        final byte[] bytes = new byte[end - start];
+        for (int i = start; i < end; i++) {
+            bytes[i - start] = buffer.get(i);
+        }
+        return new String(bytes, charset);
+    }
+
+    private static String[] split(String line, char delimiter) {
+        final List<String> fields = new ArrayList<String>();
+        int start = 0;
+        for (int i = 0; i <= line.length(); i++) {
+            if (i == line.length() || line.charAt(i) == delimiter) {
+                fields.add(line.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        if (fields.size() == 1 && fields.get(0).length() == 0) {
+            fields.clear();
+        }
+        return fields.toArray(new String[fields.size()]);
+    }
+
+    private static int[] grow(int[] array) {
+        final int[] larger = new int[array.length * 2];
+        System.arraycopy(array, 0, larger, 0, array.length);
+        return larger;
+    }
+
+    private static long[] grow(long[] array) {
+        final long[] larger = new long[array.length * 2];
+        System.arraycopy(array, 0, larger, 0, array.length);
+        return larger;
+    }
+}
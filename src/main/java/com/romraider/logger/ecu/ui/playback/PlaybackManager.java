@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -21,15 +21,38 @@ package com.romraider.logger.ecu.ui.playback;
 
 import java.io.File;
 
+/**
+ * Replays a recorded log through the data update handlers of the logger.
+ */
 public interface PlaybackManager {
+    /**
+     * Open a log and register the parameters it holds with the handlers.
+     */
     void load(File file);
 
+    /**
+     * Play at the speed the log was recorded.
+     */
     void play();
 
+    /**
+     * Play at a multiple of the recorded speed, from 1 to 100, or as fast
+     * as the handlers accept the data if the speed is zero or less.
+     */
     void play(int speed);
 
+    /**
+     * Pause and move the given number of lines forward, or back if
+     * negative, sending the line reached to the handlers.
+     */
     void step(int increment);
 
+    /**
+     * Move to the first line logged at or after the time, given in
+     * milliseconds from the start of the log.
+     */
+    void seek(long time);
+
     void pause();
 
     void stop();
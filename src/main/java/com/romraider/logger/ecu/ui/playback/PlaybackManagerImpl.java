@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,18 +19,48 @@
 
 package com.romraider.logger.ecu.ui.playback;
 
-import com.romraider.logger.ecu.comms.query.Response;
-import com.romraider.logger.ecu.comms.query.ResponseImpl;
-import com.romraider.logger.ecu.definition.LoggerData;
-import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
-import static com.romraider.util.ThreadUtil.sleep;
+import static com.romraider.util.ThreadUtil.runAsDaemon;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.log4j.Logger.getLogger;
+
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.romraider.logger.ecu.comms.query.ResponseFrame;
+import com.romraider.logger.ecu.comms.query.ResponseLayout;
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.exception.PlaybackException;
+import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
 
-//TODO: Finish me.
+/**
+ * Replays a CSV log recorded by the logger.  Columns are matched to
+ * parameters as described by {@link PlaybackLog#matchColumns(List)}.
+ * Lines are sent to the handlers as one reused {@link ResponseFrame}
+ * stamped with the time of the line, from a daemon thread paced by the
+ * log times divided by the playback speed.
+ */
 public final class PlaybackManagerImpl implements PlaybackManager {
+    private static final Logger LOGGER = getLogger(PlaybackManagerImpl.class);
+    private static final int MAX_SPEED = 100;
     private final List<? extends LoggerData> loggerDatas;
     private final DataUpdateHandler[] dataUpdateHandlers;
+    private final ResponseFrame frame = new ResponseFrame();
+    private PlaybackLog log;
+    private ResponseLayout layout = ResponseLayout.EMPTY;
+    private int[] columns = new int[0];
+    private int line;
+    private int speed = 1;
+    private boolean paused;
+    private Player player;
+    // the wall clock time at which the anchor line is due
+    private long anchorNanos;
+    private int anchorLine;
 
     public PlaybackManagerImpl(List<? extends LoggerData> loggerDatas, DataUpdateHandler... dataUpdateHandlers) {
         this.loggerDatas = loggerDatas;
@@ -38,46 +68,207 @@ public final class PlaybackManagerImpl implements PlaybackManager {
     }
 
     public void load(File file) {
-        // TODO: Finish me!
-        for (DataUpdateHandler handler : dataUpdateHandlers) {
-            handler.registerData(loggerDatas.get(10));
-            handler.registerData(loggerDatas.get(20));
-            handler.registerData(loggerDatas.get(30));
+        final PlaybackLog newLog;
+        try {
+            newLog = new PlaybackLog(file);
         }
+        catch (IOException e) {
+            throw new PlaybackException("Error opening log: " + file, e);
+        }
+        final Map<LoggerData, Integer> matched = newLog.matchColumns(loggerDatas);
+
+        synchronized (this) {
+            stop();
+            synchronized (frame) {
+                deregister();
+                log = newLog;
+                layout = new ResponseLayout(matched.keySet());
+                columns = new int[layout.size()];
+                int slot = 0;
+                for (int column : matched.values()) {
+                    columns[slot++] = column;
+                }
+                for (DataUpdateHandler handler : dataUpdateHandlers) {
+                    for (LoggerData loggerData : matched.keySet()) {
+                        handler.registerData(loggerData);
+                    }
+                }
+            }
+        }
+        LOGGER.info("Playback: loaded " + newLog.getLineCount() + " lines of "
+                + file + ", replaying " + columns.length + " parameters");
     }
 
     public void play() {
-        double d = 0.0;
+        play(1);
+    }
+
+    public synchronized void play(int speed) {
+        checkLoaded();
+        this.speed = Math.min(speed, MAX_SPEED);
+        paused = false;
+        if (line >= log.getLineCount()) {
+            line = 0;
+        }
+        anchor();
+        if (player == null) {
+            player = new Player();
+            runAsDaemon(player);
+        }
+        notifyAll();
+    }
+
+    public void step(int increment) {
+        final int target;
+        synchronized (this) {
+            checkLoaded();
+            paused = true;
+            if (log.getLineCount() == 0) {
+                return;
+            }
+            // line is the next line to send, the current one is before it
+            target = Math.max(0, Math.min(log.getLineCount() - 1, line - 1 + increment));
+            line = target + 1;
+            notifyAll();
+        }
+        send(target);
+    }
+
+    public synchronized void seek(long time) {
+        checkLoaded();
+        line = log.getLineCount() == 0
+                ? 0 : log.findLine(log.getTimestamp(0) + time);
+        anchor();
+        notifyAll();
+    }
+
+    public synchronized void pause() {
+        paused = true;
+        notifyAll();
+    }
+
+    public synchronized void stop() {
+        player = null;
+        paused = false;
+        line = 0;
+        notifyAll();
+    }
+
+    public void reset() {
+        stop();
+        for (DataUpdateHandler handler : dataUpdateHandlers) {
+            handler.reset();
+        }
+    }
+
+    /**
+     * Send the log from the current line to the end to the handlers on
+     * the calling thread, as fast as they accept it.
+     */
+    public void replay() {
         while (true) {
-            for (DataUpdateHandler handler : dataUpdateHandlers) {
-                Response response = new ResponseImpl();
-                response.setDataValue(loggerDatas.get(10), d);
-                response.setDataValue(loggerDatas.get(20), d);
-                response.setDataValue(loggerDatas.get(30), d);
-                handler.handleDataUpdate(response);
-                d += 100.0;
+            final int next;
+            synchronized (this) {
+                checkLoaded();
+                if (line >= log.getLineCount()) {
+                    return;
+                }
+                next = line++;
             }
-            sleep(100L);
+            send(next);
         }
     }
 
-    public void play(int speed) {
-        throw new UnsupportedOperationException();
+    /**
+     * @return the number of lines sent or skipped since the start of the log
+     */
+    public synchronized int getPosition() {
+        return line;
     }
 
-    public void step(int increment) {
-        throw new UnsupportedOperationException();
+    public synchronized boolean isPlaying() {
+        return player != null && !paused;
     }
 
-    public void pause() {
-        throw new UnsupportedOperationException();
+    private void checkLoaded() {
+        if (log == null) {
+            throw new PlaybackException("No log loaded");
+        }
     }
 
-    public void stop() {
-        throw new UnsupportedOperationException();
+    // start pacing from the current line
+    private void anchor() {
+        anchorNanos = nanoTime();
+        anchorLine = line;
     }
 
-    public void reset() {
-        throw new UnsupportedOperationException();
+    private void send(int sendLine) {
+        synchronized (frame) {
+            log.load(columns, sendLine);
+            frame.reset(layout, log.getTimestamp(sendLine));
+            for (int slot = 0; slot < columns.length; slot++) {
+                final double value = log.getValue(columns[slot], sendLine);
+                if (!Double.isNaN(value)) {
+                    frame.setValue(slot, value);
+                }
+            }
+            for (DataUpdateHandler handler : dataUpdateHandlers) {
+                handler.handleDataUpdate(frame);
+            }
+        }
+    }
+
+    private void deregister() {
+        for (DataUpdateHandler handler : dataUpdateHandlers) {
+            for (LoggerData loggerData : layout.getData()) {
+                handler.deregisterData(loggerData);
+            }
+        }
+    }
+
+    private final class Player implements Runnable {
+        public void run() {
+            try {
+                while (true) {
+                    final int next;
+                    synchronized (PlaybackManagerImpl.this) {
+                        if (player != this) {
+                            return;
+                        }
+                        if (paused) {
+                            PlaybackManagerImpl.this.wait();
+                            continue;
+                        }
+                        if (line >= log.getLineCount()) {
+                            return;
+                        }
+                        if (speed > 0) {
+                            final long elapsed = log.getTimestamp(line) - log.getTimestamp(anchorLine);
+                            final long delay = anchorNanos
+                                    + MILLISECONDS.toNanos(elapsed) / speed - nanoTime();
+                            if (delay > 0) {
+                                NANOSECONDS.timedWait(PlaybackManagerImpl.this, delay);
+                                continue;
+                            }
+                        }
+                        next = line++;
+                    }
+                    send(next);
+                }
+            }
+            catch (InterruptedException e) {
+                LOGGER.warn("Playback interrupted", e);
+            }
+            catch (RuntimeException e) {
+                LOGGER.error("Playback error", e);
+            }
+            finally {
+                synchronized (PlaybackManagerImpl.this) {
+                    if (player == this) {
+                        player = null;
+                    }
+                }
+            }
+        }
     }
 }
@@ -45,6 +45,7 @@ import static java.awt.event.KeyEvent.VK_T;
 import static java.awt.event.KeyEvent.VK_U;
 import static java.awt.event.KeyEvent.VK_V;
 import static java.awt.event.KeyEvent.VK_X;
+import static java.awt.event.KeyEvent.VK_Y;
 import static javax.swing.KeyStroke.getKeyStroke;
 
 import java.text.MessageFormat;
@@ -64,11 +65,13 @@ import com.romraider.logger.ecu.ui.swing.menubar.action.ComPortAutoRefreshAction
 import com.romraider.logger.ecu.ui.swing.menubar.action.DisconnectAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.ElmEnabledAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.ExitAction;
+import com.romraider.logger.ecu.ui.swing.menubar.action.ExportBinaryLogAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.FastPollModeAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.GlobalAdjustmentAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LearningTableValuesAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LoadProfileAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LogFileAbsoluteTimestampAction;
+import com.romraider.logger.ecu.ui.swing.menubar.action.LogFileBinaryFormatAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LogFileControllerSwitchAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LogFileLocationAction;
 import com.romraider.logger.ecu.ui.swing.menubar.action.LogFileNumberFormatAction;
@@ -144,6 +147,9 @@ public class EcuLoggerMenuBar extends JMenuBar {
         logger.getComponentList().put("fastPoll", fastPoll);
         settingsMenu.add(new JSeparator());
         settingsMenu.add(new RadioButtonMenuItem(rb.getString("ABSTIMESTAMP"), VK_T, getKeyStroke(VK_T, CTRL_MASK), new LogFileAbsoluteTimestampAction(logger), logger.getSettings().isFileLoggingAbsoluteTimestamp()));
+        final RadioButtonMenuItem binaryFormat = new RadioButtonMenuItem(rb.getString("BINARYLOG"), VK_Y, getKeyStroke(VK_Y, CTRL_MASK), new LogFileBinaryFormatAction(logger), logger.getSettings().isFileLoggingBinary());
+        binaryFormat.setToolTipText(rb.getString("BINARYLOGTT"));
+        settingsMenu.add(binaryFormat);
         final RadioButtonMenuItem numFormat = new RadioButtonMenuItem(rb.getString("USNUMBERS"), VK_B, getKeyStroke(VK_B, CTRL_MASK), new LogFileNumberFormatAction(logger), logger.getSettings().isUsNumberFormat());
         numFormat.setToolTipText(rb.getString("USNUMBERSTT"));
         settingsMenu.add(numFormat);
@@ -166,6 +172,8 @@ public class EcuLoggerMenuBar extends JMenuBar {
         toolsMenu.add(new MenuItem(rb.getString("GLOBALADJ"), new GlobalAdjustmentAction(logger), VK_T, getKeyStroke(VK_F5, 0)));
         toolsMenu.add(new JSeparator());
         toolsMenu.add(new MenuItem(rb.getString("LTV"), new LearningTableValuesAction(logger), VK_V, getKeyStroke(VK_F6, 0)));
+        toolsMenu.add(new JSeparator());
+        toolsMenu.add(new MenuItem(rb.getString("EXPORTLOG"), new ExportBinaryLogAction(logger), VK_X));
         add(toolsMenu);
 
         // plugins menu items
@@ -0,0 +1,71 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.swing.menubar.action;
+
+import static com.romraider.logger.ecu.ui.swing.menubar.util.FileHelper.getBinaryLogFileChooser;
+import static com.romraider.logger.ecu.ui.swing.menubar.util.FileHelper.getFile;
+
+import java.awt.event.ActionEvent;
+import java.io.File;
+import java.text.MessageFormat;
+
+import javax.swing.JFileChooser;
+
+import com.romraider.logger.ecu.EcuLogger;
+import com.romraider.logger.ecu.ui.handler.file.BinaryLogConverter;
+import com.romraider.swing.menubar.action.AbstractAction;
+
+public final class ExportBinaryLogAction extends AbstractAction {
+
+    public ExportBinaryLogAction(EcuLogger logger) {
+        super(logger);
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent actionEvent) {
+        try {
+            exportDialog();
+        } catch (Exception e) {
+            logger.reportError(e);
+        }
+    }
+
+    private void exportDialog() {
+        final File logDir = getFile(logger.getSettings().getLoggerOutputDirPath());
+        final JFileChooser fc = getBinaryLogFileChooser(logDir);
+        if (fc.showOpenDialog(logger) == JFileChooser.APPROVE_OPTION) {
+            final File log = fc.getSelectedFile();
+            logger.reportMessage(MessageFormat.format(
+                    rb.getString("EBLASTART"), log.getName()));
+            // logs of long sessions take a while, keep the UI responsive
+            new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        final File csv = BinaryLogConverter.convert(log);
+                        logger.reportMessage(MessageFormat.format(
+                                rb.getString("EBLASUCCESS"), csv.getPath()));
+                    } catch (Exception e) {
+                        logger.reportError(e);
+                    }
+                }
+            }, "BinaryLogExport").start();
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2019 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -52,6 +52,23 @@ public final class FileHelper {
         return getFileChooser(lastDefFile, rb.getString("LOGDEFINITIONS"), "xml");
     }
 
+    public static JFileChooser getBinaryLogFileChooser(File logDir) {
+        final JFileChooser fc = getFileChooser(logDir, rb.getString("LOGBINARY"), "rrlog");
+        if (logDir.isDirectory()) {
+            fc.setCurrentDirectory(logDir);
+        }
+        return fc;
+    }
+
+    public static JFileChooser getCsvLogFileChooser(File logDir) {
+        final JFileChooser fc = getFileChooser(logDir, rb.getString("LOGCSV"), "csv");
+        if (logDir.isDirectory()) {
+            fc.setCurrentDirectory(logDir);
+        }
+        fc.setMultiSelectionEnabled(true);
+        return fc;
+    }
+
     public static String saveProfileToFile(UserProfile profile, File destinationFile) throws IOException {
         String profileFilePath = destinationFile.getAbsolutePath();
         if (!profileFilePath.endsWith(".xml")) {
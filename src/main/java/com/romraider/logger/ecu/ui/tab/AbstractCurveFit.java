@@ -0,0 +1,155 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.tab;
+
+import static java.lang.Double.NEGATIVE_INFINITY;
+import static java.lang.Double.POSITIVE_INFINITY;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the points of a fit and the x domain its statistics are taken
+ * over.  The domain is the range of x plus a quarter of it on each side,
+ * so it covers the data tightly enough to keep the fit well conditioned.
+ * A point outside the domain widens it and the statistics are rebuilt from
+ * the points kept, which happens a few times while the range grows.
+ */
+abstract class AbstractCurveFit implements CurveFit {
+    private double[] xs = new double[64];
+    private double[] ys = new double[64];
+    private int count;
+    private double minX = POSITIVE_INFINITY;
+    private double maxX = NEGATIVE_INFINITY;
+    private double low;
+    private double high;
+    private boolean stale = true;
+
+    public final synchronized void add(double x, double y) {
+        if (Double.isNaN(x) || Double.isInfinite(x)
+                || Double.isNaN(y) || Double.isInfinite(y)) return;
+        if (count == xs.length) {
+            xs = Arrays.copyOf(xs, count * 2);
+            ys = Arrays.copyOf(ys, count * 2);
+        }
+        xs[count] = x;
+        ys[count] = y;
+        count++;
+        minX = Math.min(minX, x);
+        maxX = Math.max(maxX, x);
+        stale = true;
+        if (hasDomain() && x >= low && x <= high) {
+            accumulate(x, y);
+        }
+        else if (maxX > minX) {
+            final double margin = (maxX - minX) / 4;
+            low = minX - margin;
+            high = maxX + margin;
+            reset();
+            for (int i = 0; i < count; i++) {
+                accumulate(xs[i], ys[i]);
+            }
+        }
+    }
+
+    public final synchronized void clear() {
+        count = 0;
+        minX = POSITIVE_INFINITY;
+        maxX = NEGATIVE_INFINITY;
+        low = high = 0;
+        stale = true;
+        reset();
+    }
+
+    public final synchronized int getSampleCount() {
+        return count;
+    }
+
+    public final synchronized double getX(int index) {
+        checkIndex(index);
+        return xs[index];
+    }
+
+    public final synchronized double getY(int index) {
+        checkIndex(index);
+        return ys[index];
+    }
+
+    public synchronized boolean isFitted() {
+        return hasDomain();
+    }
+
+    public final synchronized double value(double x) {
+        if (!isFitted()) return Double.NaN;
+        refit();
+        return evaluate(x);
+    }
+
+    /**
+     * Solve for the curve if points were added since the last solve.
+     */
+    protected final void refit() {
+        if (stale) {
+            fit();
+            stale = false;
+        }
+    }
+
+    /**
+     * Mark the curve to be solved again, after a setting changed.
+     */
+    protected final void invalidate() {
+        stale = true;
+    }
+
+    protected final boolean hasDomain() {
+        return high > low;
+    }
+
+    protected final double getLow() {
+        return low;
+    }
+
+    protected final double getHigh() {
+        return high;
+    }
+
+    /**
+     * Clear the statistics, the domain has changed.
+     */
+    protected abstract void reset();
+
+    /**
+     * Add a point within the domain to the statistics.
+     */
+    protected abstract void accumulate(double x, double y);
+
+    /**
+     * Solve the curve from the statistics.
+     */
+    protected abstract void fit();
+
+    protected abstract double evaluate(double x);
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", count: " + count);
+        }
+    }
+}
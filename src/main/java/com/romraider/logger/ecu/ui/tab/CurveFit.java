@@ -0,0 +1,48 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.tab;
+
+/**
+ * A curve fitted to data points as they are added.  Each point updates
+ * the statistics of the fit, so the curve is refitted without going back
+ * over the points.  The fit depends only on the points and the order they
+ * were added in, so a replayed log gives the same curve as the live data.
+ */
+public interface CurveFit {
+    void add(double x, double y);
+
+    void clear();
+
+    int getSampleCount();
+
+    double getX(int index);
+
+    double getY(int index);
+
+    /**
+     * @return true if there are enough points to fit the curve
+     */
+    boolean isFitted();
+
+    /**
+     * @return the value of the curve at x, NaN if it is not fitted
+     */
+    double value(double x);
+}
@@ -0,0 +1,164 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.tab;
+
+import java.util.Arrays;
+
+/**
+ * A locally weighted linear fit solved at equally spaced nodes across the
+ * domain and interpolated between them.  Each node keeps the tricube
+ * weighted sums of the points within the bandwidth of it, a fixed
+ * fraction of the domain rather than the nearest points, so a point
+ * updates the sums of the nodes it reaches and the curve is solved node
+ * by node.  Nodes with no points near them are filled in from the
+ * nearest solved nodes, along the line of the end ones and straight
+ * across gaps, which also continues the curve outside the domain.
+ */
+public final class LoessFit extends AbstractCurveFit {
+    public static final int DEFAULT_NODES = 64;
+    public static final double DEFAULT_SPAN = 0.1;
+    private final int nodes;
+    private final double span;
+    // the weighted sums of 1, u, u^2, y and u * y for u = (x - node) / bandwidth
+    private final double[] s0;
+    private final double[] s1;
+    private final double[] s2;
+    private final double[] t0;
+    private final double[] t1;
+    private final double[] values;
+    private final double[] slopes;
+
+    public LoessFit() {
+        this(DEFAULT_NODES, DEFAULT_SPAN);
+    }
+
+    public LoessFit(int nodes, double span) {
+        if (nodes < 2) {
+            throw new IllegalArgumentException("Invalid nodes: " + nodes);
+        }
+        if (span <= 0 || span > 1) {
+            throw new IllegalArgumentException("Invalid span: " + span);
+        }
+        this.nodes = nodes;
+        this.span = span;
+        s0 = new double[nodes];
+        s1 = new double[nodes];
+        s2 = new double[nodes];
+        t0 = new double[nodes];
+        t1 = new double[nodes];
+        values = new double[nodes];
+        slopes = new double[nodes];
+    }
+
+    protected void reset() {
+        Arrays.fill(s0, 0);
+        Arrays.fill(s1, 0);
+        Arrays.fill(s2, 0);
+        Arrays.fill(t0, 0);
+        Arrays.fill(t1, 0);
+    }
+
+    protected void accumulate(double x, double y) {
+        final double step = getStep();
+        final double bandwidth = getBandwidth();
+        final int first = Math.max(0, (int) Math.ceil((x - bandwidth - getLow()) / step));
+        final int last = Math.min(nodes - 1, (int) Math.floor((x + bandwidth - getLow()) / step));
+        for (int i = first; i <= last; i++) {
+            final double u = (x - getLow() - i * step) / bandwidth;
+            final double distance = 1 - Math.abs(u * u * u);
+            if (distance <= 0) continue;
+            final double w = distance * distance * distance;
+            s0[i] += w;
+            s1[i] += w * u;
+            s2[i] += w * u * u;
+            t0[i] += w * y;
+            t1[i] += w * u * y;
+        }
+    }
+
+    protected void fit() {
+        final double bandwidth = getBandwidth();
+        for (int i = 0; i < nodes; i++) {
+            final double determinant = s0[i] * s2[i] - s1[i] * s1[i];
+            if (s0[i] == 0) {
+                values[i] = Double.NaN;
+                slopes[i] = Double.NaN;
+            }
+            else if (determinant <= 1e-12 * s0[i] * s2[i]) {
+                // the points are all at one x, fit a level
+                values[i] = t0[i] / s0[i];
+                slopes[i] = 0;
+            }
+            else {
+                values[i] = (s2[i] * t0[i] - s1[i] * t1[i]) / determinant;
+                slopes[i] = (s0[i] * t1[i] - s1[i] * t0[i]) / determinant / bandwidth;
+            }
+        }
+        fill();
+    }
+
+    private void fill() {
+        final double step = getStep();
+        int previous = -1;
+        for (int i = 0; i < nodes; i++) {
+            if (Double.isNaN(values[i])) continue;
+            if (previous < 0) {
+                for (int j = 0; j < i; j++) {
+                    values[j] = values[i] + slopes[i] * (j - i) * step;
+                    slopes[j] = slopes[i];
+                }
+            }
+            else {
+                for (int j = previous + 1; j < i; j++) {
+                    final double f = (double) (j - previous) / (i - previous);
+                    values[j] = values[previous] * (1 - f) + values[i] * f;
+                    slopes[j] = (values[i] - values[previous]) / ((i - previous) * step);
+                }
+            }
+            previous = i;
+        }
+        for (int j = previous + 1; previous >= 0 && j < nodes; j++) {
+            values[j] = values[previous] + slopes[previous] * (j - previous) * step;
+            slopes[j] = slopes[previous];
+        }
+    }
+
+    protected double evaluate(double x) {
+        final double step = getStep();
+        final double u = (x - getLow()) / step;
+        if (u <= 0) {
+            return values[0] + slopes[0] * (x - getLow());
+        }
+        if (u >= nodes - 1) {
+            return values[nodes - 1] + slopes[nodes - 1] * (x - getHigh());
+        }
+        final int i = (int) u;
+        final double f = u - i;
+        return values[i] * (1 - f) + values[i + 1] * f;
+    }
+
+    private double getStep() {
+        return (getHigh() - getLow()) / (nodes - 1);
+    }
+
+    private double getBandwidth() {
+        return span * (getHigh() - getLow());
+    }
+}
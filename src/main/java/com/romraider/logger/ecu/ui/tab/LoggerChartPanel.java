@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -21,7 +21,6 @@ package com.romraider.logger.ecu.ui.tab;
 
 import com.romraider.logger.ecu.ui.handler.graph.SpringUtilities;
 import static com.romraider.util.ParamChecker.checkNotNull;
-import jamlab.Polyfit;
 import static java.awt.Color.BLACK;
 import static java.awt.Color.BLUE;
 import static java.awt.Color.GREEN;
@@ -48,7 +47,7 @@ public final class LoggerChartPanel extends JPanel {
     private static final Color DARK_GREY = new Color(80, 80, 80);
     private static final Color LIGHT_GREY = new Color(110, 110, 110);
     private final XYSeries data = new XYSeries("Data");
-    private final XYTrendline trendline = new XYTrendline(data);
+    private final XYTrendline trendline = new XYTrendline();
     private final XYSeries hilite = new XYSeries("Hilite");
     private final String labelX;
     private final String labelY;
@@ -65,6 +64,7 @@ public final class LoggerChartPanel extends JPanel {
         if (hilite.getItemCount() == 1) {
             XYDataItem item = hilite.remove(0);
             data.add(item);
+            trendline.add(item.getX().doubleValue(), item.getY().doubleValue());
         }
         hilite.add(x, y);
     }
@@ -79,13 +79,16 @@ public final class LoggerChartPanel extends JPanel {
         trendline.update(order);
     }
 
+    public void interpolate(CurveFit fit) {
+        trendline.update(fit);
+    }
+
     public double[] calculate(double[] x) {
         return trendline.calculate(x);
     }
 
     public double[] getPolynomialCoefficients() {
-        Polyfit fit = trendline.getPolyFit();
-        return fit.getPolynomialCoefficients();
+        return trendline.getPolynomialCoefficients();
     }
 
     private void addChart() {
@@ -0,0 +1,201 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.tab;
+
+import java.util.Arrays;
+
+/**
+ * A least squares polynomial fit kept as the QR decomposition of the
+ * points in the Chebyshev basis over the domain.  Each point is rotated
+ * into the triangular factor with Givens rotations, and because the
+ * leading block of the factor is the decomposition of the lower order
+ * columns, a fit of any order up to the maximum is a back substitution.
+ * Both cost O(order<sup>2</sup>) however many points there are, and
+ * neither forms the ill-conditioned normal equations.
+ */
+public final class PolynomialFit extends AbstractCurveFit {
+    public static final int MAX_ORDER = 20;
+    // pivots this much smaller than the largest are taken as rank deficient
+    private static final double TOLERANCE = 1e-12;
+    private final int size;
+    private final double[][] r;
+    private final double[] qty;
+    private final double[] row;
+    private int order;
+    private double[] coefficients = new double[0];
+    private double[] derivative = new double[0];
+
+    public PolynomialFit(int order) {
+        this(order, MAX_ORDER);
+    }
+
+    public PolynomialFit(int order, int maxOrder) {
+        if (maxOrder < 0 || maxOrder > MAX_ORDER) {
+            throw new IllegalArgumentException("Invalid maximum order: " + maxOrder);
+        }
+        size = maxOrder + 1;
+        r = new double[size][size];
+        qty = new double[size];
+        row = new double[size];
+        setOrder(order);
+    }
+
+    public synchronized void setOrder(int order) {
+        if (order < 0 || order >= size) {
+            throw new IllegalArgumentException("Invalid order: " + order);
+        }
+        this.order = order;
+        invalidate();
+    }
+
+    public synchronized int getOrder() {
+        return order;
+    }
+
+    public synchronized boolean isFitted() {
+        return super.isFitted() && getSampleCount() > order;
+    }
+
+    /**
+     * @return the slope of the curve at x, NaN if it is not fitted
+     */
+    public synchronized double derivative(double x) {
+        if (!isFitted()) return Double.NaN;
+        refit();
+        return chebyshev(derivative, toUnit(x)) * 2 / (getHigh() - getLow());
+    }
+
+    /**
+     * @return the coefficients of the powers of x, highest power first,
+     * or null if it is not fitted
+     */
+    public synchronized double[] getCoefficients() {
+        if (!isFitted()) return null;
+        refit();
+        // the polynomial in t = a * x + b, lowest power first
+        final double[] p = new double[order + 1];
+        double[] previous = {1};
+        double[] current = {0, 1};
+        p[0] = coefficients[0];
+        for (int j = 1; j <= order; j++) {
+            for (int i = 0; i <= j; i++) {
+                p[i] += coefficients[j] * current[i];
+            }
+            final double[] next = new double[j + 2];
+            for (int i = 0; i <= j; i++) {
+                next[i + 1] += 2 * current[i];
+            }
+            for (int i = 0; i < previous.length; i++) {
+                next[i] -= previous[i];
+            }
+            previous = current;
+            current = next;
+        }
+        final double a = 2 / (getHigh() - getLow());
+        final double b = -(getHigh() + getLow()) / (getHigh() - getLow());
+        final double[] q = new double[order + 1];
+        for (int j = order; j >= 0; j--) {
+            for (int i = order - j; i > 0; i--) {
+                q[i] = q[i] * b + q[i - 1] * a;
+            }
+            q[0] = q[0] * b + p[j];
+        }
+        final double[] coefficients = new double[order + 1];
+        for (int i = 0; i <= order; i++) {
+            coefficients[i] = q[order - i];
+        }
+        return coefficients;
+    }
+
+    protected void reset() {
+        for (double[] values : r) {
+            Arrays.fill(values, 0);
+        }
+        Arrays.fill(qty, 0);
+    }
+
+    protected void accumulate(double x, double y) {
+        final double t = toUnit(x);
+        row[0] = 1;
+        if (size > 1) {
+            row[1] = t;
+        }
+        for (int j = 2; j < size; j++) {
+            row[j] = 2 * t * row[j - 1] - row[j - 2];
+        }
+        for (int j = 0; j < size; j++) {
+            if (row[j] == 0) continue;
+            final double[] rj = r[j];
+            final double h = Math.sqrt(rj[j] * rj[j] + row[j] * row[j]);
+            final double c = rj[j] / h;
+            final double s = row[j] / h;
+            rj[j] = h;
+            for (int l = j + 1; l < size; l++) {
+                final double value = rj[l];
+                rj[l] = c * value + s * row[l];
+                row[l] = c * row[l] - s * value;
+            }
+            final double value = qty[j];
+            qty[j] = c * value + s * y;
+            y = c * y - s * value;
+        }
+    }
+
+    protected void fit() {
+        double largest = 0;
+        for (int j = 0; j <= order; j++) {
+            largest = Math.max(largest, Math.abs(r[j][j]));
+        }
+        coefficients = new double[order + 1];
+        for (int j = order; j >= 0; j--) {
+            if (Math.abs(r[j][j]) <= largest * TOLERANCE) continue;
+            double sum = qty[j];
+            for (int l = j + 1; l <= order; l++) {
+                sum -= r[j][l] * coefficients[l];
+            }
+            coefficients[j] = sum / r[j][j];
+        }
+        derivative = new double[Math.max(1, order)];
+        for (int j = order; j > 0; j--) {
+            derivative[j - 1] = 2 * j * coefficients[j] + (j + 1 < order ? derivative[j + 1] : 0);
+        }
+        derivative[0] /= 2;
+    }
+
+    protected double evaluate(double x) {
+        return chebyshev(coefficients, toUnit(x));
+    }
+
+    private double toUnit(double x) {
+        return (2 * x - getHigh() - getLow()) / (getHigh() - getLow());
+    }
+
+    // Clenshaw summation of the Chebyshev series at t
+    private static double chebyshev(double[] c, double t) {
+        double b1 = 0;
+        double b2 = 0;
+        for (int j = c.length - 1; j > 0; j--) {
+            final double b0 = 2 * t * b1 - b2 + c[j];
+            b2 = b1;
+            b1 = b0;
+        }
+        return t * b1 - b2 + c[0];
+    }
+}
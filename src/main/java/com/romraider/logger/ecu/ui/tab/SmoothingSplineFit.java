@@ -0,0 +1,177 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.tab;
+
+import java.util.Arrays;
+
+/**
+ * A penalized cubic B-spline fit over equal segments of the domain.  The
+ * points are rotated into the banded QR factor of the spline basis, four
+ * columns wide, and the penalty on the second differences of the spline
+ * coefficients is rotated into a copy of it when the curve is solved.
+ * The penalty is scaled by the number of points, so the smoothing does
+ * not change as points are added.  Outside the domain the curve is
+ * continued along its slope at the ends.
+ */
+public final class SmoothingSplineFit extends AbstractCurveFit {
+    public static final int DEFAULT_SEGMENTS = 16;
+    public static final double DEFAULT_SMOOTHING = 0.001;
+    private static final int BAND = 4;
+    private final int segments;
+    private final double smoothing;
+    private final int size;
+    // r[j][d] is the element of the factor at row j, column j + d
+    private final double[][] r;
+    private final double[] qty;
+    private final double[] band = new double[BAND];
+    private double[] coefficients = new double[0];
+
+    public SmoothingSplineFit() {
+        this(DEFAULT_SEGMENTS, DEFAULT_SMOOTHING);
+    }
+
+    public SmoothingSplineFit(int segments, double smoothing) {
+        if (segments < 1) {
+            throw new IllegalArgumentException("Invalid segments: " + segments);
+        }
+        if (smoothing < 0) {
+            throw new IllegalArgumentException("Invalid smoothing: " + smoothing);
+        }
+        this.segments = segments;
+        this.smoothing = smoothing;
+        size = segments + BAND - 1;
+        r = new double[size][BAND];
+        qty = new double[size];
+    }
+
+    protected void reset() {
+        for (double[] values : r) {
+            Arrays.fill(values, 0);
+        }
+        Arrays.fill(qty, 0);
+    }
+
+    protected void accumulate(double x, double y) {
+        final int segment = basis(x, band);
+        rotate(r, qty, band, segment, y);
+    }
+
+    protected void fit() {
+        final double[][] penalized = new double[size][];
+        for (int j = 0; j < size; j++) {
+            penalized[j] = r[j].clone();
+        }
+        final double[] z = qty.clone();
+        final double weight = Math.sqrt(smoothing * getSampleCount());
+        if (weight > 0) {
+            for (int j = 0; j + 2 < size; j++) {
+                band[0] = weight;
+                band[1] = -2 * weight;
+                band[2] = weight;
+                band[3] = 0;
+                rotate(penalized, z, band, j, 0);
+            }
+        }
+        double largest = 0;
+        for (int j = 0; j < size; j++) {
+            largest = Math.max(largest, Math.abs(penalized[j][0]));
+        }
+        coefficients = new double[size];
+        for (int j = size - 1; j >= 0; j--) {
+            if (Math.abs(penalized[j][0]) <= largest * 1e-12) continue;
+            double sum = z[j];
+            for (int d = 1; d < BAND && j + d < size; d++) {
+                sum -= penalized[j][d] * coefficients[j + d];
+            }
+            coefficients[j] = sum / penalized[j][0];
+        }
+    }
+
+    protected double evaluate(double x) {
+        final double edge = Math.max(getLow(), Math.min(getHigh(), x));
+        final int segment = basis(edge, band);
+        double value = 0;
+        for (int d = 0; d < BAND; d++) {
+            value += band[d] * coefficients[segment + d];
+        }
+        if (edge != x) {
+            slope(edge, band);
+            double slope = 0;
+            for (int d = 0; d < BAND; d++) {
+                slope += band[d] * coefficients[segment + d];
+            }
+            value += slope * segments / (getHigh() - getLow()) * (x - edge);
+        }
+        return value;
+    }
+
+    // the four cubic B-splines non-zero at x, returns the first of them
+    private int basis(double x, double[] values) {
+        final double u = (x - getLow()) / (getHigh() - getLow()) * segments;
+        final int segment = Math.max(0, Math.min(segments - 1, (int) u));
+        final double f = u - segment;
+        final double g = 1 - f;
+        values[0] = g * g * g / 6;
+        values[1] = (3 * f * f * f - 6 * f * f + 4) / 6;
+        values[2] = (-3 * f * f * f + 3 * f * f + 3 * f + 1) / 6;
+        values[3] = f * f * f / 6;
+        return segment;
+    }
+
+    // the derivatives of the B-splines by the segment position
+    private void slope(double x, double[] values) {
+        final double u = (x - getLow()) / (getHigh() - getLow()) * segments;
+        final int segment = Math.max(0, Math.min(segments - 1, (int) u));
+        final double f = u - segment;
+        final double g = 1 - f;
+        values[0] = -g * g / 2;
+        values[1] = (3 * f * f - 4 * f) / 2;
+        values[2] = (-3 * f * f + 2 * f + 1) / 2;
+        values[3] = f * f / 2;
+    }
+
+    // Givens rotations of a row with values at columns from first into the band
+    private static void rotate(double[][] r, double[] qty, double[] values,
+            int first, double y) {
+        final int size = r.length;
+        for (int j = first; j < size && j < first + BAND; j++) {
+            final double a = values[0];
+            if (a != 0) {
+                final double[] rj = r[j];
+                final double h = Math.sqrt(rj[0] * rj[0] + a * a);
+                final double c = rj[0] / h;
+                final double s = a / h;
+                rj[0] = h;
+                for (int d = 1; d < BAND; d++) {
+                    final double value = rj[d];
+                    rj[d] = c * value + s * values[d];
+                    values[d] = c * values[d] - s * value;
+                }
+                final double value = qty[j];
+                qty[j] = c * value + s * y;
+                y = c * y - s * value;
+            }
+            for (int d = 1; d < BAND; d++) {
+                values[d - 1] = values[d];
+            }
+            values[BAND - 1] = 0;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2020 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -20,34 +20,32 @@
 package com.romraider.logger.ecu.ui.tab;
 
 import static com.romraider.util.ParamChecker.checkNotNull;
-import jamlab.Polyfit;
-import jamlab.Polyval;
+import static java.lang.Double.NEGATIVE_INFINITY;
+import static java.lang.Double.POSITIVE_INFINITY;
 import org.jfree.data.xy.AbstractXYDataset;
-import org.jfree.data.xy.XYDataItem;
-import org.jfree.data.xy.XYSeries;
 
 import com.romraider.util.ResourceUtil;
 
-import java.lang.reflect.UndeclaredThrowableException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.ResourceBundle;
 
+/**
+ * A trend line of the data points added to it.  The curve is fitted as
+ * the points arrive, and once it has been interpolated the line follows
+ * every point added, drawn at a fixed number of points across the data.
+ */
 public final class XYTrendline extends AbstractXYDataset {
 
     private static final long serialVersionUID = 1375705537694372443L;
     private static final ResourceBundle rb = new ResourceUtil().getBundle(
             XYTrendline.class.getName());
-    private List<XYDataItem> items = new ArrayList<XYDataItem>();
+    private static final int LINE_POINTS = 200;
+    private CurveFit fit = new PolynomialFit(0);
+    private boolean interpolated;
+    private boolean stale;
+    private double minX = POSITIVE_INFINITY;
+    private double maxX = NEGATIVE_INFINITY;
     private double[] xVals = new double[0];
-    private double[] yPoly = new double[0];
-    private final XYSeries series;
-    private Polyfit polyfit;
-
-    public XYTrendline(XYSeries series) {
-        checkNotNull(series);
-        this.series = series;
-    }
+    private double[] yVals = new double[0];
 
     public int getSeriesCount() {
         return 1;
@@ -58,52 +56,124 @@ public final class XYTrendline extends AbstractXYDataset {
     }
 
     public synchronized int getItemCount(int seriesIndex) {
-        return yPoly.length;
+        refresh();
+        return yVals.length;
     }
 
     public synchronized Number getY(int seriesIndex, int item) {
-        return yPoly[item];
+        refresh();
+        return yVals[item];
     }
 
     public synchronized Number getX(int seriesIndex, int item) {
+        refresh();
         return xVals[item];
     }
 
-    public synchronized void update(int order) {
-        if (series.getItemCount() <= order) return;
-        items = new ArrayList<XYDataItem>(series.getItems());
-        xVals = new double[items.size()];
-        double[] yVals = new double[items.size()];
-        for (int i = 0; i < items.size(); i++) {
-            XYDataItem dataItem = items.get(i);
-            xVals[i] = dataItem.getX().doubleValue();
-            yVals[i] = dataItem.getY().doubleValue();
+    public synchronized void add(double x, double y) {
+        fit.add(x, y);
+        minX = Math.min(minX, x);
+        maxX = Math.max(maxX, x);
+        stale = true;
+    }
+
+    /**
+     * Fit a polynomial of the order to the data.
+     */
+    public void update(int order) {
+        synchronized (this) {
+            if (fit instanceof PolynomialFit) {
+                ((PolynomialFit) fit).setOrder(order);
+            }
+            else {
+                setFit(new PolynomialFit(order));
+            }
+            interpolated = true;
+            stale = true;
         }
-        try {
-            polyfit = new Polyfit(xVals, yVals, order);
-            yPoly = calculate(xVals);
-        } catch (Exception e) {
-            throw new UndeclaredThrowableException(e);
+        fireDatasetChanged();
+    }
+
+    /**
+     * Fit the curve to the data, taking the points from the current fit.
+     */
+    public void update(CurveFit newFit) {
+        checkNotNull(newFit);
+        synchronized (this) {
+            setFit(newFit);
+            interpolated = true;
+            stale = true;
         }
+        fireDatasetChanged();
     }
 
     public synchronized double[] calculate(double[] x) {
-        if (polyfit == null) throw new IllegalStateException(
-                rb.getString("INTERPREQD"));
-        Polyval polyval = new Polyval(x, polyfit);
-        return polyval.getYout();
+        checkFitted();
+        final double[] y = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            y[i] = fit.value(x[i]);
+        }
+        return y;
     }
 
-    public synchronized Polyfit getPolyFit() {
-        if (polyfit == null) throw new IllegalStateException(
-                rb.getString("INTERPREQD"));
-        return polyfit;
+    public synchronized double[] calculateDerivative(double[] x) {
+        final PolynomialFit polynomial = getPolynomialFit();
+        final double[] y = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            y[i] = polynomial.derivative(x[i]);
+        }
+        return y;
+    }
+
+    public synchronized double[] getPolynomialCoefficients() {
+        return getPolynomialFit().getCoefficients();
     }
 
     public synchronized void clear() {
-        items.clear();
+        fit.clear();
+        minX = POSITIVE_INFINITY;
+        maxX = NEGATIVE_INFINITY;
         xVals = new double[0];
-        yPoly = new double[0];
-        polyfit = null;
+        yVals = new double[0];
+        interpolated = false;
+        stale = false;
+    }
+
+    private PolynomialFit getPolynomialFit() {
+        checkFitted();
+        if (!(fit instanceof PolynomialFit)) throw new IllegalStateException(
+                rb.getString("INTERPREQD"));
+        return (PolynomialFit) fit;
+    }
+
+    private void checkFitted() {
+        if (!interpolated || !fit.isFitted()) throw new IllegalStateException(
+                rb.getString("INTERPREQD"));
+    }
+
+    private void setFit(CurveFit newFit) {
+        newFit.clear();
+        for (int i = 0; i < fit.getSampleCount(); i++) {
+            newFit.add(fit.getX(i), fit.getY(i));
+        }
+        fit = newFit;
+    }
+
+    // evaluate the line, when it is drawn after points were added
+    private void refresh() {
+        if (!stale) return;
+        stale = false;
+        if (!interpolated || !fit.isFitted()) {
+            xVals = new double[0];
+            yVals = new double[0];
+            return;
+        }
+        xVals = new double[LINE_POINTS];
+        yVals = new double[LINE_POINTS];
+        final double step = (maxX - minX) / (LINE_POINTS - 1);
+        for (int i = 0; i < LINE_POINTS; i++) {
+            xVals[i] = minX + i * step;
+            yVals[i] = fit.value(xVals[i]);
+        }
     }
 }
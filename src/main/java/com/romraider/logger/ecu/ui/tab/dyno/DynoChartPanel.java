@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2020 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -28,7 +28,6 @@ import com.romraider.util.ResourceUtil;
 
 import static com.romraider.Settings.SEMICOLON;
 import static com.romraider.util.ParamChecker.checkNotNull;
-import jamlab.Polyfit;
 import static java.awt.Color.BLACK;
 import static java.awt.Color.BLUE;
 import static java.awt.Color.GREEN;
@@ -72,7 +71,7 @@ public final class DynoChartPanel extends JPanel {
     private final XYSeries data = new XYSeries("Raw HP");       // series for HorsePower/RPM
     private final XYSeries data1 = new XYSeries("Raw TQ");      // series for Torque/RPM
     private final XYSeries logRpm = new XYSeries("Logger RPM"); // series for raw sample time/RPM
-    private final XYTrendline rpmTrend = new XYTrendline(logRpm);
+    private final XYTrendline rpmTrend = new XYTrendline();
     private final XYSeries hpRef = new XYSeries("HP Ref");      // series for reference HP/RPM
     private final XYSeries tqRef = new XYSeries("TQ Ref");      // series for reference TQ/RPM
     private final String labelX;
@@ -109,6 +108,7 @@ public final class DynoChartPanel extends JPanel {
 
     public synchronized void addRawData(double x, double y) {
         logRpm.add(x, y);
+        rpmTrend.add(x, y);
     }
 
     public synchronized void addData(double x, double y) {
@@ -188,6 +188,15 @@ public final class DynoChartPanel extends JPanel {
         return getPolynomialCoefficients(rpmTrend);
     }
 
+    // smoothed speed from the fit of the last getRpmCoeff order
+    public double[] calculateRpm(double[] time) {
+        return rpmTrend.calculate(time);
+    }
+
+    public double[] calculateRpmRate(double[] time) {
+        return rpmTrend.calculateDerivative(time);
+    }
+
     public void interpolate(double[] results, String[] resultStrings) {
         hpAxis.setAutoRange(true);
         tqAxis.setAutoRange(true);
@@ -360,8 +369,7 @@ public final class DynoChartPanel extends JPanel {
     }
 
     public double[] getPolynomialCoefficients(XYTrendline trendSeries) {
-        Polyfit fit = trendSeries.getPolyFit();
-        return fit.getPolynomialCoefficients();
+        return trendSeries.getPolynomialCoefficients();
     }
 
     private void addChart() {
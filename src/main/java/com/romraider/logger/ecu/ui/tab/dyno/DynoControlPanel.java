@@ -365,30 +365,20 @@ public final class DynoControlPanel extends JPanel {
         double nowHp = 0;
         double nowTq = 0;
         int order = (Integer) orderComboBox.getSelectedItem();
-        double[] speedArray = Arrays.copyOf(chartPanel.getRpmCoeff(order), chartPanel.getRpmCoeff(order).length);
+        double[] speedArray = chartPanel.getRpmCoeff(order);
         LOGGER.info("DYNO Speed Coeffecients: " + Arrays.toString(speedArray));
-        double[] accelArray = new double[(order)];
-        for (int x = 0; x < order; x++) {
-            accelArray[x] = (order - x) * speedArray[x];
-        }
-        LOGGER.info("DYNO Accel Coeffecients: " + Arrays.toString(accelArray));
         int samples = chartPanel.getSampleCount();
         LOGGER.info("DYNO Sample Count: " + samples);
         double timeMin = chartPanel.getTimeSample(0);
         double timeMax = chartPanel.getTimeSample(samples - 1);
-        for (double x = timeMin; x <= timeMax; x = x + 10) {
-            double speedSample = 0;
-            double accelSample = 0;
-            // Calculate smoothed SPEED from coefficients
-            for (int i = 0; i <= order; i++) {
-                int pwr = order - i;
-                speedSample = speedSample + (Math.pow(x, pwr) * speedArray[i]);
-            }
-            // Calculate acceleration from first derivative of SPEED coefficients
-            for (int i = 0; i < order; i++) {
-                int pwr = order - i - 1;
-                accelSample = accelSample + (Math.pow(x, pwr) * accelArray[i]);
-            }
+        // Calculate smoothed SPEED and its first derivative from the fit
+        double[] times = sampleTimes(timeMin, timeMax, 10);
+        double[] speeds = chartPanel.calculateRpm(times);
+        double[] accels = chartPanel.calculateRpmRate(times);
+        for (int t = 0; t < times.length; t++) {
+            double x = times[t];
+            double speedSample = speeds[t];
+            double accelSample = accels[t];
             if (isManual()) {
                 accelSample = accelSample / rpm2mph;    // RPM acceleration from RPM
             } else {
@@ -450,6 +440,14 @@ public final class DynoControlPanel extends JPanel {
         parent.repaint();
     }
 
+    private double[] sampleTimes(double timeMin, double timeMax, double step) {
+        double[] times = new double[(int) ((timeMax - timeMin) / step) + 1];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = timeMin + i * step;
+        }
+        return times;
+    }
+
     private void updateET() {
         chartPanel.quietUpdate(false);
         int order = 5;
@@ -457,19 +455,18 @@ public final class DynoControlPanel extends JPanel {
         distance = 0;
         lastET = 0;
 
-        double[] speedArray = Arrays.copyOf(chartPanel.getRpmCoeff(order), chartPanel.getRpmCoeff(order).length);
+        double[] speedArray = chartPanel.getRpmCoeff(order);
         LOGGER.info("DYNO Speed Coeffecients: " + Arrays.toString(speedArray));
         int samples = chartPanel.getSampleCount();
         LOGGER.info("DYNO Sample Count: " + samples);
         double timeMin = chartPanel.getTimeSample(0);
         double timeMax = chartPanel.getTimeSample(samples - 1);
-        for (double x = timeMin; x <= timeMax; x = x + 1) {
-            double speedSample = 0;
-            // Calculate smoothed SPEED from coefficients
-            for (int i = 0; i <= order; i++) {
-                int pwr = order - i;
-                speedSample = speedSample + (Math.pow(x, pwr) * speedArray[i]);
-            }
+        // Calculate smoothed SPEED from the fit
+        double[] times = sampleTimes(timeMin, timeMax, 1);
+        double[] speeds = chartPanel.calculateRpm(times);
+        for (int t = 0; t < times.length; t++) {
+            double x = times[t];
+            double speedSample = speeds[t];
             chartPanel.addData((x / 1000), speedSample);
             if (vsLogUnits.equals(LOG_VS_M)) speedSample = (speedSample / KPH_2_MPH);
             distance = distance + (speedSample * 5280 / 3600 * (x - lastET) / 1000);
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2021 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,7 +19,9 @@
 
 package com.romraider.logger.ecu.ui.tab.injector;
 
+import static com.romraider.logger.ecu.ui.swing.menubar.util.FileHelper.getCsvLogFileChooser;
 import static com.romraider.logger.ecu.ui.tab.TableFinder.findTableStartsWith;
+import static com.romraider.util.ThreadUtil.runAsDaemon;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static java.awt.GridBagConstraints.CENTER;
 import static java.awt.GridBagConstraints.HORIZONTAL;
@@ -30,20 +32,24 @@ import static javax.swing.JOptionPane.WARNING_MESSAGE;
 import static javax.swing.JOptionPane.YES_NO_OPTION;
 import static javax.swing.JOptionPane.showConfirmDialog;
 import static javax.swing.JOptionPane.showMessageDialog;
+import static javax.swing.SwingUtilities.invokeLater;
 
 import java.awt.Component;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
 import java.text.DecimalFormat;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ResourceBundle;
 
 import javax.swing.JButton;
 import javax.swing.JComponent;
+import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
@@ -53,6 +59,9 @@ import javax.swing.border.TitledBorder;
 import org.apache.log4j.Logger;
 
 import com.romraider.editor.ecu.ECUEditor;
+import com.romraider.logger.ecu.ui.playback.InjectorFit;
+import com.romraider.logger.ecu.ui.playback.LogAnalyzer;
+import com.romraider.logger.ecu.ui.playback.LogFilter;
 import com.romraider.logger.ecu.definition.EcuParameter;
 import com.romraider.logger.ecu.definition.EcuSwitch;
 import com.romraider.logger.ecu.definition.ExternalData;
@@ -64,6 +73,7 @@ import com.romraider.maps.Rom;
 import com.romraider.maps.Table;
 import com.romraider.maps.Table2D;
 import com.romraider.util.ResourceUtil;
+import com.romraider.util.SettingsManager;
 
 public final class InjectorControlPanel extends JPanel {
     /**
@@ -251,6 +261,7 @@ public final class InjectorControlPanel extends JPanel {
         GridBagLayout gridBagLayout = new GridBagLayout();
         panel.setLayout(gridBagLayout);
         addComponent(panel, gridBagLayout, buildInterpolateButton(), 2);
+        addComponent(panel, gridBagLayout, buildAnalyzeLogsButton(), 3);
         return panel;
     }
 
@@ -502,6 +513,99 @@ public final class InjectorControlPanel extends JPanel {
         return updateButton;
     }
 
+    private JButton buildAnalyzeLogsButton() {
+        final JButton analyzeButton = new JButton(rb.getString("ANALYZELOGS"));
+        analyzeButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent actionEvent) {
+                final LogFilter filter = buildLogFilter();
+                if (filter == null) {
+                    showMessageDialog(parent,
+                            rb.getString("INVALIDFILTER"),
+                            rb.getString("ERROR"), ERROR_MESSAGE);
+                    return;
+                }
+                final JFileChooser fc = getCsvLogFileChooser(new File(
+                        SettingsManager.getSettings().getLoggerOutputDirPath()));
+                if (fc.showOpenDialog(parent) != JFileChooser.APPROVE_OPTION) {
+                    return;
+                }
+                final List<File> logs = Arrays.asList(fc.getSelectedFiles());
+                final double stoichAfr = parseDouble(fuelStoichAfr);
+                final double density = parseDouble(fuelDensity);
+                final LogAnalyzer analyzer = new LogAnalyzer(getLoggerDatas(), filter);
+                analyzeButton.setEnabled(false);
+                runAsDaemon(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            final InjectorFit fit = analyzer.analyzeInjectors(
+                                    logs, stoichAfr, density);
+                            invokeLater(new Runnable() {
+                                @Override
+                                public void run() {
+                                    analyzeButton.setEnabled(true);
+                                    showFit(fit);
+                                }
+                            });
+                        } catch (final Exception e) {
+                            LOGGER.error("Error analysing logs", e);
+                            invokeLater(new Runnable() {
+                                @Override
+                                public void run() {
+                                    analyzeButton.setEnabled(true);
+                                    String msg = e.getMessage() != null
+                                            && e.getMessage().length() > 0
+                                            ? e.getMessage() : rb.getString("UNKNOWN");
+                                    showMessageDialog(parent, MessageFormat.format(
+                                            rb.getString("ERRORMSG"), msg),
+                                            rb.getString("ERROR"), ERROR_MESSAGE);
+                                }
+                            });
+                        }
+                    }
+                });
+            }
+        });
+        return analyzeButton;
+    }
+
+    private void showFit(InjectorFit fit) {
+        if (Double.isNaN(fit.getSlope())) {
+            showMessageDialog(parent, rb.getString("NOSAMPLES"),
+                    rb.getString("ERROR"), ERROR_MESSAGE);
+            return;
+        }
+        DecimalFormat format = new DecimalFormat("0.00");
+        flowScaling.setText(format.format(fit.getFlowScaling()));
+        latencyOffset.setText(format.format(fit.getLatencyOffset()));
+    }
+
+    private LogFilter buildLogFilter() {
+        if (!isValidRange(afrMin, afrMax) || !isValidRange(rpmMin, rpmMax)
+                || !isValidRange(mafMin, mafMax)
+                || !areNumbers(coolantMin, iatMax, mafvChangeMax,
+                        fuelStoichAfr, fuelDensity)) {
+            return null;
+        }
+        final LogFilter filter = new LogFilter();
+        filter.setAfrRange(parseDouble(afrMin), parseDouble(afrMax));
+        filter.setRpmRange(parseDouble(rpmMin), parseDouble(rpmMax));
+        filter.setMafRange(parseDouble(mafMin), parseDouble(mafMax));
+        filter.setCoolantTempMin(parseDouble(coolantMin));
+        filter.setIntakeAirTempMax(parseDouble(iatMax));
+        filter.setMafvChangeMax(parseDouble(mafvChangeMax));
+        return filter;
+    }
+
+    private List<LoggerData> getLoggerDatas() {
+        final List<LoggerData> loggerDatas = new ArrayList<LoggerData>();
+        if (params != null) loggerDatas.addAll(params);
+        if (switches != null) loggerDatas.addAll(switches);
+        if (externals != null) loggerDatas.addAll(externals);
+        return loggerDatas;
+    }
+
     private boolean areNumbers(JTextField... textFields) {
         for (JTextField field : textFields) {
             if (!isNumber(field)) return false;
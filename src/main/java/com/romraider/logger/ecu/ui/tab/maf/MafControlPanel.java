@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2021 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,7 +19,9 @@
 
 package com.romraider.logger.ecu.ui.tab.maf;
 
+import static com.romraider.logger.ecu.ui.swing.menubar.util.FileHelper.getCsvLogFileChooser;
 import static com.romraider.logger.ecu.ui.tab.TableFinder.findTableStartsWith;
+import static com.romraider.util.ThreadUtil.runAsDaemon;
 import static com.romraider.util.ParamChecker.checkNotNull;
 import static java.awt.GridBagConstraints.CENTER;
 import static java.awt.GridBagConstraints.HORIZONTAL;
@@ -30,20 +32,24 @@ import static javax.swing.JOptionPane.WARNING_MESSAGE;
 import static javax.swing.JOptionPane.YES_NO_OPTION;
 import static javax.swing.JOptionPane.showConfirmDialog;
 import static javax.swing.JOptionPane.showMessageDialog;
+import static javax.swing.SwingUtilities.invokeLater;
 
 import java.awt.Component;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ResourceBundle;
 
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JComponent;
+import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
@@ -54,17 +60,23 @@ import org.apache.log4j.Logger;
 import org.jfree.ui.KeyedComboBoxModel;
 
 import com.romraider.editor.ecu.ECUEditor;
+import com.romraider.logger.ecu.ui.playback.LogAnalyzer;
+import com.romraider.logger.ecu.ui.playback.LogFilter;
+import com.romraider.logger.ecu.ui.playback.MafCorrection;
 import com.romraider.logger.ecu.definition.EcuParameter;
 import com.romraider.logger.ecu.definition.EcuSwitch;
 import com.romraider.logger.ecu.definition.ExternalData;
 import com.romraider.logger.ecu.definition.LoggerData;
 import com.romraider.logger.ecu.ui.DataRegistrationBroker;
 import com.romraider.logger.ecu.ui.tab.LoggerChartPanel;
+import com.romraider.logger.ecu.ui.tab.LoessFit;
+import com.romraider.logger.ecu.ui.tab.SmoothingSplineFit;
 import com.romraider.maps.DataCell;
 import com.romraider.maps.Rom;
 import com.romraider.maps.Table;
 import com.romraider.maps.Table2D;
 import com.romraider.util.ResourceUtil;
+import com.romraider.util.SettingsManager;
 
 public final class MafControlPanel extends JPanel {
     private static final long serialVersionUID = 5787020251107365950L;
@@ -83,6 +95,8 @@ public final class MafControlPanel extends JPanel {
     private static final String CL_OL_32 = "E33";
     private static final String TIP_IN_THROTTLE_16 = "E23";
     private static final String TIP_IN_THROTTLE_32 = "E54";
+    // the fewest samples a MAF voltage needs to be corrected from logs
+    private static final double MIN_LOG_SAMPLES = 10;
     private final JToggleButton recordDataButton = new JToggleButton(
             rb.getString("RECORDDATA"));
     private final JTextField mafvMin = new JTextField("1.20", 3);
@@ -242,6 +256,7 @@ public final class MafControlPanel extends JPanel {
         addMinMaxFilter(panel, gridBagLayout, rb.getString("MAFVRANGE"),
                 mafvMin, mafvMax, 0);
         addComponent(panel, gridBagLayout, buildUpdateMafButton(), 3);
+        addComponent(panel, gridBagLayout, buildAnalyzeLogsButton(), 4);
 
         return panel;
     }
@@ -253,10 +268,14 @@ public final class MafControlPanel extends JPanel {
         GridBagLayout gridBagLayout = new GridBagLayout();
         panel.setLayout(gridBagLayout);
 
+        JComboBox fitComboBox = buildFitComboBox();
+        addLabeledComponent(panel, gridBagLayout, rb.getString("FIT"),
+                fitComboBox, 0);
         JComboBox orderComboBox = buildPolyOrderComboBox();
         addLabeledComponent(panel, gridBagLayout, rb.getString("POLYORDER"),
-                orderComboBox, 0);
-        addComponent(panel, gridBagLayout, buildInterpolateButton(orderComboBox), 2);
+                orderComboBox, 2);
+        addComponent(panel, gridBagLayout,
+                buildInterpolateButton(fitComboBox, orderComboBox), 4);
 
         return panel;
     }
@@ -403,18 +422,35 @@ public final class MafControlPanel extends JPanel {
         return resetButton;
     }
 
-    private JButton buildInterpolateButton(final JComboBox orderComboBox) {
+    private JButton buildInterpolateButton(final JComboBox fitComboBox,
+            final JComboBox orderComboBox) {
         JButton interpolateButton = new JButton(rb.getString("INTERPOLATE"));
         interpolateButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent actionEvent) {
-                chartPanel.interpolate((Integer) orderComboBox.getSelectedItem());
+                switch (fitComboBox.getSelectedIndex()) {
+                    case 1:
+                        chartPanel.interpolate(new SmoothingSplineFit());
+                        break;
+                    case 2:
+                        chartPanel.interpolate(new LoessFit());
+                        break;
+                    default:
+                        chartPanel.interpolate((Integer) orderComboBox.getSelectedItem());
+                }
                 parent.repaint();
             }
         });
         return interpolateButton;
     }
 
+    private JComboBox buildFitComboBox() {
+        final JComboBox fitComboBox = new JComboBox(new Object[]{
+                rb.getString("POLYNOMIAL"), rb.getString("SPLINE"), rb.getString("LOESS")});
+        fitComboBox.setSelectedIndex(0);
+        return fitComboBox;
+    }
+
     private JComboBox buildPolyOrderComboBox() {
         final JComboBox orderComboBox = new JComboBox(new Object[]{3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20});
         orderComboBox.setSelectedItem(10);
@@ -440,7 +476,8 @@ public final class MafControlPanel extends JPanel {
                                 double[] percentChange = chartPanel.calculate(x);
                                 DataCell[] dataCells = table.getData();
                                 for (int i = 0; i < dataCells.length; i++) {
-                                    if (inRange(axisCells[i].getRealValue(), mafvMin, mafvMax)) {
+                                    if (inRange(axisCells[i].getRealValue(), mafvMin, mafvMax)
+                                            && !Double.isNaN(percentChange[i])) {
                                         DataCell cell = dataCells[i];
                                         double value = cell.getRealValue();
                                         cell.setRealValue("" + (value * (1.0 + percentChange[i] / 100.0)));
@@ -468,6 +505,119 @@ public final class MafControlPanel extends JPanel {
         return updateMafButton;
     }
 
+    private JButton buildAnalyzeLogsButton() {
+        final JButton analyzeButton = new JButton(rb.getString("ANALYZELOGS"));
+        analyzeButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent actionEvent) {
+                final Table2D table = getMafTable(ecuEditor);
+                if (table == null) {
+                    showMessageDialog(parent,
+                            rb.getString("MAFTBLNOTFND"),
+                            rb.getString("ERROR"), ERROR_MESSAGE);
+                    return;
+                }
+                if (!isValidRange(mafvMin, mafvMax)) {
+                    showMessageDialog(parent,
+                            rb.getString("INVALIDMAFRANGE"),
+                            rb.getString("ERROR"), ERROR_MESSAGE);
+                    return;
+                }
+                final LogFilter filter = buildLogFilter();
+                if (filter == null) {
+                    showMessageDialog(parent,
+                            rb.getString("INVALIDFILTER"),
+                            rb.getString("ERROR"), ERROR_MESSAGE);
+                    return;
+                }
+                final JFileChooser fc = getCsvLogFileChooser(new File(
+                        SettingsManager.getSettings().getLoggerOutputDirPath()));
+                if (fc.showOpenDialog(parent) != JFileChooser.APPROVE_OPTION) {
+                    return;
+                }
+                final List<File> logs = Arrays.asList(fc.getSelectedFiles());
+                final double[] axis = MafCorrection.getAxis(table);
+                final LogAnalyzer analyzer = new LogAnalyzer(getLoggerDatas(), filter);
+                analyzeButton.setEnabled(false);
+                runAsDaemon(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            final MafCorrection correction = analyzer.analyzeMaf(logs, axis);
+                            invokeLater(new Runnable() {
+                                @Override
+                                public void run() {
+                                    analyzeButton.setEnabled(true);
+                                    updateMafFromLogs(table, correction, logs.size());
+                                }
+                            });
+                        } catch (final Exception e) {
+                            LOGGER.error("Error analysing logs", e);
+                            invokeLater(new Runnable() {
+                                @Override
+                                public void run() {
+                                    analyzeButton.setEnabled(true);
+                                    showError(e);
+                                }
+                            });
+                        }
+                    }
+                });
+            }
+        });
+        return analyzeButton;
+    }
+
+    private void updateMafFromLogs(Table2D table, MafCorrection correction, int logs) {
+        if (correction.getSampleCount() == 0) {
+            showMessageDialog(parent, rb.getString("NOSAMPLES"),
+                    rb.getString("ERROR"), ERROR_MESSAGE);
+            return;
+        }
+        final int confirm = showConfirmDialog(parent, MessageFormat.format(
+                rb.getString("UPDATEFROMLOGS"), correction.getSampleCount(), logs),
+                rb.getString("CONFIRM"), YES_NO_OPTION, WARNING_MESSAGE);
+        if (confirm == OK_OPTION) {
+            try {
+                correction.apply(table, parseDouble(mafvMin), parseDouble(mafvMax),
+                        MIN_LOG_SAMPLES);
+            } catch (Exception e) {
+                showError(e);
+            }
+        }
+    }
+
+    private void showError(Exception e) {
+        String msg = e.getMessage() != null && e.getMessage().length() > 0 ? e.getMessage() : "Unknown";
+        showMessageDialog(parent, MessageFormat.format(
+                rb.getString("ERRORMSG"), msg),
+                rb.getString("ERROR"), ERROR_MESSAGE);
+    }
+
+    private LogFilter buildLogFilter() {
+        if (!isValidRange(afrMin, afrMax) || !isValidRange(rpmMin, rpmMax)
+                || !isValidRange(mafMin, mafMax)
+                || !areNumbers(coolantMin, iatMax, mafvChangeMax)) {
+            return null;
+        }
+        final LogFilter filter = new LogFilter();
+        filter.setAfrRange(parseDouble(afrMin), parseDouble(afrMax));
+        filter.setRpmRange(parseDouble(rpmMin), parseDouble(rpmMax));
+        filter.setMafRange(parseDouble(mafMin), parseDouble(mafMax));
+        filter.setCoolantTempMin(parseDouble(coolantMin));
+        filter.setIntakeAirTempMax(parseDouble(iatMax));
+        filter.setMafvChangeMax(parseDouble(mafvChangeMax));
+        return filter;
+    }
+
+    private List<LoggerData> getLoggerDatas() {
+        final List<LoggerData> loggerDatas = new ArrayList<LoggerData>();
+        loggerDatas.addAll(params);
+        loggerDatas.addAll(switches);
+        loggerDatas.addAll(externals);
+        return loggerDatas;
+    }
+
     private boolean areNumbers(JTextField... textFields) {
         for (JTextField field : textFields) {
             if (!isNumber(field)) return false;
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2015 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -27,7 +27,6 @@ import static com.romraider.logger.external.core.SensorConversionsAFR.AFR_34;
 import static com.romraider.logger.external.core.SensorConversionsAFR.AFR_64;
 import static com.romraider.logger.external.core.SensorConversionsAFR.AFR_90;
 import static com.romraider.logger.external.core.SensorConversionsAFR.LAMBDA;
-import static com.romraider.util.ThreadUtil.runAsDaemon;
 import static java.util.Arrays.asList;
 
 import java.util.List;
@@ -78,7 +77,7 @@ public final class AemDataSource implements ExternalDataSource {
 
     public void connect() {
         runner = new AemRunner(port, dataItem);
-        runAsDaemon(runner);
+        runner.start();
     }
 
     public void disconnect() {
@@ -23,7 +23,8 @@ import static com.romraider.Settings.COMMA;
 import com.romraider.io.connection.ConnectionProperties;
 import com.romraider.io.serial.connection.SerialConnection;
 import com.romraider.io.serial.connection.SerialConnectionImpl;
-import com.romraider.logger.external.core.Stoppable;
+import com.romraider.logger.external.core.LineAssembler;
+import com.romraider.logger.external.core.SerialReactor;
 import com.romraider.logger.external.aem.xwifi.plugin.AemDataItem;
 import com.romraider.logger.external.aem.xwifi.plugin.AemSensorType;
 import static com.romraider.util.ParamChecker.isNullOrEmpty;
@@ -31,43 +32,41 @@ import org.apache.log4j.Logger;
 import static org.apache.log4j.Logger.getLogger;
 import java.util.Map;
 
-public final class AemRunner implements Stoppable {
+public final class AemRunner extends LineAssembler {
     private static final Logger LOGGER = getLogger(AemRunner.class);
     private static final ConnectionProperties CONNECTION_PROPS = new AemConnectionProperties();
     private final Map<AemSensorType, AemDataItem> dataItems;
     private final SerialConnection connection;
-    private boolean stop;
+    private SerialReactor.Channel channel;
 
     public AemRunner(final String port, final Map<AemSensorType, AemDataItem> dataItems) {
-        this.connection = new SerialConnectionImpl(port, CONNECTION_PROPS);
         this.dataItems = dataItems;
+        connection = new SerialConnectionImpl(port, CONNECTION_PROPS);
     }
 
     @Override
-    public void run() {
-        try {
-            while (!stop) {
-                final String response = connection.readLine();
-                if (isNullOrEmpty(response)) continue;
-                if (LOGGER.isTraceEnabled())
-                    LOGGER.trace("AEM X-Wifi Response: " + response);
-                final String[] values = response.split(COMMA);
-                for (int i = 0; i < values.length; i++) {
-                    final AemDataItem dataItem = dataItems.get(AemSensorType.valueOf(i));
-                    if (dataItem != null) dataItem.setData(parseDouble(values[i]));
-                }
-            }
-            connection.close();
-        } catch (Throwable t) {
-            LOGGER.error("AEM X-Wifi read error occurred", t);
-        } finally {
-            connection.close();
+    protected void lineReceived(final String response) {
+        if (isNullOrEmpty(response)) return;
+        if (LOGGER.isTraceEnabled())
+            LOGGER.trace("AEM X-Wifi Response: " + response);
+        final String[] values = response.split(COMMA);
+        for (int i = 0; i < values.length; i++) {
+            final AemDataItem dataItem = dataItems.get(AemSensorType.valueOf(i));
+            if (dataItem != null) dataItem.setData(parseDouble(values[i]));
         }
     }
 
-    @Override
+    public void start() {
+        channel = SerialReactor.getInstance().register("AEM X-Wifi", connection, this);
+    }
+
     public void stop() {
-        stop = true;
+        if (channel != null) {
+            channel.close();
+        }
+        else {
+            connection.close();
+        }
     }
 
     private double parseDouble(final String value) {
@@ -22,44 +22,43 @@ package com.romraider.logger.external.aem2.io;
 import com.romraider.io.serial.connection.SerialConnection;
 import com.romraider.io.serial.connection.SerialConnectionImpl;
 import com.romraider.logger.external.aem2.plugin.AemDataItem;
-import com.romraider.logger.external.core.Stoppable;
+import com.romraider.logger.external.core.LineAssembler;
+import com.romraider.logger.external.core.SerialReactor;
 import static com.romraider.util.ParamChecker.isNullOrEmpty;
 import org.apache.log4j.Logger;
 import static org.apache.log4j.Logger.getLogger;
 
-public final class AemRunner implements Stoppable {
+public final class AemRunner extends LineAssembler {
     private static final Logger LOGGER = getLogger(AemRunner.class);
     private static final AemConnectionProperties CONNECTION_PROPS = new AemConnectionProperties();
     private static final String TAB = "\t";
-    private final SerialConnection connection;
     private final AemDataItem dataItem;
-    private boolean stop;
+    private final SerialConnection connection;
+    private SerialReactor.Channel channel;
 
     public AemRunner(String port, AemDataItem dataItem) {
-        this.connection = new SerialConnectionImpl(port, CONNECTION_PROPS);
         this.dataItem = dataItem;
+        connection = new SerialConnectionImpl(port, CONNECTION_PROPS);
     }
 
     @Override
-    public void run() {
-        try {
-            while (!stop) {
-                final String response = connection.readLine();
-                if (LOGGER.isTraceEnabled())
-                    LOGGER.trace("AEM UEGO Lambda Response: " + response);
-                if (!isNullOrEmpty(response)) dataItem.setData(parseString(response));
-            }
-            connection.close();
-        } catch (Throwable t) {
-            LOGGER.error("Error occurred", t);
-        } finally {
-            connection.close();
-        }
+    protected void lineReceived(String response) {
+        if (LOGGER.isTraceEnabled())
+            LOGGER.trace("AEM UEGO Lambda Response: " + response);
+        if (!isNullOrEmpty(response)) dataItem.setData(parseString(response));
+    }
+
+    public void start() {
+        channel = SerialReactor.getInstance().register("AEM UEGO", connection, this);
     }
 
-    @Override
     public void stop() {
-        stop = true;
+        if (channel != null) {
+            channel.close();
+        }
+        else {
+            connection.close();
+        }
     }
 
     /*
@@ -27,37 +27,40 @@ import com.romraider.io.connection.ConnectionProperties;
 import com.romraider.io.serial.connection.SerialConnection;
 import com.romraider.io.serial.connection.SerialConnectionImpl;
 import com.romraider.logger.external.apsx.plugin.ApsxDataItem;
-import com.romraider.logger.external.core.Stoppable;
+import com.romraider.logger.external.core.ByteStreamListener;
+import com.romraider.logger.external.core.SerialReactor;
 
-public final class ApsxRunner implements Stoppable {
+public final class ApsxRunner implements ByteStreamListener {
     private static final Logger LOGGER = getLogger(ApsxRunner.class);
-    private final SerialConnection connection;
     private final ApsxDataItem dataItem;
-    private boolean stop;
+    private final SerialConnection connection;
+    private SerialReactor.Channel channel;
 
     public ApsxRunner(String port, ApsxDataItem dataItem, ConnectionProperties properties) {
-        this.connection = new SerialConnectionImpl(port, properties);
         this.dataItem = dataItem;
+        connection = new SerialConnectionImpl(port, properties);
     }
 
     @Override
-    public void run() {
-        try {
-            while (!stop) {
-                final int response = connection.read();
-                if (LOGGER.isTraceEnabled())
-                    LOGGER.trace("APSX AFR Response: " + response);
-                if (response != -1) dataItem.setData(response / 10.0);
-            }
-        } catch (Throwable t) {
-            LOGGER.error("Error occurred", t);
-        } finally {
-            connection.close();
+    public void bytesReceived(byte[] bytes) {
+        for (byte b : bytes) {
+            final int response = b & 0xff;
+            if (LOGGER.isTraceEnabled())
+                LOGGER.trace("APSX AFR Response: " + response);
+            dataItem.setData(response / 10.0);
         }
     }
 
-    @Override
+    public void start() {
+        channel = SerialReactor.getInstance().register("APSX", connection, this);
+    }
+
     public void stop() {
-        stop = true;
+        if (channel != null) {
+            channel.close();
+        }
+        else {
+            connection.close();
+        }
     }
 }
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,10 +17,16 @@
  * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
  */
 
-package com.romraider.logger.external.zt2.io;
+package com.romraider.logger.external.core;
 
-public interface ZT2Connection {
-    byte readByte();
+/**
+ * Receives the bytes read from a serial port registered with the
+ * {@link SerialReactor}, on the reactor thread.
+ */
+public interface ByteStreamListener {
 
-    void close();
+    /**
+     * @param bytes - the bytes read since the last call, in order
+     */
+    void bytesReceived(byte[] bytes);
 }
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -29,4 +29,10 @@ public interface ExternalDataItem {
     double getData();
 
     EcuDataConvertor[] getConvertors();
+
+    /**
+     * @return the readings recorded with the time they were received,
+     * used to align them to the time of an ECU sample
+     */
+    ExternalSamples getSamples();
 }
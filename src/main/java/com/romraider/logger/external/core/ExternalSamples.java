@@ -0,0 +1,111 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.external.core;
+
+import static java.lang.System.nanoTime;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The recent readings of an external sensor, each stamped with the
+ * {@link System#nanoTime()} it was received at.  The readings are kept in
+ * a ring written by the one thread reading the sensor and read without
+ * locking by the logger, which looks up the value at the time an ECU
+ * response was sampled.
+ */
+public final class ExternalSamples {
+    private static final int CAPACITY = 256;
+    private static final int MASK = CAPACITY - 1;
+    private final AtomicReferenceArray<Sample> samples =
+            new AtomicReferenceArray<Sample>(CAPACITY);
+    // the number of readings added, the last is at count - 1
+    private final AtomicLong count = new AtomicLong();
+
+    private static final class Sample {
+        private final long sequence;
+        private final long time;
+        private final double value;
+
+        Sample(long sequence, long time, double value) {
+            this.sequence = sequence;
+            this.time = time;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Record a reading received now.  Only the thread reading the sensor
+     * may add readings.
+     */
+    public void add(double value) {
+        add(nanoTime(), value);
+    }
+
+    public void add(long time, double value) {
+        final long sequence = count.get();
+        samples.set((int) sequence & MASK, new Sample(sequence, time, value));
+        count.lazySet(sequence + 1);
+    }
+
+    public boolean isEmpty() {
+        return count.get() == 0;
+    }
+
+    /**
+     * @return the time of the latest reading, Long.MIN_VALUE if there is
+     * none
+     */
+    public long getLatestTime() {
+        final Sample latest = get(count.get() - 1);
+        return latest == null ? Long.MIN_VALUE : latest.time;
+    }
+
+    /**
+     * @return the value at the time, interpolated between the readings
+     * either side of it, the nearest reading kept if there are none on one
+     * side, or NaN if there are no readings
+     */
+    public double valueAt(long time) {
+        final long last = count.get() - 1;
+        Sample later = get(last);
+        if (later == null) return Double.NaN;
+        if (later.time <= time) return later.value;
+        for (long sequence = last - 1; sequence > last - CAPACITY; sequence--) {
+            final Sample earlier = get(sequence);
+            if (earlier == null) break;
+            if (earlier.time <= time) {
+                final long span = later.time - earlier.time;
+                if (span <= 0) return later.value;
+                final double fraction = (double) (time - earlier.time) / span;
+                return earlier.value + (later.value - earlier.value) * fraction;
+            }
+            later = earlier;
+        }
+        return later.value;
+    }
+
+    // the reading, null if it is not there yet or has been overwritten
+    private Sample get(long sequence) {
+        if (sequence < 0) return null;
+        final Sample sample = samples.get((int) sequence & MASK);
+        return sample == null || sample.sequence != sequence ? null : sample;
+    }
+}
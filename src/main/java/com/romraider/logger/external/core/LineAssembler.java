@@ -0,0 +1,54 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.external.core;
+
+/**
+ * Splits a byte stream into lines for plugins whose sensors send text.
+ * A line is terminated by a carriage return, a line feed or both, as
+ * with {@link java.io.BufferedReader#readLine()}.
+ */
+public abstract class LineAssembler implements ByteStreamListener {
+    private final StringBuilder line = new StringBuilder();
+    private boolean skipLineFeed;
+
+    public final void bytesReceived(byte[] bytes) {
+        for (byte b : bytes) {
+            final char c = (char) (b & 0xff);
+            if (c == '\n' && skipLineFeed) {
+                skipLineFeed = false;
+                continue;
+            }
+            skipLineFeed = c == '\r';
+            if (c == '\r' || c == '\n') {
+                final String response = line.toString();
+                line.setLength(0);
+                lineReceived(response);
+            }
+            else {
+                line.append(c);
+            }
+        }
+    }
+
+    /**
+     * @param line - the line without its terminator
+     */
+    protected abstract void lineReceived(String line);
+}
@@ -0,0 +1,175 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.external.core;
+
+import static com.romraider.util.ParamChecker.checkNotNull;
+import static com.romraider.util.ThreadUtil.runAsDaemon;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.log4j.Logger.getLogger;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.log4j.Logger;
+
+import com.romraider.io.serial.connection.SerialConnection;
+import com.romraider.io.serial.connection.SerialConnectionImpl;
+
+/**
+ * Reads the serial ports of all streaming external plugins on one daemon
+ * thread.  A port is queued when its data available event fires, and the
+ * reactor hands all the bytes waiting on it to the plugin's listener in
+ * one call.  Every 50 ms all ports are read, however busy the others are,
+ * so connections without events, such as the test connections, and ports
+ * that missed an event are never starved.
+ */
+public final class SerialReactor {
+    private static final Logger LOGGER = getLogger(SerialReactor.class);
+    private static final SerialReactor INSTANCE = new SerialReactor();
+    private static final long SWEEP_INTERVAL = MILLISECONDS.toNanos(50L);
+    private final BlockingQueue<Channel> ready = new LinkedBlockingQueue<Channel>();
+    private final List<Channel> channels = new CopyOnWriteArrayList<Channel>();
+    private boolean started;
+
+    private SerialReactor() {
+    }
+
+    public static SerialReactor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start delivering the bytes read from the connection to the listener.
+     * @param name - the name used to report errors
+     * @return the channel to close when the plugin disconnects
+     */
+    public Channel register(String name, SerialConnection connection,
+            ByteStreamListener listener) {
+        checkNotNull(name, connection, listener);
+        final Channel channel = new Channel(name, connection, listener);
+        channels.add(channel);
+        if (connection instanceof SerialConnectionImpl) {
+            ((SerialConnectionImpl) connection).setDataListener(channel);
+        }
+        start();
+        // bytes may have arrived before the listener was set
+        channel.run();
+        return channel;
+    }
+
+    private synchronized void start() {
+        if (started) return;
+        started = true;
+        runAsDaemon(new Runnable() {
+            public void run() {
+                Thread.currentThread().setName("External Sensors");
+                react();
+            }
+        });
+    }
+
+    private void react() {
+        long sweep = nanoTime() + SWEEP_INTERVAL;
+        while (true) {
+            try {
+                final long remaining = sweep - nanoTime();
+                if (remaining <= 0) {
+                    // a missed event only delays the bytes by one wait,
+                    // also while other ports keep the reactor busy
+                    for (Channel open : channels) {
+                        open.read();
+                    }
+                    sweep = nanoTime() + SWEEP_INTERVAL;
+                    continue;
+                }
+                final Channel channel = channels.isEmpty()
+                        ? ready.take()
+                        : ready.poll(remaining, NANOSECONDS);
+                if (channel != null) {
+                    channel.read();
+                }
+            }
+            catch (InterruptedException e) {
+                LOGGER.warn("External sensor reactor interrupted", e);
+            }
+        }
+    }
+
+    /**
+     * A connection registered with the reactor.  It is run as the data
+     * listener of its port to queue itself for reading.
+     */
+    public final class Channel implements Runnable {
+        private final String name;
+        private final SerialConnection connection;
+        private final ByteStreamListener listener;
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Channel(String name, SerialConnection connection,
+                ByteStreamListener listener) {
+            this.name = name;
+            this.connection = connection;
+            this.listener = listener;
+        }
+
+        public void run() {
+            if (!closed && queued.compareAndSet(false, true)) {
+                ready.offer(this);
+            }
+        }
+
+        /**
+         * Stop reading and close the connection, waiting for bytes being
+         * delivered to be handled.
+         */
+        public void close() {
+            closed = true;
+            channels.remove(this);
+            synchronized (this) {
+                connection.close();
+            }
+        }
+
+        private synchronized void read() {
+            // events from now on queue the channel again
+            queued.set(false);
+            if (closed) return;
+            try {
+                if (connection.available() > 0) {
+                    listener.bytesReceived(connection.readAvailable());
+                }
+                // take turns with the other ports if more bytes arrived
+                if (connection.available() > 0) run();
+            }
+            catch (Throwable t) {
+                LOGGER.error(name + ": error occurred", t);
+                closed = true;
+                channels.remove(this);
+                connection.close();
+            }
+        }
+    }
+}
@@ -50,6 +50,10 @@ public final class TestAlmConnection implements SerialConnection {
         }
     }
 
+    public boolean waitForBytes(int numBytes, long timeout) {
+        return available() >= numBytes;
+    }
+
     public int available() {
         return 1;
     }
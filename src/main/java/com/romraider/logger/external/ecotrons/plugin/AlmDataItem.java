@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2015 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -24,12 +24,14 @@ import static com.romraider.logger.external.core.ExternalDataConvertorLoader.loa
 import com.romraider.logger.ecu.definition.EcuDataConvertor;
 import com.romraider.logger.external.core.DataListener;
 import com.romraider.logger.external.core.ExternalDataItem;
+import com.romraider.logger.external.core.ExternalSamples;
 import com.romraider.logger.external.core.ExternalSensorConversions;
 
 public final class AlmDataItem implements ExternalDataItem, DataListener {
     private EcuDataConvertor[] convertors;
     private final String name;
     private double data;
+    private final ExternalSamples samples = new ExternalSamples();
 
     public AlmDataItem(String name, ExternalSensorConversions... convertorList) {
         super();
@@ -52,9 +54,14 @@ public final class AlmDataItem implements ExternalDataItem, DataListener {
 
     public void setData(double data) {
         this.data = data;
+        samples.add(getData());
     }
 
     public EcuDataConvertor[] getConvertors() {
         return convertors;
     }
+
+    public ExternalSamples getSamples() {
+        return samples;
+    }
 }
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -23,6 +23,7 @@ import static com.romraider.logger.external.core.ExternalDataConvertorLoader.loa
 
 import com.romraider.logger.ecu.definition.EcuDataConvertor;
 import com.romraider.logger.external.core.ExternalDataItem;
+import com.romraider.logger.external.core.ExternalSamples;
 import com.romraider.logger.external.core.ExternalSensorConversions;
 import com.romraider.logger.external.core.RawDataListener;
 
@@ -30,6 +31,7 @@ public final class NawDataItem implements ExternalDataItem, RawDataListener {
     private final NawConvertor convertor = new NawConvertorImpl();
     private EcuDataConvertor[] convertors;
     private byte[] bytes;
+    private final ExternalSamples samples = new ExternalSamples();
 
     public NawDataItem(ExternalSensorConversions... convertorList) {
         super();
@@ -52,9 +54,14 @@ public final class NawDataItem implements ExternalDataItem, RawDataListener {
 
     public void setBytes(byte[] bytes) {
         this.bytes = bytes;
+        samples.add(getData());
     }
 
     public EcuDataConvertor[] getConvertors() {
         return convertors;
     }
+
+    public ExternalSamples getSamples() {
+        return samples;
+    }
 }
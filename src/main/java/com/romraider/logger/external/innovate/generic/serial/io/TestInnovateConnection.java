@@ -34,6 +34,10 @@ public final class TestInnovateConnection implements SerialConnection {
         throw new UnsupportedOperationException();
     }
 
+    public boolean waitForBytes(int numBytes, long timeout) {
+        return available() >= numBytes;
+    }
+
     public int available() {
         return source.length;
     }
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2014 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -24,6 +24,7 @@ import com.romraider.logger.ecu.definition.ExternalDataConvertorImpl;
 import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
 import com.romraider.logger.external.core.DataListener;
 import com.romraider.logger.external.core.ExternalDataItem;
+import com.romraider.logger.external.core.ExternalSamples;
 
 public final class Lm2MtsDataItem implements ExternalDataItem, DataListener {
     private final String name;
@@ -34,6 +35,7 @@ public final class Lm2MtsDataItem implements ExternalDataItem, DataListener {
     private float minValue;
     private float maxValue;
     private float multiplier;
+    private final ExternalSamples samples = new ExternalSamples();
 
     public Lm2MtsDataItem(String name, int channel, String units, float minValue, float maxValue, float multiplier) {
         super();
@@ -87,6 +89,7 @@ public final class Lm2MtsDataItem implements ExternalDataItem, DataListener {
 
     public void setData(double data) {
         this.data = data;
+        samples.add(getData());
     }
 
     public EcuDataConvertor[] getConvertors() {
@@ -99,4 +102,8 @@ public final class Lm2MtsDataItem implements ExternalDataItem, DataListener {
                         gaugeMinMax)};
         return convertors;
     }
+
+    public ExternalSamples getSamples() {
+        return samples;
+    }
 }
\ No newline at end of file
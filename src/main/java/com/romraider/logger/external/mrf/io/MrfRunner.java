@@ -23,7 +23,8 @@ import static com.romraider.Settings.COMMA;
 import com.romraider.io.connection.ConnectionProperties;
 import com.romraider.io.serial.connection.SerialConnection;
 import com.romraider.io.serial.connection.SerialConnectionImpl;
-import com.romraider.logger.external.core.Stoppable;
+import com.romraider.logger.external.core.LineAssembler;
+import com.romraider.logger.external.core.SerialReactor;
 import com.romraider.logger.external.mrf.plugin.MrfDataItem;
 import com.romraider.logger.external.mrf.plugin.MrfSensorType;
 import static com.romraider.util.ParamChecker.isNullOrEmpty;
@@ -31,43 +32,41 @@ import org.apache.log4j.Logger;
 import static org.apache.log4j.Logger.getLogger;
 import java.util.Map;
 
-public final class MrfRunner implements Stoppable {
+public final class MrfRunner extends LineAssembler {
     private static final Logger LOGGER = getLogger(MrfRunner.class);
     private static final ConnectionProperties CONNECTION_PROPS = new MrfConnectionProperties();
     private final Map<MrfSensorType, MrfDataItem> dataItems;
     private final SerialConnection connection;
-    private boolean stop;
+    private SerialReactor.Channel channel;
 
     public MrfRunner(String port, Map<MrfSensorType, MrfDataItem> dataItems) {
-        this.connection = new SerialConnectionImpl(port, CONNECTION_PROPS);
         this.dataItems = dataItems;
+        connection = new SerialConnectionImpl(port, CONNECTION_PROPS);
     }
 
     @Override
-    public void run() {
-        try {
-            while (!stop) {
-                String response = connection.readLine();
-                if (isNullOrEmpty(response)) continue;
-                if (LOGGER.isTraceEnabled())
-                    LOGGER.trace("MRF Stealth Gauge Response: " + response);
-                String[] values = response.split(COMMA);
-                for (int i = 0; i < values.length; i++) {
-                    MrfDataItem dataItem = dataItems.get(MrfSensorType.valueOf(i));
-                    if (dataItem != null) dataItem.setData(parseDouble(values[i]));
-                }
-            }
-            connection.close();
-        } catch (Throwable t) {
-            LOGGER.error("Error occurred", t);
-        } finally {
-            connection.close();
+    protected void lineReceived(String response) {
+        if (isNullOrEmpty(response)) return;
+        if (LOGGER.isTraceEnabled())
+            LOGGER.trace("MRF Stealth Gauge Response: " + response);
+        String[] values = response.split(COMMA);
+        for (int i = 0; i < values.length; i++) {
+            MrfDataItem dataItem = dataItems.get(MrfSensorType.valueOf(i));
+            if (dataItem != null) dataItem.setData(parseDouble(values[i]));
         }
     }
 
-    @Override
+    public void start() {
+        channel = SerialReactor.getInstance().register("MRF Stealth Gauge", connection, this);
+    }
+
     public void stop() {
-        stop = true;
+        if (channel != null) {
+            channel.close();
+        }
+        else {
+            connection.close();
+        }
     }
 
     private double parseDouble(String value) {
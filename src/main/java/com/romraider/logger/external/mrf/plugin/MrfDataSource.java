@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2015 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -49,7 +49,6 @@ import static com.romraider.logger.external.mrf.plugin.MrfSensorType.MANIFOLD_TE
 import static com.romraider.logger.external.mrf.plugin.MrfSensorType.MAP;
 import static com.romraider.logger.external.mrf.plugin.MrfSensorType.OIL_PRESS;
 import static com.romraider.logger.external.mrf.plugin.MrfSensorType.OIL_TEMP;
-import static com.romraider.util.ThreadUtil.runAsDaemon;
 import static java.util.Collections.unmodifiableList;
 
 import java.util.ArrayList;
@@ -113,7 +112,7 @@ public final class MrfDataSource implements ExternalDataSource {
 
     public void connect() {
         runner = new MrfRunner(port, dataItems);
-        runAsDaemon(runner);
+        runner.start();
     }
 
     public void disconnect() {
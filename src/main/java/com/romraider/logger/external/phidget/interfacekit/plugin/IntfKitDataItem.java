@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2013 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -25,6 +25,7 @@ import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
 import com.romraider.logger.external.core.ConvertorManager;
 import com.romraider.logger.external.core.DataListener;
 import com.romraider.logger.external.core.ExternalDataItem;
+import com.romraider.logger.external.core.ExternalSamples;
 import com.romraider.logger.external.phidget.interfacekit.io.IntfKitSensor;
 
 /**
@@ -40,6 +41,7 @@ public final class IntfKitDataItem implements
     private final String name;
     private double data;
     private EcuDataConvertor[] convertors;
+    private final ExternalSamples samples = new ExternalSamples();
     
     /**
      * Create a new data item and set its fields according to the supplied
@@ -94,6 +96,7 @@ public final class IntfKitDataItem implements
     @Override
     public void setData(double data) {
         this.data = data;
+        samples.add(getData());
     }
 
     @Override
@@ -101,6 +104,11 @@ public final class IntfKitDataItem implements
         return convertors;
     }
 
+    @Override
+    public ExternalSamples getSamples() {
+        return samples;
+    }
+
     @Override
     public void setConvertors(EcuDataConvertor[] convertors) {
         this.convertors = convertors;        
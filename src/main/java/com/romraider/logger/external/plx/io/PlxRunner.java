@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,54 +19,57 @@
 
 package com.romraider.logger.external.plx.io;
 
-import com.romraider.logger.external.core.Stoppable;
-
 import static com.romraider.logger.external.plx.plugin.PlxSensorType.UNKNOWN;
+import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
+
+import java.util.Map;
 
+import com.romraider.io.serial.connection.SerialConnection;
+import com.romraider.io.serial.connection.SerialConnectionImpl;
+import com.romraider.logger.external.core.ByteStreamListener;
+import com.romraider.logger.external.core.SerialReactor;
 import com.romraider.logger.external.plx.plugin.PlxDataItem;
 import com.romraider.logger.external.plx.plugin.PlxSensorType;
 
-import org.apache.log4j.Logger;
-import static org.apache.log4j.Logger.getLogger;
-import java.util.Map;
-
-public final class PlxRunner implements Stoppable {
-    private static final Logger LOGGER = getLogger(PlxRunner.class);
+public final class PlxRunner implements ByteStreamListener {
     private final Map<PlxSensorType, PlxDataItem> dataItems;
-    private final PlxConnection connection;
-    private boolean stop;
+    private final PlxParser parser = new PlxParserImpl();
+    private final SerialConnection connection;
+    private SerialReactor.Channel channel;
 
     public PlxRunner(String port, Map<PlxSensorType, PlxDataItem> dataItems) {
-        this.connection = new PlxConnectionImpl(port);
+        checkNotNullOrEmpty(port, "port");
         this.dataItems = dataItems;
+        connection = new SerialConnectionImpl(port, new PlxConnectionProperties());
+//        connection = new TestPlxConnection();
     }
 
-    public void run() {
-        try {
-            PlxParser parser = new PlxParserImpl();
-            while (!stop) {
-                byte b = connection.readByte();
-                PlxResponse response = parser.pushByte(b);
-                if (!isValid(response)) continue;
-                PlxDataItem item = dataItems.get(response.sensor);
-                if (item != null && (response.instance == item.getInstance())) {
-                    item.setRaw(response.value);
-                }
+    public void bytesReceived(byte[] bytes) {
+        for (byte b : bytes) {
+            PlxResponse response = parser.pushByte(b);
+            if (!isValid(response)) continue;
+            PlxDataItem item = dataItems.get(response.sensor);
+            if (item != null && (response.instance == item.getInstance())) {
+                item.setRaw(response.value);
             }
-            connection.close();
-        } catch (Throwable t) {
-            LOGGER.error("Error occurred", t);
-        } finally {
-            connection.close();
         }
     }
 
+    public void start() {
+        channel = SerialReactor.getInstance().register("PLX", connection, this);
+    }
+
     public void stop() {
-        stop = true;
+        if (channel != null) {
+            channel.close();
+        }
+        else {
+            connection.close();
+        }
     }
 
     private boolean isValid(PlxResponse response) {
         if (response == null) return false;
         return response.sensor != UNKNOWN;
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2013 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -53,6 +53,10 @@ public final class TestPlxConnection implements SerialConnection {
         throw new UnsupportedOperationException();
     }
 
+    public boolean waitForBytes(int numBytes, long timeout) {
+        return available() >= numBytes;
+    }
+
     public int available() {
         return 1;
     }
@@ -65,7 +69,9 @@ public final class TestPlxConnection implements SerialConnection {
     }
 
     public byte[] readAvailable() {
-        throw new UnsupportedOperationException();
+        final byte[] bytes = new byte[1];
+        read(bytes);
+        return bytes;
     }
 
     public void readStaleData() {
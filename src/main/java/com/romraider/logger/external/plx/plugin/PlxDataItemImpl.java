@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -22,6 +22,7 @@ package com.romraider.logger.external.plx.plugin;
 import static com.romraider.logger.external.core.ExternalDataConvertorLoader.loadConvertors;
 
 import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.external.core.ExternalSamples;
 import com.romraider.logger.external.core.ExternalSensorConversions;
 
 public final class PlxDataItemImpl implements PlxDataItem {
@@ -29,6 +30,7 @@ public final class PlxDataItemImpl implements PlxDataItem {
     private final String name;
     private int instance;
     private int raw;
+    private final ExternalSamples samples = new ExternalSamples();
 
     public PlxDataItemImpl(String name, int instance, ExternalSensorConversions... convertorList) {
         super();
@@ -56,9 +58,14 @@ public final class PlxDataItemImpl implements PlxDataItem {
 
     public void setRaw(int raw) {
         this.raw = raw;
+        samples.add(getData());
     }
 
     public EcuDataConvertor[] getConvertors() {
         return convertors;
     }
+
+    public ExternalSamples getSamples() {
+        return samples;
+    }
 }
\ No newline at end of file
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2015 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -86,7 +86,6 @@ import static com.romraider.logger.external.plx.plugin.PlxSensorType.VOLTAGE;
 import static com.romraider.logger.external.plx.plugin.PlxSensorType.WIDEBAND;
 import static com.romraider.logger.external.plx.plugin.PlxSensorType.WIDEBAND_HEALTH;
 import static com.romraider.logger.external.plx.plugin.PlxSensorType.WIDEBAND_REACTION;
-import static com.romraider.util.ThreadUtil.runAsDaemon;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -165,7 +164,7 @@ public final class PlxDataSource implements ExternalDataSource {
 
     public void connect() {
         runner = new PlxRunner(port, dataItems);
-        runAsDaemon(runner);
+        runner.start();
     }
 
     public void disconnect() {
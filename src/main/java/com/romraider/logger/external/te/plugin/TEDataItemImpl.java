@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -20,6 +20,7 @@
 package com.romraider.logger.external.te.plugin;
 
 import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.external.core.ExternalSamples;
 import com.romraider.logger.external.core.ExternalSensorConversions;
 import static com.romraider.logger.external.core.ExternalDataConvertorLoader.loadConvertors;
 
@@ -27,6 +28,7 @@ public final class TEDataItemImpl implements TEDataItem {
     private EcuDataConvertor[] convertors;
     private final String name;
     private int[] raw;
+    private final ExternalSamples samples = new ExternalSamples();
 
     public TEDataItemImpl(String name, ExternalSensorConversions... convertorList) {
         super();
@@ -47,11 +49,16 @@ public final class TEDataItemImpl implements TEDataItem {
         return convertors;
     }
 
+    public ExternalSamples getSamples() {
+        return samples;
+    }
+
     public double getData() {
         return raw[0] * 256d + raw[1];
     }
 
     public void setRaw(int... raw) {
         this.raw = raw;
+        samples.add(getData());
     }
 }
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2015 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -40,7 +40,6 @@ import static com.romraider.logger.external.te.plugin.TESensorConversions.RPM_4;
 import static com.romraider.logger.external.te.plugin.TESensorConversions.TC;
 import static com.romraider.logger.external.te.plugin.TESensorConversions.THERM;
 import static com.romraider.logger.external.te.plugin.TESensorConversions.VDC;
-import static com.romraider.util.ThreadUtil.runAsDaemon;
 import static java.util.Collections.unmodifiableList;
 
 import java.util.ArrayList;
@@ -107,7 +106,7 @@ public final class TEDataSource implements ExternalDataSource {
 
     public void connect() {
         runner = new TERunner(port, dataItems);
-        runAsDaemon(runner);
+        runner.start();
     }
 
     public void disconnect() {
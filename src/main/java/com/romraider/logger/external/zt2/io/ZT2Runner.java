@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -26,112 +26,119 @@ import static com.romraider.logger.external.core.ExternalSensorType.TPS;
 import static com.romraider.logger.external.core.ExternalSensorType.USER1;
 import static com.romraider.logger.external.core.ExternalSensorType.WIDEBAND;
 import static com.romraider.util.ByteUtil.asUnsignedInt;
-import static org.apache.log4j.Logger.getLogger;
+import static com.romraider.util.ParamChecker.checkNotNullOrEmpty;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.log4j.Logger;
-
+import com.romraider.io.serial.connection.SerialConnection;
+import com.romraider.io.serial.connection.SerialConnectionImpl;
+import com.romraider.logger.external.core.ByteStreamListener;
 import com.romraider.logger.external.core.ExternalSensorType;
-import com.romraider.logger.external.core.Stoppable;
+import com.romraider.logger.external.core.SerialReactor;
 import com.romraider.logger.external.zt2.plugin.ZT2DataItem;
 
-public final class ZT2Runner implements Stoppable {
-    private static final Logger LOGGER = getLogger(ZT2Runner.class);
+public final class ZT2Runner implements ByteStreamListener {
     private final Map<ExternalSensorType, ZT2DataItem> dataItems;
-    private final ZT2Connection connection;
-    private boolean stop;
+    private final List<Byte> buffer = new ArrayList<Byte>(14);
+    private final SerialConnection connection;
+    private SerialReactor.Channel channel;
+    private boolean packetStarted;
 
     public ZT2Runner(String port, Map<ExternalSensorType, ZT2DataItem> dataItems) {
-        this.connection = new ZT2ConnectionImpl(port);
+        checkNotNullOrEmpty(port, "port");
         this.dataItems = dataItems;
+        connection = new SerialConnectionImpl(port, new ZT2ConnectionProperties());
+//        connection = new TestZt2Connection();
     }
 
-    public void run() {
-        try {
-            boolean packetStarted = false;
-            List<Byte> buffer = new ArrayList<Byte>(14);
-            while (!stop) {
-                byte b = connection.readByte();
-                if (b == 0x02
-                        && buffer.size() >= 2
-                        && buffer.get(buffer.size() - 1) == 0x01
-                        && buffer.get(buffer.size() - 2) == 0x00) {
-                    packetStarted = true;
-                    buffer.clear();
-                    buffer.add((byte) 0x00);
-                    buffer.add((byte) 0x01);
-                    buffer.add(b);
+    public void bytesReceived(byte[] bytes) {
+        for (byte b : bytes) {
+            pushByte(b);
+        }
+    }
 
-                } else if (packetStarted && buffer.size() <= 14) {
-                    buffer.add(b);
-                    ZT2DataItem dataItem = dataItems.get(WIDEBAND);
-                    switch (buffer.size()) {
-                        case 4:
-                            if (dataItem != null) {
-                                int raw = asUnsignedInt(buffer.get(3));
-                                dataItem.setRaw(raw);
-                            }
-                            break;
-                        case 6:
-                            dataItem = dataItems.get(EGT);
-                            if (dataItem != null) {
-                                int raw1 = asUnsignedInt(buffer.get(4));
-                                int raw2 = asUnsignedInt(buffer.get(5));
-                                dataItem.setRaw(raw1, raw2);
-                            }
-                            break;
-                        case 8:
-                            dataItem = dataItems.get(ENGINE_SPEED);
-                            if (dataItem != null) {
-                                int raw1 = asUnsignedInt(buffer.get(6));
-                                int raw2 = asUnsignedInt(buffer.get(7));
-                                dataItem.setRaw(raw1, raw2);
-                            }
-                            break;
-                        case 10:
-                            dataItem = dataItems.get(MAP);
-                            if (dataItem != null) {
-                                int raw1 = asUnsignedInt(buffer.get(8));
-                                int raw2 = asUnsignedInt(buffer.get(9));
-                                dataItem.setRaw(raw1, raw2);
-                            }
-                            break;
-                        case 11:
-                            dataItem = dataItems.get(TPS);
-                            if (dataItem != null) {
-                                int raw = asUnsignedInt(buffer.get(10));
-                                dataItem.setRaw(raw);
-                            }
-                            break;
-                        case 12:
-                            dataItem = dataItems.get(USER1);
-                            if (dataItem != null) {
-                                int raw = asUnsignedInt(buffer.get(11));
-                                dataItem.setRaw(raw);
-                            }
-                            break;
-                        case 14:
-                            buffer.clear();
-                            packetStarted = false;
-                            break;
-                    }
-                } else {
-                    buffer.add(b);
-                    packetStarted = false;
-                }
-            }
-            connection.close();
-        } catch (Throwable t) {
-            LOGGER.error("ZT2 error occurred", t);
-        } finally {
+    public void start() {
+        channel = SerialReactor.getInstance().register("ZT2", connection, this);
+    }
+
+    public void stop() {
+        if (channel != null) {
+            channel.close();
+        }
+        else {
             connection.close();
         }
     }
 
-    public void stop() {
-        stop = true;
+    private void pushByte(byte b) {
+        if (b == 0x02
+                && buffer.size() >= 2
+                && buffer.get(buffer.size() - 1) == 0x01
+                && buffer.get(buffer.size() - 2) == 0x00) {
+            packetStarted = true;
+            buffer.clear();
+            buffer.add((byte) 0x00);
+            buffer.add((byte) 0x01);
+            buffer.add(b);
+
+        } else if (packetStarted && buffer.size() <= 14) {
+            buffer.add(b);
+            ZT2DataItem dataItem = dataItems.get(WIDEBAND);
+            switch (buffer.size()) {
+                case 4:
+                    if (dataItem != null) {
+                        int raw = asUnsignedInt(buffer.get(3));
+                        dataItem.setRaw(raw);
+                    }
+                    break;
+                case 6:
+                    dataItem = dataItems.get(EGT);
+                    if (dataItem != null) {
+                        int raw1 = asUnsignedInt(buffer.get(4));
+                        int raw2 = asUnsignedInt(buffer.get(5));
+                        dataItem.setRaw(raw1, raw2);
+                    }
+                    break;
+                case 8:
+                    dataItem = dataItems.get(ENGINE_SPEED);
+                    if (dataItem != null) {
+                        int raw1 = asUnsignedInt(buffer.get(6));
+                        int raw2 = asUnsignedInt(buffer.get(7));
+                        dataItem.setRaw(raw1, raw2);
+                    }
+                    break;
+                case 10:
+                    dataItem = dataItems.get(MAP);
+                    if (dataItem != null) {
+                        int raw1 = asUnsignedInt(buffer.get(8));
+                        int raw2 = asUnsignedInt(buffer.get(9));
+                        dataItem.setRaw(raw1, raw2);
+                    }
+                    break;
+                case 11:
+                    dataItem = dataItems.get(TPS);
+                    if (dataItem != null) {
+                        int raw = asUnsignedInt(buffer.get(10));
+                        dataItem.setRaw(raw);
+                    }
+                    break;
+                case 12:
+                    dataItem = dataItems.get(USER1);
+                    if (dataItem != null) {
+                        int raw = asUnsignedInt(buffer.get(11));
+                        dataItem.setRaw(raw);
+                    }
+                    break;
+                case 14:
+                    buffer.clear();
+                    packetStarted = false;
+                    break;
+            }
+        } else {
+            buffer.add(b);
+            packetStarted = false;
+        }
     }
 }
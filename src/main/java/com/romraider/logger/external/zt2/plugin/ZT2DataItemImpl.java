@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -22,12 +22,14 @@ package com.romraider.logger.external.zt2.plugin;
 import static com.romraider.logger.external.core.ExternalDataConvertorLoader.loadConvertors;
 
 import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.external.core.ExternalSamples;
 import com.romraider.logger.external.core.ExternalSensorConversions;
 
 public final class ZT2DataItemImpl implements ZT2DataItem {
     private EcuDataConvertor[] convertors;
     private final String name;
     private int[] raw;
+    private final ExternalSamples samples = new ExternalSamples();
 
     public ZT2DataItemImpl(String name, ExternalSensorConversions... convertorList) {
         super();
@@ -61,9 +63,14 @@ public final class ZT2DataItemImpl implements ZT2DataItem {
 
     public void setRaw(int... raw) {
         this.raw = raw;
+        samples.add(getData());
     }
 
     public EcuDataConvertor[] getConvertors() {
         return convertors;
     }
+
+    public ExternalSamples getSamples() {
+        return samples;
+    }
 }
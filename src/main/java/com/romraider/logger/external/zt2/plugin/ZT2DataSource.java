@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2015 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -42,7 +42,6 @@ import static com.romraider.logger.external.zt2.plugin.ZT2SensorConversions.BOOS
 import static com.romraider.logger.external.zt2.plugin.ZT2SensorConversions.BOOST_PSI;
 import static com.romraider.logger.external.zt2.plugin.ZT2SensorConversions.LAMBDA;
 import static com.romraider.logger.external.zt2.plugin.ZT2SensorConversions.RPM;
-import static com.romraider.util.ThreadUtil.runAsDaemon;
 import static java.util.Collections.unmodifiableList;
 
 import java.util.ArrayList;
@@ -106,7 +105,7 @@ public final class ZT2DataSource implements ExternalDataSource {
 
     public void connect() {
         runner = new ZT2Runner(port, dataItems);
-        runAsDaemon(runner);
+        runner.start();
     }
 
     public void disconnect() {
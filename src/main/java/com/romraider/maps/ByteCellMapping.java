@@ -0,0 +1,147 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of the DataCells on a byte level so that a change written
+ * by one cell can be reloaded into every cell covering the same bytes.
+ * Each cell is stored as an address interval in primitive arrays which are
+ * sorted by start address on the first lookup after cells were added.
+ * Tables may be populated concurrently, so all access is synchronized.
+ */
+final class ByteCellMapping {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private byte[] lengths = new byte[INITIAL_CAPACITY];
+    private DataCell[] cells = new DataCell[INITIAL_CAPACITY];
+    private int size;
+    private int maxLength;
+    private boolean sorted = true;
+
+    /**
+     * Add a cell covering <code>length</code> bytes from <code>start</code>.
+     */
+    synchronized void add(DataCell cell, int start, int length) {
+        if (size == starts.length) {
+            final int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            cells = Arrays.copyOf(cells, capacity);
+        }
+        if (size > 0 && start < starts[size - 1]) {
+            sorted = false;
+        }
+        starts[size] = start;
+        lengths[size] = (byte) length;
+        cells[size] = cell;
+        size++;
+        if (length > maxLength) {
+            maxLength = length;
+        }
+    }
+
+    /**
+     * Reload the values of all cells overlapping the given address range
+     * from memory.
+     */
+    synchronized void updateCells(int start, int length) {
+        sort();
+        final int end = start + length;
+        for (int i = firstIndex(start - maxLength + 1);
+                i < size && starts[i] < end; i++) {
+            if (starts[i] + lengths[i] > start) {
+                cells[i].updateBinValueFromMemory();
+            }
+        }
+    }
+
+    /**
+     * Remove the cells of a table and of its axes.
+     */
+    synchronized void remove(Table table) {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            final Table owner = cells[i].getTable();
+            if (owner == null || owner == table ||
+                    (owner instanceof Table1D &&
+                    ((Table1D) owner).getAxisParent() == table)) {
+                continue;
+            }
+            starts[n] = starts[i];
+            lengths[n] = lengths[i];
+            cells[n] = cells[i];
+            n++;
+        }
+        Arrays.fill(cells, n, size, null);
+        size = n;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized void clear() {
+        Arrays.fill(cells, 0, size, null);
+        size = 0;
+        maxLength = 0;
+        sorted = true;
+    }
+
+    // index of the first cell starting at or after address
+    private int firstIndex(int address) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (starts[mid] < address) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void sort() {
+        if (sorted) {
+            return;
+        }
+        final long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) starts[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        final byte[] sortedLengths = new byte[lengths.length];
+        final DataCell[] sortedCells = new DataCell[cells.length];
+        for (int i = 0; i < size; i++) {
+            final int from = (int) keys[i];
+            starts[i] = (int) (keys[i] >> 32);
+            sortedLengths[i] = lengths[from];
+            sortedCells[i] = cells[from];
+        }
+        lengths = sortedLengths;
+        cells = sortedCells;
+        sorted = true;
+    }
+}
@@ -21,7 +21,6 @@ package com.romraider.maps;
 
 import java.io.Serializable;
 import java.text.ParseException;
-import java.util.LinkedList;
 import java.util.StringTokenizer;
 
 import org.apache.log4j.Logger;
@@ -30,11 +29,14 @@ import com.romraider.Settings;
 import com.romraider.Settings.Endian;
 import com.romraider.editor.ecu.ECUEditorManager;
 import com.romraider.util.ByteUtil;
-import com.romraider.util.JEPUtil;
 import com.romraider.util.NumberUtil;
 import com.romraider.util.SettingsManager;
 import com.romraider.xml.RomAttributeParser;
 
+/**
+ * A view of one cell of a table.  The values of the cell are held in the
+ * primitive value arrays of its table at the cell's slot.
+ */
 public class DataCell implements Serializable  {
     private static final long serialVersionUID = 1111479947434817639L;
     private static final Logger LOGGER = Logger.getLogger(DataCell.class);
@@ -48,38 +50,34 @@ public class DataCell implements Serializable  {
     private boolean isSelected = false;
 
     private int bitMask = 0;
-    private double minAllowedBin = 0.0;
-    private double maxAllowedBin = 0.0;
-    private double binValue = 0.0;
-    private double originalValue = 0.0;
-    private double compareToValue = 0.0;
-    private String liveValue = Settings.BLANK;
     private String staticText = null;
-    private Rom rom;
 
     //Index within table
     private int index;
 
-    public DataCell(Table table, Rom rom) {
+    //Position of the values of this cell in the value arrays of the table
+    private final int slot;
+
+    private DataCell(Table table, int slot) {
         this.table = table;
-        this.rom = rom;
+        this.slot = slot;
         setBitMask(table.getBitMask()); //Take the global bitmask first
     }
 
-    public DataCell(Table table, String staticText, Rom rom) {
-        this(table, rom);
+    public DataCell(Table table, String staticText, int slot) {
+        this(table, slot);
         final StringTokenizer st = new StringTokenizer(staticText, DataCellView.ST_DELIMITER);
         if (st.hasMoreTokens()) {
             this.staticText = st.nextToken();
         }
     }
 
-    public DataCell(Table table, int index, Rom rom) {
-        this(table, rom);
+    public DataCell(Table table, int index, int slot) {
+        this(table, slot);
         this.index = index;
 
         updateBinValueFromMemory();
-        this.originalValue = this.binValue;
+        table.originalValues[slot] = table.binValues[slot];
         registerDataCell(this);
     }
 
@@ -87,12 +85,8 @@ public class DataCell implements Serializable  {
         this.table = t;
     }
 
-    public void setRom(Rom rom) {
-        this.rom = rom;
-    }
-
     public byte[] getBinary() {
-        return rom.getBinary();
+        return table.getRom().getBinary();
     }
 
     public void setBitMask(int mask) {
@@ -102,92 +96,66 @@ public class DataCell implements Serializable  {
         bitMask = (int) Math.min(mask, Math.pow(2,table.getStorageType()*8)-1);
     }
 
-    protected void calcValueRange() {
+    public double getMinAllowedBin() {
         if (table.getStorageType() != Settings.STORAGE_TYPE_FLOAT) {
             if (table.isSignedData()) {
                 switch (table.getStorageType()) {
                 case 1:
-                    minAllowedBin = Byte.MIN_VALUE;
-                    maxAllowedBin = Byte.MAX_VALUE;
-                    break;
+                    return Byte.MIN_VALUE;
                 case 2:
-                    minAllowedBin = Short.MIN_VALUE;
-                    maxAllowedBin = Short.MAX_VALUE;
-                    break;
+                    return Short.MIN_VALUE;
                 case 4:
-                    minAllowedBin = Integer.MIN_VALUE;
-                    maxAllowedBin = Integer.MAX_VALUE;
-                    break;
+                    return Integer.MIN_VALUE;
                 case Settings.STORAGE_TYPE_MOVI20:
-                    minAllowedBin = Settings.MOVI20_MIN_VALUE;
-                    maxAllowedBin = Settings.MOVI20_MAX_VALUE;
-                    break;
+                    return Settings.MOVI20_MIN_VALUE;
                 case Settings.STORAGE_TYPE_MOVI20S:
-                    minAllowedBin = Settings.MOVI20S_MIN_VALUE;
-                    maxAllowedBin = Settings.MOVI20S_MAX_VALUE;
-                    break;
+                    return Settings.MOVI20S_MIN_VALUE;
+                default:
+                    return 0.0;
                 }
             }
-            else {
-                if (bitMask == 0) {
-                    maxAllowedBin = (Math.pow(256, table.getStorageType()) - 1);
-                }
-                else {
-                    maxAllowedBin =(int)(Math.pow(2,ByteUtil.lengthOfMask(bitMask)) - 1);
-                }
-                minAllowedBin = 0.0;
-            }
-        } else {
-            maxAllowedBin = Float.MAX_VALUE;
+            return 0.0;
+        }
+        else if (table.isSignedData()) {
+            return 0.0;
+        }
+        else {
+            return -Float.MAX_VALUE;
+        }
+    }
 
+    public double getMaxAllowedBin() {
+        if (table.getStorageType() != Settings.STORAGE_TYPE_FLOAT) {
             if (table.isSignedData()) {
-                minAllowedBin = 0.0;
-            } else {
-                minAllowedBin = -Float.MAX_VALUE;
+                switch (table.getStorageType()) {
+                case 1:
+                    return Byte.MAX_VALUE;
+                case 2:
+                    return Short.MAX_VALUE;
+                case 4:
+                    return Integer.MAX_VALUE;
+                case Settings.STORAGE_TYPE_MOVI20:
+                    return Settings.MOVI20_MAX_VALUE;
+                case Settings.STORAGE_TYPE_MOVI20S:
+                    return Settings.MOVI20S_MAX_VALUE;
+                default:
+                    return 0.0;
+                }
+            }
+            else if (bitMask == 0) {
+                return Math.pow(256, table.getStorageType()) - 1;
+            }
+            else {
+                return (int)(Math.pow(2,ByteUtil.lengthOfMask(bitMask)) - 1);
             }
         }
+        return Float.MAX_VALUE;
     }
 
     private double getValueFromMemory(int index) {
-        double dataValue = 0.0;
-        byte[] input = getBinary();
-        int storageType = table.getStorageType();
-        Endian endian = table.getEndian();
-        int ramOffset = table.getRamOffset();
-        int storageAddress = table.getStorageAddress();
-        boolean signed = table.isSignedData();
-
-        // populate data cells
-        if (storageType == Settings.STORAGE_TYPE_FLOAT) { //float storage type
-            byte[] byteValue = new byte[4];
-            byteValue[0] = input[storageAddress + index * 4 - table.getRamOffset()];
-            byteValue[1] = input[storageAddress + index * 4 - table.getRamOffset() + 1];
-            byteValue[2] = input[storageAddress + index * 4 - table.getRamOffset() + 2];
-            byteValue[3] = input[storageAddress + index * 4 - table.getRamOffset() + 3];
-            dataValue = RomAttributeParser.byteToFloat(byteValue, table.getEndian(), table.getMemModelEndian());
-
-        } else if (storageType == Settings.STORAGE_TYPE_MOVI20 ||
-                storageType == Settings.STORAGE_TYPE_MOVI20S) { // when data is in MOVI20 instruction
-            dataValue = RomAttributeParser.parseByteValue(input,
-                    endian,
-                    storageAddress + index * 3 - ramOffset,
-                    storageType,
-                    signed);
-
-        } else { // integer storage type
-            if (bitMask == 0) {
-                dataValue = RomAttributeParser.parseByteValue(input,
-                        endian, storageAddress + index * storageType - ramOffset,
-                        storageType, signed);
-                }
-                else {
-                    dataValue = RomAttributeParser.parseByteValueMasked(input, endian,
-                            storageAddress + index * storageType - ramOffset,
-                            storageType, signed, bitMask);
-                }
-        }
-
-        return dataValue;
+        return table.readBinValue(getBinary(),
+                table.getStorageAddress() + index * table.getCellByteLength() - table.getRamOffset(),
+                bitMask);
     }
 
     private double getValueFromMemory() {
@@ -298,6 +266,7 @@ public class DataCell implements Serializable  {
                             binData[index * byteLength + z + storageAddress - ramOffset] = output[z];
                         }
                     }
+                    table.getRom().markDirty(index * byteLength + storageAddress - ramOffset, byteLength);
 
                 } else { // float
                     // convert byte values
@@ -306,6 +275,7 @@ public class DataCell implements Serializable  {
                     for (int z = 0; z < 4; z++) { // insert in to file
                         binData[index * 4 + z + storageAddress - ramOffset] = output[z];
                     }
+                    table.getRom().markDirty(index * 4 + storageAddress - ramOffset, 4);
                 }
         }
 
@@ -316,33 +286,18 @@ public class DataCell implements Serializable  {
     }
 
     public void registerDataCell(DataCell cell) {
-
-        int memoryIndex = getMemoryStartAddress(cell);
-
-        if (rom.byteCellMapping.containsKey(memoryIndex))
-            {
-            rom.byteCellMapping.get(memoryIndex).add(cell);
-            }
-        else {
-            LinkedList<DataCell> l = new LinkedList<DataCell>();
-            l.add(cell);
-            rom.byteCellMapping.put(memoryIndex, l);
-        }
+        table.getRom().byteCellMapping.add(cell,
+                getMemoryStartAddress(cell), cell.getTable().getCellByteLength());
     }
 
     public void checkForDataUpdates() {
-        int memoryIndex = getMemoryStartAddress(this);
-
-        if (rom.byteCellMapping.containsKey(memoryIndex)){
-            for(DataCell c : rom.byteCellMapping.get(memoryIndex)) {
-                c.updateBinValueFromMemory();
-            }
-        }
+        table.getRom().byteCellMapping.updateCells(
+                getMemoryStartAddress(this), table.getCellByteLength());
     }
 
     public static int getMemoryStartAddress(DataCell cell) {
         Table t = cell.getTable();
-        return t.getStorageAddress() + cell.getIndexInTable() * t.getStorageType() - t.getRamOffset();
+        return t.getStorageAddress() + cell.getIndexInTable() * t.getCellByteLength() - t.getRamOffset();
     }
 
     public Settings getSettings()
@@ -366,11 +321,8 @@ public class DataCell implements Serializable  {
     }
 
     public void updateBinValueFromMemory() {
-        //We do this here because once we start populating all settings should be set
-        if (minAllowedBin == 0 && maxAllowedBin == 0)
-            calcValueRange();
-
-        this.binValue = getValueFromMemory();
+        table.binValues[slot] = getValueFromMemory();
+        table.valuesChanged();
         updateView();
     }
 
@@ -397,32 +349,36 @@ public class DataCell implements Serializable  {
     }
 
     public String getLiveValue() {
-        return this.liveValue;
+        return table.liveValues == null ? Settings.BLANK : table.liveValues[slot];
     }
 
     public void setLiveDataTraceValue(String liveValue) {
-        if (this.liveValue != liveValue) {
-            this.liveValue = liveValue;
+        if (getLiveValue() != liveValue) {
+            table.getLiveValues()[slot] = liveValue;
             updateView();
         }
     }
 
     public double getBinValue() {
-        return binValue;
+        return table.binValues[slot];
     }
 
     public double getOriginalValue() {
-        return originalValue;
+        return table.originalValues[slot];
     }
 
     public double getCompareToValue() {
-        return compareToValue;
+        return table.compareValues[slot];
     }
 
     public double getRealValue() {
-        if (table.getCurrentScale() == null) return binValue;
+        if (table.getCurrentScale() == null) return getBinValue();
+
+        return toReal(getBinValue());
+    }
 
-        return JEPUtil.evaluate(table.getCurrentScale().getExpression(), binValue);
+    private double toReal(double value) {
+        return table.getCurrentScale().getCompiledExpression().evaluate(value);
     }
 
     public void setRealValue(String input) throws UserLevelException {
@@ -441,14 +397,14 @@ public class DataCell implements Serializable  {
                     result = table.getCurrentScale().approximateToByteFunction(NumberUtil.doubleValue(input), table.getStorageType(), table.isSignedData());
                 }
                 else {
-                    result = JEPUtil.evaluate(table.getCurrentScale().getByteExpression(), NumberUtil.doubleValue(input));
+                    result = table.getCurrentScale().getCompiledByteExpression().evaluate(NumberUtil.doubleValue(input));
                 }
 
                 if (table.getStorageType() != Settings.STORAGE_TYPE_FLOAT) {
                     result = (int) Math.round(result);
                 }
 
-                if (binValue != result) {
+                if (getBinValue() != result) {
                     this.setBinValue(result);
                 }
             }
@@ -458,16 +414,16 @@ public class DataCell implements Serializable  {
     }
 
     public double getCompareValue() {
-        return binValue - compareToValue;
+        return getBinValue() - getCompareToValue();
     }
 
     public double getRealCompareValue() {
-        return JEPUtil.evaluate(table.getCurrentScale().getExpression(), binValue) - JEPUtil.evaluate(table.getCurrentScale().getExpression(), compareToValue);
+        return toReal(getBinValue()) - toReal(getCompareToValue());
     }
 
     public double getRealCompareChangeValue() {
-        double realBinValue = JEPUtil.evaluate(table.getCurrentScale().getExpression(), binValue);
-        double realCompareValue = JEPUtil.evaluate(table.getCurrentScale().getExpression(), compareToValue);
+        double realBinValue = toReal(getBinValue());
+        double realCompareValue = toReal(getCompareToValue());
 
         if (realCompareValue != 0.0) {
             // Compare change formula ((V2 - V1) / |V1|).
@@ -479,6 +435,7 @@ public class DataCell implements Serializable  {
     }
 
     public void setBinValue(double newBinValue) throws UserLevelException {
+        final double binValue = getBinValue();
         if (binValue == newBinValue || table.locked || table.getName().contains("Checksum Fix")) {
             return;
         }
@@ -489,6 +446,8 @@ public class DataCell implements Serializable  {
         double checkedValue = newBinValue;
 
         // make sure it's in range
+        final double minAllowedBin = getMinAllowedBin();
+        final double maxAllowedBin = getMaxAllowedBin();
         if (checkedValue < minAllowedBin) {
             checkedValue = minAllowedBin;
         }
@@ -502,7 +461,8 @@ public class DataCell implements Serializable  {
         }
 
         // set bin.
-        binValue = checkedValue;
+        table.binValues[slot] = checkedValue;
+        table.valuesChanged();
         saveBinValueInFile();
         updateView();
     }
@@ -519,42 +479,43 @@ public class DataCell implements Serializable  {
             incResult = table.getCurrentScale().approximateToByteFunction(oldValue + increment, table.getStorageType(), table.isSignedData());
         }
         else {
-            incResult = JEPUtil.evaluate(table.getCurrentScale().getByteExpression(), (oldValue + increment));
+            incResult = table.getCurrentScale().getCompiledByteExpression().evaluate(oldValue + increment);
         }
 
         if (table.getStorageType() == Settings.STORAGE_TYPE_FLOAT) {
-            if (binValue != incResult) {
+            if (getBinValue() != incResult) {
                 this.setBinValue(incResult);
             }
         } else {
             int roundResult = (int) Math.round(incResult);
-            if (binValue != roundResult) {
+            if (getBinValue() != roundResult) {
                 this.setBinValue(roundResult);
             }
         }
 
         //Make sure we always change something. If the defined increment is too small this triggers
         //TODO: This should use real values
+        final double binValue = getBinValue();
         if (table.getStorageType() != Settings.STORAGE_TYPE_FLOAT &&
                 oldValue == getRealValue() &&
-                ((increment > 0 && binValue < maxAllowedBin) || (increment < 0 && binValue > minAllowedBin))) {
+                ((increment > 0 && binValue < getMaxAllowedBin()) || (increment < 0 && binValue > getMinAllowedBin()))) {
             if (LOGGER.isDebugEnabled())
-                LOGGER.debug(maxAllowedBin + " " + binValue);
+                LOGGER.debug(getMaxAllowedBin() + " " + binValue);
             increment(increment * 2);
         }
     }
 
     public void undo() throws UserLevelException {
-        this.setBinValue(originalValue);
+        this.setBinValue(getOriginalValue());
     }
 
     public void setRevertPoint() {
-        this.setOriginalValue(binValue);
+        this.setOriginalValue(getBinValue());
         updateView();
     }
 
     public void setOriginalValue(double originalValue) {
-        this.originalValue = originalValue;
+        table.originalValues[slot] = originalValue;
     }
 
     public int getBitMask() {
@@ -564,17 +525,9 @@ public class DataCell implements Serializable  {
     public void setCompareValue(DataCell compareCell) {
         if (Settings.DataType.BIN == table.getCompareValueType())
         {
-            if (this.compareToValue == compareCell.binValue) {
-                return;
-            }
-
-            this.compareToValue = compareCell.binValue;
+            table.compareValues[slot] = compareCell.getBinValue();
         } else {
-            if (this.compareToValue == compareCell.originalValue) {
-                return;
-            }
-
-            this.compareToValue = compareCell.originalValue;
+            table.compareValues[slot] = compareCell.getOriginalValue();
         }
     }
 
@@ -608,15 +561,7 @@ public class DataCell implements Serializable  {
             return false;
         }
 
-        return binValue == otherCell.binValue;
-    }
-
-    public double getMaxAllowedBin() {
-        return maxAllowedBin;
-    }
-
-    public double getMinAllowedBin() {
-        return minAllowedBin;
+        return getBinValue() == otherCell.getBinValue();
     }
 
     @Override
@@ -0,0 +1,247 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Toolkit;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Map;
+
+import javax.swing.JComponent;
+import javax.swing.ToolTipManager;
+import javax.swing.border.Border;
+
+import com.romraider.util.SettingsManager;
+
+/**
+ * Paints a grid of cells as a single component.  Each {@link DataCellView}
+ * still works out the text, colours and border of its cell when it is
+ * drawn, but it is not added to the component hierarchy; the grid fills,
+ * borders and labels every cell itself.  Only the cells inside the clip
+ * are painted and a cell that changes repaints just its own rectangle.
+ * Mouse events are passed on to the cell under the pointer, so selection
+ * works as it does with a label per cell.
+ */
+final class DataCellGrid extends JComponent {
+    private static final long serialVersionUID = -2318450761946301726L;
+    private final int columns;
+    private final int rows;
+    private final DataCellView[][] cells;
+    private final Rectangle bounds = new Rectangle();
+
+    DataCellGrid(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        this.cells = new DataCellView[columns][rows];
+        setFocusable(true);
+        ToolTipManager.sharedInstance().registerComponent(this);
+        final CellMouseHandler handler = new CellMouseHandler();
+        addMouseListener(handler);
+        addMouseMotionListener(handler);
+    }
+
+    /**
+     * Place a cell in the grid, the cell repaints its rectangle of the
+     * grid whenever it is drawn.
+     */
+    void setCell(int column, int row, DataCellView cell) {
+        cells[column][row] = cell;
+        cell.setGrid(this, column, row);
+    }
+
+    void repaintCell(int column, int row) {
+        repaint(getCellBounds(column, row, bounds));
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) {
+            return super.getPreferredSize();
+        }
+        final Dimension cellSize = SettingsManager.getSettings().getCellSize();
+        return new Dimension(columns * cellSize.width, rows * cellSize.height);
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        final DataCellView cell = getCellAt(e.getX(), e.getY());
+        return cell == null ? null : cell.getCellToolTip();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        final Map<?, ?> hints = (Map<?, ?>) Toolkit.getDefaultToolkit()
+                .getDesktopProperty("awt.font.desktophints");
+        if (hints != null && g instanceof Graphics2D) {
+            ((Graphics2D) g).addRenderingHints(hints);
+        }
+        final int firstColumn = columnAt(clip.x);
+        final int lastColumn = columnAt(clip.x + clip.width - 1);
+        final int firstRow = rowAt(clip.y);
+        final int lastRow = rowAt(clip.y + clip.height - 1);
+        for (int column = firstColumn; column <= lastColumn; column++) {
+            for (int row = firstRow; row <= lastRow; row++) {
+                final DataCellView cell = cells[column][row];
+                if (cell != null) {
+                    paintCell(g, cell, getCellBounds(column, row, bounds));
+                }
+            }
+        }
+    }
+
+    private void paintCell(Graphics g, DataCellView cell, Rectangle r) {
+        g.setColor(cell.getBackground());
+        g.fillRect(r.x, r.y, r.width, r.height);
+        final Border border = cell.getBorder();
+        Insets insets = null;
+        if (border != null) {
+            border.paintBorder(this, g, r.x, r.y, r.width, r.height);
+            insets = border.getBorderInsets(this);
+        }
+        final String text = cell.getText();
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        final int left = r.x + (insets == null ? 0 : insets.left);
+        final int top = r.y + (insets == null ? 0 : insets.top);
+        final int width = r.width - (insets == null ? 0 : insets.left + insets.right);
+        final int height = r.height - (insets == null ? 0 : insets.top + insets.bottom);
+        g.setFont(cell.getFont());
+        g.setColor(cell.getForeground());
+        final FontMetrics metrics = g.getFontMetrics();
+        final int textWidth = metrics.stringWidth(text);
+        final int x = left + (width - textWidth) / 2;
+        final int y = top + (height - metrics.getHeight()) / 2 + metrics.getAscent();
+        if (textWidth > width) {
+            // keep text that does not fit inside its cell
+            final Shape clip = g.getClip();
+            g.clipRect(left, top, width, height);
+            g.drawString(text, x, y);
+            g.setClip(clip);
+        }
+        else {
+            g.drawString(text, x, y);
+        }
+    }
+
+    // cells share out the size of the grid like a GridLayout
+    private Rectangle getCellBounds(int column, int row, Rectangle r) {
+        final int x = columnX(column);
+        final int y = rowY(row);
+        r.setBounds(x, y, columnX(column + 1) - x, rowY(row + 1) - y);
+        return r;
+    }
+
+    private int columnX(int column) {
+        return (int) ((long) column * getWidth() / columns);
+    }
+
+    private int rowY(int row) {
+        return (int) ((long) row * getHeight() / rows);
+    }
+
+    private int columnAt(int x) {
+        final int width = Math.max(getWidth(), 1);
+        int column = Math.max(0, Math.min(columns - 1, (int) ((long) x * columns / width)));
+        while (column > 0 && columnX(column) > x) column--;
+        while (column < columns - 1 && columnX(column + 1) <= x) column++;
+        return column;
+    }
+
+    private int rowAt(int y) {
+        final int height = Math.max(getHeight(), 1);
+        int row = Math.max(0, Math.min(rows - 1, (int) ((long) y * rows / height)));
+        while (row > 0 && rowY(row) > y) row--;
+        while (row < rows - 1 && rowY(row + 1) <= y) row++;
+        return row;
+    }
+
+    private DataCellView getCellAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
+            return null;
+        }
+        return cells[columnAt(x)][rowAt(y)];
+    }
+
+    private final class CellMouseHandler extends MouseAdapter {
+        // the cell a press started on receives the release, as a label would
+        private DataCellView pressed;
+        private DataCellView entered;
+
+        @Override
+        public void mousePressed(MouseEvent e) {
+            pressed = getCellAt(e.getX(), e.getY());
+            entered = pressed;
+            if (pressed != null) {
+                pressed.mousePressed(e);
+            }
+        }
+
+        @Override
+        public void mouseReleased(MouseEvent e) {
+            if (pressed != null) {
+                pressed.mouseReleased(e);
+                pressed = null;
+            }
+        }
+
+        @Override
+        public void mouseEntered(MouseEvent e) {
+            enter(e);
+        }
+
+        @Override
+        public void mouseExited(MouseEvent e) {
+            entered = null;
+        }
+
+        @Override
+        public void mouseMoved(MouseEvent e) {
+            enter(e);
+        }
+
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            enter(e);
+        }
+
+        private void enter(MouseEvent e) {
+            final DataCellView cell = getCellAt(e.getX(), e.getY());
+            if (cell != entered) {
+                entered = cell;
+                if (cell != null) {
+                    cell.mouseEntered(e);
+                }
+            }
+        }
+    }
+}
@@ -35,7 +35,6 @@ import javax.swing.border.Border;
 
 import com.romraider.Settings;
 import com.romraider.editor.ecu.ECUEditorManager;
-import com.romraider.util.JEPUtil;
 import com.romraider.util.SettingsManager;
 
 public class DataCellView extends JLabel implements MouseListener, Serializable {
@@ -47,6 +46,8 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
     static final String TT_FORMAT = "#,##0.##########";
     static final String TT_PERCENT_FORMAT = "#,##0.0#########%";
     static final String REPLACE_TEXT = "\u0020|\u00a0";
+    // the pattern last applied to FORMATTER, parsing it again is costly
+    private static String formatterPattern;
     
     static int UNSELECT_MASK1 = MouseEvent.BUTTON1_DOWN_MASK + MouseEvent.CTRL_DOWN_MASK + MouseEvent.ALT_DOWN_MASK;
     static int UNSELECT_MASK2 = MouseEvent.BUTTON3_DOWN_MASK + MouseEvent.CTRL_DOWN_MASK + MouseEvent.ALT_DOWN_MASK;
@@ -56,6 +57,11 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
     
     private int x = 0;
     private int y = 0;
+
+    // the grid painting this cell, if it is not a component of the view
+    private DataCellGrid grid;
+    private int gridColumn;
+    private int gridRow;
     
 
     private boolean highlighted = false;
@@ -99,6 +105,13 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
     	return dataCell;
     }
     
+    private static void applyPattern(String pattern) {
+        if (!pattern.equals(formatterPattern)) {
+            FORMATTER.applyPattern(pattern);
+            formatterPattern = pattern;
+        }
+    }
+
     private static Settings getSettings() {
         return SettingsManager.getSettings();
     }
@@ -113,12 +126,24 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
         //this.invalidate();
         setFont(getSettings().getTableFont());
         setText(getCellText());
-        setToolTipText(getCellToolTip());
+        // a grid asks for the tool tip of the cell under the pointer
+        if (grid == null) {
+            setToolTipText(getCellToolTip());
+        }
         setBackground(getCellBackgroundColor());
         setForeground(getCellTextColor());
         setBorder(getCellBorder());
         //this.validate();   
         //super.repaint();
+        if (grid != null) {
+            grid.repaintCell(gridColumn, gridRow);
+        }
+    }
+
+    void setGrid(DataCellGrid grid, int column, int row) {
+        this.grid = grid;
+        this.gridColumn = column;
+        this.gridRow = row;
     }
 
     private Color getCellBackgroundColor() {
@@ -207,7 +232,7 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
         } else {
         	tableView.startHighlight(x, y);
         }
-        requestFocus();
+        e.getComponent().requestFocus();
         ECUEditorManager.getECUEditor().getTableToolBar().updateTableToolBar(dataCell.getTable());
     }
 
@@ -281,7 +306,7 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
             return getStaticText();
         }
                
-        FORMATTER.applyPattern(tableView.getTable().getCurrentScale().getFormat());
+        applyPattern(tableView.getTable().getCurrentScale().getFormat());
         String displayString = "";
 
         if (null == tableView.getTable().getCompareTable()) {
@@ -289,7 +314,7 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
         } else if (tableView.getCompareDisplay() == Settings.CompareDisplay.ABSOLUTE) {
             displayString = FORMATTER.format(dataCell.getRealCompareValue());
         } else if (tableView.getCompareDisplay() == Settings.CompareDisplay.PERCENT) {
-            FORMATTER.applyPattern(PERCENT_FORMAT);
+            applyPattern(PERCENT_FORMAT);
             if (dataCell.getCompareValue() == 0.0) {
                 displayString = FORMATTER.format(0.0);
             } else {
@@ -305,18 +330,18 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
         return displayString;
     }
 
-    private String getCellToolTip() {
+    String getCellToolTip() {
         if(tableView.getTable().isStaticDataTable()) {
             return getStaticText();
         }
         String ttString = null;
-        FORMATTER.applyPattern(TT_FORMAT);
+        applyPattern(TT_FORMAT);
         if (null == tableView.getTable().getCompareTable()) {
             ttString = FORMATTER.format(dataCell.getRealValue());
         } else if (tableView.getCompareDisplay() == Settings.CompareDisplay.ABSOLUTE) {
             ttString = FORMATTER.format(dataCell.getRealCompareValue());
         } else if (tableView.getCompareDisplay() == Settings.CompareDisplay.PERCENT) {
-            FORMATTER.applyPattern(TT_PERCENT_FORMAT);
+            applyPattern(TT_PERCENT_FORMAT);
             if (dataCell.getCompareValue() == 0.0) {
                 ttString = FORMATTER.format(0.0);
             } else {
@@ -383,9 +408,9 @@ public class DataCellView extends JLabel implements MouseListener, Serializable
     public String getStaticText() {
         String displayString = null;
         try {
-            FORMATTER.applyPattern(tableView.getTable().getCurrentScale().getFormat());
+            applyPattern(tableView.getTable().getCurrentScale().getFormat());
             double staticDouble = Double.parseDouble(dataCell.getStaticText());
-            displayString = FORMATTER.format(JEPUtil.evaluate(tableView.getTable().getCurrentScale().getExpression(), staticDouble));
+            displayString = FORMATTER.format(tableView.getTable().getCurrentScale().getCompiledExpression().evaluate(staticDouble));
         } catch (Exception ex) {
             displayString = dataCell.getStaticText();
         }
@@ -27,11 +27,32 @@ import com.romraider.util.ByteUtil;
 public class PresetManager {
 	private LinkedList<PresetEntry> presets = new LinkedList<PresetEntry>();
 	private Table table;
+	//Entries are shared with the manager this one was copied from until modified
+	private boolean shared = false;
 
 	public PresetManager(Table t){
 		table = t;
 	}
 
+	private PresetManager(Table t, PresetManager base){
+		table = t;
+		presets = base.presets;
+		shared = true;
+		base.shared = true;
+	}
+
+	//Returns a manager for the copied table t with the same presets
+	public PresetManager copy(Table t) {
+		return new PresetManager(t, this);
+	}
+
+	private void copyOnWrite() {
+		if (shared) {
+			presets = new LinkedList<PresetEntry>(presets);
+			shared = false;
+		}
+	}
+
 	public class PresetEntry {
 		int dataCellOffset = 0;
 		String name;
@@ -113,6 +134,7 @@ public class PresetManager {
 	public void setPresetValues(String name, String data, int dataCellOffset, boolean isBitMask) {
 		PresetEntry entry = createPresetEntryValue(name, data, dataCellOffset, isBitMask);
 
+		copyOnWrite();
 		presets.add(entry);
 	}
 
@@ -121,6 +143,7 @@ public class PresetManager {
 		PresetEntry oldEntry = null;
 		PresetEntry newEntry = createPresetEntryValue(name, data, dataCellOffset, isBitMask);
 
+		copyOnWrite();
 		for (int i = 0; i < presets.size(); i++) {
 			if (presets.get(i).name.equalsIgnoreCase(newEntry.name)){
 				oldEntry = presets.set(i, newEntry);
@@ -37,11 +37,19 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ResourceBundle;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.regex.PatternSyntaxException;
 
 import javax.swing.JOptionPane;
@@ -51,23 +59,26 @@ import javax.swing.tree.TreeNode;
 import javax.swing.tree.TreePath;
 
 import org.apache.log4j.Logger;
-import org.w3c.dom.Document;
 
 import com.romraider.Settings;
 import com.romraider.dataflowSimulation.DataflowSimulation;
 import com.romraider.editor.ecu.ECUEditorManager;
 import com.romraider.logger.ecu.ui.handler.table.TableUpdateHandler;
 import com.romraider.maps.checksum.ChecksumManager;
+import com.romraider.maps.checksum.DirtyRegions;
+import com.romraider.maps.checksum.IncrementalChecksum;
 import com.romraider.swing.CategoryTreeNode;
 import com.romraider.swing.JProgressPane;
 import com.romraider.swing.TableFrame;
 import com.romraider.swing.TableTreeNode;
 import com.romraider.util.ResourceUtil;
 import com.romraider.util.SettingsManager;
+import com.romraider.util.ThreadUtil;
 
 public class Rom extends DefaultMutableTreeNode implements Serializable  {
     private static final long serialVersionUID = 7865405179738828128L;
     private static final Logger LOGGER = Logger.getLogger(Rom.class);
+    private static final int MIN_TABLES_PER_TASK = 16;
     private static final ResourceBundle rb = new ResourceUtil().getBundle(
             Rom.class.getName());
 
@@ -76,7 +87,6 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
     private String fileName = "";
     private File fullFileName = new File(".");
     private byte[] binData;
-    private Document doc;
     
     // This is currently only used for unit testing
     // It could however be used to create a list of faulty tables instead
@@ -85,11 +95,17 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
 
     //This keeps track of DataCells on a byte level
     //This might also be possible to achieve by using the same Data Tables
-    protected HashMap<Integer, LinkedList<DataCell>> byteCellMapping = new HashMap<Integer, LinkedList<DataCell>>();
+    protected ByteCellMapping byteCellMapping = new ByteCellMapping();
     
     private final LinkedHashMap<String, TableTreeNode> tableNodes = new LinkedHashMap<String, TableTreeNode>();
+    //Tables populated on demand, in the order they were populated
+    private final LinkedHashSet<Table> populatedTables = new LinkedHashSet<Table>();
     private final LinkedList<DataflowSimulation> simulations = new LinkedList<DataflowSimulation>();
     private LinkedList<ChecksumManager> checksumManagers = new LinkedList<ChecksumManager>();
+    private List<Future<Integer>> checksumResults;
+    //Writes to the image since it was opened, so checksums are only
+    //recalculated over the blocks changed since the last save
+    private DirtyRegions dirtyRegions;
 
     private final Settings settings = SettingsManager.getSettings();
 
@@ -269,7 +285,7 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
                 rb.getString("ECUDEFERROR"), JOptionPane.ERROR_MESSAGE);
     }
 
-    private void handleException(Table table, Exception e, boolean isOutOfBounds)
+    private synchronized void handleException(Table table, Exception e, boolean isOutOfBounds)
     {
         boolean isTesting = SettingsManager.getTesting();
         
@@ -287,43 +303,71 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
         faultyTables.add(table.getName());
     }
     
+    /**
+     * Populate the tables of this ROM from the image.  Tables are
+     * independent and only read the image, so they are populated in chunks
+     * on a worker pool while the checksums are validated next to them.
+     */
     public void populateTables(byte[] binData, JProgressPane progress) {
         this.binData = binData;
-        int size = tableNodes.size();
-        int i = 0;
+        dirtyRegions = new DirtyRegions(binData.length);
+        for (ChecksumManager cm : checksumManagers) {
+            attachDirtyRegions(cm);
+        }
         faultyTables.clear();
+        populatedTables.clear();
+        progress.update(rb.getString("POPTABLES"), 0);
+
+        final List<Table> tables = new ArrayList<Table>(tableNodes.size());
+        for (Iterator<TableTreeNode> it = tableNodes.values().iterator(); it.hasNext();) {
+            final Table table = it.next().getTable();
+            if (table.getStorageAddress() >= 0) {
+                tables.add(table);
+            }
+            else {
+                it.remove();
+            }
+        }
 
-        for(String name: tableNodes.keySet()) {
-            // update progress
-            int currProgress = (int) (i / (double) size * 100);
-            progress.update(rb.getString("POPTABLES"), currProgress);
-
-            Table table = tableNodes.get(name.toLowerCase()).getTable();
-            try {
-                if (table.getStorageAddress() >= 0) {
-                    try {
-                        table.populateTable(this);
-                        TableUpdateHandler.getInstance().registerTable(table);
-
-                        if (null != table.getName() && table.getName().equalsIgnoreCase("Checksum Fix")){
-                            setEditStamp(binData, table.getStorageAddress() - table.getRamOffset());
-                        }
-                        i++;
-                    } catch (ArrayIndexOutOfBoundsException ex) {
-                    	handleException(table, ex, true);
-                        size--;
-                    } catch (IndexOutOfBoundsException iex) {
-                    	handleException(table, iex, true);
-                        size--;
+        final ExecutorService pool = ThreadUtil.newWorkerPool("Populate Tables");
+        try {
+            startChecksumValidation(pool);
+
+            final CompletionService<Integer> completion =
+                    new ExecutorCompletionService<Integer>(pool);
+            final int chunkSize = Math.max(MIN_TABLES_PER_TASK,
+                    tables.size() / (Runtime.getRuntime().availableProcessors() * 8));
+            int tasks = 0;
+            for (int i = 0; i < tables.size(); i += chunkSize) {
+                final List<Table> chunk =
+                        tables.subList(i, Math.min(i + chunkSize, tables.size()));
+                completion.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        populateTables(chunk);
+                        return chunk.size();
                     }
-                } else {
-                    tableNodes.remove(table.getName().toLowerCase());
-                    size--;
-                }
+                });
+                tasks++;
+            }
 
-            } catch (NullPointerException ex) {
-            	handleException(table, ex, false);
-                size--;
+            int done = 0;
+            for (int i = 0; i < tasks; i++) {
+                done += getResult(completion.take());
+                progress.update(rb.getString("POPTABLES"),
+                        (int) (done / (double) tables.size() * 100));
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            pool.shutdown();
+        }
+
+        for (Table table : tables) {
+            if (isChecksumFixTable(table) && !faultyTables.contains(table.getName())) {
+                setEditStamp(binData, table.getStorageAddress() - table.getRamOffset());
             }
         }
 
@@ -332,6 +376,102 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
         }
     }
 
+    private void populateTables(List<Table> tables) {
+        final boolean onDemand = settings.isPopulateTablesOnDemand();
+        for (Table table : tables) {
+            try {
+                // The checksum fix table is needed for the edit stamp
+                if (onDemand && !isChecksumFixTable(table)) {
+                    table.setPopulationPending(true);
+                }
+                else {
+                    table.populateTable(this);
+                }
+                TableUpdateHandler.getInstance().registerTable(table);
+            } catch (ArrayIndexOutOfBoundsException ex) {
+                handleException(table, ex, true);
+            } catch (IndexOutOfBoundsException iex) {
+                handleException(table, iex, true);
+            } catch (NullPointerException ex) {
+                handleException(table, ex, false);
+            }
+        }
+    }
+
+    // unwrap the result of a task, rethrowing anything it failed with
+    private static int getResult(Future<Integer> result) throws InterruptedException {
+        try {
+            return result.get();
+        }
+        catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static boolean isChecksumFixTable(Table table) {
+        return null != table.getName() && table.getName().equalsIgnoreCase("Checksum Fix");
+    }
+
+    /**
+     * Populate a table whose cells were not read when the ROM was opened.
+     * The cells of the tables populated first are released again once more
+     * tables than the configured table cache size are populated, as long
+     * as those tables are closed, unmodified and not compared.
+     * @return false if the table could not be populated, it is removed
+     * from this ROM in that case
+     */
+    public boolean populateTable(Table table) {
+        if (!table.isPopulationPending()) {
+            return true;
+        }
+        table.setPopulationPending(false);
+        try {
+            table.populateTable(this);
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            removeFaultyTable(table, ex, true);
+            return false;
+        } catch (IndexOutOfBoundsException iex) {
+            removeFaultyTable(table, iex, true);
+            return false;
+        } catch (NullPointerException ex) {
+            removeFaultyTable(table, ex, false);
+            return false;
+        }
+        populatedTables.add(table);
+        releasePopulatedTables(table);
+        return true;
+    }
+
+    private void removeFaultyTable(Table table, Exception e, boolean isOutOfBounds) {
+        handleException(table, e, isOutOfBounds);
+        byteCellMapping.remove(table);
+        TableUpdateHandler.getInstance().deregisterTable(table);
+        removeTableByName(table);
+    }
+
+    private void releasePopulatedTables(Table keep) {
+        final int capacity = Math.max(settings.getTableCacheSize(), 1);
+        final Iterator<Table> iterator = populatedTables.iterator();
+        while (populatedTables.size() > capacity && iterator.hasNext()) {
+            final Table table = iterator.next();
+            final TableFrame frame = table.getTableFrame();
+            if (table == keep || (frame != null && !frame.isClosed()) ||
+                    table.getCompareTable() != null || table.isModified()) {
+                continue;
+            }
+            iterator.remove();
+            byteCellMapping.remove(table);
+            table.releaseCells();
+        }
+    }
+
     private void setEditStamp(byte[] binData, int address) {
         byte[] stampData = new byte[4];
         System.arraycopy(binData, address+204, stampData, 0, stampData.length);
@@ -366,13 +506,6 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
         return binData;
     }
 
-    public void setDocument(Document d) {
-        this.doc = d;
-    }
-    public Document getDocument() {
-        return this.doc;
-    }
-
     public void setDefinitionPath(File s) {
         definitionPath = s;
     }
@@ -448,6 +581,10 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
             }
         }
 
+        for (TableTreeNode checksum : checksumTables) {
+            markChecksumTable(checksum.getTable());
+        }
+
         if (checksumTables.size() == 1) {
             final TableTreeNode checksum = checksumTables.get(0);
             int binDataPos = checksum.getTable().getStorageAddress() -
@@ -523,15 +660,15 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
         }
 
         clearByteMapping();
+        populatedTables.clear();
         checksumManagers.clear();
+        checksumResults = null;
+        dirtyRegions = null;
         tableNodes.clear();
         binData = null;
-        doc = null;
     }
 
     public void clearByteMapping() {
-        for(List<?> l: byteCellMapping.values())l.clear();
-
         byteCellMapping.clear();
         byteCellMapping = null;
     }
@@ -556,26 +693,88 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
 
     public void addChecksumManager(ChecksumManager checksumManager) {
         this.checksumManagers.add(checksumManager);
+        attachDirtyRegions(checksumManager);
+    }
+
+    private void attachDirtyRegions(ChecksumManager checksumManager) {
+        if (dirtyRegions != null && checksumManager instanceof IncrementalChecksum) {
+            ((IncrementalChecksum) checksumManager).setDirtyRegions(dirtyRegions);
+        }
+    }
+
+    /**
+     * Record a write to the image, so the checksums covering it are
+     * recalculated on save.
+     * @param offset - the offset of the first byte written
+     * @param length - the number of bytes written
+     */
+    public void markDirty(int offset, int length) {
+        if (dirtyRegions != null) {
+            dirtyRegions.mark(offset, length);
+        }
+    }
+
+    // the edit stamp and the Subaru checksums are written into the
+    // checksum fix table on save
+    private void markChecksumTable(Table table) {
+        markDirty(table.getStorageAddress() - table.getRamOffset(),
+                Math.max(table.getDataSize(), 208));
     }
 
     public int getNumChecksumsManagers() {
         return checksumManagers.size();
     }
 
+    /**
+     * Validate every checksum manager of this ROM on its own thread.  The
+     * results are collected by {@link #validateChecksum()}.
+     */
+    private void startChecksumValidation(ExecutorService pool) {
+        final byte[] data = binData;
+        checksumResults = new ArrayList<Future<Integer>>(checksumManagers.size());
+        for (final ChecksumManager cm : checksumManagers) {
+            checksumResults.add(pool.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return cm.validate(data);
+                }
+            }));
+        }
+    }
+
     public int validateChecksum() {
         int correctChecksums = 0;
         boolean valid = true;
 
-        if (!checksumManagers.isEmpty()) {
-            for(ChecksumManager cm: checksumManagers) {
-                int localCorrectCs = cm.validate(binData);
+        // validation was started while the tables were populated
+        if (checksumResults == null) {
+            final ExecutorService pool = ThreadUtil.newWorkerPool("Validate Checksums");
+            try {
+                startChecksumValidation(pool);
+            }
+            finally {
+                pool.shutdown();
+            }
+        }
 
-                if (cm == null || cm.getNumberOfChecksums() != localCorrectCs) {
+        try {
+            final Iterator<Future<Integer>> results = checksumResults.iterator();
+            for (ChecksumManager cm : checksumManagers) {
+                int localCorrectCs = getResult(results.next());
+
+                if (cm.getNumberOfChecksums() != localCorrectCs) {
                     valid = false;
                 }
                 correctChecksums += localCorrectCs;
             }
         }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            valid = false;
+        }
+        finally {
+            checksumResults = null;
+        }
 
         if(!valid) {
             showMessageDialog(null,
@@ -592,6 +791,10 @@ public class Rom extends DefaultMutableTreeNode implements Serializable  {
 
         for(ChecksumManager cm: checksumManagers) {
             updatedCs += cm.update(binData);
+            // writes of other checksums are unknown, assume any byte changed
+            if (!(cm instanceof IncrementalChecksum) && dirtyRegions != null) {
+                dirtyRegions.markAll();
+            }
         }
 
         ECUEditorManager.getECUEditor().getStatusPanel().setStatus(
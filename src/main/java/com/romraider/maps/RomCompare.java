@@ -0,0 +1,460 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.romraider.swing.TableTreeNode;
+import com.romraider.util.ThreadUtil;
+
+/**
+ * Compares the tables of two ROM images.  Tables are joined by their names
+ * and the cells of plain 1D, 2D and 3D tables are read straight from the
+ * two images on a worker pool, without populating the tables, so this can
+ * run off the event dispatch thread.  Other tables, such as switches and
+ * static tables, are populated and compared cell by cell.  Populating a
+ * table is not thread safe, so that must run on the event dispatch thread.
+ */
+public final class RomCompare {
+    private static final int MIN_TABLES_PER_TASK = 16;
+
+    /**
+     * Receives the result of each table as soon as it is known.
+     */
+    public interface Listener {
+        /**
+         * Called on the thread running the compare.
+         */
+        void compared(TableDiff diff);
+    }
+
+    private RomCompare() {
+    }
+
+    /**
+     * Compare every table, populating tables where needed.  Must be called
+     * on the event dispatch thread.
+     * @param left - the image compared
+     * @param right - the image compared to
+     * @param listener - receives each result as it is known, may be null
+     * @return the result of every table in either image
+     */
+    public static List<TableDiff> compare(Rom left, Rom right, Listener listener)
+            throws InterruptedException {
+        final List<TableDiff> diffs = compareImages(left, right, listener);
+        diffs.addAll(comparePopulated(left, right, listener));
+        return diffs;
+    }
+
+    /**
+     * Compare the tables read from the images and report the missing ones.
+     * Nothing is populated, so this may be called on any thread.
+     * @param left - the image compared
+     * @param right - the image compared to
+     * @param listener - receives each result as it is known, may be null
+     * @return the result of these tables
+     */
+    public static List<TableDiff> compareImages(final Rom left, final Rom right, Listener listener)
+            throws InterruptedException {
+        final Map<String, TableTreeNode> leftNodes = left.getTableNodes();
+        final Map<String, TableTreeNode> rightNodes = right.getTableNodes();
+        final List<TableDiff> diffs = new ArrayList<TableDiff>(leftNodes.size());
+
+        // the table nodes are keyed by the lower case name
+        for (Map.Entry<String, TableTreeNode> entry : leftNodes.entrySet()) {
+            if (!rightNodes.containsKey(entry.getKey())) {
+                add(diffs, TableDiff.missing(entry.getValue().getTable().getName()), listener);
+            }
+        }
+        for (Map.Entry<String, TableTreeNode> entry : rightNodes.entrySet()) {
+            if (!leftNodes.containsKey(entry.getKey())) {
+                add(diffs, TableDiff.missing(entry.getValue().getTable().getName()), listener);
+            }
+        }
+
+        final List<Table[]> imagePairs = pairs(left, right, true);
+        final ExecutorService pool = ThreadUtil.newWorkerPool("Compare Images");
+        try {
+            final CompletionService<List<TableDiff>> completion =
+                    new ExecutorCompletionService<List<TableDiff>>(pool);
+            final int chunkSize = Math.max(MIN_TABLES_PER_TASK,
+                    imagePairs.size() / (Runtime.getRuntime().availableProcessors() * 8));
+            int tasks = 0;
+            for (int i = 0; i < imagePairs.size(); i += chunkSize) {
+                final List<Table[]> chunk =
+                        imagePairs.subList(i, Math.min(i + chunkSize, imagePairs.size()));
+                completion.submit(new Callable<List<TableDiff>>() {
+                    @Override
+                    public List<TableDiff> call() {
+                        final List<TableDiff> results = new ArrayList<TableDiff>(chunk.size());
+                        for (Table[] pair : chunk) {
+                            results.add(compareImages(left, pair[0], right, pair[1]));
+                        }
+                        return results;
+                    }
+                });
+                tasks++;
+            }
+
+            for (int i = 0; i < tasks; i++) {
+                for (TableDiff diff : getResult(completion.take())) {
+                    add(diffs, diff, listener);
+                }
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+        return diffs;
+    }
+
+    /**
+     * Compare the tables which cannot be read from the images by populating
+     * them.  Must be called on the event dispatch thread.
+     * @param left - the image compared
+     * @param right - the image compared to
+     * @param listener - receives each result as it is known, may be null
+     * @return the result of these tables
+     */
+    public static List<TableDiff> comparePopulated(Rom left, Rom right, Listener listener) {
+        final List<TableDiff> diffs = new ArrayList<TableDiff>();
+        for (Table[] pair : pairs(left, right, false)) {
+            add(diffs, compareCells(pair[0], pair[1]), listener);
+        }
+        return diffs;
+    }
+
+    // the tables of the same name in both images, which are or are not
+    // read from the images
+    private static List<Table[]> pairs(Rom left, Rom right, boolean fromImage) {
+        final Map<String, TableTreeNode> rightNodes = right.getTableNodes();
+        final List<Table[]> pairs = new ArrayList<Table[]>();
+        for (Map.Entry<String, TableTreeNode> entry : left.getTableNodes().entrySet()) {
+            final TableTreeNode rightNode = rightNodes.get(entry.getKey());
+            if (rightNode == null) {
+                continue;
+            }
+            final Table[] pair = {entry.getValue().getTable(), rightNode.getTable()};
+            final boolean readable = isReadable(left, pair[0]) && isReadable(right, pair[1])
+                    && isSameLayout(pair[0], pair[1]);
+            if (readable == fromImage) {
+                pairs.add(pair);
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Write the results as comma separated values, one line per table.
+     */
+    public static void writeCsv(List<TableDiff> diffs, Writer writer) throws IOException {
+        writer.write("Table,Status,Cells,Changed Cells,Changed %,Axes Changed,Max Delta,Units\n");
+        for (TableDiff diff : diffs) {
+            writer.write(String.format("%s,%s,%d,%d,%.1f,%b,%s,%s%n",
+                    quote(diff.getName()), diff.getStatus(), diff.getCells(),
+                    diff.getChangedCells(), diff.getPercentChanged(),
+                    diff.isAxesChanged(), diff.getMaxDelta(), quote(diff.getUnits())));
+        }
+        writer.flush();
+    }
+
+    private static String quote(String text) {
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private static void add(List<TableDiff> diffs, TableDiff diff, Listener listener) {
+        diffs.add(diff);
+        if (listener != null) {
+            listener.compared(diff);
+        }
+    }
+
+    private static TableDiff compareImages(Rom leftRom, Table left, Rom rightRom, Table right) {
+        final Cells leftCells = Cells.of(leftRom, left);
+        final Cells rightCells = Cells.of(rightRom, right);
+        final double[] maxDelta = new double[1];
+        final int changed = compare(leftCells, rightCells, maxDelta);
+
+        boolean axesChanged = false;
+        if (left instanceof Table2D) {
+            axesChanged = compare(Cells.of(leftRom, ((Table2D) left).getAxis()),
+                    Cells.of(rightRom, ((Table2D) right).getAxis()), new double[1]) > 0;
+        }
+        else if (left instanceof Table3D) {
+            final Table3D left3D = (Table3D) left;
+            final Table3D right3D = (Table3D) right;
+            axesChanged = compare(Cells.of(leftRom, left3D.getXAxis()),
+                    Cells.of(rightRom, right3D.getXAxis()), new double[1]) > 0
+                    || compare(Cells.of(leftRom, left3D.getYAxis()),
+                    Cells.of(rightRom, right3D.getYAxis()), new double[1]) > 0;
+        }
+
+        final TableDiff.Status status = changed > 0 || axesChanged
+                ? TableDiff.Status.CHANGED : TableDiff.Status.EQUAL;
+        return new TableDiff(left.getName(), status, leftCells.count, changed,
+                axesChanged, maxDelta[0], units(left));
+    }
+
+    // the number of cells with different raw values
+    private static int compare(Cells left, Cells right, double[] maxDelta) {
+        if (left.count != right.count) {
+            return Math.max(left.count, right.count);
+        }
+        final Table a = left.table;
+        final Table b = right.table;
+        if (a.getBitMask() != b.getBitMask()) {
+            return left.count;
+        }
+        // equal bytes hold equal values, a cell is only decoded if they differ
+        final boolean sameEncoding = left.cellLength == right.cellLength
+                && a.getStorageType() == b.getStorageType()
+                && a.getEndian() == b.getEndian()
+                && a.isSignedData() == b.isSignedData()
+                && a.getMemModelEndian() == b.getMemModelEndian();
+        int changed = 0;
+        for (int i = 0; i < left.count; i++) {
+            final int leftAddress = left.address(i);
+            final int rightAddress = right.address(i);
+            if (sameEncoding && equalBytes(left.image, leftAddress,
+                    right.image, rightAddress, left.cellLength)) {
+                continue;
+            }
+            final double leftValue = a.readBinValue(left.image, leftAddress, a.getBitMask());
+            final double rightValue = b.readBinValue(right.image, rightAddress, b.getBitMask());
+            if (leftValue != rightValue) {
+                changed++;
+                final double delta = Math.abs(toReal(a, leftValue) - toReal(b, rightValue));
+                if (delta > maxDelta[0]) {
+                    maxDelta[0] = delta;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static boolean equalBytes(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[aOffset + i] != b[bOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static TableDiff compareCells(Table left, Table right) {
+        if (!left.ensurePopulated() || !right.ensurePopulated()) {
+            return new TableDiff(left.getName(), TableDiff.Status.CHANGED,
+                    0, 0, false, 0.0, units(left));
+        }
+        final double[] maxDelta = new double[1];
+        final DataCell[] leftData = cells(left);
+        final DataCell[] rightData = cells(right);
+        final int changed = columns(left) == columns(right)
+                ? compare(leftData, rightData, maxDelta)
+                : Math.max(leftData.length, rightData.length);
+
+        boolean axesChanged = false;
+        if (left instanceof Table2D && right instanceof Table2D) {
+            axesChanged = compare(((Table2D) left).getAxis().getData(),
+                    ((Table2D) right).getAxis().getData(), new double[1]) > 0;
+        }
+        else if (left instanceof Table3D && right instanceof Table3D) {
+            final Table3D left3D = (Table3D) left;
+            final Table3D right3D = (Table3D) right;
+            axesChanged = compare(left3D.getXAxis().getData(),
+                    right3D.getXAxis().getData(), new double[1]) > 0
+                    || compare(left3D.getYAxis().getData(),
+                    right3D.getYAxis().getData(), new double[1]) > 0;
+        }
+
+        final TableDiff.Status status = changed > 0 || axesChanged
+                || left.getClass() != right.getClass()
+                ? TableDiff.Status.CHANGED : TableDiff.Status.EQUAL;
+        return new TableDiff(left.getName(), status, leftData.length, changed,
+                axesChanged, maxDelta[0], units(left));
+    }
+
+    // the cells of a populated table, 3D tables by row as displayed
+    private static DataCell[] cells(Table table) {
+        if (!(table instanceof Table3D)) {
+            return table.getData();
+        }
+        final DataCell[][] data = ((Table3D) table).get3dData();
+        final int columns = data.length;
+        final int rows = columns == 0 ? 0 : data[0].length;
+        final DataCell[] cells = new DataCell[columns * rows];
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                cells[y * columns + x] = data[x][y];
+            }
+        }
+        return cells;
+    }
+
+    private static int columns(Table table) {
+        return table instanceof Table3D ? ((Table3D) table).get3dData().length : 1;
+    }
+
+    // the number of populated cells with different values
+    private static int compare(DataCell[] left, DataCell[] right, double[] maxDelta) {
+        if (left.length != right.length) {
+            return Math.max(left.length, right.length);
+        }
+        int changed = 0;
+        for (int i = 0; i < left.length; i++) {
+            if (!left[i].equals(right[i])) {
+                changed++;
+                final double delta = Math.abs(left[i].getRealValue() - right[i].getRealValue());
+                if (delta > maxDelta[0]) {
+                    maxDelta[0] = delta;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private static double toReal(Table table, double value) {
+        final Scale scale = table.getCurrentScale();
+        return scale == null ? value : scale.getCompiledExpression().evaluate(value);
+    }
+
+    private static String units(Table table) {
+        final Scale scale = table.getCurrentScale();
+        return scale == null || scale.getUnit() == null ? "" : scale.getUnit();
+    }
+
+    // only plain tables whose cells and axes lie in the image are read
+    private static boolean isReadable(Rom rom, Table table) {
+        final Class<?> type = table.getClass();
+        if (type == Table2D.class) {
+            return isReadableCells(rom, table)
+                    && isReadable(rom, ((Table2D) table).getAxis());
+        }
+        if (type == Table3D.class) {
+            final Table3D table3D = (Table3D) table;
+            return isReadableCells(rom, table)
+                    && isReadable(rom, table3D.getXAxis())
+                    && isReadable(rom, table3D.getYAxis());
+        }
+        return type == Table1D.class && isReadableCells(rom, table);
+    }
+
+    private static boolean isReadableCells(Rom rom, Table table) {
+        if (table.isStaticDataTable()
+                || table.getDataLayout() == Table.DataLayout.BOSCH_SUBTRACT
+                || table.getCellByteLength() <= 0) {
+            return false;
+        }
+        final Cells cells = Cells.of(rom, table);
+        return cells.count == 0 || (cells.address(0) >= 0
+                && cells.address(cells.count - 1) + cells.cellLength <= cells.image.length);
+    }
+
+    // cells are paired in storage order, which must mean the same cell
+    private static boolean isSameLayout(Table left, Table right) {
+        if (left.getClass() != right.getClass()) {
+            return false;
+        }
+        if (left instanceof Table3D) {
+            final Table3D left3D = (Table3D) left;
+            final Table3D right3D = (Table3D) right;
+            return left3D.getSwapXY() == right3D.getSwapXY()
+                    && left3D.getFlipX() == right3D.getFlipX()
+                    && left3D.getFlipY() == right3D.getFlipY();
+        }
+        return true;
+    }
+
+    private static List<TableDiff> getResult(Future<List<TableDiff>> result)
+            throws InterruptedException {
+        try {
+            return result.get();
+        }
+        catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * The cells of a table in the image, in the order they are stored.
+     * 3D tables are stored in rows which may be followed by unused cells.
+     */
+    private static final class Cells {
+        final Table table;
+        final byte[] image;
+        final int offset;
+        final int count;
+        final int cellLength;
+        final int rowLength;
+        final int rowStride;
+
+        private Cells(Table table, byte[] image, int offset, int count,
+                int rowLength, int rowStride) {
+            this.table = table;
+            this.image = image;
+            this.offset = offset;
+            this.count = count;
+            this.cellLength = table.getCellByteLength();
+            this.rowLength = Math.max(1, rowLength);
+            this.rowStride = rowStride;
+        }
+
+        static Cells of(Rom rom, Table table) {
+            if (table instanceof Table3D) {
+                final Table3D table3D = (Table3D) table;
+                final int rows = table3D.getSwapXY()
+                        ? table3D.getXAxis().getDataSize() : table3D.getYAxis().getDataSize();
+                final int columns = table3D.getSwapXY()
+                        ? table3D.getYAxis().getDataSize() : table3D.getXAxis().getDataSize();
+                return new Cells(table, rom.getBinary(), table.getImageOffset(rom),
+                        rows * columns, columns, columns + table3D.getSkipCells());
+            }
+            final int count = table.getDataSize();
+            return new Cells(table, rom.getBinary(), table.getImageOffset(rom),
+                    count, count, count);
+        }
+
+        int address(int index) {
+            final int row = index / rowLength;
+            final int column = index - row * rowLength;
+            return offset + (row * rowStride + column) * cellLength;
+        }
+    }
+}
@@ -24,7 +24,7 @@ package com.romraider.maps;
 import java.io.Serializable;
 import java.util.HashMap;
 
-import com.romraider.util.JEPUtil;
+import com.romraider.util.CompiledExpression;
 
 public class Scale implements Serializable {
 
@@ -40,10 +40,44 @@ public class Scale implements Serializable {
     private double fineIncrement = 1;
     private double min = 0.0;
     private double max = 0.0;
-    
-    HashMap<Double, Double> cachedValues = new HashMap<Double,Double>();
+    private transient CompiledExpression compiledExpression;
+    private transient CompiledExpression compiledByteExpression;
+
+    HashMap<Double, Double> cachedValues;
     int maxCacheSize = 100;
 
+    public Scale() {
+    }
+
+    /**
+     * Copy constructor used for scale inheritance.  Attribute values are
+     * immutable and the compiled expressions are shared with the base
+     * scale; the value cache is not.
+     */
+    private Scale(Scale base) {
+        this.category = base.category;
+        this.name = base.name;
+        this.unit = base.unit;
+        this.expression = base.expression;
+        this.byteExpression = base.byteExpression;
+        this.format = base.format;
+        this.coarseIncrement = base.coarseIncrement;
+        this.fineIncrement = base.fineIncrement;
+        this.min = base.min;
+        this.max = base.max;
+        this.compiledExpression = base.compiledExpression;
+        this.compiledByteExpression = base.compiledByteExpression;
+        this.maxCacheSize = base.maxCacheSize;
+    }
+
+    /**
+     * @return a copy of this scale which can be modified without
+     * affecting this one
+     */
+    public Scale copy() {
+        return new Scale(this);
+    }
+
     @Override
     public String toString() {
         return  "\n    ---- Scale ----" +
@@ -68,8 +102,8 @@ public class Scale implements Serializable {
 
         double startValue = 5;
         // convert real world value of "5"
-        double toReal = JEPUtil.evaluate(getExpression(), startValue);
-        double endValue = JEPUtil.evaluate(getByteExpression(), toReal);
+        double toReal = getCompiledExpression().evaluate(startValue);
+        double endValue = getCompiledByteExpression().evaluate(toReal);
 
         // if real to byte doesn't equal 5, report conflict
         if (Math.abs(endValue - startValue) > .001) return false;
@@ -79,7 +113,11 @@ public class Scale implements Serializable {
     public double approximateToByteFunction(double input, int storageType, boolean signed) {
     	
     	// Check if we already calculated this
-    	if(cachedValues.containsKey(input))
+    	if(cachedValues == null)
+    	{
+    		cachedValues = new HashMap<Double,Double>();
+    	}
+    	else if(cachedValues.containsKey(input))
     	{
     		return cachedValues.get(input);
     	}
@@ -103,9 +141,10 @@ public class Scale implements Serializable {
     	double epsilon = 0.00001;
     	double output = 0;
     	
+    	final CompiledExpression toReal = getCompiledExpression();
     	while(stepSize > 0 && error > epsilon) {  		
-    		double minusValue = JEPUtil.evaluate(getExpression(), currentStep-stepSize);
-    		double plusValue = JEPUtil.evaluate(getExpression(), currentStep+stepSize);
+    		double minusValue = toReal.evaluate(currentStep-stepSize);
+    		double plusValue = toReal.evaluate(currentStep+stepSize);
     		
     		double plusError = Math.abs(plusValue - input);
     		double minusError = Math.abs(minusValue - input);
@@ -135,7 +174,7 @@ public class Scale implements Serializable {
     		cachedValues.put(input, output);
     	}
     	
-    	//System.out.println("Input: " + input + " from approx: " + JEPUtil.evaluate(getExpression(), output));
+    	//System.out.println("Input: " + input + " from approx: " + getCompiledExpression().evaluate(output));
     	return currentStep;
     }
     
@@ -165,6 +204,20 @@ public class Scale implements Serializable {
 
     public void setExpression(String expression) {
         this.expression = expression;
+        this.compiledExpression = null;
+    }
+
+    /**
+     * @return the compiled form of the to real expression, shared by all
+     * scales using the same expression
+     */
+    public CompiledExpression getCompiledExpression() {
+        CompiledExpression compiled = compiledExpression;
+        if (compiled == null) {
+            compiled = CompiledExpression.compile(expression);
+            compiledExpression = compiled;
+        }
+        return compiled;
     }
 
     public double getCoarseIncrement() {
@@ -198,6 +251,22 @@ public class Scale implements Serializable {
     		this.byteExpression = null;
     	else
     		this.byteExpression = byteExpression;
+    	this.compiledByteExpression = null;
+    }
+
+    /**
+     * @return the compiled form of the to byte expression or null if
+     * this scale has no byte expression
+     */
+    public CompiledExpression getCompiledByteExpression() {
+        if (byteExpression == null) return null;
+
+        CompiledExpression compiled = compiledByteExpression;
+        if (compiled == null) {
+            compiled = CompiledExpression.compile(byteExpression);
+            compiledByteExpression = compiled;
+        }
+        return compiled;
     }
 
     public double getFineIncrement() {
@@ -0,0 +1,113 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+/**
+ * The real values of a table's cells in ascending order, each with the
+ * index of its cell, so that the cell matching a live value is found by
+ * binary search instead of converting every cell.
+ */
+final class SortedValues {
+    private final double[] values;
+    private final int[] indexes;
+
+    /**
+     * @param realValues - the real value of each cell, by cell index
+     */
+    SortedValues(double[] realValues) {
+        final int n = realValues.length;
+        values = new double[n];
+        indexes = new int[n];
+        // insertion sort keeps equal values in cell order, and axes are
+        // usually sorted already
+        for (int i = 0; i < n; i++) {
+            final double value = realValues[i];
+            int j = i;
+            while (j > 0 && values[j - 1] > value) {
+                values[j] = values[j - 1];
+                indexes[j] = indexes[j - 1];
+                j--;
+            }
+            values[j] = value;
+            indexes[j] = i;
+        }
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    /**
+     * @return the index of the cell closest to the value, the lowest cell
+     * index when several are equally close, or -1 if there are no cells
+     */
+    int nearest(double value) {
+        final int n = values.length;
+        if (n == 0) {
+            return -1;
+        }
+        final int above = lowerBound(value);
+        if (above == n) {
+            return indexes[lowerBound(values[n - 1])];
+        }
+        if (above == 0) {
+            return indexes[0];
+        }
+        final int below = lowerBound(values[above - 1]);
+        final double belowError = value - values[below];
+        final double aboveError = values[above] - value;
+        if (belowError < aboveError) {
+            return indexes[below];
+        }
+        if (aboveError < belowError) {
+            return indexes[above];
+        }
+        return Math.min(indexes[below], indexes[above]);
+    }
+
+    /**
+     * @return the index of the first cell equal to the value, else of the
+     * first cell with the largest value below it, -1 if the value is below
+     * all cells
+     */
+    int floor(double value) {
+        final int i = lowerBound(value);
+        if (i < values.length && values[i] == value) {
+            return indexes[i];
+        }
+        return i == 0 ? -1 : indexes[lowerBound(values[i - 1])];
+    }
+
+    // the position of the first value not less than the given one
+    private int lowerBound(double value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (values[mid] < value) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
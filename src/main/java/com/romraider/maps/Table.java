@@ -20,6 +20,7 @@
 package com.romraider.maps;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Vector;
 
 import javax.naming.NameNotFoundException;
@@ -29,9 +30,9 @@ import org.apache.log4j.Logger;
 import com.romraider.Settings;
 import com.romraider.swing.TableFrame;
 import com.romraider.util.ByteUtil;
-import com.romraider.util.JEPUtil;
 import com.romraider.util.NumberUtil;
 import com.romraider.util.SettingsManager;
+import com.romraider.xml.RomAttributeParser;
 
 public abstract class Table implements Serializable, Comparable<Table> {
     private static final long serialVersionUID = 6559256489995552645L;
@@ -46,6 +47,8 @@ public abstract class Table implements Serializable, Comparable<Table> {
     protected String category = "Other";
     protected String description = Settings.BLANK;
     protected Vector<Scale> scales = new Vector<Scale>();
+    //Scales are shared with the table this one was copied from until modified
+    private boolean scalesShared = false;
     protected Scale curScale;
     protected PresetManager presetManager;
 
@@ -59,6 +62,16 @@ public abstract class Table implements Serializable, Comparable<Table> {
     protected DataLayout dataLayout = DataLayout.DEFAULT;   //DataCell Ordering
     protected DataCell[] data = new DataCell[1];
 
+    //Cell values, indexed by the slot of each DataCell of this table
+    double[] binValues;
+    double[] originalValues;
+    double[] compareValues;
+    String[] liveValues;
+    //Real values in ascending order for live data lookups, built on demand
+    private volatile SortedValues sortedValues;
+    //Real values by cell index for table lookups, built on demand
+    private volatile double[] realValues;
+
     protected boolean beforeRam = false;
     protected int ramOffset = 0;
 
@@ -75,6 +88,7 @@ public abstract class Table implements Serializable, Comparable<Table> {
     protected Rom rom;
     protected boolean staticDataTable = false;
     private Table compareTable = null;
+    private boolean populationPending = false;
     protected Settings.DataType compareValueType = Settings.DataType.BIN;
 
     public enum DataLayout {
@@ -82,6 +96,58 @@ public abstract class Table implements Serializable, Comparable<Table> {
         BOSCH_SUBTRACT
     }
 
+    protected Table() {
+    }
+
+    /**
+     * Copy constructor used for table inheritance.  The definition values
+     * are immutable or shared with the base table until either table
+     * modifies them, only the cell array is allocated.  Cells are not
+     * populated yet when a definition is read, so only static cells are
+     * copied.
+     */
+    protected Table(Table base) {
+        this.name = base.name;
+        this.category = base.category;
+        this.description = base.description;
+        this.scales = base.scales;
+        this.scalesShared = true;
+        base.scalesShared = true;
+        this.curScale = base.curScale;
+        if (base.presetManager != null) {
+            this.presetManager = base.presetManager.copy(this);
+        }
+        this.tableBitMask = base.tableBitMask;
+        this.storageAddress = base.storageAddress;
+        this.storageType = base.storageType;
+        this.signed = base.signed;
+        this.endian = base.endian;
+        this.flip = base.flip;
+        this.dataLayout = base.dataLayout;
+        this.data = new DataCell[base.data.length];
+        for (int i = 0; i < data.length; i++) {
+            final DataCell cell = base.data[i];
+            if (cell != null && cell.getStaticText() != null) {
+                createCellValues(data.length);
+                data[i] = new DataCell(this, cell.getStaticText(), i);
+            }
+        }
+        this.beforeRam = base.beforeRam;
+        this.ramOffset = base.ramOffset;
+        this.userLevel = base.userLevel;
+        this.locked = base.locked;
+        this.logParam = base.logParam;
+        this.rom = base.rom;
+        this.staticDataTable = base.staticDataTable;
+        this.compareValueType = base.compareValueType;
+    }
+
+    /**
+     * @return a copy of this table's definition which can be modified
+     * without affecting this table
+     */
+    public abstract Table copy();
+
     public void setTableView(TableView v) {
         this.tableView = v;
     }
@@ -99,39 +165,268 @@ public abstract class Table implements Serializable, Comparable<Table> {
     }
 
     public DataCell[] getData() {
+        ensurePopulated();
         return data;
     }
 
     public void addStaticDataCell(String s) {
         setStaticDataTable(true);
-        DataCell c = new DataCell(this, s, null);
 
         for(int i = 0; i < data.length; i++) {
             if(data[i] == null) {
-                data[i] = c;
+                createCellValues(data.length);
+                data[i] = new DataCell(this, s, i);
                 break;
             }
         }
     }
 
+    /**
+     * Allocate the value arrays for <code>size</code> cells unless they
+     * already exist with that size.
+     */
+    protected void createCellValues(int size) {
+        valuesChanged();
+        if (binValues == null || binValues.length != size) {
+            binValues = new double[size];
+            originalValues = new double[size];
+            compareValues = new double[size];
+            liveValues = null;
+        }
+    }
+
+    //Live values are only allocated once a live data trace is shown
+    String[] getLiveValues() {
+        if (liveValues == null) {
+            liveValues = new String[binValues.length];
+            Arrays.fill(liveValues, Settings.BLANK);
+        }
+        return liveValues;
+    }
+
+    /**
+     * Discard the cached real values after a cell value or the scale
+     * has changed.
+     */
+    void valuesChanged() {
+        sortedValues = null;
+        realValues = null;
+    }
+
+    /**
+     * @return the real value of each cell by cell index, which must not
+     * be modified
+     */
+    double[] getRealValues() {
+        double[] values = realValues;
+        if (values == null) {
+            values = computeRealValues();
+            realValues = values;
+        }
+        return values;
+    }
+
+    protected double[] computeRealValues() {
+        final DataCell[] cells = getData();
+        final double[] values = new double[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            values[i] = cells[i].getRealValue();
+        }
+        return values;
+    }
+
+    /**
+     * @return the index of the last value of an ascending axis not above
+     * the input, 0 if there is none
+     */
+    static int lowerBreakpoint(double[] axis, double input, int length) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (axis[mid] <= input) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low == 0 || input != input ? 0 : low - 1;
+    }
+
+    /**
+     * @return the index of the first value of an ascending axis not below
+     * the input, the last index if there is none
+     */
+    static int upperBreakpoint(double[] axis, double input, int length) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (axis[mid] < input) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low == length || input != input ? length - 1 : low;
+    }
+
+    /**
+     * @return the real values of the cells in ascending order, or null if
+     * a cell is missing or a static cell does not hold a number
+     */
+    SortedValues getSortedValues() {
+        SortedValues values = sortedValues;
+        if (values == null) {
+            final DataCell[] cells = getData();
+            if (cells == null) {
+                return null;
+            }
+            final double[] realValues = new double[cells.length];
+            for (int i = 0; i < cells.length; i++) {
+                final DataCell cell = cells[i];
+                if (cell == null) {
+                    return null;
+                }
+                if (staticDataTable && null != cell.getStaticText()) {
+                    try {
+                        realValues[i] = Double.parseDouble(cell.getStaticText());
+                    } catch (NumberFormatException nex) {
+                        return null;
+                    }
+                }
+                else {
+                    realValues[i] = cell.getRealValue();
+                }
+            }
+            values = new SortedValues(realValues);
+            sortedValues = values;
+        }
+        return values;
+    }
+
+    /**
+     * @return the number of bytes of the ROM image holding one cell
+     */
+    public int getCellByteLength() {
+        if (storageType == Settings.STORAGE_TYPE_FLOAT) {
+            return 4;
+        }
+        else if (storageType == Settings.STORAGE_TYPE_MOVI20 ||
+                storageType == Settings.STORAGE_TYPE_MOVI20S) {
+            return 3;
+        }
+        return storageType;
+    }
+
+    /**
+     * @return the offset of the first cell in the ROM image, the RAM offset
+     * of the ROM is only copied to the table when it is populated
+     */
+    int getImageOffset(Rom rom) {
+        return storageAddress - (beforeRam ? ramOffset : rom.getRomID().getRamOffset());
+    }
+
+    /**
+     * Read the raw value of a cell from a ROM image, as the cell reads it
+     * when populated.
+     * @param image - the ROM image
+     * @param address - the offset of the cell in the image
+     * @param bitMask - the bits of the cell, 0 for all of them
+     */
+    double readBinValue(byte[] image, int address, int bitMask) {
+        if (storageType == Settings.STORAGE_TYPE_FLOAT) { //float storage type
+            byte[] byteValue = new byte[4];
+            System.arraycopy(image, address, byteValue, 0, 4);
+            return RomAttributeParser.byteToFloat(byteValue, endian, getMemModelEndian());
+        }
+        else if (storageType == Settings.STORAGE_TYPE_MOVI20 ||
+                storageType == Settings.STORAGE_TYPE_MOVI20S) { // when data is in MOVI20 instruction
+            return RomAttributeParser.parseByteValue(image, endian, address, storageType, signed);
+        }
+        else if (bitMask == 0) { // integer storage type
+            return RomAttributeParser.parseByteValue(image, endian, address, storageType, signed);
+        }
+        return RomAttributeParser.parseByteValueMasked(image, endian, address,
+                storageType, signed, bitMask);
+    }
+
+    /**
+     * @return true if the cells of this table have not been read from the
+     * ROM image yet
+     */
+    public boolean isPopulationPending() {
+        return populationPending;
+    }
+
+    public void setPopulationPending(boolean populationPending) {
+        this.populationPending = populationPending;
+    }
+
+    /**
+     * Read the cells of this table from the ROM image if that was deferred
+     * when the ROM was opened.
+     * @return false if the table could not be populated
+     */
+    public boolean ensurePopulated() {
+        if (!populationPending || rom == null) {
+            return true;
+        }
+        return rom.populateTable(this);
+    }
+
+    /**
+     * @return true if any cell differs from the value it had when it was
+     * read or last saved
+     */
+    public boolean isModified() {
+        return binValues != null && !Arrays.equals(binValues, originalValues);
+    }
+
+    /**
+     * Drop the cells of a closed table, they are read again from the ROM
+     * image on the next access.
+     */
+    void releaseCells() {
+        if (staticDataTable) {
+            return;
+        }
+        Arrays.fill(data, null);
+        valuesChanged();
+        binValues = null;
+        originalValues = null;
+        compareValues = null;
+        liveValues = null;
+        tableView = null;
+        tableFrame = null;
+        populationPending = true;
+    }
+
     //Cleans up all references to avoid data leaks
     public void clearData() {
         if(data != null) {
             for(int i=0;i<getDataSize();i++) {
                 if(data[i]!=null) {
                     data[i].setTable(null);
-                    data[i].setRom(null);
                     data[i] = null;
                 }
             }
 
             data = null;
         }
+        valuesChanged();
+        binValues = null;
+        originalValues = null;
+        compareValues = null;
+        liveValues = null;
         rom = null;
     }
 
     public void setData(DataCell[] data) {
         this.data = data;
+        valuesChanged();
     }
 
     public int getRamOffset() {
@@ -158,8 +453,10 @@ public abstract class Table implements Serializable, Comparable<Table> {
             this.ramOffset = rom.getRomID().getRamOffset();
         }
 
+        this.rom = rom;
+        createCellValues(data.length);
         for (int i = 0; i < data.length; i++) {
-            data[i] = new DataCell(this, i, rom);
+            data[i] = new DataCell(this, i, i);
         }
 
         // reset locked status
@@ -173,6 +470,7 @@ public abstract class Table implements Serializable, Comparable<Table> {
     public abstract TableType getType();
 
     public DataCell getDataCell(int location) {
+        ensurePopulated();
         return data[location];
     }
 
@@ -196,6 +494,7 @@ public abstract class Table implements Serializable, Comparable<Table> {
 
     //Gets called by toolbar
     public void updateIncrementDecrementValues(double fineInc, double courseInc) {
+        unshareScales();
         this.curScale.setCoarseIncrement(courseInc);
         this.curScale.setFineIncrement(fineInc);
     }
@@ -217,7 +516,29 @@ public abstract class Table implements Serializable, Comparable<Table> {
         return scales;
     }
 
+    /**
+     * Give this table its own copy of the scales it shares with its base
+     * table before they are modified.
+     */
+    private void unshareScales() {
+        if (!scalesShared) {
+            return;
+        }
+        final Vector<Scale> copy = new Vector<Scale>(scales.size());
+        for (Scale scale : scales) {
+            final Scale scaleCopy = scale.copy();
+            if (scale == curScale) {
+                curScale = scaleCopy;
+            }
+            copy.add(scaleCopy);
+        }
+        scales = copy;
+        scalesShared = false;
+    }
+
     public void addScale(Scale scale) {
+        unshareScales();
+
         // look for scale, replace or add new
         for (int i = 0; i < scales.size(); i++) {
             if (scales.get(i).getCategory().equalsIgnoreCase(scale.getCategory())) {
@@ -237,6 +558,7 @@ public abstract class Table implements Serializable, Comparable<Table> {
         else if("Default".equalsIgnoreCase(scale.getCategory())) {
             this.curScale = scale;
         }
+        valuesChanged();
     }
 
     public int getStorageAddress() {
@@ -328,6 +650,9 @@ public abstract class Table implements Serializable, Comparable<Table> {
 
     public StringBuffer getTableAsString() {
         StringBuffer output = new StringBuffer(Settings.BLANK);
+        if (!ensurePopulated()) {
+            return output;
+        }
         for (int i = 0; i < data.length; i++) {
 
             if(data[i]!= null)
@@ -384,6 +709,9 @@ public abstract class Table implements Serializable, Comparable<Table> {
             if(!withoutData) return false;
 
             Table otherTable = (Table)other;
+            if(!ensurePopulated() || !otherTable.ensurePopulated()) {
+                return false;
+            }
 
             // Compare Bin Values
             for(int i=0 ; i < this.data.length ; i++) {
@@ -442,11 +770,11 @@ public abstract class Table implements Serializable, Comparable<Table> {
     }
 
     public double getMaxReal() {
-    	return JEPUtil.evaluate(getCurrentScale().getExpression(), getMaxBin());
+    	return getCurrentScale().getCompiledExpression().evaluate(getMaxBin());
     }
 
     public double getMinReal() {
-    	return JEPUtil.evaluate(getCurrentScale().getExpression(), getMinBin());
+    	return getCurrentScale().getCompiledExpression().evaluate(getMinBin());
     }
 
     public void setMaxBin(double maxBin) {
@@ -562,7 +890,7 @@ public abstract class Table implements Serializable, Comparable<Table> {
     }
 
     public void populateCompareValues(Table otherTable) {
-        if(null == otherTable) {
+        if(null == otherTable || !ensurePopulated() || !otherTable.ensurePopulated()) {
             return;
         }
 
@@ -639,6 +967,20 @@ public abstract class Table implements Serializable, Comparable<Table> {
     
     public abstract double queryTable(Double input_x, Double input_y);
 
+    /**
+     * Look up several points at once.
+     * @param inputX - the x input of each point, null if there is no x axis
+     * @param inputY - the y input of each point, null if there is no y axis
+     * @param output - receives the table value at each point
+     * @param count - the number of points
+     */
+    public void queryTable(double[] inputX, double[] inputY, double[] output, int count) {
+        for (int i = 0; i < count; i++) {
+            output[i] = queryTable(inputX == null ? null : inputX[i],
+                    inputY == null ? null : inputY[i]);
+        }
+    }
+
     public void interpolate() throws UserLevelException {
         horizontalInterpolate();
     }
@@ -699,6 +1041,7 @@ public abstract class Table implements Serializable, Comparable<Table> {
 
     public void setCurrentScale(Scale curScale) {
         this.curScale = curScale;
+        valuesChanged();
 
         if(tableView!=null) {
             tableView.drawTable();
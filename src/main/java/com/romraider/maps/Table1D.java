@@ -23,6 +23,18 @@ import com.romraider.Settings;
 public class Table1D extends Table {
     private static final long serialVersionUID = -8747180767803835631L;
     private Table axisParent = null;
+
+    public Table1D() {
+    }
+
+    protected Table1D(Table1D base) {
+        super(base);
+    }
+
+    @Override
+    public Table1D copy() {
+        return new Table1D(this);
+    }
     
     @Override
     public TableType getType() {
@@ -37,6 +49,15 @@ public class Table1D extends Table {
         return axisParent;
     }
 
+    @Override
+    public boolean ensurePopulated() {
+        // axis cells are read together with the table they belong to
+        if (axisParent != null) {
+            return axisParent.ensurePopulated();
+        }
+        return super.ensurePopulated();
+    }
+
     @Override
     public StringBuffer getTableAsString() {
         if(isStaticDataTable()) {
@@ -97,6 +118,9 @@ public class Table1D extends Table {
             }
 
             Table1D otherTable = (Table1D)other;
+            if(!ensurePopulated() || !otherTable.ensurePopulated()) {
+                return false;
+            }
 
             if(this.data.length != otherTable.data.length)
             {
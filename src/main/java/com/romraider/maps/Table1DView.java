@@ -23,7 +23,6 @@ import java.awt.BorderLayout;
 
 import javax.swing.JLabel;
 import javax.swing.border.EmptyBorder;
-import com.romraider.util.NumberUtil;
 
 public class Table1DView extends TableView {
 
@@ -268,40 +267,14 @@ public class Table1DView extends TableView {
     }
 
     @Override
-    public void highlightLiveData(String liveVal) {
+    public void highlightLiveData(double liveValue, String liveVal) {
         if (getOverlayLog()) {
-            double liveValue = 0.0;
-            try {
-                liveValue = NumberUtil.doubleValue(liveVal);
-            } catch (Exception ex) {
-            	LOGGER.error("Table1D - live data highlight parsing error for value: " + liveVal);
+            final SortedValues values = table.getSortedValues();
+            if (values == null) {
                 return;
             }
 
-            int startIdx = data.length;
-            double currentErrorToLiveValue = Double.POSITIVE_INFINITY;
-            for (int i = 0; i < data.length; i++) {
-                double currentValue = 0.0;
-                if(table.isStaticDataTable() && null != data[i].getStaticText()) {
-                    try {
-                        currentValue = Double.parseDouble(data[i].getStaticText());
-                    } catch(NumberFormatException nex) {
-                        return;
-                    }
-                } else {
-                    currentValue = data[i].getDataCell().getRealValue();
-                }
-                
-            	if(Math.abs(currentValue - liveValue) < currentErrorToLiveValue) 
-            	{
-            		currentErrorToLiveValue = Math.abs(currentValue - liveValue);
-            		startIdx = i;
-            		
-            		if(currentErrorToLiveValue <= 0.001) break;
-            	}
-            }
-
-            setLiveDataIndex(startIdx);
+            setLiveDataIndex(values.nearest(liveValue));
             DataCellView cellp = data[getPreviousLiveDataIndex()];
             cellp.setPreviousLiveDataTrace(true);
             DataCellView cell = data[getLiveDataIndex()];
@@ -28,6 +28,19 @@ public class Table2D extends Table {
     private static final long serialVersionUID = -7684570967109324784L;
     private Table1D axis = new Table1D();
 
+    public Table2D() {
+    }
+
+    protected Table2D(Table2D base) {
+        super(base);
+        setAxis(base.axis.copy());
+    }
+
+    @Override
+    public Table2D copy() {
+        return new Table2D(this);
+    }
+
     @Override
     public TableType getType() {
         return TableType.TABLE_2D;
@@ -54,6 +67,23 @@ public class Table2D extends Table {
         axis=null;
     }
 
+    @Override
+    public void setPopulationPending(boolean populationPending) {
+        super.setPopulationPending(populationPending);
+        axis.setPopulationPending(populationPending);
+    }
+
+    @Override
+    public boolean isModified() {
+        return super.isModified() || axis.isModified();
+    }
+
+    @Override
+    void releaseCells() {
+        super.releaseCells();
+        axis.releaseCells();
+    }
+
     @Override
     public void populateCompareValues(Table otherTable) {
         if(null == otherTable || !(otherTable instanceof Table2D)) {
@@ -136,6 +166,7 @@ public class Table2D extends Table {
             }
         }
         this.curScale = curScale;
+        valuesChanged();
 
         if(tableView != null) tableView.drawTable();
     }
@@ -210,28 +241,29 @@ public class Table2D extends Table {
     @Override
 	public double queryTable(Double input_x, Double input_y) {
 		double input = input_x == null ? input_y : input_x;
-		DataCell[] tableData = getData();
-		DataCell[] axisData = getAxis().getData();
-
-		int start = 0;
-		int end = tableData.length - 1;
-		boolean foundEnd = false;
-
-		for (int i = 0; i < tableData.length && i < axisData.length; i++) {
-			DataCell c = axisData[i];
-			if (c.getRealValue() <= input) {
-				start = i;
-			}
-			if (c.getRealValue() >= input && !foundEnd) {
-				end = i;
-				foundEnd = true;
-			}
-		}
-		
-		return linearInterpolation(input, axisData[start].getRealValue(), axisData[end].getRealValue(),
-				tableData[start].getRealValue(), tableData[end].getRealValue());
+		double[] values = getRealValues();
+		double[] axisValues = getAxis().getRealValues();
+		return query(input, axisValues, values, Math.min(values.length, axisValues.length));
 	}
 
+    @Override
+    public void queryTable(double[] inputX, double[] inputY, double[] output, int count) {
+        final double[] input = inputX == null ? inputY : inputX;
+        final double[] values = getRealValues();
+        final double[] axisValues = getAxis().getRealValues();
+        final int length = Math.min(values.length, axisValues.length);
+        for (int i = 0; i < count; i++) {
+            output[i] = query(input[i], axisValues, values, length);
+        }
+    }
+
+    private double query(double input, double[] axisValues, double[] values, int length) {
+        final int start = lowerBreakpoint(axisValues, input, length);
+        final int end = upperBreakpoint(axisValues, input, length);
+        return linearInterpolation(input, axisValues[start], axisValues[end],
+                values[start], values[end]);
+    }
+
     @Override
     public StringBuffer getTableAsString() {
         StringBuffer output = new StringBuffer(Settings.BLANK);
@@ -257,6 +289,9 @@ public class Table2D extends Table {
             }
 
             Table2D otherTable = (Table2D)other;
+            if(!ensurePopulated() || !otherTable.ensurePopulated()) {
+                return false;
+            }
 
             if( (null == this.getName() && null == otherTable.getName())
                     || (this.getName().isEmpty() && otherTable.getName().isEmpty()) ) {
@@ -21,6 +21,8 @@ package com.romraider.maps;
 
 import static com.romraider.util.ParamChecker.isNullOrEmpty;
 
+import java.util.Arrays;
+
 import javax.naming.NameNotFoundException;
 import com.romraider.Settings;
 import com.romraider.util.NumberUtil;
@@ -41,6 +43,25 @@ public class Table3D extends Table {
     // Skip cells after row/column ends before next row/column starts
     private int skipCells = 0;
 
+    public Table3D() {
+    }
+
+    protected Table3D(Table3D base) {
+        super(base);
+        setXAxis(base.xAxis.copy());
+        setYAxis(base.yAxis.copy());
+        data = new DataCell[base.data.length][base.data[0].length];
+        swapXY = base.swapXY;
+        flipX = base.flipX;
+        flipY = base.flipY;
+        skipCells = base.skipCells;
+    }
+
+    @Override
+    public Table3D copy() {
+        return new Table3D(this);
+    }
+
     @Override
     public TableType getType() {
         return Table.TableType.TABLE_3D;
@@ -121,8 +142,9 @@ public class Table3D extends Table {
     public void clearData() {
         for(DataCell[] column : data) {
             for(DataCell cell : column) {
-                cell.setTable(null);
-                cell.setRom(null);
+                if(cell != null) {
+                    cell.setTable(null);
+                }
             }
         }
 
@@ -134,9 +156,34 @@ public class Table3D extends Table {
         yAxis=null;
     }
 
+    @Override
+    public void setPopulationPending(boolean populationPending) {
+        super.setPopulationPending(populationPending);
+        xAxis.setPopulationPending(populationPending);
+        yAxis.setPopulationPending(populationPending);
+    }
+
+    @Override
+    public boolean isModified() {
+        return super.isModified() || xAxis.isModified() || yAxis.isModified();
+    }
+
+    @Override
+    void releaseCells() {
+        for(DataCell[] column : data) {
+            Arrays.fill(column, null);
+        }
+        super.releaseCells();
+        xAxis.releaseCells();
+        yAxis.releaseCells();
+    }
+
     @Override
     public StringBuffer getTableAsString() {
         StringBuffer output = new StringBuffer(Settings.BLANK);
+        if (!ensurePopulated()) {
+            return output;
+        }
 
         output.append(xAxis.getTableAsString());
         output.append(Settings.NEW_LINE);
@@ -184,8 +231,12 @@ public class Table3D extends Table {
         }
 
         int offset = 0;
+        int slot = 0;
         int iMax = swapXY ? xAxis.getDataSize() : yAxis.getDataSize();
         int jMax = swapXY ? yAxis.getDataSize() : xAxis.getDataSize();
+
+        this.rom = rom;
+        createCellValues(iMax * jMax);
         
         for (int i = 0; i < iMax; i++) {
             for (int j = 0; j < jMax; j++) {
@@ -197,7 +248,7 @@ public class Table3D extends Table {
                     x = y;
                     y = z;
                 }
-                DataCell c = new DataCell(this, offset, rom);
+                DataCell c = new DataCell(this, offset, slot++);
                 data[x][y] = c;
                 
                 // If on last cell on row/column
@@ -261,6 +312,9 @@ public class Table3D extends Table {
         }
 
         Table3D compareTable3D = (Table3D) otherTable;
+        if(!ensurePopulated() || !compareTable3D.ensurePopulated()) {
+            return;
+        }
         if(data.length != compareTable3D.data.length ||
                 data[0].length != compareTable3D.data[0].length ||
                 xAxis.getDataSize() != compareTable3D.xAxis.getDataSize() ||
@@ -331,6 +385,7 @@ public class Table3D extends Table {
     }
 
     public DataCell[][] get3dData() {
+        ensurePopulated();
         return data;
     }
 
@@ -377,6 +432,7 @@ public class Table3D extends Table {
         }
 
         this.curScale = curScale;
+        valuesChanged();
         if(tableView!=null) tableView.drawTable();
     }
 
@@ -538,57 +594,55 @@ public class Table3D extends Table {
 
 	@Override
 	public double queryTable(Double input_x, Double input_y) {
-		DataCell[][] tableData = get3dData();
-		DataCell[] axisXData = getXAxis().getData();
-		DataCell[] axisYData = getYAxis().getData();
-
-		int startX = 0;
-		int endX = axisXData.length - 1;
-		boolean foundEnd = false;
-
-		for (int i = 0; i < axisXData.length; i++) {
-			DataCell c = axisXData[i];
-			if (c.getRealValue() <= input_x) {
-				startX = i;
-			}
-			if (c.getRealValue() >= input_x && !foundEnd) {
-				foundEnd = true;
-				endX = i;
-			}
-		}
-
-		int startY = 0;
-		int endY = axisYData.length - 1;
-		foundEnd = false;
-
-		for (int i = 0; i < axisYData.length; i++) {
-			DataCell c = axisYData[i];
-			if (c.getRealValue() <= input_y) {
-				startY = i;
-			}
-			if (c.getRealValue() >= input_y && !foundEnd) {
-				endY = i;
-				foundEnd = true;
-			}
-		}
-
-		double valueX1 = linearInterpolation(input_x,
-			    axisXData[startX].getRealValue(),
-			    axisXData[endX].getRealValue(),
-			    tableData[startX][startY].getRealValue(),
-			    tableData[endX][startY].getRealValue());
-
-		double valueX2 = linearInterpolation(input_x,
-			    axisXData[startX].getRealValue(),
-			    axisXData[endX].getRealValue(),
-			    tableData[startX][endY].getRealValue(),
-			    tableData[endX][endY].getRealValue());
-
-
-		return linearInterpolation(input_y, axisYData[startY].getRealValue(), axisYData[endY].getRealValue(),
-				valueX1, valueX2);
+		double[] values = getRealValues();
+		double[] xValues = getXAxis().getRealValues();
+		double[] yValues = getYAxis().getRealValues();
+		return query(input_x, input_y, xValues, yValues, values);
 	}
 
+    @Override
+    public void queryTable(double[] inputX, double[] inputY, double[] output, int count) {
+        final double[] values = getRealValues();
+        final double[] xValues = getXAxis().getRealValues();
+        final double[] yValues = getYAxis().getRealValues();
+        for (int i = 0; i < count; i++) {
+            output[i] = query(inputX[i], inputY[i], xValues, yValues, values);
+        }
+    }
+
+    // bilinear interpolation between the four cells around a point
+    private double query(double inputX, double inputY, double[] xValues,
+            double[] yValues, double[] values) {
+        final int sizeY = getSizeY();
+        final int startX = lowerBreakpoint(xValues, inputX, xValues.length);
+        final int endX = upperBreakpoint(xValues, inputX, xValues.length);
+        final int startY = lowerBreakpoint(yValues, inputY, yValues.length);
+        final int endY = upperBreakpoint(yValues, inputY, yValues.length);
+
+        final double valueX1 = linearInterpolation(inputX, xValues[startX], xValues[endX],
+                values[startX * sizeY + startY], values[endX * sizeY + startY]);
+        final double valueX2 = linearInterpolation(inputX, xValues[startX], xValues[endX],
+                values[startX * sizeY + endY], values[endX * sizeY + endY]);
+        return linearInterpolation(inputY, yValues[startY], yValues[endY], valueX1, valueX2);
+    }
+
+    /**
+     * @return the real value of each cell, the cell at x, y is at index
+     * <code>x * getSizeY() + y</code>
+     */
+    @Override
+    protected double[] computeRealValues() {
+        final DataCell[][] cells = get3dData();
+        final int sizeY = getSizeY();
+        final double[] values = new double[cells.length * sizeY];
+        for (int x = 0; x < cells.length; x++) {
+            for (int y = 0; y < sizeY; y++) {
+                values[x * sizeY + y] = cells[x][y].getRealValue();
+            }
+        }
+        return values;
+    }
+
     @Override
     public String getLogParamString() {
         StringBuilder sb = new StringBuilder();
@@ -614,6 +668,9 @@ public class Table3D extends Table {
             }
 
             Table3D otherTable = (Table3D)other;
+            if(!ensurePopulated() || !otherTable.ensurePopulated()) {
+                return false;
+            }
 
             if( (null == this.getName() && null == otherTable.getName())
                     || (this.getName().isEmpty() && otherTable.getName().isEmpty()) ) {
@@ -47,6 +47,8 @@ public class Table3DView extends TableView {
     private JLabel yAxisLabel;
 
     DataCellView[][] data;
+    // paints the cells and axes when they are not a label each
+    private DataCellGrid grid;
 
     public Table3DView(Table3D table) {
     	super(table);
@@ -96,20 +98,12 @@ public class Table3DView extends TableView {
 
     @Override
     public void populateTableVisual() {	
-    	// fill first empty cell
-        centerPanel.add(new JLabel());
-        centerLayout.setColumns(table.getSizeX()+1);
-        centerLayout.setRows(table.getSizeY()+1);
-        
         // temporarily remove lock
         boolean tempLock = table.locked;
         table.locked = false;
         
         xAxis.populateTableVisual();
         yAxis.populateTableVisual();
-        for (int x = 0; x < xAxis.getTable().getDataSize(); x++) {
-            centerPanel.add(xAxis.getDataCell(x));
-        }
 
         data = new DataCellView[table.getSizeX()][table.getSizeY()];
         
@@ -135,11 +129,11 @@ public class Table3DView extends TableView {
             }
         }
 
-        for (int y = 0; y < yAxis.getTable().getDataSize(); y++) {
-            centerPanel.add(yAxis.getDataCell(y));
-            for (int x = 0; x < xAxis.getTable().getDataSize(); x++) {
-                centerPanel.add(data[x][y]);
-            }
+        if (getSettings().isPaintTableGrid()) {
+            addCellGrid();
+        }
+        else {
+            addCellLabels();
         }
         
         // reset locked status
@@ -186,6 +180,38 @@ public class Table3DView extends TableView {
         if(presetPanel != null) presetPanel.populatePanel();
     }
 
+    private void addCellLabels() {
+        // fill first empty cell
+        centerPanel.add(new JLabel());
+        centerLayout.setColumns(table.getSizeX()+1);
+        centerLayout.setRows(table.getSizeY()+1);
+
+        for (int x = 0; x < xAxis.getTable().getDataSize(); x++) {
+            centerPanel.add(xAxis.getDataCell(x));
+        }
+        for (int y = 0; y < yAxis.getTable().getDataSize(); y++) {
+            centerPanel.add(yAxis.getDataCell(y));
+            for (int x = 0; x < xAxis.getTable().getDataSize(); x++) {
+                centerPanel.add(data[x][y]);
+            }
+        }
+    }
+
+    private void addCellGrid() {
+        // the x axis is the first row and the y axis the first column
+        grid = new DataCellGrid(table.getSizeX() + 1, table.getSizeY() + 1);
+        for (int x = 0; x < xAxis.getTable().getDataSize(); x++) {
+            grid.setCell(x + 1, 0, xAxis.getDataCell(x));
+        }
+        for (int y = 0; y < yAxis.getTable().getDataSize(); y++) {
+            grid.setCell(0, y + 1, yAxis.getDataCell(y));
+            for (int x = 0; x < xAxis.getTable().getDataSize(); x++) {
+                grid.setCell(x + 1, y + 1, data[x][y]);
+            }
+        }
+        centerPanel.add(grid);
+    }
+
     @Override
     public void updateTableLabel() {
         if(null == xAxis.getName() || xAxis.getName().length() < 1 || Settings.BLANK == xAxis.getName()) {
@@ -284,6 +310,9 @@ public class Table3DView extends TableView {
     public void addKeyListener(KeyListener listener) {
         xAxis.addKeyListener(listener);
         yAxis.addKeyListener(listener);
+        if (grid != null) {
+            grid.addKeyListener(listener);
+        }
         for (int x = 0; x < table.getSizeX(); x++) {
             for (int y = 0; y < table.getSizeY(); y++) {
                 data[x][y].addKeyListener(listener);
@@ -540,7 +569,7 @@ public class Table3DView extends TableView {
     }
 
     @Override
-    public void highlightLiveData(String liveValue) {
+    public void highlightLiveData(double value, String liveValue) {
         if (getOverlayLog()) {
             int x = xAxis.getLiveDataIndex();
             int y = yAxis.getLiveDataIndex();
@@ -30,6 +30,16 @@ public class TableBitwiseSwitch extends TableSwitch {
 		storageType = 1;		
 	}
 
+	protected TableBitwiseSwitch(TableBitwiseSwitch base) {
+		super(base);
+		bits = new LinkedList<Integer>(base.bits);
+	}
+
+	@Override
+	public TableBitwiseSwitch copy() {
+		return new TableBitwiseSwitch(this);
+	}
+
 	@Override
     public void populateTable(Rom rom) throws ArrayIndexOutOfBoundsException, IndexOutOfBoundsException {      
     	if(isStaticDataTable()) return;       
@@ -43,10 +53,12 @@ public class TableBitwiseSwitch extends TableSwitch {
             this.ramOffset = rom.getRomID().getRamOffset();
         }
 
+        this.rom = rom;
         setDataSize(bits.size());
+        createCellValues(bits.size());
         int i = 0;
         for (int bit : bits) {
-            data[i] = new DataCell(this, 0, rom); //Offset is always 0
+            data[i] = new DataCell(this, 0, i); //Offset is always 0
             data[i].setBitMask(ByteUtil.bitToMask(bit));
             data[i].updateBinValueFromMemory();
             i++;
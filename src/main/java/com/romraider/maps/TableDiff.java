@@ -0,0 +1,105 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+/**
+ * The result of comparing a table of one ROM image with the table of the
+ * same name in another.
+ */
+public final class TableDiff {
+    public enum Status {
+        EQUAL,
+        CHANGED,
+        MISSING
+    }
+
+    private final String name;
+    private final Status status;
+    private final int cells;
+    private final int changedCells;
+    private final boolean axesChanged;
+    private final double maxDelta;
+    private final String units;
+
+    /**
+     * @param name - the name of the table
+     * @param status - how the tables compare
+     * @param cells - the number of data cells compared
+     * @param changedCells - the number of data cells with different values
+     * @param axesChanged - true if an axis cell has a different value
+     * @param maxDelta - the largest difference of a data cell in the
+     *                   units of the table
+     * @param units - the units of the table
+     */
+    TableDiff(String name, Status status, int cells, int changedCells,
+            boolean axesChanged, double maxDelta, String units) {
+        this.name = name;
+        this.status = status;
+        this.cells = cells;
+        this.changedCells = changedCells;
+        this.axesChanged = axesChanged;
+        this.maxDelta = maxDelta;
+        this.units = units;
+    }
+
+    static TableDiff missing(String name) {
+        return new TableDiff(name, Status.MISSING, 0, 0, false, 0.0, "");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getCells() {
+        return cells;
+    }
+
+    public int getChangedCells() {
+        return changedCells;
+    }
+
+    public boolean isAxesChanged() {
+        return axesChanged;
+    }
+
+    public double getMaxDelta() {
+        return maxDelta;
+    }
+
+    public String getUnits() {
+        return units;
+    }
+
+    /**
+     * @return the share of data cells changed, from 0 to 100
+     */
+    public double getPercentChanged() {
+        return cells == 0 ? 0.0 : changedCells * 100.0 / cells;
+    }
+
+    @Override
+    public String toString() {
+        return status + " " + name;
+    }
+}
@@ -38,6 +38,15 @@ public class TableSwitch extends Table1D {
     	super();
         storageType = 1;
     }
+
+    protected TableSwitch(TableSwitch base) {
+        super(base);
+    }
+
+    @Override
+    public TableSwitch copy() {
+        return new TableSwitch(this);
+    }
    
     @Override
     public TableType getType() {
@@ -873,28 +873,29 @@ public abstract class TableView extends JPanel implements Serializable {
     
 
     public void highlightLiveData(String liveVal) {
-        if (getOverlayLog()) {
-            double liveValue = 0.0;
-            try {
-            	liveValue = NumberUtil.doubleValue(liveVal);
-            } catch (Exception ex) {
-            	LOGGER.error("Table - live data highlight parsing error for value: " + liveVal);
-            	return;
-            }
+        double liveValue = 0.0;
+        try {
+            liveValue = NumberUtil.doubleValue(liveVal);
+        } catch (Exception ex) {
+            LOGGER.error("Table - live data highlight parsing error for value: " + liveVal);
+            return;
+        }
+        highlightLiveData(liveValue, liveVal);
+    }
 
-            int startIdx = data.length;
-            for (int i = 0; i < data.length; i++) {
-                double currentValue = data[i].getDataCell().getRealValue();
-                if (liveValue == currentValue) {
-                    startIdx = i;
-                    break;
-                } else if (liveValue < currentValue){
-                    startIdx = i-1;
-                    break;
-                }
+    /**
+     * Highlight the cell at or below a live value.
+     * @param liveValue - the value as logged
+     * @param liveVal - the value as displayed
+     */
+    public void highlightLiveData(double liveValue, String liveVal) {
+        if (getOverlayLog()) {
+            final SortedValues values = table.getSortedValues();
+            if (values == null) {
+                return;
             }
 
-            setLiveDataIndex(startIdx);
+            setLiveDataIndex(values.floor(liveValue));
             DataCellView cell = data[getLiveDataIndex()];
             cell.setPreviousLiveDataTrace(false);
             cell.setLiveDataTrace(true);
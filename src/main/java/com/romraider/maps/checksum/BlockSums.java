@@ -0,0 +1,230 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps.checksum;
+
+import static com.romraider.maps.checksum.DirtyRegions.BLOCK_SHIFT;
+import static com.romraider.maps.checksum.DirtyRegions.BLOCK_SIZE;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The sum and XOR of the big-endian words in a range of a ROM image, kept
+ * as partial results per block of {@link DirtyRegions} so that only the
+ * blocks written since the last update are read again.  Words are read an
+ * int at a time through a <code>ByteBuffer</code> whatever their width.
+ * Words at the skipped offsets, such as the checksum locations inside the
+ * range, are left out of the results.
+ */
+final class BlockSums {
+    private final int from;
+    private final int to;
+    private final int width;
+    private final int[] skipped;
+    private final int[] sums;
+    private final int[] xors;
+    private ByteBuffer buffer;
+    private DirtyRegions dirty;
+    private int version;
+
+    /**
+     * @param from - the offset of the first word
+     * @param to - the offset after the last word starts
+     * @param width - the width of a word, 1, 2 or 4 bytes
+     * @param skipped - the offsets of words left out of the results
+     */
+    BlockSums(int from, int to, int width, int... skipped) {
+        this.from = from;
+        this.to = to;
+        this.width = width;
+        this.skipped = skipped;
+        final int blocks = to > from
+                ? ((to - 1) >> BLOCK_SHIFT) - (from >> BLOCK_SHIFT) + 1 : 0;
+        sums = new int[blocks];
+        xors = new int[blocks];
+    }
+
+    /**
+     * @return true if these are the sums of the given range
+     */
+    boolean hasRange(int from, int to, int... skipped) {
+        return this.from == from && this.to == to && Arrays.equals(this.skipped, skipped);
+    }
+
+    /**
+     * @return true if a word of the range starts at the offset
+     */
+    boolean contains(int offset) {
+        return offset >= from && offset < to && (offset - from) % width == 0;
+    }
+
+    /**
+     * Bring the partial results up to date with the image.
+     * @param image - the image to read
+     * @param dirty - the writes to the image, or null to read all of it
+     */
+    void update(byte[] image, DirtyRegions dirty) {
+        final boolean full = dirty == null || dirty != this.dirty
+                || buffer == null || buffer.array() != image;
+        final int now = dirty == null ? 0 : dirty.getVersion();
+        if (full) {
+            buffer = ByteBuffer.wrap(image);
+        }
+        final int firstBlock = from >> BLOCK_SHIFT;
+        for (int i = 0; i < sums.length; i++) {
+            final int blockStart = (firstBlock + i) << BLOCK_SHIFT;
+            // the words starting in this block
+            final int start = blockStart <= from ? from
+                    : from + (blockStart - from + width - 1) / width * width;
+            final int end = Math.min(blockStart + BLOCK_SIZE, to);
+            if (start >= end) {
+                sums[i] = 0;
+                xors[i] = 0;
+                continue;
+            }
+            // a word may read into the next block
+            final int last = start + (end - 1 - start) / width * width;
+            if (full || dirty.isDirty(start, last + width, version)) {
+                if (width == 4) {
+                    sumWords(i, start, end);
+                }
+                else if (width == 2) {
+                    sumHalfWords(i, start, end);
+                }
+                else {
+                    sumBytes(i, start, end);
+                }
+            }
+        }
+        this.dirty = dirty;
+        version = now;
+    }
+
+    /**
+     * @return the sum of the words, wrapping at 32 bits
+     */
+    int sum() {
+        int sum = 0;
+        for (int s : sums) {
+            sum += s;
+        }
+        for (int i = 0; i < skipped.length; i++) {
+            if (isSkipped(i)) {
+                sum -= word(skipped[i]);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return the XOR of the words
+     */
+    int xor() {
+        int xor = 0;
+        for (int x : xors) {
+            xor ^= x;
+        }
+        for (int i = 0; i < skipped.length; i++) {
+            if (isSkipped(i)) {
+                xor ^= word(skipped[i]);
+            }
+        }
+        return xor;
+    }
+
+    // a word is skipped once however often its offset is given
+    private boolean isSkipped(int index) {
+        if (!contains(skipped[index])) {
+            return false;
+        }
+        for (int i = 0; i < index; i++) {
+            if (skipped[i] == skipped[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int word(int offset) {
+        if (width == 4) {
+            return buffer.getInt(offset);
+        }
+        if (width == 2) {
+            return buffer.getShort(offset) & 0xFFFF;
+        }
+        return buffer.get(offset) & 0xFF;
+    }
+
+    private void sumWords(int block, int start, int end) {
+        int sum = 0;
+        int xor = 0;
+        for (int p = start; p < end; p += 4) {
+            final int w = buffer.getInt(p);
+            sum += w;
+            xor ^= w;
+        }
+        sums[block] = sum;
+        xors[block] = xor;
+    }
+
+    private void sumHalfWords(int block, int start, int end) {
+        int sum = 0;
+        int xor = 0;
+        int p = start;
+        for (; p + 2 < end; p += 4) {
+            final int w = buffer.getInt(p);
+            sum += (w >>> 16) + (w & 0xFFFF);
+            xor ^= w;
+        }
+        xor = (xor ^ (xor >>> 16)) & 0xFFFF;
+        if (p < end) {
+            final int h = buffer.getShort(p) & 0xFFFF;
+            sum += h;
+            xor ^= h;
+        }
+        sums[block] = sum;
+        xors[block] = xor;
+    }
+
+    private void sumBytes(int block, int start, int end) {
+        // the bytes of an int are summed in two pairs of 16 bit lanes,
+        // a block is short enough that a lane cannot overflow
+        int even = 0;
+        int odd = 0;
+        int xor = 0;
+        int p = start;
+        for (; p + 3 < end; p += 4) {
+            final int w = buffer.getInt(p);
+            even += w & 0x00FF00FF;
+            odd += (w >>> 8) & 0x00FF00FF;
+            xor ^= w;
+        }
+        int sum = (even & 0xFFFF) + (even >>> 16) + (odd & 0xFFFF) + (odd >>> 16);
+        xor ^= xor >>> 16;
+        xor = (xor ^ (xor >>> 8)) & 0xFF;
+        for (; p < end; p++) {
+            final int b = buffer.get(p) & 0xFF;
+            sum += b;
+            xor ^= b;
+        }
+        sums[block] = sum;
+        xors[block] = xor;
+    }
+}
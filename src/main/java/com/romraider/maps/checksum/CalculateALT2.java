@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2021 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -32,43 +32,90 @@ import java.util.Map;
 
 import com.romraider.Settings;
 
-public final class CalculateALT2 implements Calculator {
+public final class CalculateALT2 implements Calculator, IncrementalChecksum {
+    private DirtyRegions dirty;
+    private BlockSums words;
+    private BlockSums calibration;
+    private BlockSums code;
 
     public CalculateALT2() {
     }
 
+    @Override
+    public void setDirtyRegions(DirtyRegions dirty) {
+        this.dirty = dirty;
+    }
+
     public final void calculate(
             Map<String, Integer> range,
             byte[] binData,
             Map<String, Integer> results) {
 
+        final int start = range.get(START);
+        final int end = range.get(END);
+        final int sumloc = range.get(SUMLOC);
+        final int xorloc = range.get(XORLOC);
+        final int skiploc = range.get(SKIPLOC);
+
         // 32bit checksum calculation 
-        int sumt = 0;
-        int xort = 0;
-        int dw = 0;
-        for (int i = range.get(START) + 4; i < range.get(END); i += 4) {
-            if ((i == range.get(SUMLOC))
-                    || (i == range.get(XORLOC)
-                    || (i == range.get(SKIPLOC)))) continue;
-            dw = (int)parseByteValue(binData, Settings.Endian.BIG, i, 4, true);
-            sumt += dw;
-            xort ^= dw;
+        if (words == null || !words.hasRange(start + 4, end, sumloc, xorloc, skiploc)) {
+            words = new BlockSums(start + 4, end, 4, sumloc, xorloc, skiploc);
         }
+        words.update(binData, dirty);
+        final int sumt = words.sum();
+        final int xort = words.xor();
         results.put(SUMT, sumt);
         results.put(XORT, xort);
 
         // 16bit calibration checksum calculation
+        if (calibration == null || !calibration.hasRange(start + 2, skiploc)) {
+            calibration = new BlockSums(start + 2, skiploc, 2);
+        }
+        calibration.update(binData, dirty);
+        int sum = calibration.sum();
+        // sumt and xort take the place of the words at sumloc and xorloc,
+        // only the words around them are summed one by one
+        int window = Integer.MAX_VALUE;
+        int windowEnd = Integer.MIN_VALUE;
+        if (calibration.contains(sumloc)) {
+            window = sumloc;
+            windowEnd = sumloc + 4;
+        }
+        if (calibration.contains(xorloc)) {
+            window = Math.min(window, xorloc);
+            windowEnd = Math.max(windowEnd, xorloc + 4);
+        }
+        windowEnd = Math.min(windowEnd, skiploc);
+        for (int i = window; i < windowEnd; i += 2) {
+            sum -= (short)parseByteValue(binData, Settings.Endian.BIG, i, 2, false);
+        }
+        if (window < windowEnd) {
+            sum += calibrationSum(binData, window, windowEnd, sumloc, xorloc, sumt, xort);
+        }
+        results.put(START, (int)(short)sum);
+
+        // 16bit code checksum calculation
+        if (code == null || !code.hasRange(skiploc + 2, end)) {
+            code = new BlockSums(skiploc + 2, end, 2);
+        }
+        code.update(binData, dirty);
+        results.put(SKIPLOC, (int)(short)code.sum());
+    }
+
+    private static short calibrationSum(byte[] binData, int from, int to,
+            int sumloc, int xorloc, int sumt, int xort) {
         short sum = 0;
-        for (int i = range.get(START) + 2; i < range.get(SKIPLOC); i += 2) {
-            if (i == range.get(SUMLOC)) {    // include 32bit sumt
-                dw = results.get(SUMT);
+        int dw = 0;
+        for (int i = from; i < to; i += 2) {
+            if (i == sumloc) {    // include 32bit sumt
+                dw = sumt;
                 sum += (short)((dw >> 16) & 0xffff);
                 sum += (short)(dw & 0xffff);
                 i += 2; // advance 2 bytes as sumt is 32bits
                 continue;
             }
-            if (i == range.get(XORLOC)) {    // include 32bit xort
-                dw = results.get(XORT);
+            if (i == xorloc) {    // include 32bit xort
+                dw = xort;
                 sum += (short)((dw >> 16) & 0xffff);
                 sum += (short)(dw & 0xffff);
                 i += 2; // advance 2 bytes as xort is 32bits
@@ -76,12 +123,6 @@ public final class CalculateALT2 implements Calculator {
             }        
             sum += (short)parseByteValue(binData, Settings.Endian.BIG, i, 2, false); 
         }
-        results.put(START, (int)sum);
-        // 16bit code checksum calculation
-        sum = 0;
-        for (int i = range.get(SKIPLOC) + 2; i < range.get(END); i += 2) {
-            sum += (short)parseByteValue(binData, Settings.Endian.BIG, i, 2, false);
-        }
-        results.put(SKIPLOC, (int)sum);
+        return sum;
     }
 }
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2019 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -25,32 +25,35 @@ import static com.romraider.maps.checksum.NissanChecksum.SUMLOC;
 import static com.romraider.maps.checksum.NissanChecksum.SUMT;
 import static com.romraider.maps.checksum.NissanChecksum.XORLOC;
 import static com.romraider.maps.checksum.NissanChecksum.XORT;
-import static com.romraider.xml.RomAttributeParser.parseByteValue;
 
 import java.util.Map;
 
-import com.romraider.Settings;
-
-public final class CalculateSTD implements Calculator {
+public final class CalculateSTD implements Calculator, IncrementalChecksum {
+    private DirtyRegions dirty;
+    private BlockSums words;
 
     public CalculateSTD() {
     }
 
+    @Override
+    public void setDirtyRegions(DirtyRegions dirty) {
+        this.dirty = dirty;
+    }
+
     public final void calculate(
             Map<String, Integer> range,
             byte[] binData,
             Map<String, Integer> results) {
 
-        int sumt = 0;
-        int xort = 0;
-        int dw = 0;
-        for (int i = range.get(START); i < range.get(END); i += 4) {
-            if ((i == range.get(SUMLOC)) || (i == range.get(XORLOC))) continue;
-            dw = (int)parseByteValue(binData, Settings.Endian.BIG, i, 4, true);
-            sumt += dw;
-            xort ^= dw;
+        final int start = range.get(START);
+        final int end = range.get(END);
+        final int sumloc = range.get(SUMLOC);
+        final int xorloc = range.get(XORLOC);
+        if (words == null || !words.hasRange(start, end, sumloc, xorloc)) {
+            words = new BlockSums(start, end, 4, sumloc, xorloc);
         }
-        results.put(SUMT, sumt);
-        results.put(XORT, xort);
+        words.update(binData, dirty);
+        results.put(SUMT, words.sum());
+        results.put(XORT, words.xor());
     }
 }
@@ -84,6 +84,8 @@ public final class ChecksumALT2 extends NissanChecksum {
         super.update(binData);
         System.arraycopy(parseIntegerValue(results.get(START), Settings.Endian.BIG, 2), 0, binData, range.get(START), 2);
         System.arraycopy(parseIntegerValue(results.get(SKIPLOC), Settings.Endian.BIG, 2), 0, binData, range.get(SKIPLOC), 2);
+        written(range.get(START), 2);
+        written(range.get(SKIPLOC), 2);
         return getNumberOfChecksums();
     }
 }
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2020 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -30,7 +30,7 @@ import com.romraider.util.HexUtil;
  * This class implements the XOR single byte checksum validation and calculations
  * for some BMW non-engine ECU ROMs.
  */
-    public final class ChecksumBYTEXOR implements ChecksumManager {
+    public final class ChecksumBYTEXOR implements ChecksumManager, IncrementalChecksum {
     private static final String START = "start";
     private static final String END = "end";
     private static final String XORLOC = "xorloc";
@@ -38,6 +38,8 @@ import com.romraider.util.HexUtil;
     private int end;
     private int xorloc;
     private byte xort;  
+    private DirtyRegions dirty;
+    private BlockSums bytes;
 
     @Override
     public void configure(Map<String, String> vars) {
@@ -45,6 +47,11 @@ import com.romraider.util.HexUtil;
         this.end = HexUtil.hexToInt(vars.get(END));
         this.xorloc = HexUtil.hexToInt(vars.get(XORLOC));
     }
+
+    @Override
+    public void setDirtyRegions(DirtyRegions dirty) {
+        this.dirty = dirty;
+    }
     
 	@Override
 	public int getNumberOfChecksums() {
@@ -70,17 +77,16 @@ import com.romraider.util.HexUtil;
 		if(binData[xorloc] != xort) updateNeeded++;
 		
     	binData[xorloc] = xort;	
+    	if (dirty != null) dirty.mark(xorloc, 1);
     	
     	return updateNeeded;
     }
 
     private void calculate(byte[] binData) {
-        xort = 0;
-        int dw = 0;
-        for (int i = start; i < end; i += 1) {
-            if ((i == xorloc)) continue;
-            dw = (byte)parseByteValue(binData, Settings.Endian.BIG, i, 1, false);
-            xort ^= dw;
+        if (bytes == null || !bytes.hasRange(start, end, xorloc)) {
+            bytes = new BlockSums(start, end, 1, xorloc);
         }
+        bytes.update(binData, dirty);
+        xort = (byte) bytes.xor();
     }
 }
\ No newline at end of file
@@ -27,13 +27,14 @@ import com.romraider.util.HexUtil;
  * ECUs. It simply checks if an array of data is identical to a specified
  * location and copies it over if necessary
  */
-public final class ChecksumCOPY implements ChecksumManager {
+public final class ChecksumCOPY implements ChecksumManager, IncrementalChecksum {
 	private static final String START = "start";
 	private static final String END = "end";
 	private static final String LOC = "loc";
 	private int start; // Start of checksum area
 	private int end; // End of area (inclusive)
 	private int loc; // Start of location where data is copied
+	private DirtyRegions dirty;
 
 	@Override
 	public void configure(Map<String, String> vars) {
@@ -44,6 +45,12 @@ public final class ChecksumCOPY implements ChecksumManager {
 		}
 	}
 
+	@Override
+	public void setDirtyRegions(DirtyRegions dirty) {
+		// nothing is cached, the copy is only recorded for other checksums
+		this.dirty = dirty;
+	}
+
 	@Override
 	public int getNumberOfChecksums() {
 		return 1;
@@ -65,6 +72,7 @@ public final class ChecksumCOPY implements ChecksumManager {
 
 		if (updateNeeded > 0) {
 			System.arraycopy(binData, start, binData, loc, end - start + 1);
+			if (dirty != null) dirty.mark(loc, end - start + 1);
 		}
 		return updateNeeded;
 	}
@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2020 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -28,8 +28,31 @@ import com.romraider.xml.RomAttributeParser;
  * This class implements the E38 (GM) PCM checksum algorithm Implementation
  * ported from: https://github.com/antuspcm/E38-Sum-Tool
  */
-public final class ChecksumE38PCM implements ChecksumManager {
+public final class ChecksumE38PCM implements ChecksumManager, IncrementalChecksum {
+	private static final int[] CRC16_TABLE = new int[] { 0x0000, 0xC0C1, 0xC181, 0x0140, 0xC301, 0x03C0, 0x0280, 0xC241, 0xC601, 0x06C0,
+			0x0780, 0xC741, 0x0500, 0xC5C1, 0xC481, 0x0440, 0xCC01, 0x0CC0, 0x0D80, 0xCD41, 0x0F00, 0xCFC1, 0xCE81,
+			0x0E40, 0x0A00, 0xCAC1, 0xCB81, 0x0B40, 0xC901, 0x09C0, 0x0880, 0xC841, 0xD801, 0x18C0, 0x1980, 0xD941,
+			0x1B00, 0xDBC1, 0xDA81, 0x1A40, 0x1E00, 0xDEC1, 0xDF81, 0x1F40, 0xDD01, 0x1DC0, 0x1C80, 0xDC41, 0x1400,
+			0xD4C1, 0xD581, 0x1540, 0xD701, 0x17C0, 0x1680, 0xD641, 0xD201, 0x12C0, 0x1380, 0xD341, 0x1100, 0xD1C1,
+			0xD081, 0x1040, 0xF001, 0x30C0, 0x3180, 0xF141, 0x3300, 0xF3C1, 0xF281, 0x3240, 0x3600, 0xF6C1, 0xF781,
+			0x3740, 0xF501, 0x35C0, 0x3480, 0xF441, 0x3C00, 0xFCC1, 0xFD81, 0x3D40, 0xFF01, 0x3FC0, 0x3E80, 0xFE41,
+			0xFA01, 0x3AC0, 0x3B80, 0xFB41, 0x3900, 0xF9C1, 0xF881, 0x3840, 0x2800, 0xE8C1, 0xE981, 0x2940, 0xEB01,
+			0x2BC0, 0x2A80, 0xEA41, 0xEE01, 0x2EC0, 0x2F80, 0xEF41, 0x2D00, 0xEDC1, 0xEC81, 0x2C40, 0xE401, 0x24C0,
+			0x2580, 0xE541, 0x2700, 0xE7C1, 0xE681, 0x2640, 0x2200, 0xE2C1, 0xE381, 0x2340, 0xE101, 0x21C0, 0x2080,
+			0xE041, 0xA001, 0x60C0, 0x6180, 0xA141, 0x6300, 0xA3C1, 0xA281, 0x6240, 0x6600, 0xA6C1, 0xA781, 0x6740,
+			0xA501, 0x65C0, 0x6480, 0xA441, 0x6C00, 0xACC1, 0xAD81, 0x6D40, 0xAF01, 0x6FC0, 0x6E80, 0xAE41, 0xAA01,
+			0x6AC0, 0x6B80, 0xAB41, 0x6900, 0xA9C1, 0xA881, 0x6840, 0x7800, 0xB8C1, 0xB981, 0x7940, 0xBB01, 0x7BC0,
+			0x7A80, 0xBA41, 0xBE01, 0x7EC0, 0x7F80, 0xBF41, 0x7D00, 0xBDC1, 0xBC81, 0x7C40, 0xB401, 0x74C0, 0x7580,
+			0xB541, 0x7700, 0xB7C1, 0xB681, 0x7640, 0x7200, 0xB2C1, 0xB381, 0x7340, 0xB101, 0x71C0, 0x7080, 0xB041,
+			0x5000, 0x90C1, 0x9181, 0x5140, 0x9301, 0x53C0, 0x5280, 0x9241, 0x9601, 0x56C0, 0x5780, 0x9741, 0x5500,
+			0x95C1, 0x9481, 0x5440, 0x9C01, 0x5CC0, 0x5D80, 0x9D41, 0x5F00, 0x9FC1, 0x9E81, 0x5E40, 0x5A00, 0x9AC1,
+			0x9B81, 0x5B40, 0x9901, 0x59C0, 0x5880, 0x9841, 0x8801, 0x48C0, 0x4980, 0x8941, 0x4B00, 0x8BC1, 0x8A81,
+			0x4A40, 0x4E00, 0x8EC1, 0x8F81, 0x4F40, 0x8D01, 0x4DC0, 0x4C80, 0x8C41, 0x4400, 0x84C1, 0x8581, 0x4540,
+			0x8701, 0x47C0, 0x4680, 0x8641, 0x8201, 0x42C0, 0x4380, 0x8341, 0x4100, 0x81C1, 0x8081, 0x4040 };
 	segment[] seg = new segment[7];
+	// the results of each segment from its last calculation
+	private final SegmentCache[] cache = new SegmentCache[7];
+	private DirtyRegions dirty;
 
 	class segment {
 		public int start;
@@ -41,10 +64,25 @@ public final class ChecksumE38PCM implements ChecksumManager {
 		boolean calculated;
 	}
 
+	private static final class SegmentCache {
+		BlockSums sum;
+		int start;
+		int end;
+		short cvn;
+		int cvnVersion;
+		byte[] cvnData;
+		DirtyRegions cvnDirty;
+	}
+
 	@Override
 	public void configure(Map<String, String> vars) {
 	}
 
+	@Override
+	public void setDirtyRegions(DirtyRegions dirty) {
+		this.dirty = dirty;
+	}
+
 	@Override
 	public int getNumberOfChecksums() {
 		return 12;
@@ -76,6 +114,8 @@ public final class ChecksumE38PCM implements ChecksumManager {
 		// Need to do it twice
 		for (int k = 0; k < 2; k++) {
 			calculate(binData);
+			final int[] written = new int[12];
+			int writes = 0;
 
 			for (int i = 1; i <= 6; i++) {
 				if (seg[i].ccvn != seg[i].lcvn) {
@@ -83,15 +123,17 @@ public final class ChecksumE38PCM implements ChecksumManager {
 
 					binData[seg[i].start + 0x1E] = (byte) ((seg[i].ccvn >>> 8) & 0xFF);
 					binData[seg[i].start + 0x1E + 1] = (byte) ((seg[i].ccvn) & 0xFF);
-
+					written[writes++] = seg[i].start + 0x1E;
 				}
 				if (seg[i].lsum != seg[i].csum) {
 					correctedChecksums++;
 
 					binData[seg[i].start] = (byte) ((seg[i].csum >>> 8) & 0xFF);
 					binData[seg[i].start + 1] = (byte) ((seg[i].csum) & 0xFF);
+					written[writes++] = seg[i].start;
 				}
 			}
+			written(written, writes);
 		}
 		return correctedChecksums;
 	}
@@ -145,12 +187,69 @@ public final class ChecksumE38PCM implements ChecksumManager {
 		for (int i = 1; i <= 6; i++) {
 			seg[i].lsum = (short) RomAttributeParser.parseByteValue(bin, Endian.BIG, seg[i].start, 2, false);
 			seg[i].lcvn = (short) RomAttributeParser.parseByteValue(bin, Endian.BIG, seg[i].start + 0x1E, 2, false);
-			seg[i].csum = segmentsum(bin, seg[i].start, seg[i].end);
-			seg[i].ccvn = segmentcvn(bin, seg[i].start, seg[i].end);
+			calculate(bin, seg[i], cache(i));
 			seg[i].calculated = true;
 		}
 	}
 
+	// record the checksums written, a CVN does not cover the checksums of
+	// its own segment so it is still valid unless another segment wrote
+	// into it
+	private void written(int[] written, int writes) {
+		if (dirty == null) {
+			return;
+		}
+		final int version = dirty.getVersion();
+		for (int i = 0; i < writes; i++) {
+			dirty.mark(written[i], 2);
+		}
+		for (int i = 1; i <= 6; i++) {
+			final SegmentCache c = cache[i];
+			if (c == null || c.cvnDirty != dirty || c.cvnVersion != version) {
+				continue;
+			}
+			boolean covered = false;
+			for (int j = 0; j < writes; j++) {
+				final int w = written[j];
+				covered |= (w + 2 > c.start + 2 && w < c.start + 0x1E)
+						|| (w + 2 > c.start + 0x20 && w <= c.end);
+			}
+			if (!covered) {
+				c.cvnVersion = dirty.getVersion();
+			}
+		}
+	}
+
+	private SegmentCache cache(int i) {
+		if (cache[i] == null) {
+			cache[i] = new SegmentCache();
+		}
+		return cache[i];
+	}
+
+	// only the blocks of a segment written since its last calculation are
+	// summed again, the CVN is kept until any byte it covers is written
+	private void calculate(byte[] bin, segment s, SegmentCache c) {
+		if (c.sum == null || !c.sum.hasRange(s.start + 2, s.end + 1)) {
+			c.sum = new BlockSums(s.start + 2, s.end + 1, 2);
+		}
+		c.sum.update(bin, dirty);
+		s.csum = (short) ((((c.sum.sum() & 0xFFFF) ^ 0xFFFF) + 1) & 0xFFFF);
+
+		final int version = dirty == null ? 0 : dirty.getVersion();
+		if (dirty == null || c.cvnDirty != dirty || c.cvnData != bin
+				|| c.start != s.start || c.end != s.end
+				|| dirty.isDirty(s.start + 2, s.end + 1, c.cvnVersion)) {
+			c.cvn = segmentcvn(bin, s.start, s.end);
+			c.start = s.start;
+			c.end = s.end;
+			c.cvnData = dirty == null ? null : bin;
+			c.cvnDirty = dirty;
+			c.cvnVersion = version;
+		}
+		s.ccvn = c.cvn;
+	}
+
 	private int gmcrc16(byte[] bin, long init, int s, int e) {
 		int num;
 		byte num2;
@@ -159,26 +258,6 @@ public final class ChecksumE38PCM implements ChecksumManager {
 		int num5;
 		int num6;
 
-		int[] crc16t = new int[] { 0x0000, 0xC0C1, 0xC181, 0x0140, 0xC301, 0x03C0, 0x0280, 0xC241, 0xC601, 0x06C0,
-				0x0780, 0xC741, 0x0500, 0xC5C1, 0xC481, 0x0440, 0xCC01, 0x0CC0, 0x0D80, 0xCD41, 0x0F00, 0xCFC1, 0xCE81,
-				0x0E40, 0x0A00, 0xCAC1, 0xCB81, 0x0B40, 0xC901, 0x09C0, 0x0880, 0xC841, 0xD801, 0x18C0, 0x1980, 0xD941,
-				0x1B00, 0xDBC1, 0xDA81, 0x1A40, 0x1E00, 0xDEC1, 0xDF81, 0x1F40, 0xDD01, 0x1DC0, 0x1C80, 0xDC41, 0x1400,
-				0xD4C1, 0xD581, 0x1540, 0xD701, 0x17C0, 0x1680, 0xD641, 0xD201, 0x12C0, 0x1380, 0xD341, 0x1100, 0xD1C1,
-				0xD081, 0x1040, 0xF001, 0x30C0, 0x3180, 0xF141, 0x3300, 0xF3C1, 0xF281, 0x3240, 0x3600, 0xF6C1, 0xF781,
-				0x3740, 0xF501, 0x35C0, 0x3480, 0xF441, 0x3C00, 0xFCC1, 0xFD81, 0x3D40, 0xFF01, 0x3FC0, 0x3E80, 0xFE41,
-				0xFA01, 0x3AC0, 0x3B80, 0xFB41, 0x3900, 0xF9C1, 0xF881, 0x3840, 0x2800, 0xE8C1, 0xE981, 0x2940, 0xEB01,
-				0x2BC0, 0x2A80, 0xEA41, 0xEE01, 0x2EC0, 0x2F80, 0xEF41, 0x2D00, 0xEDC1, 0xEC81, 0x2C40, 0xE401, 0x24C0,
-				0x2580, 0xE541, 0x2700, 0xE7C1, 0xE681, 0x2640, 0x2200, 0xE2C1, 0xE381, 0x2340, 0xE101, 0x21C0, 0x2080,
-				0xE041, 0xA001, 0x60C0, 0x6180, 0xA141, 0x6300, 0xA3C1, 0xA281, 0x6240, 0x6600, 0xA6C1, 0xA781, 0x6740,
-				0xA501, 0x65C0, 0x6480, 0xA441, 0x6C00, 0xACC1, 0xAD81, 0x6D40, 0xAF01, 0x6FC0, 0x6E80, 0xAE41, 0xAA01,
-				0x6AC0, 0x6B80, 0xAB41, 0x6900, 0xA9C1, 0xA881, 0x6840, 0x7800, 0xB8C1, 0xB981, 0x7940, 0xBB01, 0x7BC0,
-				0x7A80, 0xBA41, 0xBE01, 0x7EC0, 0x7F80, 0xBF41, 0x7D00, 0xBDC1, 0xBC81, 0x7C40, 0xB401, 0x74C0, 0x7580,
-				0xB541, 0x7700, 0xB7C1, 0xB681, 0x7640, 0x7200, 0xB2C1, 0xB381, 0x7340, 0xB101, 0x71C0, 0x7080, 0xB041,
-				0x5000, 0x90C1, 0x9181, 0x5140, 0x9301, 0x53C0, 0x5280, 0x9241, 0x9601, 0x56C0, 0x5780, 0x9741, 0x5500,
-				0x95C1, 0x9481, 0x5440, 0x9C01, 0x5CC0, 0x5D80, 0x9D41, 0x5F00, 0x9FC1, 0x9E81, 0x5E40, 0x5A00, 0x9AC1,
-				0x9B81, 0x5B40, 0x9901, 0x59C0, 0x5880, 0x9841, 0x8801, 0x48C0, 0x4980, 0x8941, 0x4B00, 0x8BC1, 0x8A81,
-				0x4A40, 0x4E00, 0x8EC1, 0x8F81, 0x4F40, 0x8D01, 0x4DC0, 0x4C80, 0x8C41, 0x4400, 0x84C1, 0x8581, 0x4540,
-				0x8701, 0x47C0, 0x4680, 0x8641, 0x8201, 0x42C0, 0x4380, 0x8341, 0x4100, 0x81C1, 0x8081, 0x4040 };
 
 		num = s; // location counter
 		while ((int) num <= (int) e) // until final address (inclusive)
@@ -187,7 +266,7 @@ public final class ChecksumE38PCM implements ChecksumManager {
 			num3 = (byte) (init & 0xff); // num3=sum low byte
 			num4 = (byte) ((init & 0xff00) / 0x100); // num4=sum high byte
 			int temp1 = (short) (((num3 & 0xFF)) ^ (num2 & 0xFF));
-			num5 = crc16t[temp1]; // sum low byte xord with data used as index to another xor table
+			num5 = CRC16_TABLE[temp1]; // sum low byte xord with data used as index to another xor table
 			int temp2 = (int) (num5 ^ (num4 & 0xFF));
 			init = temp2 & 0xffff; // xor table byte xord with sum high byte
 			num++; // next byte
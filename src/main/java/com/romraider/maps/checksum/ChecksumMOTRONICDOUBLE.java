@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2020 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,11 +19,8 @@
 
 package com.romraider.maps.checksum;
 
-import static com.romraider.xml.RomAttributeParser.parseByteValue;
-
 import java.util.Map;
 
-import com.romraider.Settings;
 import com.romraider.util.HexUtil;
 
 /**
@@ -35,6 +32,7 @@ import com.romraider.util.HexUtil;
     
     private int start2;
     private int end2;
+    private BlockSums bytes2;
 
     @Override
     public void configure(Map<String, String> vars) {
@@ -49,34 +47,8 @@ import com.romraider.util.HexUtil;
 	}
 
     @Override
-    public int validate(byte[] binData) {
-		short checksum = calculate(initial, binData, start, end);
-		checksum = calculate(checksum, binData, start2, end2);
-		short checksumInBin = (short)parseByteValue(binData, Settings.Endian.BIG, loc, 2, false);
-        int valid = 0;
-        
-        if(checksum == checksumInBin)
-        	valid++;
-        	
-        return valid;  	
-    }
-    
-    @Override
-    public int update(byte[] binData) {
-    	int updateNeeded = 0;
-		short checksumInBin = (short)parseByteValue(binData, Settings.Endian.BIG, loc, 2, false);
-		
-		short checksum = calculate(initial, binData, start, end);
-		checksum = calculate(checksum, binData, start2, end2);
-		
-		if(checksumInBin != checksum)
-		{
-			updateNeeded++;
-		
-	    	binData[loc] = (byte)((checksum >> 8) & 0xFF);
-	    	binData[loc+1] = (byte)((checksum) & 0xFF);
-		}
-    	
-    	return updateNeeded;
+    protected short checksum(byte[] binData) {
+        bytes2 = sum(bytes2, binData, start2, end2);
+        return (short) (super.checksum(binData) + bytes2.sum());
     }
 }
\ No newline at end of file
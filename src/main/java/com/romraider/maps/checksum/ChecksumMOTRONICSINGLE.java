@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2020 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -29,7 +29,7 @@ import com.romraider.util.HexUtil;
 /**
  * This class implements the Single Checksum for some older Motronic Ecus
  */
-    public class ChecksumMOTRONICSINGLE implements ChecksumManager {
+    public class ChecksumMOTRONICSINGLE implements ChecksumManager, IncrementalChecksum {
     protected static final String START = "start";
     protected static final String END = "end";
     protected static final String LOC = "loc";
@@ -39,6 +39,8 @@ import com.romraider.util.HexUtil;
     protected int end;
     protected int loc;
     protected short initial = 0;
+    protected DirtyRegions dirty;
+    private BlockSums bytes;
 
     @Override
     public void configure(Map<String, String> vars) {
@@ -49,6 +51,11 @@ import com.romraider.util.HexUtil;
         if(vars.get(INITIAL) != null)
         	this.initial = (short) HexUtil.hexToInt(vars.get(INITIAL));
     }
+
+    @Override
+    public void setDirtyRegions(DirtyRegions dirty) {
+        this.dirty = dirty;
+    }
     
 	@Override
 	public int getNumberOfChecksums() {
@@ -57,7 +64,7 @@ import com.romraider.util.HexUtil;
 
     @Override
     public int validate(byte[] binData) {
-        short checksum = calculate(initial, binData, start, end);
+        short checksum = checksum(binData);
         short checksumInBin = (short) parseByteValue(binData, Settings.Endian.BIG, loc, 2, false);
         int valid = 0;
         
@@ -70,7 +77,7 @@ import com.romraider.util.HexUtil;
     @Override
     public int update(byte[] binData) {
     	int updateNeeded = 0;
-		short checksum = calculate(initial, binData, start, end);
+		short checksum = checksum(binData);
 		short checksumInBin = (short)parseByteValue(binData, Settings.Endian.BIG, loc, 2, false);
 		
 		if(checksumInBin != checksum) {
@@ -78,11 +85,33 @@ import com.romraider.util.HexUtil;
 			
 	    	binData[loc] = (byte)((checksum >> 8) & 0xFF);
 	    	binData[loc+1] = (byte)((checksum) & 0xFF);
+	    	if (dirty != null) dirty.mark(loc, 2);
 		}
 		 	
     	return updateNeeded;
     }
     
+    /**
+     * @return the checksum of the image, calculated from the byte sums
+     * cached per block
+     */
+    protected short checksum(byte[] binData) {
+        bytes = sum(bytes, binData, start, end);
+        return (short) (initial + bytes.sum());
+    }
+
+    /**
+     * Bring the byte sums of an inclusive range up to date.
+     * @return the sums, new ones if the range changed
+     */
+    protected BlockSums sum(BlockSums sums, byte[] binData, int startAddress, int endAddress) {
+        if (sums == null || !sums.hasRange(startAddress, endAddress + 1)) {
+            sums = new BlockSums(startAddress, endAddress + 1, 1);
+        }
+        sums.update(binData, dirty);
+        return sums;
+    }
+
     public static short calculate(short initalValue, byte[] binData, int startAddress, int endAddress) {
         short value = initalValue;
         for (int i = startAddress; i <= endAddress; i++) {
@@ -0,0 +1,96 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps.checksum;
+
+/**
+ * Tracks the blocks of a ROM image written since it was loaded, so that
+ * checksums can recompute only the blocks changed since they were last
+ * calculated.  Each write stamps its blocks with a new version, a
+ * checksum remembers the version its results were calculated at and
+ * asks which blocks changed after it.  Several checksums share one
+ * instance without clearing each other's view.
+ */
+public final class DirtyRegions {
+    static final int BLOCK_SHIFT = 10;
+    static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private final int[] versions;
+    private int version;
+
+    /**
+     * @param size - the size of the image in bytes
+     */
+    public DirtyRegions(int size) {
+        versions = new int[(size + BLOCK_SIZE - 1) >> BLOCK_SHIFT];
+    }
+
+    /**
+     * Record that bytes of the image were written.
+     * @param offset - the offset of the first byte written
+     * @param length - the number of bytes written
+     */
+    public synchronized void mark(int offset, int length) {
+        if (length <= 0 || versions.length == 0) {
+            return;
+        }
+        version++;
+        final int first = Math.max(0, offset >> BLOCK_SHIFT);
+        final int last = Math.min(versions.length - 1,
+                (offset + length - 1) >> BLOCK_SHIFT);
+        for (int block = first; block <= last; block++) {
+            versions[block] = version;
+        }
+    }
+
+    /**
+     * Record that any byte of the image may have been written.
+     */
+    public synchronized void markAll() {
+        mark(0, versions.length << BLOCK_SHIFT);
+    }
+
+    /**
+     * @return the version of the last write, results calculated after
+     * reading it include every write up to it
+     */
+    public synchronized int getVersion() {
+        return version;
+    }
+
+    /**
+     * @param from - the offset of the first byte
+     * @param to - the offset after the last byte
+     * @param since - the version results were calculated at
+     * @return true if a byte in the range may have been written after the
+     * version
+     */
+    public synchronized boolean isDirty(int from, int to, int since) {
+        if (to <= from) {
+            return false;
+        }
+        final int first = Math.max(0, from >> BLOCK_SHIFT);
+        final int last = Math.min(versions.length - 1, (to - 1) >> BLOCK_SHIFT);
+        for (int block = first; block <= last; block++) {
+            if (versions[block] > since) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps.checksum;
+
+/**
+ * Implemented by checksums which keep partial results per block of the
+ * image and recompute only the blocks written since their last
+ * calculation.  Without {@link DirtyRegions} every calculation reads the
+ * whole range.
+ */
+public interface IncrementalChecksum {
+
+    /**
+     * @param dirty - the writes to the image the checksum is calculated
+     *                over, the checksum also records its own writes here
+     */
+    void setDirtyRegions(DirtyRegions dirty);
+}
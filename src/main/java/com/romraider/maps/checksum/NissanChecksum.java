@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2019 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -32,7 +32,7 @@ import com.romraider.util.HexUtil;
  * This class provides common methods implemented by different
  * checksum calculation type classes.
  */
-    abstract class NissanChecksum implements ChecksumManager {
+    abstract class NissanChecksum implements ChecksumManager, IncrementalChecksum {
         public static final String START = "start";
         public static final String END = "end";
         public static final String SUMLOC = "sumloc";
@@ -42,6 +42,7 @@ import com.romraider.util.HexUtil;
         protected final Map<String, Integer> range = new HashMap<String, Integer>();
         protected final Map<String, Integer> results = new HashMap<String, Integer>();
         protected Calculator calculator;
+        protected DirtyRegions dirty;
 
     @Override
     public void configure(Map<String, String> vars) {
@@ -51,6 +52,14 @@ import com.romraider.util.HexUtil;
         range.put(XORLOC, HexUtil.hexToInt(vars.get(XORLOC)));
     }
 
+    @Override
+    public void setDirtyRegions(DirtyRegions dirty) {
+        this.dirty = dirty;
+        if (calculator instanceof IncrementalChecksum) {
+            ((IncrementalChecksum) calculator).setDirtyRegions(dirty);
+        }
+    }
+
     @Override
     public int getNumberOfChecksums() {
     	return 2;
@@ -77,6 +86,17 @@ import com.romraider.util.HexUtil;
         calculator.calculate(range, binData, results);
         System.arraycopy(parseIntegerValue(results.get(SUMT), Settings.Endian.BIG, 4), 0, binData, range.get(SUMLOC), 4);
         System.arraycopy(parseIntegerValue(results.get(XORT), Settings.Endian.BIG, 4), 0, binData, range.get(XORLOC), 4);
+        written(range.get(SUMLOC), 4);
+        written(range.get(XORLOC), 4);
         return getNumberOfChecksums();
     }
+
+    /**
+     * Record a write of a checksum to the image.
+     */
+    protected void written(int offset, int length) {
+        if (dirty != null) {
+            dirty.mark(offset, length);
+        }
+    }
 }
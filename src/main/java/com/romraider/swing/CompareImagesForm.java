@@ -25,21 +25,31 @@ import java.awt.Cursor;
 import java.awt.Image;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.List;
 import java.util.ResourceBundle;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.DefaultListModel;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JList;
 import javax.swing.JMenuItem;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.ListCellRenderer;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.EtchedBorder;
 import javax.swing.event.ListSelectionEvent;
@@ -48,7 +58,8 @@ import javax.swing.event.ListSelectionListener;
 import com.romraider.Settings;
 import com.romraider.editor.ecu.ECUEditorManager;
 import com.romraider.maps.Rom;
-import com.romraider.maps.Table;
+import com.romraider.maps.RomCompare;
+import com.romraider.maps.TableDiff;
 import com.romraider.util.ResourceUtil;
 
 public class CompareImagesForm extends JFrame implements ActionListener {
@@ -60,11 +71,13 @@ public class CompareImagesForm extends JFrame implements ActionListener {
     private final JComboBox comboBoxImageLeft;
     private final JComboBox comboBoxImageRight;
     private final JButton btnCompare;
+    private final JButton btnExport;
     private final JList listChanges;
     private final DefaultListModel listModelChanges = new DefaultListModel();
     private final ChangeListCellRenderer changeRenderer = new ChangeListCellRenderer();
     private final JScrollPane scrollPaneResults;
     private final JLabel lblImageResultString;
+    private List<TableDiff> diffs = Collections.emptyList();
 
     public CompareImagesForm(Vector<Rom> roms, Image parentImage) {
         this.setIconImage(parentImage);
@@ -104,6 +117,13 @@ public class CompareImagesForm extends JFrame implements ActionListener {
         this.btnCompare.addActionListener(this);
         this.btnCompare.setBounds(10, 64, 89, 23);
         panelImageSelector.add(this.btnCompare);
+
+        this.btnExport = new JButton(rb.getString("BTNEXPORT"));
+        this.btnExport.setToolTipText(rb.getString("TTEXPORT"));
+        this.btnExport.addActionListener(this);
+        this.btnExport.setBounds(109, 64, 89, 23);
+        this.btnExport.setEnabled(false);
+        panelImageSelector.add(this.btnExport);
         this.contentPane.add(panelImageSelector);
         this.contentPane.add(lblSelectImages);
 
@@ -172,55 +192,29 @@ public class CompareImagesForm extends JFrame implements ActionListener {
     public void compareTables(Rom left, Rom right)
     {
         listModelChanges.clear();
+        diffs = Collections.emptyList();
+        btnCompare.setEnabled(false);
+        btnExport.setEnabled(false);
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        new CompareWorker(left, right).execute();
+    }
 
+    private void showResult()
+    {
         int equal = 0;
         int different = 0;
         int missing = 0;
-
-        //TODO: Utilize map correctly!
-        for(TableTreeNode leftNode : left.getTableNodes().values())
-        {
-            Boolean found = false;
-            Table leftTable = leftNode.getTable();
-            for(TableTreeNode rightNode : right.getTableNodes().values())
-            {
-                Table rightTable = rightNode.getTable();
-
-                if(leftTable.getName().equalsIgnoreCase(rightTable.getName()))
-                {
-                    if(leftTable.equals(rightTable)) {
-                        equal++;
-                        listModelChanges.addElement(new ListItem(1, leftTable.getName()));
-                    }
-                    else {
-                        different++;
-                        listModelChanges.add(0, new ListItem(2, leftTable.getName()));
-                    }
-                    found = true;
-                    break;
-                }
-            }
-
-            if(!found) {
-                missing++;
-                listModelChanges.add(0, new ListItem(3, leftTable.getName()));
-            }
-        }
-
-        // Check if rightTables has tables that do not exist in left table.
-        for(TableTreeNode rightFrame : right.getTableNodes().values()) {
-            Boolean found = false;
-            for(TableTreeNode leftFrame : left.getTableNodes().values()) {
-                if(leftFrame.getTable().getName().equalsIgnoreCase(rightFrame.getTable().getName()))
-                {
-                    found = true;
-                    break;
-                }
-            }
-
-            if(!found) {
+        for (TableDiff diff : diffs) {
+            switch (diff.getStatus()) {
+            case EQUAL:
+                equal++;
+                break;
+            case CHANGED:
+                different++;
+                break;
+            default:
                 missing++;
-                listModelChanges.add(0, new ListItem(3, rightFrame.getTable().getName()));
+                break;
             }
         }
 
@@ -265,9 +259,113 @@ public class CompareImagesForm extends JFrame implements ActionListener {
 
     }
 
+    /**
+     * Compares the tables read from the images off the event dispatch
+     * thread and adds each table to the list as soon as its result is
+     * known.  Tables which have to be populated are compared when that is
+     * done, on the event dispatch thread.
+     */
+    private final class CompareWorker extends SwingWorker<List<TableDiff>, TableDiff> {
+        private final Rom left;
+        private final Rom right;
+
+        CompareWorker(Rom left, Rom right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        protected List<TableDiff> doInBackground() throws InterruptedException {
+            return RomCompare.compareImages(left, right, new RomCompare.Listener() {
+                @Override
+                public void compared(TableDiff diff) {
+                    publish(diff);
+                }
+            });
+        }
+
+        @Override
+        protected void process(List<TableDiff> chunks) {
+            // once the compare is done the list is filled by done()
+            if (isDone()) {
+                return;
+            }
+            for (TableDiff diff : chunks) {
+                addChange(diff);
+            }
+        }
+
+        @Override
+        protected void done() {
+            try {
+                diffs = get();
+                diffs.addAll(RomCompare.comparePopulated(left, right, null));
+                // results published last may not have been processed yet
+                listModelChanges.clear();
+                for (TableDiff diff : diffs) {
+                    addChange(diff);
+                }
+                btnExport.setEnabled(!diffs.isEmpty());
+                showResult();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+            finally {
+                btnCompare.setEnabled(true);
+                setCursor(Cursor.getDefaultCursor());
+            }
+        }
+    }
+
+    private void addChange(TableDiff diff) {
+        switch (diff.getStatus()) {
+        case EQUAL:
+            listModelChanges.addElement(new ListItem(1, diff.getName(), diff));
+            break;
+        case CHANGED:
+            listModelChanges.add(0, new ListItem(2, diff.getName(), diff));
+            break;
+        default:
+            listModelChanges.add(0, new ListItem(3, diff.getName(), diff));
+            break;
+        }
+    }
+
+    private void exportChanges() {
+        final JFileChooser fc = new JFileChooser();
+        fc.setSelectedFile(new File("compare.csv"));
+        if (fc.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            final Writer writer = new FileWriter(fc.getSelectedFile());
+            try {
+                RomCompare.writeCsv(diffs, writer);
+            }
+            finally {
+                writer.close();
+            }
+        }
+        catch (IOException ex) {
+            JOptionPane.showMessageDialog(this,
+                    MessageFormat.format(rb.getString("EXPORTERROR"), ex.getMessage()),
+                    rb.getString("TITLE"), JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     @Override
     public void actionPerformed(ActionEvent e) {
-        this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
         if (e.getSource() == this.btnCompare) {
             if(this.comboBoxImageLeft.getItemCount() > 0 && this.comboBoxImageRight.getItemCount() > 0)
             {
@@ -279,7 +377,9 @@ public class CompareImagesForm extends JFrame implements ActionListener {
                 }
             }
         }
-        this.setCursor(Cursor.getDefaultCursor());
+        else if (e.getSource() == this.btnExport) {
+            exportChanges();
+        }
     }
 
     class ComboBoxRenderer extends JLabel implements ListCellRenderer
@@ -350,8 +450,18 @@ public class CompareImagesForm extends JFrame implements ActionListener {
             case 2:
                 // different - default red
                 setForeground(Settings.TABLE_DIFFERENT_COLOR);
-                setText(MessageFormat.format(
-                        rb.getString("MODIFIED"), item.getValue()));
+                final TableDiff diff = item.getDiff();
+                if (diff != null && diff.getCells() > 0) {
+                    setText(MessageFormat.format(
+                            rb.getString("MODIFIEDCELLS"), item.getValue(),
+                            diff.getChangedCells(), diff.getCells(),
+                            diff.getPercentChanged(), diff.getMaxDelta(),
+                            diff.getUnits()));
+                }
+                else {
+                    setText(MessageFormat.format(
+                            rb.getString("MODIFIED"), item.getValue()));
+                }
                 break;
             case 3:
                 // missing - default yellow
@@ -372,10 +482,20 @@ public class CompareImagesForm extends JFrame implements ActionListener {
 
         private int type;
         private String value;
+        private final TableDiff diff;
 
         public ListItem(int type, String value) {
+            this(type, value, null);
+        }
+
+        public ListItem(int type, String value, TableDiff diff) {
             this.type = type;
             this.value = value;
+            this.diff = diff;
+        }
+
+        public TableDiff getDiff() {
+            return diff;
         }
 
         public int getType() {
@@ -58,7 +58,7 @@ public final class ByteUtil {
     }
 
     public static byte asByte(int i) {
-        return Integer.valueOf(i).byteValue();
+        return (byte) i;
     }
 
     public static float asFloat(byte[] b, int offset, int length) {
@@ -67,7 +67,7 @@ public final class ByteUtil {
     }
 
     public static int asInt(byte b) {
-        return Byte.valueOf(b).intValue();
+        return b;
     }
 
     public static boolean matchOnes(byte b, int mask) {
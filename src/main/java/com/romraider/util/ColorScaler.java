@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2012 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -23,11 +23,33 @@ import java.awt.Color;
 
 import com.romraider.Settings;
 
+/**
+ * Colours between the minimum and maximum table colours of the settings.
+ * Scales from 0 to 1 are looked up in a gradient computed once for the
+ * current pair of colours.
+ */
 public final class ColorScaler {
+    private static final int GRADIENT_STEPS = 256;
+    private static volatile Gradient gradient;
 
     private ColorScaler() {
     }
 
+    private static final class Gradient {
+        private final Color minColor;
+        private final Color maxColor;
+        private final Color[] colors = new Color[GRADIENT_STEPS];
+
+        private Gradient(Color minColor, Color maxColor) {
+            this.minColor = minColor;
+            this.maxColor = maxColor;
+            for (int i = 0; i < GRADIENT_STEPS; i++) {
+                colors[i] = interpolate(minColor, maxColor,
+                        (double) i / (GRADIENT_STEPS - 1));
+            }
+        }
+    }
+
     public static Color getScaledColor(double scale) {
 
         Settings settings = SettingsManager.getSettings();
@@ -42,6 +64,19 @@ public final class ColorScaler {
         Color minColor = settings.getMinColor();
         Color maxColor = settings.getMaxColor();
 
+        if (scale > 0.0 && scale <= 1.0) {
+            Gradient current = gradient;
+            if (current == null || !current.minColor.equals(minColor)
+                    || !current.maxColor.equals(maxColor)) {
+                current = new Gradient(minColor, maxColor);
+                gradient = current;
+            }
+            return current.colors[(int) Math.round(scale * (GRADIENT_STEPS - 1))];
+        }
+        return interpolate(minColor, maxColor, scale);
+    }
+
+    private static Color interpolate(Color minColor, Color maxColor, double scale) {
         float[] minColorHSB = new float[3];
         float[] maxColorHSB = new float[3];
 
@@ -0,0 +1,357 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util;
+
+import static com.romraider.util.ParamChecker.isNullOrEmpty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.log4j.Logger;
+import org.nfunk.jep.ASTConstant;
+import org.nfunk.jep.ASTFunNode;
+import org.nfunk.jep.ASTVarNode;
+import org.nfunk.jep.JEP;
+import org.nfunk.jep.Node;
+import org.nfunk.jep.ParseException;
+import org.nfunk.jep.function.Abs;
+import org.nfunk.jep.function.Add;
+import org.nfunk.jep.function.ArcCosine;
+import org.nfunk.jep.function.ArcSine;
+import org.nfunk.jep.function.ArcTangent;
+import org.nfunk.jep.function.ArcTangent2;
+import org.nfunk.jep.function.Comparative;
+import org.nfunk.jep.function.Cosine;
+import org.nfunk.jep.function.Divide;
+import org.nfunk.jep.function.Exp;
+import org.nfunk.jep.function.If;
+import org.nfunk.jep.function.Logarithm;
+import org.nfunk.jep.function.Logical;
+import org.nfunk.jep.function.Modulus;
+import org.nfunk.jep.function.Multiply;
+import org.nfunk.jep.function.NaturalLogarithm;
+import org.nfunk.jep.function.Not;
+import org.nfunk.jep.function.PostfixMathCommandI;
+import org.nfunk.jep.function.Power;
+import org.nfunk.jep.function.Sine;
+import org.nfunk.jep.function.SquareRoot;
+import org.nfunk.jep.function.Subtract;
+import org.nfunk.jep.function.Tangent;
+import org.nfunk.jep.function.UMinus;
+
+/**
+ * A definition expression parsed once into an immutable evaluator tree.
+ * <p>
+ * The JEP parser is only used to build the syntax tree, which is then
+ * translated into {@link ExpressionNode} objects that evaluate with
+ * primitive doubles.  A compiled expression holds no mutable state, so a
+ * single instance can be shared between threads without locking and
+ * evaluating it does not allocate.
+ * <p>
+ * Single variable expressions (the <code>x</code> used by scalings and
+ * logger conversions) are interned, so every <code>Scale</code> or
+ * convertor with the same expression shares one instance.
+ */
+public final class CompiledExpression {
+    private static final Logger LOGGER = Logger.getLogger(CompiledExpression.class);
+    public static final String VARIABLE = "x";
+    private static final String[] SINGLE_VARIABLE = {VARIABLE};
+    private static final int MAX_INTERNED = 4096;
+    private static final ConcurrentMap<String, CompiledExpression> interned =
+            new ConcurrentHashMap<String, CompiledExpression>();
+
+    private final String expression;
+    private final String[] variables;
+    private final ExpressionNode root;
+    private final boolean valid;
+
+    private CompiledExpression(String expression, String[] variables,
+            ExpressionNode root, boolean valid) {
+        this.expression = expression;
+        this.variables = variables;
+        this.root = root;
+        this.valid = valid;
+    }
+
+    /**
+     * Compile an expression of the single variable <code>x</code>.
+     * @param expression - the expression to compile
+     * @return the shared compiled instance of <b>expression</b>
+     */
+    public static CompiledExpression compile(String expression) {
+        if (expression == null) {
+            return invalid(expression, SINGLE_VARIABLE);
+        }
+        CompiledExpression compiled = interned.get(expression);
+        if (compiled == null) {
+            compiled = compile(expression, SINGLE_VARIABLE);
+            if (interned.size() < MAX_INTERNED) {
+                final CompiledExpression existing =
+                        interned.putIfAbsent(expression, compiled);
+                if (existing != null) {
+                    compiled = existing;
+                }
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Compile an expression of named variables.  Each variable is bound to
+     * the slot of the values array given by its position in
+     * <b>variables</b>.
+     * @param expression - the expression to compile
+     * @param variables - the variable names in slot order
+     * @return the compiled expression, one which evaluates to NaN if
+     * <b>expression</b> could not be parsed
+     */
+    public static CompiledExpression compile(String expression, String... variables) {
+        final String[] names = variables.clone();
+        if (isNullOrEmpty(expression)) {
+            return invalid(expression, names);
+        }
+        final JEP parser = createParser();
+        for (String name : names) {
+            parser.addVariable(name, 0);
+        }
+        try {
+            final ExpressionNode root = translate(parser.parse(expression), names);
+            return new CompiledExpression(expression, names, root, true);
+        }
+        catch (Throwable e) {
+            LOGGER.warn("Unable to compile expression: " + expression
+                    + " (" + e.getMessage() + ")");
+            return invalid(expression, names);
+        }
+    }
+
+    /**
+     * Compile an expression binding each variable it references to a slot,
+     * in order of first appearance.
+     * @param expression - the expression to compile
+     * @return the compiled expression, see {@link #getVariables()}
+     */
+    public static CompiledExpression compileUndeclared(String expression) {
+        if (isNullOrEmpty(expression)) {
+            return invalid(expression, new String[0]);
+        }
+        final JEP parser = createParser();
+        parser.setAllowUndeclared(true);
+        try {
+            final Node top = parser.parse(expression);
+            final List<String> names = new ArrayList<String>();
+            collectVariables(top, names);
+            return compile(expression, names.toArray(new String[names.size()]));
+        }
+        catch (Throwable e) {
+            LOGGER.warn("Unable to compile expression: " + expression
+                    + " (" + e.getMessage() + ")");
+            return invalid(expression, new String[0]);
+        }
+    }
+
+    /**
+     * Evaluate a single variable expression.
+     * @param x - the value of the variable
+     * @return the result, NaN if the expression is not valid
+     */
+    public double evaluate(double x) {
+        return root.evaluate(x, null);
+    }
+
+    /**
+     * Evaluate an expression of named variables.
+     * @param values - the variable values indexed by slot
+     * @return the result, NaN if the expression is not valid
+     */
+    public double evaluate(double[] values) {
+        return root.evaluate(0.0, values);
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * @return a copy of the variable names in slot order
+     */
+    public String[] getVariables() {
+        return variables.clone();
+    }
+
+    public int getVariableCount() {
+        return variables.length;
+    }
+
+    /**
+     * @param name - a variable name
+     * @return the slot of variable <b>name</b> or -1 if not bound
+     */
+    public int getSlot(String name) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private static CompiledExpression invalid(String expression, String[] names) {
+        return new CompiledExpression(expression, names,
+                new ExpressionNode.Constant(Double.NaN), false);
+    }
+
+    private static JEP createParser() {
+        final JEP parser = new JEP();
+        parser.addStandardFunctions();
+        parser.addFunction("BitWise", new BitWise());
+        parser.initSymTab(); // clear the contents of the symbol table
+        return parser;
+    }
+
+    private static void collectVariables(Node node, List<String> names) {
+        if (node instanceof ASTVarNode) {
+            final String name = ((ASTVarNode) node).getName();
+            if (!names.contains(name)) {
+                names.add(name);
+            }
+        }
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            collectVariables(node.jjtGetChild(i), names);
+        }
+    }
+
+    private static ExpressionNode translate(Node node, String[] names)
+            throws ParseException {
+
+        if (node instanceof ASTConstant) {
+            final Object value = ((ASTConstant) node).getValue();
+            if (!(value instanceof Number)) {
+                throw new ParseException("Unsupported constant: " + value);
+            }
+            return new ExpressionNode.Constant(((Number) value).doubleValue());
+        }
+        if (node instanceof ASTVarNode) {
+            final String name = ((ASTVarNode) node).getName();
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return new ExpressionNode.Variable(i);
+                }
+            }
+            throw new ParseException("Unknown variable: " + name);
+        }
+        if (!(node instanceof ASTFunNode)) {
+            throw new ParseException("Unsupported node: " + node);
+        }
+
+        final ASTFunNode fun = (ASTFunNode) node;
+        final ExpressionNode[] args = new ExpressionNode[fun.jjtGetNumChildren()];
+        boolean constant = true;
+        for (int i = 0; i < args.length; i++) {
+            args[i] = translate(fun.jjtGetChild(i), names);
+            constant &= args[i].isConstant();
+        }
+
+        final ExpressionNode result = translateFunction(fun, args);
+        if (constant && !(result instanceof ExpressionNode.Interpreted)) {
+            return new ExpressionNode.Constant(result.evaluate(0.0, null));
+        }
+        return result;
+    }
+
+    private static ExpressionNode translateFunction(ASTFunNode fun,
+            ExpressionNode[] args) throws ParseException {
+
+        final PostfixMathCommandI pfmc = fun.getPFMC();
+        final String name = fun.getName();
+        if (args.length == 1) {
+            if (pfmc instanceof UMinus) return new ExpressionNode.Negate(args[0]);
+            if (pfmc instanceof Not) return new ExpressionNode.Not(args[0]);
+            final int function = unaryFunction(pfmc);
+            if (function >= 0) return new ExpressionNode.Function(function, args[0]);
+        }
+        else if (args.length == 2) {
+            if (pfmc instanceof Add) return new ExpressionNode.Add(args[0], args[1]);
+            if (pfmc instanceof Subtract) return new ExpressionNode.Subtract(args[0], args[1]);
+            if (pfmc instanceof Multiply) return new ExpressionNode.Multiply(args[0], args[1]);
+            if (pfmc instanceof Divide) return new ExpressionNode.Divide(args[0], args[1]);
+            if (pfmc instanceof Modulus) return new ExpressionNode.Modulus(args[0], args[1]);
+            if (pfmc instanceof Power) return new ExpressionNode.Power(args[0], args[1]);
+            if (pfmc instanceof ArcTangent2) return new ExpressionNode.Atan2(args[0], args[1]);
+            if (pfmc instanceof Logical) {
+                if ("&&".equals(name)) return new ExpressionNode.And(args[0], args[1]);
+                if ("||".equals(name)) return new ExpressionNode.Or(args[0], args[1]);
+            }
+            if (pfmc instanceof Comparative) {
+                final int operator = comparison(name);
+                if (operator >= 0) return new ExpressionNode.Compare(operator, args[0], args[1]);
+            }
+        }
+        else if (args.length == 3 || args.length == 4) {
+            if (pfmc instanceof If) {
+                return new ExpressionNode.If(args[0], args[1], args[2],
+                        args.length == 4 ? args[3] : null);
+            }
+            if (pfmc instanceof BitWise && args.length == 3) {
+                return new ExpressionNode.BitOperation(args[0], args[1], args[2]);
+            }
+        }
+        if (!pfmc.checkNumberOfParameters(args.length)) {
+            throw new ParseException("Wrong number of arguments for " + name);
+        }
+        return new ExpressionNode.Interpreted(pfmc, args);
+    }
+
+    private static int unaryFunction(PostfixMathCommandI pfmc) {
+        if (pfmc instanceof Sine) return ExpressionNode.SIN;
+        if (pfmc instanceof Cosine) return ExpressionNode.COS;
+        if (pfmc instanceof Tangent) return ExpressionNode.TAN;
+        if (pfmc instanceof ArcSine) return ExpressionNode.ASIN;
+        if (pfmc instanceof ArcCosine) return ExpressionNode.ACOS;
+        if (pfmc instanceof ArcTangent) return ExpressionNode.ATAN;
+        if (pfmc instanceof SquareRoot) return ExpressionNode.SQRT;
+        if (pfmc instanceof Logarithm) return ExpressionNode.LOG;
+        if (pfmc instanceof NaturalLogarithm) return ExpressionNode.LN;
+        if (pfmc instanceof Exp) return ExpressionNode.EXP;
+        if (pfmc instanceof Abs) return ExpressionNode.ABS;
+        return -1;
+    }
+
+    private static int comparison(String symbol) {
+        if ("<".equals(symbol)) return ExpressionNode.LT;
+        if (">".equals(symbol)) return ExpressionNode.GT;
+        if ("<=".equals(symbol)) return ExpressionNode.LE;
+        if (">=".equals(symbol)) return ExpressionNode.GE;
+        if ("!=".equals(symbol)) return ExpressionNode.NE;
+        if ("==".equals(symbol)) return ExpressionNode.EQ;
+        return -1;
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util;
+
+import java.util.Stack;
+
+import org.nfunk.jep.ParseException;
+import org.nfunk.jep.function.PostfixMathCommandI;
+
+/**
+ * Immutable evaluator tree node produced by {@link CompiledExpression}.
+ * Each node evaluates to a primitive double; variables are read either
+ * from the single argument <code>x</code> (when <code>values</code> is
+ * null) or from the slot of the <code>values</code> array they were
+ * bound to at compile time.
+ */
+abstract class ExpressionNode {
+    static final int SIN = 0;
+    static final int COS = 1;
+    static final int TAN = 2;
+    static final int ASIN = 3;
+    static final int ACOS = 4;
+    static final int ATAN = 5;
+    static final int SQRT = 6;
+    static final int LOG = 7;
+    static final int LN = 8;
+    static final int EXP = 9;
+    static final int ABS = 10;
+
+    static final int LT = 0;
+    static final int GT = 1;
+    static final int LE = 2;
+    static final int GE = 3;
+    static final int NE = 4;
+    static final int EQ = 5;
+
+    private static final double LN_10 = Math.log(10);
+
+    abstract double evaluate(double x, double[] values);
+
+    boolean isConstant() {
+        return false;
+    }
+
+    static final class Constant extends ExpressionNode {
+        private final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            return value;
+        }
+
+        @Override
+        boolean isConstant() {
+            return true;
+        }
+    }
+
+    static final class Variable extends ExpressionNode {
+        private final int slot;
+
+        Variable(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            return values == null ? x : values[slot];
+        }
+    }
+
+    static final class Negate extends ExpressionNode {
+        private final ExpressionNode operand;
+
+        Negate(ExpressionNode operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            return -operand.evaluate(x, values);
+        }
+    }
+
+    static final class Not extends ExpressionNode {
+        private final ExpressionNode operand;
+
+        Not(ExpressionNode operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            return operand.evaluate(x, values) == 0.0 ? 1.0 : 0.0;
+        }
+    }
+
+    static final class Add extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        Add(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            return left.evaluate(x, values) + right.evaluate(x, values);
+        }
+    }
+
+    static final class Subtract extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        Subtract(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            return left.evaluate(x, values) - right.evaluate(x, values);
+        }
+    }
+
+    static final class Multiply extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        Multiply(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            return left.evaluate(x, values) * right.evaluate(x, values);
+        }
+    }
+
+    static final class Divide extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        Divide(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            return left.evaluate(x, values) / right.evaluate(x, values);
+        }
+    }
+
+    static final class Modulus extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        Modulus(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            return left.evaluate(x, values) % right.evaluate(x, values);
+        }
+    }
+
+    static final class Power extends ExpressionNode {
+        private final ExpressionNode base;
+        private final ExpressionNode exponent;
+
+        Power(ExpressionNode base, ExpressionNode exponent) {
+            this.base = base;
+            this.exponent = exponent;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            return Math.pow(base.evaluate(x, values), exponent.evaluate(x, values));
+        }
+    }
+
+    static final class Compare extends ExpressionNode {
+        private final int operator;
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        Compare(int operator, ExpressionNode left, ExpressionNode right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            final double l = left.evaluate(x, values);
+            final double r = right.evaluate(x, values);
+            final boolean result;
+            switch (operator) {
+                case LT: result = l < r;
+                    break;
+                case GT: result = l > r;
+                    break;
+                case LE: result = l <= r;
+                    break;
+                case GE: result = l >= r;
+                    break;
+                case NE: result = l != r;
+                    break;
+                default: result = l == r;
+                    break;
+            }
+            return result ? 1.0 : 0.0;
+        }
+    }
+
+    static final class And extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        And(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            final double l = left.evaluate(x, values);
+            final double r = right.evaluate(x, values);
+            return l != 0.0 && r != 0.0 ? 1.0 : 0.0;
+        }
+    }
+
+    static final class Or extends ExpressionNode {
+        private final ExpressionNode left;
+        private final ExpressionNode right;
+
+        Or(ExpressionNode left, ExpressionNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            final double l = left.evaluate(x, values);
+            final double r = right.evaluate(x, values);
+            return l != 0.0 || r != 0.0 ? 1.0 : 0.0;
+        }
+    }
+
+    /**
+     * JEP <code>if(cond, positive, negative[, zero])</code>: only the
+     * selected branch is evaluated.
+     */
+    static final class If extends ExpressionNode {
+        private final ExpressionNode condition;
+        private final ExpressionNode positive;
+        private final ExpressionNode negative;
+        private final ExpressionNode zero;
+
+        If(ExpressionNode condition, ExpressionNode positive,
+                ExpressionNode negative, ExpressionNode zero) {
+            this.condition = condition;
+            this.positive = positive;
+            this.negative = negative;
+            this.zero = zero;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            final double c = condition.evaluate(x, values);
+            if (c > 0.0) {
+                return positive.evaluate(x, values);
+            }
+            if (zero == null || c < 0.0) {
+                return negative.evaluate(x, values);
+            }
+            return zero.evaluate(x, values);
+        }
+    }
+
+    static final class Function extends ExpressionNode {
+        private final int function;
+        private final ExpressionNode operand;
+
+        Function(int function, ExpressionNode operand) {
+            this.function = function;
+            this.operand = operand;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            final double v = operand.evaluate(x, values);
+            switch (function) {
+                case SIN:  return Math.sin(v);
+                case COS:  return Math.cos(v);
+                case TAN:  return Math.tan(v);
+                case ASIN: return Math.asin(v);
+                case ACOS: return Math.acos(v);
+                case ATAN: return Math.atan(v);
+                case SQRT: return Math.sqrt(v);
+                case LOG:  return v > 0.0 ? Math.log(v) / LN_10 : Double.NaN;
+                case LN:   return Math.log(v);
+                case EXP:  return Math.exp(v);
+                default:   return Math.abs(v);
+            }
+        }
+    }
+
+    static final class Atan2 extends ExpressionNode {
+        private final ExpressionNode y;
+        private final ExpressionNode x;
+
+        Atan2(ExpressionNode y, ExpressionNode x) {
+            this.y = y;
+            this.x = x;
+        }
+
+        @Override
+        double evaluate(double arg, double[] values) {
+            return Math.atan2(y.evaluate(arg, values), x.evaluate(arg, values));
+        }
+    }
+
+    /**
+     * Primitive form of the {@link BitWise} function.
+     */
+    static final class BitOperation extends ExpressionNode {
+        private final ExpressionNode mask;
+        private final ExpressionNode variable;
+        private final ExpressionNode operation;
+
+        BitOperation(ExpressionNode mask, ExpressionNode variable,
+                ExpressionNode operation) {
+            this.mask = mask;
+            this.variable = variable;
+            this.operation = operation;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            final int m = (int) mask.evaluate(x, values);
+            final int v = (int) variable.evaluate(x, values);
+            switch ((int) operation.evaluate(x, values)) {
+                case 1:  return v & m;
+                case 2:  return v | m;
+                case 3:  return v ^ m;
+                case 4:  return v << m;
+                case 5:  return v >> m;
+                case 6:  return v >>> m;
+                case 7:  return ~v;
+                default: return 0;
+            }
+        }
+    }
+
+    /**
+     * Fallback for JEP functions without a primitive implementation.  The
+     * JEP command keeps state between calls so evaluation is serialized on
+     * this node only; no global lock is involved.
+     */
+    static final class Interpreted extends ExpressionNode {
+        private final PostfixMathCommandI command;
+        private final ExpressionNode[] arguments;
+        private final Stack<Object> stack = new Stack<Object>();
+
+        Interpreted(PostfixMathCommandI command, ExpressionNode[] arguments) {
+            this.command = command;
+            this.arguments = arguments;
+        }
+
+        @Override
+        double evaluate(double x, double[] values) {
+            final double[] args = new double[arguments.length];
+            for (int i = 0; i < arguments.length; i++) {
+                args[i] = arguments[i].evaluate(x, values);
+            }
+            synchronized (this) {
+                stack.clear();
+                for (double arg : args) {
+                    stack.push(arg);
+                }
+                try {
+                    command.setCurNumberOfParameters(args.length);
+                    command.run(stack);
+                }
+                catch (ParseException e) {
+                    return Double.NaN;
+                }
+                final Object result = stack.isEmpty() ? null : stack.pop();
+                return result instanceof Number
+                        ? ((Number) result).doubleValue() : Double.NaN;
+            }
+        }
+    }
+}
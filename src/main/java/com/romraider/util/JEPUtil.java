@@ -19,65 +19,42 @@
 
 package com.romraider.util;
 
-import org.nfunk.jep.JEP;
-
-import java.util.Collections;
 import java.util.Map;
-import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Convenience evaluation of expression strings.  Expressions are compiled
+ * once into a shared {@link CompiledExpression}, callers that evaluate the
+ * same expression repeatedly should hold on to the compiled form instead.
+ */
 public final class JEPUtil {
-	@SuppressWarnings("serial")
-	static class LRUCache<K, V> extends LinkedHashMap<K, V> {
-		private int cacheSize;
-
-		public LRUCache(int cacheSize) {
-			super(32, 0.75f, true);
-			this.cacheSize = cacheSize;
-		}
-
-		@Override
-		protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-			return size() >= cacheSize;
-		}
-	};
-
-	private static final Map<String, JEP> parserCache = Collections.synchronizedMap(new LRUCache<String, JEP>(32));
+	private static final int MAX_CACHE_SIZE = 1024;
+	private static final ConcurrentMap<String, CompiledExpression> namedCache =
+			new ConcurrentHashMap<String, CompiledExpression>();
 
-	public static synchronized double evaluate(String expression, double value) {
-		JEP parser = parserCache.get(expression);
-		if (parser == null) {
-			parser = new JEP();
-			parser.addStandardFunctions();
-			parser.addFunction("BitWise", new BitWise());
-			parser.initSymTab(); // clear the contents of the symbol table
-			parser.addVariable("x", value);
-			parser.parseExpression(expression);
-			parserCache.put(expression, parser);
-		} else {
-			parser.setVarValue("x", value);
-		}
-		return parser.getValue();
+	public static double evaluate(String expression, double value) {
+		return CompiledExpression.compile(expression).evaluate(value);
 	}
 
-	public static synchronized double evaluate(String expression, Map<String, Double> valueMap) {
-		JEP parser = parserCache.get(expression);
-		if (parser == null) {
-			parser = new JEP();
-			parser.initSymTab(); // clear the contents of the symbol table
-			for (String id : valueMap.keySet()) {
-				parser.addVariable(id, valueMap.get(id));
+	public static double evaluate(String expression, Map<String, Double> valueMap) {
+		CompiledExpression compiled = namedCache.get(expression);
+		if (compiled == null) {
+			compiled = CompiledExpression.compileUndeclared(expression);
+			if (namedCache.size() < MAX_CACHE_SIZE) {
+				namedCache.putIfAbsent(expression, compiled);
 			}
-			parser.parseExpression(expression);
-			parserCache.put(expression, parser);
-		} else {
+		}
 
-			for (String id : valueMap.keySet()) {
-				if (parser.getSymbolTable().containsKey(id)) {
-					parser.setVarValue(id, valueMap.get(id));
-				}
+		final String[] variables = compiled.getVariables();
+		final double[] values = new double[variables.length];
+		for (int i = 0; i < variables.length; i++) {
+			final Double value = valueMap.get(variables[i]);
+			if (value == null) {
+				return Double.NaN;
 			}
-
+			values[i] = value;
 		}
-		return parser.getValue();
+		return compiled.evaluate(values);
 	}
 }
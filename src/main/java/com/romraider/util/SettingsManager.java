@@ -23,6 +23,7 @@ import static com.romraider.Version.VERSION;
 import static javax.swing.JOptionPane.INFORMATION_MESSAGE;
 import static javax.swing.JOptionPane.showMessageDialog;
 
+import java.awt.GraphicsEnvironment;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -61,6 +62,14 @@ public class SettingsManager {
         return settings;
     }
 
+    /**
+     * @return the directory the settings are loaded from and saved to
+     */
+    public static String getSettingsDir() {
+        getSettings();
+        return settingsDir;
+    }
+
     public static void setTesting(boolean b) {
     	testing = b;
     }
@@ -70,6 +79,10 @@ public class SettingsManager {
     }
     
     private static Settings load() {
+        // tests run with the defaults rather than the settings of the user
+        if (testing) {
+            return new Settings();
+        }
         Settings loadedSettings;
         try {
             FileInputStream settingsFileIn = null;
@@ -99,9 +112,14 @@ public class SettingsManager {
                 throw new FileNotFoundException("file length is 0");
             }
         } catch (FileNotFoundException e) {
-            showMessageDialog(null,
-                    rb.getString("FNF"),
-                    rb.getString("ERROR"), INFORMATION_MESSAGE);
+            if (GraphicsEnvironment.isHeadless()) {
+                LOGGER.info(rb.getString("FNF"));
+            }
+            else {
+                showMessageDialog(null,
+                        rb.getString("FNF"),
+                        rb.getString("ERROR"), INFORMATION_MESSAGE);
+            }
             loadedSettings = new Settings();
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -20,7 +20,12 @@
 package com.romraider.util;
 
 import org.apache.log4j.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class ThreadUtil {
     private static final Logger LOGGER = Logger.getLogger(ThreadUtil.class);
@@ -48,4 +53,24 @@ public final class ThreadUtil {
         thread.start();
     }
 
+    /**
+     * Create a pool with one daemon thread per available processor.  The
+     * caller is expected to shut it down once its tasks are submitted.
+     * @param name - prefix of the thread names
+     */
+    public static ExecutorService newWorkerPool(final String name) {
+        final int threads = Runtime.getRuntime().availableProcessors();
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable,
+                        name + " " + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
 }
@@ -19,21 +19,16 @@
 
 package com.romraider.xml;
 
-import static com.romraider.xml.DOMHelper.unmarshallAttribute;
-import static com.romraider.xml.DOMHelper.unmarshallText;
-import static org.w3c.dom.Node.ELEMENT_NODE;
-
 import java.io.File;
 import java.text.MessageFormat;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 
 import javax.management.modelmbean.XMLParseException;
 
 import org.apache.log4j.Logger;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import com.romraider.maps.Rom;
 import com.romraider.maps.RomID;
@@ -53,12 +48,13 @@ public final class DOMRomUnmarshaller {
     private ChecksumManager checksumManager = null;
     private TableScaleUnmarshaller tableScaleHandler = new TableScaleUnmarshaller();
 
-    public Node checkDefinitionMatch(Node rootNode, byte[] input){
-        Node n = findRomNodeMatch(rootNode, null, input);
+    public DefinitionElement checkDefinitionMatch(DefinitionElement rootNode, byte[] input){
+        DefinitionElement n = findRomNodeMatch(rootNode, null, input);
         return n;
     }
 
-    public Rom unmarshallXMLDefinition(File definition, Node rootNode, Node romNode, byte[] input,
+    public Rom unmarshallXMLDefinition(File definition, DefinitionElement rootNode,
+            DefinitionElement romNode, byte[] input,
             JProgressPane progress) throws
             XMLParseException, StackOverflowError, Exception {
 
@@ -78,15 +74,9 @@ public final class DOMRomUnmarshaller {
         return output;
     }
 
-    public static Node findFirstRomNode(Node rootNode) {
-        Node n;
-        NodeList nodes = rootNode.getChildNodes();
-
-        for (int i = 0; i < nodes.getLength(); i++) {
-            n = nodes.item(i);
-
-            if (n.getNodeType() == ELEMENT_NODE
-                    && n.getNodeName().equalsIgnoreCase("rom")) return n;
+    public static DefinitionElement findFirstRomNode(DefinitionElement rootNode) {
+        for (DefinitionElement n : rootNode.getChildren()) {
+            if (n.is("rom")) return n;
         }
 
         return null;
@@ -94,26 +84,15 @@ public final class DOMRomUnmarshaller {
 
     //Find the correct Rom Node either by xmlID or by input bytes
     //Supplying both will return null
-    private Node findRomNodeMatch(Node rootNode, String xmlID, byte[] input) {
+    private DefinitionElement findRomNodeMatch(DefinitionElement rootNode, String xmlID,
+            byte[] input) {
         if(xmlID == null && input == null) return null;
         if(xmlID != null && input != null) return null;
 
-        Node n;
-        NodeList nodes = rootNode.getChildNodes();
-
-        for (int i = 0; i < nodes.getLength(); i++) {
-            n = nodes.item(i);
-
-            if (n.getNodeType() == ELEMENT_NODE
-                    && n.getNodeName().equalsIgnoreCase("rom")) {
-                Node n2;
-                NodeList nodes2 = n.getChildNodes();
-
-                for (int z = 0; z < nodes2.getLength(); z++) {
-                    n2 = nodes2.item(z);
-
-                    if (n2.getNodeType() == ELEMENT_NODE
-                            && n2.getNodeName().equalsIgnoreCase("romid")) {
+        for (DefinitionElement n : rootNode.getChildren()) {
+            if (n.is("rom")) {
+                for (DefinitionElement n2 : n.getChildren()) {
+                    if (n2.is("romid")) {
 
                         RomID romId = new RomID();
                         romId = unmarshallRomID(n2, romId);
@@ -137,72 +116,68 @@ public final class DOMRomUnmarshaller {
         return null;
     }
 
-    public Rom unmarshallRom(Node rootNode, Rom rom) throws XMLParseException,
+    public Rom unmarshallRom(DefinitionElement rootNode, Rom rom) throws XMLParseException,
     RomNotFoundException, StackOverflowError, Exception {
-        Node n;
-        NodeList nodes = rootNode.getChildNodes();
+        DefinitionElement n;
+        List<DefinitionElement> nodes = rootNode.getChildren();
         tableScaleHandler.filterFoundRomTables(nodes);
 
         progress.update(MessageFormat.format(rb.getString("CREATETABLES"),
                 rom.getRomID().getXmlid()), 0);
 
-        if (!unmarshallAttribute(rootNode, "base", "none").equalsIgnoreCase(
+        if (!rootNode.getAttribute("base", "none").equalsIgnoreCase(
                 "none")) {
-            rom = getBaseRom(rootNode.getParentNode(),
-                    unmarshallAttribute(rootNode, "base", "none"), rom);
+            rom = getBaseRom(rootNode.getParent(),
+                    rootNode.getAttribute("base", "none"), rom);
             rom.getRomID().setObsolete(false);
         }
 
-        for (int i = 0; i < nodes.getLength(); i++) {
-            n = nodes.item(i);
+        for (int i = 0; i < nodes.size(); i++) {
+            n = nodes.get(i);
 
             // update progress
-            int currProgress = (int) (i / (double) nodes.getLength() * 100);
+            int currProgress = (int) (i / (double) nodes.size() * 100);
             progress.update(MessageFormat.format(rb.getString("CREATETABLES"),
                     rom.getRomID().getXmlid()), currProgress);
 
-            if (n.getNodeType() == ELEMENT_NODE) {
-                if (n.getNodeName().equalsIgnoreCase("romid")) {
-                    rom.setRomID(unmarshallRomID(n, rom.getRomID()));
+            if (n.is("romid")) {
+                rom.setRomID(unmarshallRomID(n, rom.getRomID()));
 
-                } else if (n.getNodeName().equalsIgnoreCase("table")) {
-                    Table table = null;
-                    table = rom.getTableByName(unmarshallAttribute(n, "name", null));
+            } else if (n.is("table")) {
+                Table table = null;
+                table = rom.getTableByName(n.getAttribute("name", null));
 
-                    try {
-                        table = tableScaleHandler.unmarshallTable(n, table, rom);
-                        if (table != null) {
-                            rom.addTableByName(table);
-                        }
-                    } catch (TableIsOmittedException ex) {
-                        // table is not supported in inherited def (skip)
-                        if (table != null) {
-                            rom.removeTableByName(table);
-                        }
-                    } catch (XMLParseException ex) {
-                        LOGGER.error(ex.getMessage());
+                try {
+                    table = tableScaleHandler.unmarshallTable(n, table, rom);
+                    if (table != null) {
+                        rom.addTableByName(table);
                     }
-                } else if (n.getNodeName().equalsIgnoreCase("checksum")) {
-                    rom.getRomID().setChecksum(unmarshallAttribute(n, "type", ""));
-                    checksumManager = unmarshallChecksum(rom, n);
-                    rom.addChecksumManager(checksumManager);
-                }
-                else if (n.getNodeType() == ELEMENT_NODE
-                            && n.getNodeName().equalsIgnoreCase("Simulation")) {
-                    	tableScaleHandler.unmarshallSimulation(rom, n);
-                } else { /* unexpected element in Rom (skip) */
+                } catch (TableIsOmittedException ex) {
+                    // table is not supported in inherited def (skip)
+                    if (table != null) {
+                        rom.removeTableByName(table);
+                    }
+                } catch (XMLParseException ex) {
+                    LOGGER.error(ex.getMessage());
                 }
-            } else { /* unexpected node-type in Rom (skip) */
+            } else if (n.is("checksum")) {
+                rom.getRomID().setChecksum(n.getAttribute("type", ""));
+                checksumManager = unmarshallChecksum(rom, n);
+                rom.addChecksumManager(checksumManager);
+            }
+            else if (n.is("simulation")) {
+                tableScaleHandler.unmarshallSimulation(rom, n);
+            } else { /* unexpected element in Rom (skip) */
             }
         }
         return rom;
     }
 
-    public Rom getBaseRom(Node rootNode, String xmlID, Rom rom)
+    public Rom getBaseRom(DefinitionElement rootNode, String xmlID, Rom rom)
             throws XMLParseException, RomNotFoundException, StackOverflowError,
             Exception {
 
-            Node n = findRomNodeMatch(rootNode, xmlID, null);
+            DefinitionElement n = findRomNodeMatch(rootNode, xmlID, null);
 
             if(n != null) {
                 Rom returnrom = unmarshallRom(n, rom);
@@ -213,79 +188,69 @@ public final class DOMRomUnmarshaller {
         throw new RomNotFoundException();
     }
 
-    public RomID unmarshallRomID(Node romIDNode, RomID romID) {
-        Node n;
-        NodeList nodes = romIDNode.getChildNodes();
+    public RomID unmarshallRomID(DefinitionElement romIDNode, RomID romID) {
+        for (DefinitionElement n : romIDNode.getChildren()) {
+            if (n.is("xmlid")) {
+                romID.setXmlid(n.getText());
 
-        for (int i = 0; i < nodes.getLength(); i++) {
-            n = nodes.item(i);
+            } else if (n.is("internalidaddress")) {
+                romID.setInternalIdAddress(RomAttributeParser
+                        .parseHexString(n.getText()));
 
-            if (n.getNodeType() == ELEMENT_NODE) {
-                String nodeName = n.getNodeName();
+            } else if (n.is("internalidstring")) {
+                romID.setInternalIdString(n.getText());
 
-                if (nodeName.equalsIgnoreCase("xmlid")) {
-                    romID.setXmlid(unmarshallText(n));
+            } else if (n.is("author")) {
+                romID.setAuthor(n.getText());
 
-                } else if (nodeName.equalsIgnoreCase("internalidaddress")) {
-                    romID.setInternalIdAddress(RomAttributeParser
-                            .parseHexString(unmarshallText(n)));
+            } else if (n.is("version")) {
+                romID.setVersion(n.getText());
 
-                } else if (nodeName.equalsIgnoreCase("internalidstring")) {
-                    romID.setInternalIdString(unmarshallText(n));
+            } else if (n.is("caseid")) {
+                romID.setCaseId(n.getText());
 
-                } else if (nodeName.equalsIgnoreCase("author")) {
-                    romID.setAuthor(unmarshallText(n));
+            } else if (n.is("ecuid")) {
+                romID.setEcuId(n.getText());
 
-                } else if (nodeName.equalsIgnoreCase("version")) {
-                    romID.setVersion(unmarshallText(n));
+            } else if (n.is("make")) {
+                romID.setMake(n.getText());
 
-                } else if (nodeName.equalsIgnoreCase("caseid")) {
-                    romID.setCaseId(unmarshallText(n));
+            } else if (n.is("market")) {
+                romID.setMarket(n.getText());
 
-                } else if (nodeName.equalsIgnoreCase("ecuid")) {
-                    romID.setEcuId(unmarshallText(n));
+            } else if (n.is("model")) {
+                romID.setModel(n.getText());
 
-                } else if (nodeName.equalsIgnoreCase("make")) {
-                    romID.setMake(unmarshallText(n));
+            } else if (n.is("submodel")) {
+                romID.setSubModel(n.getText());
 
-                } else if (nodeName.equalsIgnoreCase("market")) {
-                    romID.setMarket(unmarshallText(n));
+            } else if (n.is("transmission")) {
+                romID.setTransmission(n.getText());
 
-                } else if (nodeName.equalsIgnoreCase("model")) {
-                    romID.setModel(unmarshallText(n));
+            } else if (n.is("year")) {
+                romID.setYear(n.getText());
 
-                } else if (nodeName.equalsIgnoreCase("submodel")) {
-                    romID.setSubModel(unmarshallText(n));
+            } else if (n.is("noramoffset")) {
+                romID.disableRamOffset();
 
-                } else if (nodeName.equalsIgnoreCase("transmission")) {
-                    romID.setTransmission(unmarshallText(n));
+            } else if (n.is("offset")) {
+                romID.setOffset(HexUtil.hexToInt(n.getText()));
 
-                } else if (nodeName.equalsIgnoreCase("year")) {
-                    romID.setYear(unmarshallText(n));
+            } else if (n.is("flashmethod")) {
+                romID.setFlashMethod(n.getText());
 
-                } else if (nodeName.equalsIgnoreCase("noramoffset")) {
-                    romID.disableRamOffset();
+            } else if (n.is("memmodel")) {
+                romID.setMemModel(n.getText());
 
-                } else if (nodeName.equalsIgnoreCase("offset")) {
-                    romID.setOffset(HexUtil.hexToInt(unmarshallText(n)));
+                tableScaleHandler.setMemModelEndian(n.getAttribute("endian", null));
+            } else if (n.is("filesize")) {
+                romID.setFileSize(RomAttributeParser
+                        .parseFileSize(n.getText()));
 
-                } else if (nodeName.equalsIgnoreCase("flashmethod")) {
-                    romID.setFlashMethod(unmarshallText(n));
+            } else if (n.is("obsolete")) {
+                romID.setObsolete(Boolean.parseBoolean(n.getText()));
 
-                } else if (nodeName.equalsIgnoreCase("memmodel")) {
-                    romID.setMemModel(unmarshallText(n));
-
-                    tableScaleHandler.setMemModelEndian(unmarshallAttribute(n, "endian", null));
-                } else if (nodeName.equalsIgnoreCase("filesize")) {
-                    romID.setFileSize(RomAttributeParser
-                            .parseFileSize(unmarshallText(n)));
-
-                } else if (nodeName.equalsIgnoreCase("obsolete")) {
-                    romID.setObsolete(Boolean.parseBoolean(unmarshallText(n)));
-
-                } else { /* unexpected element in RomID (skip) */
-                }
-            } else { /* unexpected node-type in RomID (skip) */
+            } else { /* unexpected element in RomID (skip) */
             }
         }
         return romID;
@@ -297,12 +262,12 @@ public final class DOMRomUnmarshaller {
      * @param node -  the checksum element node to process
      * @return CheckSumManager object
      */
-    private ChecksumManager unmarshallChecksum(Rom rom, Node node) {
+    private ChecksumManager unmarshallChecksum(Rom rom, DefinitionElement node) {
         final Map<String, String> attrs = new HashMap<String, String>();
 
-        for (int i = 0; i < node.getAttributes().getLength(); i++) {
-            attrs.put(node.getAttributes().item(i).getNodeName().toLowerCase(),
-                    node.getAttributes().item(i).getNodeValue());
+        for (int i = 0; i < node.getAttributeCount(); i++) {
+            attrs.put(node.getAttributeName(i).toLowerCase(),
+                    node.getAttributeValue(i));
         }
            return ChecksumFactory.getManager(rom, attrs);
     }
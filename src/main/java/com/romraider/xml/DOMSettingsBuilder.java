@@ -196,6 +196,21 @@ public final class DOMSettingsBuilder {
         saveDebugTables.setAttribute("value", String.valueOf(settings.isSaveDebugTables()));
         options.appendChild(saveDebugTables);
 
+        // read table cells when a table is first used
+        IIOMetadataNode populateOnDemand = new IIOMetadataNode("populatetablesondemand");
+        populateOnDemand.setAttribute("value", String.valueOf(settings.isPopulateTablesOnDemand()));
+        options.appendChild(populateOnDemand);
+
+        // number of populated tables kept per ROM
+        IIOMetadataNode tableCacheSize = new IIOMetadataNode("tablecachesize");
+        tableCacheSize.setAttribute("value", String.valueOf(settings.getTableCacheSize()));
+        options.appendChild(tableCacheSize);
+
+        // paint 3D tables as one component instead of a label per cell
+        IIOMetadataNode paintTableGrid = new IIOMetadataNode("painttablegrid");
+        paintTableGrid.setAttribute("value", String.valueOf(settings.isPaintTableGrid()));
+        options.appendChild(paintTableGrid);
+
         // display tables higher than userlevel
         IIOMetadataNode displayHighTables = new IIOMetadataNode("displayhightables");
         displayHighTables.setAttribute("value", String.valueOf(settings.isDisplayHighTables()));
@@ -387,6 +402,7 @@ public final class DOMSettingsBuilder {
         filelogging.setAttribute("switchid", settings.getFileLoggingControllerSwitchId());
         filelogging.setAttribute("active", String.valueOf(settings.isFileLoggingControllerSwitchActive()));
         filelogging.setAttribute("absolutetimestamp", String.valueOf(settings.isFileLoggingAbsoluteTimestamp()));
+        filelogging.setAttribute("binary", String.valueOf(settings.isFileLoggingBinary()));
         loggerSettings.appendChild(filelogging);
 
         // debug level
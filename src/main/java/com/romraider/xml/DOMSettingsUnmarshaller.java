@@ -155,6 +155,15 @@ public final class DOMSettingsUnmarshaller {
             } else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("savedebugtables")) {
                 settings.setSaveDebugTables(Boolean.parseBoolean(unmarshallAttribute(n, "value", "false")));
 
+            } else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("populatetablesondemand")) {
+                settings.setPopulateTablesOnDemand(Boolean.parseBoolean(unmarshallAttribute(n, "value", "true")));
+
+            } else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("tablecachesize")) {
+                settings.setTableCacheSize(unmarshallAttribute(n, "value", 64));
+
+            } else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("painttablegrid")) {
+                settings.setPaintTableGrid(Boolean.parseBoolean(unmarshallAttribute(n, "value", "true")));
+
             } else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("displayhightables")) {
                 settings.setDisplayHighTables(Boolean.parseBoolean(unmarshallAttribute(n, "value", "false")));
 
@@ -299,6 +308,7 @@ public final class DOMSettingsUnmarshaller {
                 settings.setFileLoggingControllerSwitchId(unmarshallAttribute(n, "switchid", settings.getFileLoggingControllerSwitchId()));
                 settings.setFileLoggingControllerSwitchActive(unmarshallAttribute(n, "active", true));
                 settings.setFileLoggingAbsoluteTimestamp(unmarshallAttribute(n, "absolutetimestamp", false));
+                settings.setFileLoggingBinary(unmarshallAttribute(n, "binary", false));
 
             } else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("debug")) {
                 settings.setLoggerDebuggingLevel(unmarshallAttribute(n, "level", "info"));
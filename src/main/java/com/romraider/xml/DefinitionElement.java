@@ -0,0 +1,200 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.xml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * An element of an ECU definition, holding only what the unmarshallers
+ * read: the element name in lower case, the attributes, the child elements
+ * and the text.  Names and repeated attribute values are shared, so the
+ * whole definition takes far less memory than a DOM and can be dropped as
+ * soon as the ROM is built.
+ */
+public final class DefinitionElement {
+    private static final String[] NO_ATTRIBUTES = new String[0];
+    private final String name;
+    private final String[] attributes;
+    private final DefinitionElement parent;
+    private List<DefinitionElement> children = Collections.emptyList();
+    private String text = "";
+
+    /**
+     * @param name - the element name in lower case
+     * @param attributes - the attribute names and values, in pairs
+     */
+    DefinitionElement(DefinitionElement parent, String name, String[] attributes) {
+        this.parent = parent;
+        this.name = name;
+        this.attributes = attributes.length == 0 ? NO_ATTRIBUTES : attributes;
+        if (parent != null) {
+            parent.addChild(this);
+        }
+    }
+
+    /**
+     * Copy a DOM element and its descendants, for definitions which are
+     * not read by {@link DefinitionReader}.
+     */
+    public static DefinitionElement fromNode(Node node) {
+        return fromNode(null, node, new HashMap<String, String>());
+    }
+
+    private static DefinitionElement fromNode(DefinitionElement parent, Node node,
+            Map<String, String> values) {
+        final NamedNodeMap attrs = node.getAttributes();
+        final String[] attributes = new String[attrs.getLength() * 2];
+        for (int i = 0; i < attrs.getLength(); i++) {
+            attributes[i * 2] = attrs.item(i).getNodeName().intern();
+            attributes[i * 2 + 1] = share(values, attrs.item(i).getNodeValue());
+        }
+        final DefinitionElement element = new DefinitionElement(parent,
+                node.getNodeName().toLowerCase().intern(), attributes);
+
+        final StringBuilder text = new StringBuilder();
+        final NodeList nodes = node.getChildNodes();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            final Node n = nodes.item(i);
+            if (n.getNodeType() == Node.ELEMENT_NODE) {
+                fromNode(element, n, values);
+            }
+            else if (n.getNodeType() == Node.TEXT_NODE
+                    || n.getNodeType() == Node.CDATA_SECTION_NODE) {
+                text.append(n.getNodeValue());
+            }
+        }
+        element.setText(text, values);
+        return element;
+    }
+
+    static String share(Map<String, String> values, String value) {
+        final String shared = values.get(value);
+        if (shared != null) {
+            return shared;
+        }
+        values.put(value, value);
+        return value;
+    }
+
+    private void addChild(DefinitionElement child) {
+        if (children.isEmpty()) {
+            children = new ArrayList<DefinitionElement>(4);
+        }
+        children.add(child);
+    }
+
+    // text between child elements is only layout, so it is not kept
+    void setText(CharSequence text, Map<String, String> values) {
+        if (children.isEmpty() || !isBlank(text)) {
+            this.text = share(values, text.toString());
+        }
+        if (children instanceof ArrayList) {
+            ((ArrayList<DefinitionElement>) children).trimToSize();
+        }
+    }
+
+    private static boolean isBlank(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the element name in lower case
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param name - an element name in lower case
+     * @return true if this element has the name, in any case
+     */
+    public boolean is(String name) {
+        return this.name.equals(name);
+    }
+
+    public DefinitionElement getParent() {
+        return parent;
+    }
+
+    public List<DefinitionElement> getChildren() {
+        return children;
+    }
+
+    /**
+     * @return the text directly within the element
+     */
+    public String getText() {
+        return text;
+    }
+
+    public int getAttributeCount() {
+        return attributes.length / 2;
+    }
+
+    public String getAttributeName(int index) {
+        return attributes[index * 2];
+    }
+
+    public String getAttributeValue(int index) {
+        return attributes[index * 2 + 1];
+    }
+
+    /**
+     * @return the value of the attribute, or the default if it is missing
+     * or NaN
+     */
+    public String getAttribute(String name, String defaultValue) {
+        for (int i = 0; i < attributes.length; i += 2) {
+            if (attributes[i].equals(name)) {
+                final String value = attributes[i + 1];
+                return value.equals("NaN") ? defaultValue : value;
+            }
+        }
+        return defaultValue;
+    }
+
+    public double getAttribute(String name, double defaultValue) {
+        final String value = getAttribute(name, null);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    public int getAttribute(String name, int defaultValue) {
+        final String value = getAttribute(name, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    public boolean getAttribute(String name, boolean defaultValue) {
+        final String value = getAttribute(name, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
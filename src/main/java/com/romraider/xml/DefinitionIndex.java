@@ -0,0 +1,291 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.xml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.log4j.Logger;
+
+import com.romraider.maps.RomID;
+import com.romraider.util.SettingsManager;
+import com.romraider.xml.ConversionLayer.ConversionLayerFactory;
+
+/**
+ * Persistent index of the ROM identification of every <code>rom</code>
+ * element in the ECU definition files.  It lets an image be matched
+ * against the definitions without building a DOM of each file; only the
+ * file holding the matching definition needs to be parsed.
+ * <p>
+ * A file is indexed with a streaming pass the first time it is checked and
+ * again whenever its size or modification time changes.  Files which can
+ * not be indexed, such as those using XInclude, those requiring a
+ * conversion layer or those failing to parse, are always reported as
+ * possible matches so they are handled exactly as before.
+ */
+public final class DefinitionIndex {
+    private static final Logger LOGGER = Logger.getLogger(DefinitionIndex.class);
+    private static final String INDEX_FILE = "/definitions.idx";
+    private static final int VERSION = 1;
+    private static final String XINCLUDE_NS = "http://www.w3.org/2001/XInclude";
+    private static DefinitionIndex instance;
+
+    private final File indexFile;
+    private final Map<String, FileEntry> files = new HashMap<String, FileEntry>();
+    private boolean modified;
+
+    DefinitionIndex(File indexFile) {
+        this.indexFile = indexFile;
+        load();
+    }
+
+    public static synchronized DefinitionIndex getInstance() {
+        if (instance == null) {
+            instance = new DefinitionIndex(
+                    new File(SettingsManager.getSettingsDir() + INDEX_FILE));
+        }
+        return instance;
+    }
+
+    /**
+     * Check if a definition file may contain a definition matching the image.
+     * @param definition - the ECU definition file
+     * @param image - the ROM image
+     * @return false only if the file is indexed and none of its definitions
+     * match the image
+     */
+    public synchronized boolean mayMatch(File definition, byte[] image) {
+        final FileEntry entry = getEntry(definition);
+        if (!entry.indexed) {
+            return true;
+        }
+        for (RomID romId : entry.romIds) {
+            if (romId.checkMatch(image)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Write the index to disk if it changed since it was loaded.
+     */
+    public synchronized void save() {
+        if (!modified) {
+            return;
+        }
+        try {
+            final DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(indexFile)));
+            try {
+                out.writeInt(VERSION);
+                out.writeInt(files.size());
+                for (FileEntry entry : files.values()) {
+                    out.writeUTF(entry.path);
+                    out.writeLong(entry.lastModified);
+                    out.writeLong(entry.length);
+                    out.writeBoolean(entry.indexed);
+                    out.writeInt(entry.romIds.size());
+                    for (RomID romId : entry.romIds) {
+                        out.writeUTF(romId.getXmlid() == null ? "" : romId.getXmlid());
+                        out.writeInt(romId.getInternalIdAddress());
+                        out.writeUTF(romId.getInternalIdString());
+                    }
+                }
+            } finally {
+                out.close();
+            }
+            modified = false;
+        } catch (IOException e) {
+            LOGGER.warn("Unable to save definition index: " + indexFile, e);
+        }
+    }
+
+    private FileEntry getEntry(File definition) {
+        final String path = definition.getAbsolutePath();
+        FileEntry entry = files.get(path);
+        if (entry == null || entry.lastModified != definition.lastModified()
+                || entry.length != definition.length()) {
+            entry = index(definition);
+            files.put(path, entry);
+            modified = true;
+        }
+        return entry;
+    }
+
+    private static FileEntry index(File definition) {
+        final FileEntry entry = new FileEntry(definition.getAbsolutePath(),
+                definition.lastModified(), definition.length());
+        if (ConversionLayerFactory.requiresConversionLayer(definition)) {
+            return entry;
+        }
+        try {
+            final InputStream in = new BufferedInputStream(
+                    new FileInputStream(definition));
+            try {
+                entry.indexed = scan(in, entry.romIds);
+            } finally {
+                in.close();
+            }
+        } catch (Exception e) {
+            // left unindexed, the DOM parse will report the problem
+            LOGGER.debug("Unable to index definition: " + definition, e);
+            entry.romIds.clear();
+        }
+        return entry;
+    }
+
+    /**
+     * Collect the first <code>romid</code> of each <code>rom</code> element
+     * below the document root, as the DOM match does.
+     * @return false if the file uses XInclude and can not be indexed
+     */
+    static boolean scan(InputStream in, List<RomID> romIds)
+            throws XMLStreamException {
+
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        final XMLStreamReader reader = factory.createXMLStreamReader(in);
+        try {
+            final StringBuilder text = new StringBuilder();
+            int depth = 0;
+            RomID romId = null;
+            boolean inRom = false;
+            boolean romIdFound = false;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        depth++;
+                        if (XINCLUDE_NS.equals(reader.getNamespaceURI())) {
+                            return false;
+                        }
+                        final String name = reader.getLocalName();
+                        if (depth == 2) {
+                            inRom = name.equalsIgnoreCase("rom");
+                            romIdFound = false;
+                        }
+                        else if (depth == 3 && inRom && !romIdFound
+                                && name.equalsIgnoreCase("romid")) {
+                            romId = new RomID();
+                        }
+                        text.setLength(0);
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                        if (romId != null && depth == 4) {
+                            text.append(reader.getText());
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (romId != null && depth == 4) {
+                            setRomIdField(romId, reader.getLocalName(), text.toString());
+                        }
+                        else if (romId != null && depth == 3) {
+                            romIds.add(romId);
+                            romId = null;
+                            romIdFound = true;
+                        }
+                        depth--;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return true;
+    }
+
+    private static void setRomIdField(RomID romId, String name, String text) {
+        if (name.equalsIgnoreCase("xmlid")) {
+            romId.setXmlid(text);
+        } else if (name.equalsIgnoreCase("internalidaddress")) {
+            romId.setInternalIdAddress(RomAttributeParser.parseHexString(text));
+        } else if (name.equalsIgnoreCase("internalidstring")) {
+            romId.setInternalIdString(text);
+        }
+    }
+
+    private void load() {
+        if (!indexFile.isFile()) {
+            return;
+        }
+        try {
+            final DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(indexFile)));
+            try {
+                if (in.readInt() != VERSION) {
+                    return;
+                }
+                final int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    final FileEntry entry = new FileEntry(
+                            in.readUTF(), in.readLong(), in.readLong());
+                    entry.indexed = in.readBoolean();
+                    final int romCount = in.readInt();
+                    for (int j = 0; j < romCount; j++) {
+                        final RomID romId = new RomID();
+                        romId.setXmlid(in.readUTF());
+                        romId.setInternalIdAddress(in.readInt());
+                        romId.setInternalIdString(in.readUTF());
+                        entry.romIds.add(romId);
+                    }
+                    files.put(entry.path, entry);
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to load definition index, rebuilding: " + indexFile, e);
+            files.clear();
+        }
+    }
+
+    private static final class FileEntry {
+        private final String path;
+        private final long lastModified;
+        private final long length;
+        private final List<RomID> romIds = new ArrayList<RomID>();
+        private boolean indexed;
+
+        private FileEntry(String path, long lastModified, long length) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.xml;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads an ECU definition file in one streaming pass into
+ * {@link DefinitionElement}s, without building a DOM.
+ * <p>
+ * Files using XInclude or declaring a DTD, which may add attribute
+ * defaults, are not read; the caller parses those into a DOM as before.
+ */
+public final class DefinitionReader {
+    private static final String XINCLUDE_NS = "http://www.w3.org/2001/XInclude";
+
+    private DefinitionReader() {
+    }
+
+    /**
+     * @return the root element, or null if the file must be read as a DOM
+     */
+    public static DefinitionElement read(File definition)
+            throws IOException, XMLStreamException {
+
+        final InputStream in = new BufferedInputStream(new FileInputStream(definition));
+        try {
+            return read(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return the root element, or null if the definition must be read as a DOM
+     */
+    public static DefinitionElement read(InputStream in) throws XMLStreamException {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        final XMLStreamReader reader = factory.createXMLStreamReader(in);
+        try {
+            final Map<String, String> values = new HashMap<String, String>();
+            // the text of each open element, by depth
+            final List<StringBuilder> texts = new ArrayList<StringBuilder>();
+            DefinitionElement root = null;
+            DefinitionElement current = null;
+            int depth = 0;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.DTD:
+                        return null;
+                    case XMLStreamConstants.START_ELEMENT:
+                        if (XINCLUDE_NS.equals(reader.getNamespaceURI())) {
+                            return null;
+                        }
+                        current = new DefinitionElement(current,
+                                qualifiedName(reader).toLowerCase().intern(),
+                                attributes(reader, values));
+                        if (root == null) {
+                            root = current;
+                        }
+                        if (depth == texts.size()) {
+                            texts.add(new StringBuilder());
+                        }
+                        texts.get(depth++).setLength(0);
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if (depth > 0) {
+                            texts.get(depth - 1).append(reader.getTextCharacters(),
+                                    reader.getTextStart(), reader.getTextLength());
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        current.setText(texts.get(--depth), values);
+                        current = current.getParent();
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return root;
+        } finally {
+            reader.close();
+        }
+    }
+
+    // the name as a DOM reports it, with any prefix
+    private static String qualifiedName(XMLStreamReader reader) {
+        final String prefix = reader.getPrefix();
+        return prefix == null || prefix.length() == 0
+                ? reader.getLocalName() : prefix + ':' + reader.getLocalName();
+    }
+
+    private static String[] attributes(XMLStreamReader reader, Map<String, String> values) {
+        final int count = reader.getAttributeCount();
+        final String[] attributes = new String[count * 2];
+        for (int i = 0; i < count; i++) {
+            final String prefix = reader.getAttributePrefix(i);
+            final String name = prefix == null || prefix.length() == 0
+                    ? reader.getAttributeLocalName(i)
+                    : prefix + ':' + reader.getAttributeLocalName(i);
+            final String value = DefinitionElement.share(values, reader.getAttributeValue(i));
+            // in name order, as a DOM lists them
+            int j = i * 2;
+            while (j > 0 && attributes[j - 2].compareTo(name) > 0) {
+                attributes[j] = attributes[j - 2];
+                attributes[j + 1] = attributes[j - 1];
+                j -= 2;
+            }
+            attributes[j] = name.intern();
+            attributes[j + 1] = value;
+        }
+        return attributes;
+    }
+}
@@ -19,19 +19,14 @@
 
 package com.romraider.xml;
 
-import static com.romraider.xml.DOMHelper.unmarshallAttribute;
-import static com.romraider.xml.DOMHelper.unmarshallText;
-import static org.w3c.dom.Node.ELEMENT_NODE;
-
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.management.modelmbean.XMLParseException;
 import javax.swing.JOptionPane;
 
 import org.apache.log4j.Logger;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import com.romraider.Settings;
 import com.romraider.editor.ecu.ECUEditorManager;
@@ -49,7 +44,6 @@ import com.romraider.maps.Table3D;
 import com.romraider.maps.TableBitwiseSwitch;
 import com.romraider.maps.TableSwitch;
 import com.romraider.swing.DebugPanel;
-import com.romraider.util.ObjectCloner;
 import com.romraider.util.SettingsManager;
 
 public class TableScaleUnmarshaller {
@@ -62,34 +56,26 @@ public class TableScaleUnmarshaller {
         memModelEndian = endian;
     }
 
-    public void unmarshallBaseScales(Node rootNode) {
-        NodeList nodes = rootNode.getChildNodes();
-        Node n;
-
-        for (int i = 0; i < nodes.getLength(); i++) {
-            n = nodes.item(i);
-
-            if (n.getNodeType() == ELEMENT_NODE
-                    && n.getNodeName().equalsIgnoreCase("scalingbase")) {
+    public void unmarshallBaseScales(DefinitionElement rootNode) {
+        for (DefinitionElement n : rootNode.getChildren()) {
+            if (n.is("scalingbase")) {
                 unmarshallScale(n, new Scale());
             }
         }
     }
  
-    public Table unmarshallTable(Node tableNode, Table table, Rom rom)
+    public Table unmarshallTable(DefinitionElement tableNode, Table table, Rom rom)
                 throws XMLParseException, TableIsOmittedException, Exception {
 
-        if (unmarshallAttribute(tableNode, "omit", "false").equalsIgnoreCase(
+        if (tableNode.getAttribute("omit", "false").equalsIgnoreCase(
                 "true")) { // remove table if omitted
             throw new TableIsOmittedException();
         }
 
-        if (!unmarshallAttribute(tableNode, "base", "none").equalsIgnoreCase(
+        if (!tableNode.getAttribute("base", "none").equalsIgnoreCase(
                 "none")) { // copy base table for inheritance
             try {
-                table = (Table) ObjectCloner
-                        .deepCopy(rom.getTableByName(unmarshallAttribute(tableNode,
-                                "base", "none")));
+                table = rom.getTableByName(tableNode.getAttribute("base", "none")).copy();
             } catch (NullPointerException ex) {
                 JOptionPane.showMessageDialog(ECUEditorManager.getECUEditor(),
                         new DebugPanel(ex, SettingsManager.getSettings().getSupportURL()), "Exception",
@@ -99,8 +85,8 @@ public class TableScaleUnmarshaller {
 
         if (table == null) {
             // create new instance (otherwise it is inherited)
-            final String tn = unmarshallAttribute(tableNode, "name", "unknown");
-            final String type = unmarshallAttribute(tableNode, "type", "none");
+            final String tn = tableNode.getAttribute("name", "unknown");
+            final String type = tableNode.getAttribute("type", "none");
 
             if (tableNames.containsKey(tn) || type.contains("xis")) {
                 if (type.equalsIgnoreCase("3D")) {
@@ -127,11 +113,11 @@ public class TableScaleUnmarshaller {
                 }
                 else if (type.equalsIgnoreCase("none")){
                     throw new XMLParseException("Table type unspecified for "
-                            + tableNode.getAttributes().getNamedItem("name"));
+                            + tableNode.getAttribute("name", null));
                 }
                 else {
                     throw new XMLParseException("Table type " + type + " unknown for "
-                            + tableNode.getAttributes().getNamedItem("name"));
+                            + tableNode.getAttribute("name", null));
                 }
             }
             else {
@@ -140,28 +126,27 @@ public class TableScaleUnmarshaller {
         }
 
         // unmarshall table attributes
-        final String tn = unmarshallAttribute(tableNode, "name", table.getName());
+        final String tn = tableNode.getAttribute("name", table.getName());
         table.setName(tn);
-        if (unmarshallAttribute(tableNode, "beforeram", "false")
+        if (tableNode.getAttribute("beforeram", "false")
                 .equalsIgnoreCase("true")) {
             table.setBeforeRam(true);
         }
 
-        table.setDataLayout(unmarshallAttribute(tableNode, "dataLayout", ""));
-        table.setCategory(unmarshallAttribute(tableNode, "category",
+        table.setDataLayout(tableNode.getAttribute("dataLayout", ""));
+        table.setCategory(tableNode.getAttribute("category",
                 table.getCategory()));
         if (table.getStorageType() < 1) {
             table.setSignedData(RomAttributeParser
-                    .parseStorageDataSign(unmarshallAttribute(tableNode,
-                            "storagetype",
+                    .parseStorageDataSign(tableNode.getAttribute("storagetype",
                             String.valueOf(table.getStorageType()))));
         }
         table.setStorageType(RomAttributeParser
-                .parseStorageType(unmarshallAttribute(tableNode, "storagetype",
+                .parseStorageType(tableNode.getAttribute("storagetype",
                         String.valueOf(table.getStorageType()))));
         if (memModelEndian == null) {
-            table.setEndian(RomAttributeParser.parseEndian(unmarshallAttribute(
-                    tableNode, "endian", table.getEndian().getMarshallingString())));
+            table.setEndian(RomAttributeParser.parseEndian(tableNode.getAttribute(
+                    "endian", table.getEndian().getMarshallingString())));
         }
         else {
             final Settings.Endian endian = memModelEndian.equalsIgnoreCase("little") ? Settings.Endian.LITTLE : Settings.Endian.BIG;
@@ -173,134 +158,123 @@ public class TableScaleUnmarshaller {
         }
         else {
             table.setStorageAddress(RomAttributeParser
-                .parseHexString(unmarshallAttribute(tableNode,
-                        "storageaddress",
+                .parseHexString(tableNode.getAttribute("storageaddress",
                         String.valueOf(table.getStorageAddress()))));
         }
 
-        table.setDescription(unmarshallAttribute(tableNode, "description",
+        table.setDescription(tableNode.getAttribute("description",
                 table.getDescription()));
         // Set axis size, if sizex is specified use it, if sizey is specified use it,
         // if neither are specified use the base definition size
-        table.setDataSize(unmarshallAttribute(tableNode, "sizey",
-                unmarshallAttribute(tableNode, "sizex", table.getDataSize())));
-        table.setFlip(unmarshallAttribute(tableNode, "flipy",
-                unmarshallAttribute(tableNode, "flipx", table.getFlip())));
-        table.setUserLevel(unmarshallAttribute(tableNode, "userlevel",
+        table.setDataSize(tableNode.getAttribute("sizey",
+                tableNode.getAttribute("sizex", table.getDataSize())));
+        table.setFlip(tableNode.getAttribute("flipy",
+                tableNode.getAttribute("flipx", table.getFlip())));
+        table.setUserLevel(tableNode.getAttribute("userlevel",
                 table.getUserLevel()));
-        table.setLocked(unmarshallAttribute(tableNode, "locked",
+        table.setLocked(tableNode.getAttribute("locked",
                 table.isLocked()));
-        table.setLogParam(unmarshallAttribute(tableNode, "logparam",
+        table.setLogParam(tableNode.getAttribute("logparam",
                 table.getLogParam()));
         table.setStringMask(
-                unmarshallAttribute(tableNode, "mask", ""));
+                tableNode.getAttribute("mask", ""));
 
         if (table.getType() == Table.TableType.TABLE_3D) {
-            ((Table3D) table).setSwapXY(unmarshallAttribute(tableNode,
-                    "swapxy", ((Table3D) table).getSwapXY()));
-            ((Table3D) table).setFlipX(unmarshallAttribute(tableNode, "flipx",
+            ((Table3D) table).setSwapXY(tableNode.getAttribute("swapxy", ((Table3D) table).getSwapXY()));
+            ((Table3D) table).setFlipX(tableNode.getAttribute("flipx",
                     ((Table3D) table).getFlipX()));
-            ((Table3D) table).setFlipY(unmarshallAttribute(tableNode, "flipy",
+            ((Table3D) table).setFlipY(tableNode.getAttribute("flipy",
                     ((Table3D) table).getFlipY()));
-            ((Table3D) table).setSizeX(unmarshallAttribute(tableNode, "sizex",
+            ((Table3D) table).setSizeX(tableNode.getAttribute("sizex",
                     ((Table3D) table).getSizeX()));
-            ((Table3D) table).setSizeY(unmarshallAttribute(tableNode, "sizey",
+            ((Table3D) table).setSizeY(tableNode.getAttribute("sizey",
                     ((Table3D) table).getSizeY()));
-            ((Table3D) table).setSkipCells(unmarshallAttribute(tableNode, "skipCells",
+            ((Table3D) table).setSkipCells(tableNode.getAttribute("skipCells",
                     ((Table3D) table).getSkipCells()));
         }
 
-        Node n;
-        NodeList nodes = tableNode.getChildNodes();
+        for (DefinitionElement n : tableNode.getChildren()) {
+            if (n.is("table")) {
+                Table tempTable = null;
 
-        for (int i = 0; i < nodes.getLength(); i++) {
-            n = nodes.item(i);
+                if (table.getType() == Table.TableType.TABLE_2D) { // if table is 2D,
+                    // parse axis
+                    if (RomAttributeParser
+                            .parseTableAxis(n.getAttribute("type",
+                                    "unknown")) == Table1DType.Y_AXIS
+                                    || RomAttributeParser
+                                    .parseTableAxis(n.getAttribute("type", "unknown")) == Table1DType.X_AXIS) {
 
-            if (n.getNodeType() == ELEMENT_NODE) {
-                if (n.getNodeName().equalsIgnoreCase("table")) {
-                    Table tempTable = null;
 
-                    if (table.getType() == Table.TableType.TABLE_2D) { // if table is 2D,
-                        // parse axis
-                        if (RomAttributeParser
-                                .parseTableAxis(unmarshallAttribute(n, "type",
-                                        "unknown")) == Table1DType.Y_AXIS
-                                        || RomAttributeParser
-                                        .parseTableAxis(unmarshallAttribute(n,
-                                                "type", "unknown")) == Table1DType.X_AXIS) {
+                        tempTable = unmarshallTable(n, ((Table2D) table).getAxis(), rom);
 
+                        if (tempTable.getDataSize() != table.getDataSize()) {
+                            tempTable.setDataSize(table.getDataSize());
+                        }
 
-                            tempTable = unmarshallTable(n, ((Table2D) table).getAxis(), rom);
+                        tempTable.setData(((Table2D) table).getAxis().getData());
+                        ((Table2D) table).setAxis((Table1D)tempTable);
+                    }
+                } else if (table.getType() == Table.TableType.TABLE_3D) { // if table
+                    // is 3D, populate xAxis
+                    if (RomAttributeParser
+                            .parseTableAxis(n.getAttribute("type",
+                                    "unknown")) == Table1DType.X_AXIS) {
 
-                            if (tempTable.getDataSize() != table.getDataSize()) {
-                                tempTable.setDataSize(table.getDataSize());
-                            }
+                        tempTable = unmarshallTable(n, ((Table3D) table).getXAxis(), rom);
 
-                            tempTable.setData(((Table2D) table).getAxis().getData());
-                            ((Table2D) table).setAxis((Table1D)tempTable);
+                        if (tempTable.getDataSize() != ((Table3D) table).getSizeX()) {
+                            tempTable.setDataSize(((Table3D) table).getSizeX());
                         }
-                    } else if (table.getType() == Table.TableType.TABLE_3D) { // if table
-                        // is 3D, populate xAxis
-                        if (RomAttributeParser
-                                .parseTableAxis(unmarshallAttribute(n, "type",
-                                        "unknown")) == Table1DType.X_AXIS) {
 
-                            tempTable = unmarshallTable(n, ((Table3D) table).getXAxis(), rom);
+                        tempTable.setData(((Table3D) table).getXAxis().getData());
 
-                            if (tempTable.getDataSize() != ((Table3D) table).getSizeX()) {
-                                tempTable.setDataSize(((Table3D) table).getSizeX());
-                            }
+                        ((Table3D) table).setXAxis((Table1D)tempTable);
+                    }
+                    else if (RomAttributeParser
+                            .parseTableAxis(n.getAttribute("type",
+                                    "unknown")) == Table1DType.Y_AXIS) {
 
-                            tempTable.setData(((Table3D) table).getXAxis().getData());
+                        tempTable = unmarshallTable(n,((Table3D) table).getYAxis(), rom);
 
-                            ((Table3D) table).setXAxis((Table1D)tempTable);
+                        if (tempTable.getDataSize() != ((Table3D) table).getSizeY()) {
+                            tempTable.setDataSize(((Table3D) table).getSizeY());
                         }
-                        else if (RomAttributeParser
-                                .parseTableAxis(unmarshallAttribute(n, "type",
-                                        "unknown")) == Table1DType.Y_AXIS) {
 
-                            tempTable = unmarshallTable(n,((Table3D) table).getYAxis(), rom);
-
-                            if (tempTable.getDataSize() != ((Table3D) table).getSizeY()) {
-                                tempTable.setDataSize(((Table3D) table).getSizeY());
-                            }
-
-                            tempTable.setData(((Table3D) table).getYAxis().getData());
-                            ((Table3D) table).setYAxis((Table1D)tempTable);
-                        }
+                        tempTable.setData(((Table3D) table).getYAxis().getData());
+                        ((Table3D) table).setYAxis((Table1D)tempTable);
                     }
+                }
 
-                } else if (n.getNodeName().equalsIgnoreCase("scaling")) {
-                    // check whether scale already exists. if so, modify, else
-                    // use new instance
-                    Scale baseScale = table.getScale(unmarshallAttribute(n, "category", "Default"));
-                    table.addScale(unmarshallScale(n, baseScale));
-
-                } else if (n.getNodeName().equalsIgnoreCase("data")) {
-                    // parse and add data to table
-                    if (table instanceof Table1D) {
-                        ((Table1D)table).addStaticDataCell(unmarshallText(n));
-                    } else {
-                        // Why would this happen.  Static should only be for axis.
-                        LOGGER.error("Error adding static data cell.");
-                    }
+            } else if (n.is("scaling")) {
+                // check whether scale already exists. if so, modify a copy
+                // as it may be shared with a base table, else use new instance
+                Scale baseScale = table.getScale(n.getAttribute("category", "Default"));
+                table.addScale(unmarshallScale(n, baseScale.copy()));
+
+            } else if (n.is("data")) {
+                // parse and add data to table
+                if (table instanceof Table1D) {
+                    ((Table1D)table).addStaticDataCell(n.getText());
+                } else {
+                    // Why would this happen.  Static should only be for axis.
+                    LOGGER.error("Error adding static data cell.");
+                }
 
-                } else if (n.getNodeName().equalsIgnoreCase("description")) {
-                    table.setDescription(unmarshallText(n));
+            } else if (n.is("description")) {
+                table.setDescription(n.getText());
 
-                } else if (n.getNodeName().equalsIgnoreCase("state")) {
-                    //Check for duplicate names, then replace if exist or add otherwise
-                    table.addPresetValue(
-                                unmarshallAttribute(n, "name", ""),
-                                unmarshallAttribute(n, "data", "0"));
-                } else if (n.getNodeName().equalsIgnoreCase("bit")) {
-                    table.setPresetValues(
-                            unmarshallAttribute(n, "name", ""),
-                            unmarshallAttribute(n, "position", ""));
+            } else if (n.is("state")) {
+                //Check for duplicate names, then replace if exist or add otherwise
+                table.addPresetValue(
+                            n.getAttribute("name", ""),
+                            n.getAttribute("data", "0"));
+            } else if (n.is("bit")) {
+                table.setPresetValues(
+                        n.getAttribute("name", ""),
+                        n.getAttribute("position", ""));
 
-                } else { /* unexpected element in Table (skip) */
-                }
-            } else { /* unexpected node-type in Table (skip) */
+            } else { /* unexpected element in Table (skip) */
             }
         }
         return table;
@@ -309,25 +283,20 @@ public class TableScaleUnmarshaller {
     /**
      * Create a list of table names to be used as a filter on the inherited
      * tables to reduce unnecessary table object creation.
-     * @param nodes -  the NodeList to filter
+     * @param nodes -  the elements to filter
      * @throws XMLParseException
      * @throws TableIsOmittedException
      * @throws Exception
      */
-    public void filterFoundRomTables (NodeList nodes) {
-        Node n;
-
-        for (int i = 0; i < nodes.getLength(); i++) {
-            n = nodes.item(i);
-            if (n.getNodeType() == ELEMENT_NODE
-                    && n.getNodeName().equalsIgnoreCase("table")) {
+    public void filterFoundRomTables (List<DefinitionElement> nodes) {
+        for (DefinitionElement n : nodes) {
+            if (n.is("table")) {
 
-                final String name = unmarshallAttribute(n, "name", "unknown");
+                final String name = n.getAttribute("name", "unknown");
                 final int address = RomAttributeParser
-                        .parseHexString(unmarshallAttribute(n,
-                            "storageaddress", "-1"));
+                        .parseHexString(n.getAttribute("storageaddress", "-1"));
 
-                if (unmarshallAttribute(n, "omit", "false").equalsIgnoreCase(
+                if (n.getAttribute("omit", "false").equalsIgnoreCase(
                         "true")) {
                     return;
                 }
@@ -344,90 +313,65 @@ public class TableScaleUnmarshaller {
         }
     }
 
-    void unmarshallSimulation(Rom rom, Node simulationNode) {
+    void unmarshallSimulation(Rom rom, DefinitionElement simulationNode) {
 
         // look for base scaling attribute first
-        String name = unmarshallAttribute(simulationNode, "name", "Unnamed");
+        String name = simulationNode.getAttribute("name", "Unnamed");
         DataflowSimulation sim = new DataflowSimulation(rom, name);
-    
-        Node n;
-        NodeList nodes = simulationNode.getChildNodes();
-        
-        for (int i = 0; i < nodes.getLength(); i++) {
-            n = nodes.item(i);
-
-            if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("inputs"))
-                {
-                    Node nodeInput;
-                    NodeList inputNodes = n.getChildNodes();
-                    
-                    for (int j = 0; j < inputNodes.getLength(); j++) {
-                    	nodeInput = inputNodes.item(j);
-                    	
-                    	if (nodeInput.getNodeType() == ELEMENT_NODE && nodeInput.getNodeName().equalsIgnoreCase("input"))
-                    	{
-                    		String inputName =  unmarshallAttribute(nodeInput, "name", "");
-                    		String logParam = unmarshallAttribute(nodeInput, "logparam", "");
-                    		sim.addInput(inputName, !logParam.isEmpty());
-                    		
-                    		DataflowSimulationHandler.getInstance().registerInput(logParam, inputName, sim);                   				
-                    	} 
-                }                    
-            }    
-            else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("dataflow"))
-                {
-                	 Node nodeAction;
-                     NodeList dataflowNodes = n.getChildNodes();
-                     
-                     for (int j = 0; j < dataflowNodes.getLength(); j++) {
-                     	nodeAction = dataflowNodes.item(j);
-                     	
-                     	if (nodeAction.getNodeType() == ELEMENT_NODE && nodeAction.getNodeName().equalsIgnoreCase("table"))
-                     		{
-                     			String referenceName = unmarshallAttribute(nodeAction, "reference", "");                			
-                     			String input_x = unmarshallAttribute(nodeAction, "input_x", "");
-                     			String input_y = unmarshallAttribute(nodeAction, "input_y", "");
-                     			String output = unmarshallAttribute(nodeAction, "output", "");
-                     			TableAction action = new TableAction(output, referenceName, input_x, input_y);
-	                     		sim.addAction(action);	
-                     	}     
-                     	else if (nodeAction.getNodeType() == ELEMENT_NODE && nodeAction.getNodeName().equalsIgnoreCase("action"))
-                 		{
-                 			String expression = unmarshallAttribute(nodeAction, "expression", "");                			
-                 			String output = unmarshallAttribute(nodeAction, "output", "");
-                 			CalculationAction action = new CalculationAction(output, expression);
-                     		sim.addAction(action);	
-                 	}
+
+        for (DefinitionElement n : simulationNode.getChildren()) {
+            if (n.is("inputs")) {
+                for (DefinitionElement nodeInput : n.getChildren()) {
+                    if (nodeInput.is("input")) {
+                        String inputName = nodeInput.getAttribute("name", "");
+                        String logParam = nodeInput.getAttribute("logparam", "");
+                        sim.addInput(inputName, !logParam.isEmpty());
+
+                        DataflowSimulationHandler.getInstance().registerInput(logParam, inputName, sim);
+                    }
                 }
             }
-            else if (n.getNodeType() == ELEMENT_NODE && n.getNodeName().equalsIgnoreCase("description"))
-            {
-            	sim.setDescription(n.getTextContent());
+            else if (n.is("dataflow")) {
+                for (DefinitionElement nodeAction : n.getChildren()) {
+                    if (nodeAction.is("table")) {
+                        String referenceName = nodeAction.getAttribute("reference", "");
+                        String input_x = nodeAction.getAttribute("input_x", "");
+                        String input_y = nodeAction.getAttribute("input_y", "");
+                        String output = nodeAction.getAttribute("output", "");
+                        TableAction action = new TableAction(output, referenceName, input_x, input_y);
+                        sim.addAction(action);
+                    }
+                    else if (nodeAction.is("action")) {
+                        String expression = nodeAction.getAttribute("expression", "");
+                        String output = nodeAction.getAttribute("output", "");
+                        CalculationAction action = new CalculationAction(output, expression);
+                        sim.addAction(action);
+                    }
+                }
+            }
+            else if (n.is("description")) {
+                sim.setDescription(n.getText());
             }
         }
 
         rom.addSimulation(sim);
     }
     
-    public Scale unmarshallScale(Node scaleNode, Scale scale) {
+    public Scale unmarshallScale(DefinitionElement scaleNode, Scale scale) {
 
         // look for base scaling attribute first
-        String base = unmarshallAttribute(scaleNode, "base", "none");
+        String base = scaleNode.getAttribute("base", "none");
         if (!base.equalsIgnoreCase("none")) {
             // check whether base value matches the name of a an existing
             // scalingbase, if so, inherit from scalingbase
             if (scales.containsKey(base.toLowerCase())) {
-                try {
-                    scale = (Scale) ObjectCloner.deepCopy(scales.get(base.toLowerCase()));
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+                scale = scales.get(base.toLowerCase()).copy();
             }
         }
 
         // Set Category to Default if missing or not inherited from scalingbase
         if (base.equalsIgnoreCase("none")) {
-            scale.setCategory(unmarshallAttribute(scaleNode, "category", "Default"));
+            scale.setCategory(scaleNode.getAttribute("category", "Default"));
         }
 
         // Set scaling name, if a scaling has no name attribute (scaling is
@@ -435,17 +379,16 @@ public class TableScaleUnmarshaller {
         // name, otherwise use none
         if (!scale.getCategory().equalsIgnoreCase("Raw Value") &&
                 scale.getName().equalsIgnoreCase("Raw Value")) {
-                scale.setName(unmarshallAttribute(scaleNode, "name",
-                    unmarshallAttribute(scaleNode, "units", "none")));
+                scale.setName(scaleNode.getAttribute("name",
+                    scaleNode.getAttribute("units", "none")));
         }
 
-        scale.setByteExpression(unmarshallAttribute(scaleNode, "to_byte", ""));
+        scale.setByteExpression(scaleNode.getAttribute("to_byte", ""));
 
         // Iterate over other available attributes
-        for(int i=0; i < scaleNode.getAttributes().getLength(); i++) {
-            Node attr = scaleNode.getAttributes().item(i);
-            String name = attr.getNodeName();
-            String value = attr.getNodeValue();
+        for(int i=0; i < scaleNode.getAttributeCount(); i++) {
+            String name = scaleNode.getAttributeName(i);
+            String value = scaleNode.getAttributeValue(i);
 
             if (name.equalsIgnoreCase("units")) scale.setUnit(value);
             else if (name.equalsIgnoreCase("expression")) scale.setExpression(value);
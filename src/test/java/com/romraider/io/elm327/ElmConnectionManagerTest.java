@@ -0,0 +1,93 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.elm327;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.romraider.io.elm327.ElmConnectionManager.ERROR_TYPE;
+
+public class ElmConnectionManagerTest {
+    private ElmEmulator elm;
+    private ElmConnectionManager manager;
+
+    @Before
+    public final void setUp() {
+        elm = new ElmEmulator();
+        elm.setPid(0x0C, 0x1A, 0xF8);
+        elm.setPid(0x0D, 0x40);
+        elm.setPid(0x05, 0x7B);
+        elm.setPid(0x11, 0x26);
+        manager = new ElmConnectionManager(elm);
+        assertTrue(manager.sendAndWaitForChar("AT E0", 1000, ">").endsWith("OK"));
+    }
+
+    private byte[] read(String command) {
+        final int length = manager.sendAndReadData(
+                (command + "\r").getBytes(), 1000);
+        return Arrays.copyOf(manager.getResponseData(), length);
+    }
+
+    @Test
+    public final void testInit() {
+        assertEquals(ERROR_TYPE.NO_ERROR, manager.resetAndInit("iso15765", "7E0", "7DF"));
+        assertTrue(manager.isCanProtocol());
+    }
+
+    @Test
+    public final void testSingleFrame() {
+        assertArrayEquals(new byte[]{0x41, 0x0C, 0x1A, (byte) 0xF8, 0x0D, 0x40},
+                read("010C0D"));
+        assertNull(manager.getResponseStatus());
+    }
+
+    @Test
+    public final void testMultiFrame() {
+        // ten bytes in two frames, the padding of the second is dropped
+        assertArrayEquals(new byte[]{0x41, 0x0C, 0x1A, (byte) 0xF8, 0x0D, 0x40,
+                0x05, 0x7B, 0x11, 0x26}, read("010C0D0511"));
+    }
+
+    @Test
+    public final void testNoData() {
+        assertEquals(0, read("0133").length);
+        assertEquals("NO DATA", manager.getResponseStatus());
+    }
+
+    @Test
+    public final void testStatusBeforeData() {
+        elm.script("0105", "SEARCHING...\r41 05 7B");
+        assertArrayEquals(new byte[]{0x41, 0x05, 0x7B}, read("0105"));
+        assertEquals("SEARCHING...", manager.getResponseStatus());
+    }
+
+    @Test
+    public final void testEncodeCommand() {
+        assertEquals("010C0D\r", new String(ElmConnectionManager.encodeCommand(
+                new byte[]{0x00, 0x01, 0x0C, 0x0D}, 1, 3)));
+    }
+}
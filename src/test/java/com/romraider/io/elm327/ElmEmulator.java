@@ -0,0 +1,283 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.elm327;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+import com.romraider.io.serial.connection.SerialConnection;
+import com.romraider.logger.ecu.exception.SerialCommunicationException;
+
+/**
+ * A scripted ELM327 on the end of a {@link SerialConnection}.  It answers
+ * AT commands with <code>OK</code>, or with a scripted reply, and mode 01
+ * requests for up to six PIDs from a table of PID values, formatted the
+ * way an ELM327 prints single frame and multi-frame ISO 15765 responses.
+ * Responses arrive at the serial line rate after a fixed adapter and ECU
+ * delay, so the emulator can also be used to time polling.
+ */
+public final class ElmEmulator implements SerialConnection {
+    private static final String PROMPT = "\r\r>";
+    private final Map<Integer, byte[]> pids = new HashMap<Integer, byte[]>();
+    private final Map<String, String> script = new HashMap<String, String>();
+    private final StringBuilder command = new StringBuilder();
+    private final long byteNanos;
+    private final long replyNanos;
+    private byte[] output = new byte[0];
+    private int position;
+    private long firstArrival;
+    private boolean echo = true;
+    private boolean can = true;
+    private int dataRequests;
+
+    /**
+     * An emulator answering without delay.
+     */
+    public ElmEmulator() {
+        this(0, 0L);
+    }
+
+    /**
+     * @param baudRate - the serial line rate, zero for no line delay
+     * @param replyDelay - the milliseconds from the end of a request to
+     *                     the start of its response
+     */
+    public ElmEmulator(int baudRate, long replyDelay) {
+        this.byteNanos = baudRate == 0 ? 0L : 10000000000L / baudRate;
+        this.replyNanos = MILLISECONDS.toNanos(replyDelay);
+        setPid(0x00, 0xBE, 0x3F, 0xA8, 0x13);
+    }
+
+    /**
+     * Set the value returned for a mode 01 PID.
+     */
+    public void setPid(int pid, int... value) {
+        final byte[] bytes = new byte[value.length];
+        for (int i = 0; i < value.length; i++) {
+            bytes[i] = (byte) value[i];
+        }
+        pids.put(pid, bytes);
+    }
+
+    /**
+     * Reply to a command with fixed text, the command is matched without
+     * spaces and in upper case.
+     */
+    public void script(String request, String reply) {
+        script.put(normalize(request), reply);
+    }
+
+    /**
+     * @param can - true to emulate a CAN vehicle, false for K-line which
+     *              answers one PID per request
+     */
+    public void setCan(boolean can) {
+        this.can = can;
+    }
+
+    /**
+     * @return the number of OBD requests received
+     */
+    public int getDataRequests() {
+        return dataRequests;
+    }
+
+    @Override
+    public void write(byte[] bytes) {
+        for (byte b : bytes) {
+            if (b == '\r') {
+                final String request = command.toString();
+                command.setLength(0);
+                final String reply = (echo ? request + "\r" : "") + respond(request) + PROMPT;
+                queue(reply, bytes.length);
+            }
+            else if (b != '\n') {
+                command.append((char) b);
+            }
+        }
+    }
+
+    @Override
+    public int available() {
+        if (byteNanos == 0L) {
+            return nanoTime() >= firstArrival ? output.length - position : 0;
+        }
+        final long elapsed = nanoTime() - firstArrival;
+        if (elapsed < 0L) {
+            return 0;
+        }
+        final long arrived = elapsed / byteNanos + 1;
+        return (int) Math.max(0L, Math.min(arrived, output.length) - position);
+    }
+
+    @Override
+    public boolean waitForBytes(int numBytes, long timeout) {
+        final long deadline = nanoTime() + MILLISECONDS.toNanos(timeout);
+        final int last = position + numBytes - 1;
+        final long arrival = last < output.length
+                ? firstArrival + last * byteNanos : Long.MAX_VALUE;
+        parkUntil(Math.min(arrival, deadline));
+        return arrival <= deadline;
+    }
+
+    @Override
+    public int read() {
+        if (position >= output.length) {
+            throw new SerialCommunicationException("No response from ELM327 emulator");
+        }
+        waitForBytes(1, Long.MAX_VALUE / 2000000L);
+        return output[position++] & 0xFF;
+    }
+
+    @Override
+    public String readLine() {
+        final StringBuilder line = new StringBuilder();
+        while (position < output.length) {
+            final int b = read();
+            if (b == '\r') break;
+            line.append((char) b);
+        }
+        return line.toString();
+    }
+
+    @Override
+    public void read(byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) read();
+        }
+    }
+
+    @Override
+    public byte[] readAvailable() {
+        final byte[] bytes = new byte[available()];
+        read(bytes);
+        return bytes;
+    }
+
+    @Override
+    public void readStaleData() {
+        position += available();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void sendBreak(int duration) {
+    }
+
+    private String respond(String request) {
+        final String cmd = normalize(request);
+        if (script.containsKey(cmd)) {
+            return script.get(cmd);
+        }
+        if (cmd.equals("ATZ")) {
+            echo = true;
+            return "\r\rELM327 v1.5";
+        }
+        if (cmd.equals("ATE0") || cmd.equals("ATE1")) {
+            echo = cmd.endsWith("1");
+            return "OK";
+        }
+        if (cmd.equals("ATDP")) {
+            return can ? "ISO 15765-4 (CAN 11/500)" : "ISO 9141-2";
+        }
+        if (cmd.startsWith("AT")) {
+            return "OK";
+        }
+        if (cmd.length() >= 4 && cmd.length() % 2 == 0 && cmd.startsWith("01")) {
+            dataRequests++;
+            return readPids(cmd);
+        }
+        return cmd.length() == 0 ? "" : "?";
+    }
+
+    private String readPids(String cmd) {
+        final int count = can ? (cmd.length() - 2) / 2 : 1;
+        if (count > 6) {
+            return "?";
+        }
+        final byte[] data = new byte[1 + count * 5];
+        int length = 0;
+        data[length++] = 0x41;
+        for (int i = 0; i < count; i++) {
+            final int pid = Integer.parseInt(cmd.substring(2 + i * 2, 4 + i * 2), 16);
+            final byte[] value = pids.get(pid);
+            if (value != null) {
+                data[length++] = (byte) pid;
+                System.arraycopy(value, 0, data, length, value.length);
+                length += value.length;
+            }
+        }
+        if (length == 1) {
+            return "NO DATA";
+        }
+        if (!can || length <= 7) {
+            return hex(data, 0, length);
+        }
+        // ISO-TP: six bytes in the first frame and seven in each
+        // consecutive frame, the last frame padded with zeros
+        final StringBuilder reply = new StringBuilder(String.format("%03X", length));
+        final byte[] padded = new byte[length + 7];
+        System.arraycopy(data, 0, padded, 0, length);
+        int frame = 0;
+        for (int offset = 0; offset < length; frame++) {
+            final int size = frame == 0 ? 6 : 7;
+            reply.append('\r').append(Integer.toHexString(frame & 0x0F).toUpperCase())
+                    .append(": ").append(hex(padded, offset, size));
+            offset += size;
+        }
+        return reply.toString();
+    }
+
+    private void queue(String reply, int requestBytes) {
+        output = new byte[reply.length()];
+        for (int i = 0; i < output.length; i++) {
+            output[i] = (byte) reply.charAt(i);
+        }
+        position = 0;
+        firstArrival = nanoTime() + requestBytes * byteNanos + replyNanos + byteNanos;
+    }
+
+    private static String hex(byte[] bytes, int offset, int length) {
+        final StringBuilder text = new StringBuilder();
+        for (int i = offset; i < offset + length; i++) {
+            if (text.length() > 0) text.append(' ');
+            text.append(String.format("%02X", bytes[i] & 0xFF));
+        }
+        return text.toString();
+    }
+
+    private static String normalize(String request) {
+        return request.replace(" ", "").toUpperCase();
+    }
+
+    private static void parkUntil(long time) {
+        long remaining;
+        while ((remaining = time - nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
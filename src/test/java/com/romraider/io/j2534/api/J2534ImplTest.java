@@ -0,0 +1,96 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.j2534.api;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.romraider.io.j2534.api.J2534Impl.Protocol;
+import com.romraider.io.j2534.api.J2534Impl.TxFlags;
+
+public class J2534ImplTest {
+    private static final byte[] REQUEST = {0x00, 0x00, 0x07, (byte) 0xE0, 0x21, 0x01};
+    private MockJ2534Library library;
+    private J2534 api;
+    private int channelId;
+
+    @Before
+    public final void setUp() {
+        // the request is answered with two messages
+        library = new MockJ2534Library(new MockJ2534Library.Responder() {
+            @Override
+            public byte[][] respond(byte[] request) {
+                return new byte[][] {
+                        {0x00, 0x00, 0x07, (byte) 0xE8, 0x61, 0x01},
+                        {0x00, 0x00, 0x07, (byte) 0xE8, 0x61, 0x02, 0x7F}};
+            }
+        });
+        api = new J2534Impl(Protocol.ISO15765, library);
+        channelId = api.connect(api.open(), 0, 500000);
+    }
+
+    @Test
+    public final void testMessagesReadIntoBuffer() {
+        api.writeMsg(channelId, REQUEST, 100L, TxFlags.ISO15765_FRAME_PAD);
+        final ByteBuffer response = ByteBuffer.allocate(16);
+        response.put((byte) 0x55);
+        assertEquals(13, api.readMsg(channelId, 2, response, 1000L));
+        assertEquals(1, library.getReadCalls());
+        assertArrayEquals(new byte[] {0x55, 0x00, 0x00, 0x07, (byte) 0xE8, 0x61, 0x01,
+                0x00, 0x00, 0x07, (byte) 0xE8, 0x61, 0x02, 0x7F},
+                Arrays.copyOf(response.array(), response.position()));
+    }
+
+    @Test
+    public final void testDataBeyondBufferIsDropped() {
+        api.writeMsg(channelId, REQUEST, 100L, TxFlags.ISO15765_FRAME_PAD);
+        final ByteBuffer response = ByteBuffer.allocate(8);
+        assertEquals(8, api.readMsg(channelId, 2, response, 1000L));
+        assertEquals(0x61, response.get(4));
+        assertEquals(0x00, response.get(6));
+    }
+
+    @Test
+    public final void testByteArrayReads() {
+        api.writeMsg(channelId, REQUEST, 100L, TxFlags.ISO15765_FRAME_PAD);
+        assertArrayEquals(new byte[] {0x00, 0x00, 0x07, (byte) 0xE8, 0x61, 0x01},
+                api.readMsg(channelId, 1, 1000L));
+
+        // a fixed size read spans the second message and the next reply
+        api.writeMsg(channelId, REQUEST, 100L, TxFlags.ISO15765_FRAME_PAD);
+        final byte[] response = new byte[9];
+        api.readMsg(channelId, response, 1000L);
+        assertArrayEquals(new byte[] {0x00, 0x00, 0x07, (byte) 0xE8, 0x61, 0x02, 0x7F,
+                0x00, 0x00}, response);
+    }
+
+    @Test(expected = J2534Exception.class)
+    public final void testPooledMessagesAreNotReadTwice() {
+        library.receive(new byte[] {0x01});
+        assertArrayEquals(new byte[] {0x01}, api.readMsg(channelId, 1, 50L));
+        api.readMsg(channelId, 1, 50L);
+    }
+}
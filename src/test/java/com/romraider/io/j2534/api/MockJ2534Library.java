@@ -0,0 +1,210 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.j2534.api;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import com.romraider.io.j2534.api.J2534Impl.RxStatus;
+import com.romraider.io.j2534.api.J2534Impl.Status;
+import com.romraider.io.j2534.api.J2534_v0404.PASSTHRU_MSG;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.NativeLongByReference;
+
+/**
+ * A J2534 PassThru device simulated in Java, so {@link J2534Impl} can be
+ * tested without a vendor library.  Every message written is answered by
+ * the {@link Responder} with any number of received messages, which are
+ * returned by later reads in native <code>PASSTHRU_MSG</code> layout.
+ */
+public class MockJ2534Library extends J2534_v0404 {
+    private static final int TIMESTAMP_STEP = 100;
+    private final Responder responder;
+    private final Deque<byte[]> received = new ArrayDeque<byte[]>();
+    private final int msgSize;
+    private final int rxStatusOffset;
+    private final int timestampOffset;
+    private final int dataSizeOffset;
+    private final int dataOffset;
+    private int timestamp;
+    private int readCalls;
+
+    /**
+     * Answers messages written to the simulated device.
+     */
+    public interface Responder {
+        /**
+         * @return the data of each message the vehicle sends in reply
+         */
+        byte[][] respond(byte[] request);
+    }
+
+    public MockJ2534Library(Responder responder) {
+        this.responder = responder;
+        final PASSTHRU_MSG layout = new PASSTHRU_MSG();
+        msgSize = layout.size();
+        rxStatusOffset = layout.getFieldOffset("rxStatus");
+        timestampOffset = layout.getFieldOffset("timestamp");
+        dataSizeOffset = layout.getFieldOffset("dataSize");
+        dataOffset = layout.getFieldOffset("data");
+    }
+
+    /**
+     * @return the number of PassThruReadMsgs calls
+     */
+    public int getReadCalls() {
+        return readCalls;
+    }
+
+    /**
+     * Queue a message as if received from the vehicle.
+     */
+    public void receive(byte[] data) {
+        received.add(data);
+    }
+
+    @Override
+    public NativeLong PassThruOpen(Pointer pName, NativeLongByReference pDeviceID) {
+        pDeviceID.setValue(new NativeLong(1));
+        return noError();
+    }
+
+    @Override
+    public NativeLong PassThruClose(NativeLong DeviceID) {
+        return noError();
+    }
+
+    @Override
+    public NativeLong PassThruConnect(NativeLong DeviceID, NativeLong protocolID,
+            NativeLong flags, NativeLong baud, NativeLongByReference pChannelID) {
+        pChannelID.setValue(new NativeLong(2));
+        return noError();
+    }
+
+    @Override
+    public NativeLong PassThruDisconnect(NativeLong channelID) {
+        return noError();
+    }
+
+    @Override
+    public NativeLong PassThruReadMsgs(NativeLong ChannelID, Pointer pMsg,
+            NativeLongByReference pNumMsgs, NativeLong Timeout) {
+        readCalls++;
+        final int max = pNumMsgs.getValue().intValue();
+        int count = 0;
+        while (count < max && !received.isEmpty()) {
+            final byte[] data = received.poll();
+            final long msg = (long) count * msgSize;
+            setNativeLong(pMsg, msg + rxStatusOffset, RxStatus.RX_INDICATION.getValue());
+            setNativeLong(pMsg, msg + timestampOffset, timestamp += TIMESTAMP_STEP);
+            setNativeLong(pMsg, msg + dataSizeOffset, data.length);
+            pMsg.write(msg + dataOffset, data, 0, data.length);
+            count++;
+        }
+        pNumMsgs.setValue(new NativeLong(count));
+        return count == 0
+                ? new NativeLong(Status.ERR_BUFFER_EMPTY.getValue())
+                : noError();
+    }
+
+    @Override
+    public NativeLong PassThruWriteMsgs(NativeLong ChannelID, Pointer pMsg,
+            NativeLongByReference pNumMsgs, NativeLong Timeout) {
+        final int count = pNumMsgs.getValue().intValue();
+        for (int i = 0; i < count; i++) {
+            final long msg = (long) i * msgSize;
+            final int size = Native.LONG_SIZE == 8
+                    ? (int) pMsg.getLong(msg + dataSizeOffset)
+                    : pMsg.getInt(msg + dataSizeOffset);
+            final byte[] request = pMsg.getByteArray(msg + dataOffset, size);
+            received.addAll(Arrays.asList(responder.respond(request)));
+        }
+        return noError();
+    }
+
+    @Override
+    public NativeLong PassThruStartPeriodicMsg(NativeLong channelID, Pointer pMsg,
+            NativeLongByReference pMsgID, NativeLong timeInterval) {
+        pMsgID.setValue(new NativeLong(1));
+        return noError();
+    }
+
+    @Override
+    public NativeLong PassThruStopPeriodicMsg(NativeLong channelID, NativeLong msgID) {
+        return noError();
+    }
+
+    @Override
+    public NativeLong PassThruStartMsgFilter(NativeLong ChannelID, NativeLong FilterType,
+            Pointer pMaskMsg, Pointer pPatternMsg, Pointer pFlowControlMsg,
+            NativeLongByReference pMsgID) {
+        pMsgID.setValue(new NativeLong(3));
+        return noError();
+    }
+
+    @Override
+    public NativeLong PassThruStopMsgFilter(NativeLong channelID, NativeLong msgID) {
+        return noError();
+    }
+
+    @Override
+    public NativeLong PassThruSetProgrammingVoltage(NativeLong pinNumber,
+            NativeLong voltage) {
+        return noError();
+    }
+
+    @Override
+    public NativeLong PassThruReadVersion(NativeLong DeviceID, ByteBuffer pFirmwareVersion,
+            ByteBuffer pDllVersion, ByteBuffer pApiVersion) {
+        pFirmwareVersion.put("mock".getBytes());
+        pDllVersion.put("mock".getBytes());
+        pApiVersion.put("04.04".getBytes());
+        return noError();
+    }
+
+    @Override
+    public NativeLong PassThruGetLastError(ByteBuffer pErrorDescription) {
+        pErrorDescription.put("mock error".getBytes());
+        return noError();
+    }
+
+    @Override
+    public NativeLong PassThruIoctl(NativeLong channelID, NativeLong ioctlID,
+            Pointer pInput, Pointer pOutput) {
+        return noError();
+    }
+
+    private static NativeLong noError() {
+        return new NativeLong(Status.NOERROR.getValue());
+    }
+
+    private static void setNativeLong(Pointer pointer, long offset, int value) {
+        if (Native.LONG_SIZE == 8) {
+            pointer.setLong(offset, value);
+        }
+        else {
+            pointer.setInt(offset, value);
+        }
+    }
+}
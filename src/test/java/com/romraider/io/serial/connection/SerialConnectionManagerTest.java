@@ -0,0 +1,215 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.io.serial.connection;
+
+import static com.romraider.io.protocol.ssm.iso9141.SSMChecksumCalculator.calculateChecksum;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.romraider.io.connection.ConnectionProperties;
+import com.romraider.io.protocol.ssm.iso9141.SSMFrameAssembler;
+import com.romraider.logger.ecu.comms.manager.PollingStateImpl;
+
+public class SerialConnectionManagerTest {
+    private static final int BAUD_RATE = 4800;
+    private static final long REPLY_DELAY = 10L;
+    private static final int TIMEOUT = 500;
+    private static final byte[] INIT =
+            new byte[]{(byte) 0x80, 0x10, (byte) 0xF0, 0x01, (byte) 0xBF, 0x40};
+    private static final int INIT_DATA_BYTES = 48;
+
+    @Test
+    public final void testSendWaitsForResponse() {
+        final byte[] request = readAddressRequest(5);
+        final byte[] reply = new SsmResponder().respond(request);
+        final SerialConnectionManager manager = manager(new SsmResponder());
+
+        final byte[] response = new byte[request.length + reply.length];
+        manager.send(request, response, new PollingStateImpl());
+
+        assertArrayEquals(request, Arrays.copyOf(response, request.length));
+        assertArrayEquals(reply, Arrays.copyOfRange(response, request.length, response.length));
+    }
+
+    @Test
+    public final void testSendTimesOutWithoutResponse() {
+        final SerialConnection connection = connection(null);
+        final byte[] request = readAddressRequest(1);
+        final byte[] response = new byte[request.length + 10];
+        final long start = System.nanoTime();
+        new SerialConnectionManager(connection, new Properties())
+                .send(request, response, new PollingStateImpl());
+
+        assertTrue(elapsedMillis(start) >= TIMEOUT);
+        assertArrayEquals(new byte[response.length], response);
+        // the echo was read as a bad response and nothing follows it
+        assertEquals(0, connection.available());
+        assertFalse(connection.waitForBytes(1, 20L));
+    }
+
+    @Test
+    public final void testUnknownLengthCompleteOnQuietLine() {
+        final SerialConnectionManager manager = manager(new SsmResponder());
+        final long start = System.nanoTime();
+        final byte[] response = manager.send(INIT);
+
+        assertEquals(INIT.length + 6 + INIT_DATA_BYTES, response.length);
+        assertTrue(elapsedMillis(start) >= TIMEOUT);
+    }
+
+    @Test
+    public final void testUnknownLengthCompleteWithAssembler() {
+        final SerialConnectionManager manager = manager(new SsmResponder());
+        manager.setFrameAssembler(new SSMFrameAssembler());
+        final long start = System.nanoTime();
+        final byte[] response = manager.send(INIT);
+
+        assertEquals(INIT.length + 6 + INIT_DATA_BYTES, response.length);
+        assertEquals(calculateChecksum(Arrays.copyOfRange(response, INIT.length, response.length)),
+                response[response.length - 1]);
+        assertTrue(elapsedMillis(start) < TIMEOUT);
+    }
+
+    @Test
+    public final void testAssemblerNeedsHeader() {
+        final FrameAssembler assembler = new SSMFrameAssembler();
+        final byte[] received = new byte[INIT.length + 6];
+        System.arraycopy(INIT, 0, received, 0, INIT.length);
+
+        assertEquals(FrameAssembler.UNKNOWN,
+                assembler.getResponseLength(INIT, received, INIT.length + 3));
+        assertEquals(FrameAssembler.UNKNOWN,
+                assembler.getResponseLength(INIT, received, INIT.length + 4));
+
+        received[INIT.length] = (byte) 0x80;
+        received[INIT.length + 3] = (byte) (INIT_DATA_BYTES + 1);
+        assertEquals(INIT.length + 6 + INIT_DATA_BYTES,
+                assembler.getResponseLength(INIT, received, INIT.length + 4));
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1000000L;
+    }
+
+    private static SerialConnection connection(LoopbackSerialConnection.Responder responder) {
+        if (responder == null) {
+            responder = new LoopbackSerialConnection.Responder() {
+                @Override
+                public byte[] respond(byte[] request) {
+                    return null;
+                }
+            };
+        }
+        return new LoopbackSerialConnection(responder, BAUD_RATE, REPLY_DELAY);
+    }
+
+    private static SerialConnectionManager manager(LoopbackSerialConnection.Responder responder) {
+        return new SerialConnectionManager(connection(responder), new Properties());
+    }
+
+    private static byte[] readAddressRequest(int addresses) {
+        final byte[] request = new byte[7 + addresses * 3];
+        request[0] = (byte) 0x80;
+        request[1] = 0x10;
+        request[2] = (byte) 0xF0;
+        request[3] = (byte) (2 + addresses * 3);
+        request[4] = (byte) 0xA8;
+        request[5] = 0x00;
+        for (int i = 0; i < addresses; i++) {
+            request[8 + i * 3] = (byte) i;
+        }
+        request[request.length - 1] = calculateChecksum(request);
+        return request;
+    }
+
+    // answers read address requests with the low byte of each address and
+    // init requests with capability bytes
+    private static final class SsmResponder implements LoopbackSerialConnection.Responder {
+        @Override
+        public byte[] respond(byte[] request) {
+            final int dataBytes;
+            final byte command;
+            if (request[4] == (byte) 0xA8) {
+                dataBytes = (request.length - 7) / 3;
+                command = (byte) 0xE8;
+            }
+            else if (request[4] == (byte) 0xBF) {
+                dataBytes = INIT_DATA_BYTES;
+                command = (byte) 0xFF;
+            }
+            else {
+                return null;
+            }
+            final byte[] response = new byte[6 + dataBytes];
+            response[0] = (byte) 0x80;
+            response[1] = (byte) 0xF0;
+            response[2] = 0x10;
+            response[3] = (byte) (dataBytes + 1);
+            response[4] = command;
+            for (int i = 0; i < dataBytes; i++) {
+                response[5 + i] = command == (byte) 0xE8 ? request[8 + i * 3] : (byte) i;
+            }
+            response[response.length - 1] = calculateChecksum(response);
+            return response;
+        }
+    }
+
+    private static final class Properties implements ConnectionProperties {
+        @Override
+        public int getBaudRate() {
+            return BAUD_RATE;
+        }
+
+        @Override
+        public void setBaudRate(int b) {
+        }
+
+        @Override
+        public int getDataBits() {
+            return 8;
+        }
+
+        @Override
+        public int getStopBits() {
+            return 1;
+        }
+
+        @Override
+        public int getParity() {
+            return 0;
+        }
+
+        @Override
+        public int getConnectTimeout() {
+            return TIMEOUT;
+        }
+
+        @Override
+        public int getSendTimeout() {
+            return 55;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.io.connection;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.io.elm327.ElmConnectionManager;
+import com.romraider.io.elm327.ElmEmulator;
+import com.romraider.logger.ecu.comms.manager.PollingStateImpl;
+import com.romraider.logger.ecu.comms.query.EcuQuery;
+import com.romraider.logger.ecu.comms.query.EcuQueryImpl;
+import com.romraider.logger.ecu.definition.EcuAddressImpl;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuParameterImpl;
+import com.romraider.logger.ecu.definition.Module;
+import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
+
+public class ELMOBDLoggerConnectionTest {
+    private static final Module ECU = new Module("ECU",
+            new byte[]{0x00, 0x00, 0x07, (byte) 0xE0}, "Engine",
+            new byte[]{0x00, 0x00, 0x07, (byte) 0xDF}, false);
+    private ElmEmulator elm;
+    private ElmConnectionManager manager;
+
+    @Before
+    public final void setUp() {
+        elm = new ElmEmulator();
+        for (int pid = 0x03; pid <= 0x11; pid++) {
+            elm.setPid(pid, pid, 0x10);
+        }
+        manager = new ElmConnectionManager(elm);
+    }
+
+    private static EcuQuery query(int pid) {
+        final String id = "P" + pid;
+        final EcuDataConvertor convertor = new EcuParameterConvertorImpl("raw", "x",
+                "0", -1, "uint16", Settings.Endian.BIG,
+                new HashMap<String, String>(), new GaugeMinMax(0, 100, 10));
+        return new EcuQueryImpl(new EcuParameterImpl(id, id, "",
+                new EcuAddressImpl(String.format("0x%02X", pid), 1, -1),
+                null, null, null, new EcuDataConvertor[] {convertor}));
+    }
+
+    private List<EcuQuery> queries(int count) {
+        final List<EcuQuery> queries = new ArrayList<EcuQuery>();
+        for (int i = 0; i < count; i++) {
+            queries.add(query(0x03 + i));
+        }
+        return queries;
+    }
+
+    private void assertResponses(List<EcuQuery> queries) {
+        for (EcuQuery query : queries) {
+            final int pid = query.getBytes()[0];
+            assertEquals(pid * 256 + 0x10, query.getResponse(), 0.0);
+        }
+    }
+
+    @Test
+    public final void testCanRequestsSixPids() {
+        manager.resetAndInit("iso15765", "7E0", "7DF");
+        final ELMOBDLoggerConnection connection = new ELMOBDLoggerConnection(manager);
+        final List<EcuQuery> queries = queries(12);
+        queries.add(query(0x05));
+        connection.sendAddressReads(queries, ECU, new PollingStateImpl());
+        assertEquals(2, elm.getDataRequests() - 1);
+        assertResponses(queries);
+
+        connection.sendAddressReads(queries, ECU, new PollingStateImpl());
+        assertEquals(4, elm.getDataRequests() - 1);
+    }
+
+    @Test
+    public final void testKLineRequestsOnePid() {
+        elm.setCan(false);
+        manager.resetAndInit("iso19141-2", "10", "F1");
+        final ELMOBDLoggerConnection connection = new ELMOBDLoggerConnection(manager);
+        final List<EcuQuery> queries = queries(3);
+        connection.sendAddressReads(queries, ECU, new PollingStateImpl());
+        assertEquals(3, elm.getDataRequests() - 1);
+        assertResponses(queries);
+    }
+}
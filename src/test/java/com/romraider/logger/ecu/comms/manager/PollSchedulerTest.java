@@ -0,0 +1,168 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.logger.ecu.comms.io.connection.QueryFrameLimit;
+import com.romraider.logger.ecu.comms.query.EcuQuery;
+import com.romraider.logger.ecu.comms.query.EcuQueryImpl;
+import com.romraider.logger.ecu.definition.EcuAddressImpl;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuParameterImpl;
+import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
+
+public class PollSchedulerTest {
+    // an SSM K-line request holds 84 single byte addresses
+    private static final QueryFrameLimit LIMIT = new QueryFrameLimit() {
+        @Override
+        public int getCapacity() {
+            return 253;
+        }
+
+        @Override
+        public int getSize(EcuQuery query) {
+            return query.getBytes().length;
+        }
+    };
+
+    private static EcuQuery query(int address) {
+        final String id = "P" + address;
+        final EcuDataConvertor convertor = new EcuParameterConvertorImpl("raw", "x",
+                "0", -1, "uint8", Settings.Endian.BIG,
+                new HashMap<String, String>(), new GaugeMinMax(0, 100, 10));
+        return new EcuQueryImpl(new EcuParameterImpl(id, id, "",
+                new EcuAddressImpl(String.format("0x%06X", address), 1, -1),
+                null, null, null, new EcuDataConvertor[] {convertor}));
+    }
+
+    private static List<EcuQuery> queries(int count) {
+        final List<EcuQuery> queries = new ArrayList<EcuQuery>();
+        for (int i = 0; i < count; i++) {
+            queries.add(query(i));
+        }
+        return queries;
+    }
+
+    private static PollRate[] rates(PollRate... rates) {
+        return rates;
+    }
+
+    private static PollRate[] everyCycle(int count) {
+        final PollRate[] rates = new PollRate[count];
+        Arrays.fill(rates, PollRate.EVERY_CYCLE);
+        return rates;
+    }
+
+    @Test
+    public final void testOversizeQuerySetIsSplit() {
+        final List<EcuQuery> queries = queries(100);
+        final PollScheduler scheduler =
+                new PollScheduler(queries, everyCycle(100), LIMIT, 0L);
+        assertFalse(scheduler.isSingleFrame());
+        final List<List<EcuQuery>> requests = scheduler.nextCycle(0L);
+        assertEquals(2, requests.size());
+        assertEquals(84, requests.get(0).size());
+        assertEquals(16, requests.get(1).size());
+        assertEquals(queries.get(84), requests.get(1).get(0));
+        // the same lists are polled every cycle
+        assertSame(requests, scheduler.nextCycle(1L));
+    }
+
+    @Test
+    public final void testDuplicatesShareRequest() {
+        final List<EcuQuery> queries = queries(84);
+        queries.add(query(0));
+        final PollScheduler scheduler =
+                new PollScheduler(queries, everyCycle(85), LIMIT, 0L);
+        assertTrue(scheduler.isSingleFrame());
+        assertEquals(85, scheduler.nextCycle(0L).get(0).size());
+    }
+
+    @Test
+    public final void testEveryNthCycleIsInterleaved() {
+        final List<EcuQuery> queries = queries(6);
+        final PollRate quarter = PollRate.everyNthCycle(4);
+        final PollScheduler scheduler = new PollScheduler(queries,
+                rates(PollRate.EVERY_CYCLE, quarter, quarter, PollRate.EVERY_CYCLE,
+                        quarter, quarter), LIMIT, 0L);
+        assertFalse(scheduler.isSingleFrame());
+        assertEquals(6, scheduler.nextCycle(0L).get(0).size());
+
+        final int[] reads = new int[6];
+        for (int cycle = 0; cycle < 8; cycle++) {
+            final List<List<EcuQuery>> requests = scheduler.nextCycle(cycle);
+            assertEquals(1, requests.size());
+            final List<EcuQuery> request = requests.get(0);
+            assertEquals(3, request.size());
+            assertEquals(queries.get(0), request.get(0));
+            assertEquals(queries.get(3), request.get(1));
+            reads[queries.indexOf(request.get(2))]++;
+        }
+        assertEquals(2, reads[1]);
+        assertEquals(2, reads[2]);
+        assertEquals(2, reads[4]);
+        assertEquals(2, reads[5]);
+    }
+
+    @Test
+    public final void testOncePerSecond() {
+        final List<EcuQuery> queries = queries(2);
+        final PollScheduler scheduler = new PollScheduler(queries,
+                rates(PollRate.EVERY_CYCLE, PollRate.ONCE_PER_SECOND), LIMIT, 0L);
+        assertEquals(2, scheduler.nextCycle(0L).get(0).size());
+        assertEquals(1, scheduler.nextCycle(200L).get(0).size());
+        assertEquals(1, scheduler.nextCycle(999L).get(0).size());
+        assertEquals(2, scheduler.nextCycle(1000L).get(0).size());
+        assertEquals(1, scheduler.nextCycle(1200L).get(0).size());
+    }
+
+    @Test
+    public final void testOnlySlowQueries() {
+        final List<EcuQuery> queries = queries(1);
+        final PollScheduler scheduler = new PollScheduler(queries,
+                rates(PollRate.ONCE_PER_SECOND), LIMIT, 0L);
+        assertEquals(1, scheduler.nextCycle(0L).size());
+        assertTrue(scheduler.nextCycle(10L).isEmpty());
+        assertEquals(990L, scheduler.getMillisUntilDue(10L));
+        assertEquals(1, scheduler.nextCycle(1000L).size());
+    }
+
+    @Test
+    public final void testPollRateText() {
+        assertEquals(PollRate.EVERY_CYCLE, PollRate.valueOf(null));
+        assertEquals(PollRate.EVERY_CYCLE, PollRate.valueOf("cycle"));
+        assertEquals(PollRate.everyNthCycle(5), PollRate.valueOf("cycle/5"));
+        assertEquals(PollRate.ONCE_PER_SECOND, PollRate.valueOf("second"));
+        assertEquals("cycle/5", PollRate.everyNthCycle(5).toString());
+    }
+}
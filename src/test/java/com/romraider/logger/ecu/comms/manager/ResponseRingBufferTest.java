@@ -0,0 +1,189 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.comms.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.logger.ecu.comms.manager.ResponseRingBuffer.Consumer;
+import com.romraider.logger.ecu.comms.query.ResponseFrame;
+import com.romraider.logger.ecu.comms.query.ResponseLayout;
+import com.romraider.logger.ecu.definition.EcuAddressImpl;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuParameterImpl;
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
+
+public class ResponseRingBufferTest {
+    private static final LoggerData RPM = parameter("P8");
+    private static final LoggerData IAT = parameter("P11");
+    private static final ResponseLayout LAYOUT =
+            new ResponseLayout(Arrays.asList(RPM, IAT, RPM));
+    private static final ResponseLayout WIDE_LAYOUT = new ResponseLayout(Arrays.asList(
+            RPM, IAT, parameter("P2"), parameter("P3"), parameter("P4"),
+            parameter("P7"), parameter("P12"), parameter("P13")));
+
+    private static LoggerData parameter(String id) {
+        final EcuDataConvertor convertor = new EcuParameterConvertorImpl("raw", "x",
+                "0", -1, "uint8", Settings.Endian.BIG,
+                new HashMap<String, String>(), new GaugeMinMax(0, 100, 10));
+        return new EcuParameterImpl(id, id, "",
+                new EcuAddressImpl("0x000000", 1, -1), null, null, null,
+                new EcuDataConvertor[] {convertor});
+    }
+
+    private static void publish(ResponseRingBuffer ring, int count) {
+        for (int i = 0; i < count; i++) {
+            final ResponseFrame frame = ring.claim();
+            frame.reset(LAYOUT, i);
+            frame.setValue(LAYOUT.getSlot(RPM), i * 100);
+            ring.publish();
+        }
+    }
+
+    @Test
+    public final void testLayoutSharesSlotOfDuplicates() {
+        assertEquals(2, LAYOUT.size());
+        assertEquals(0, LAYOUT.getSlot(RPM));
+        assertEquals(1, LAYOUT.getSlot(IAT));
+        assertEquals(-1, LAYOUT.getSlot(parameter("P12")));
+    }
+
+    @Test
+    public final void testBlockingConsumerSeesEveryFrame() {
+        final ResponseRingBuffer ring = new ResponseRingBuffer(4);
+        final Consumer consumer = ring.addConsumer(OverflowPolicy.BLOCK);
+        final ResponseFrame frame = new ResponseFrame();
+        publish(ring, 3);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(consumer.poll(frame));
+            assertEquals(i, frame.getTimestamp());
+            assertEquals(i * 100, frame.getDataValue(RPM), 0.0);
+            assertEquals(0, frame.getDataValue(IAT), 0.0);
+        }
+        assertFalse(consumer.poll(frame));
+        assertEquals(0, consumer.getDropped());
+    }
+
+    @Test
+    public final void testDropOldestSkipsOverwrittenFrames() {
+        final ResponseRingBuffer ring = new ResponseRingBuffer(4);
+        final Consumer consumer = ring.addConsumer(OverflowPolicy.DROP_OLDEST);
+        final ResponseFrame frame = new ResponseFrame();
+        publish(ring, 10);
+        for (int i = 7; i < 10; i++) {
+            assertTrue(consumer.poll(frame));
+            assertEquals(i, frame.getTimestamp());
+        }
+        assertFalse(consumer.poll(frame));
+        assertEquals(7, consumer.getDropped());
+    }
+
+    @Test
+    public final void testCoalesceDeliversLatestFrame() {
+        final ResponseRingBuffer ring = new ResponseRingBuffer(4);
+        final Consumer consumer = ring.addConsumer(OverflowPolicy.COALESCE);
+        final ResponseFrame frame = new ResponseFrame();
+        publish(ring, 5);
+        assertTrue(consumer.poll(frame));
+        assertEquals(4, frame.getTimestamp());
+        assertEquals(400, frame.getDataValue(RPM), 0.0);
+        assertFalse(consumer.poll(frame));
+    }
+
+    /**
+     * Polls frames until the producer is done, checking each copy holds the
+     * layout and values of a single cycle.
+     */
+    private static final class Checker implements Runnable {
+        private final Consumer consumer;
+        private final AtomicBoolean done;
+        private int frames;
+        private String error;
+
+        Checker(Consumer consumer, AtomicBoolean done) {
+            this.consumer = consumer;
+            this.done = done;
+        }
+
+        public void run() {
+            final ResponseFrame frame = new ResponseFrame();
+            while (error == null) {
+                final boolean finished = done.get();
+                if (!consumer.poll(frame)) {
+                    if (finished) return;
+                    Thread.yield();
+                    continue;
+                }
+                frames++;
+                final long cycle = frame.getTimestamp();
+                final ResponseLayout expected = cycle % 2 == 0 ? LAYOUT : WIDE_LAYOUT;
+                if (frame.getLayout() != expected) {
+                    error = "cycle " + cycle + " copied with the wrong layout";
+                }
+                for (int i = 0; i < expected.size() && error == null; i++) {
+                    if (frame.getValue(i) != cycle) {
+                        error = "cycle " + cycle + " copied value " + frame.getValue(i);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public final void testNonBlockingConsumersNeverSeeTornFrames() throws Exception {
+        final ResponseRingBuffer ring = new ResponseRingBuffer(4);
+        final AtomicBoolean done = new AtomicBoolean();
+        final Checker coalesce = new Checker(ring.addConsumer(OverflowPolicy.COALESCE), done);
+        final Checker dropOldest = new Checker(ring.addConsumer(OverflowPolicy.DROP_OLDEST), done);
+        final Thread[] threads = {new Thread(coalesce), new Thread(dropOldest)};
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (int cycle = 0; cycle < 200000; cycle++) {
+            final ResponseFrame frame = ring.claim();
+            // alternate layouts so frames are refilled with other sizes
+            final ResponseLayout layout = cycle % 2 == 0 ? LAYOUT : WIDE_LAYOUT;
+            frame.reset(layout, cycle);
+            for (int i = 0; i < layout.size(); i++) {
+                frame.setValue(i, cycle);
+            }
+            ring.publish();
+        }
+        done.set(true);
+        for (Thread thread : threads) {
+            thread.join(10000L);
+        }
+        assertNull(coalesce.error, coalesce.error);
+        assertNull(dropOldest.error, dropOldest.error);
+        assertTrue(coalesce.frames > 0);
+        assertTrue(dropOldest.frames > 0);
+    }
+}
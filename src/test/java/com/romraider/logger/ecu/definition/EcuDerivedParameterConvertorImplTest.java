@@ -0,0 +1,68 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.definition;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
+
+public class EcuDerivedParameterConvertorImplTest {
+    private static final GaugeMinMax GAUGE = new GaugeMinMax(0, 100, 10);
+
+    private static EcuParameterConvertorImpl convertor(String units, String expression, String dataType) {
+        return new EcuParameterConvertorImpl(units, expression, "0.00", -1,
+                dataType, Settings.Endian.BIG, new HashMap<String, String>(), GAUGE);
+    }
+
+    private static EcuData parameter(String id, String address, int length,
+            EcuDataConvertor... convertors) {
+        return new EcuParameterImpl(id, id, "", new EcuAddressImpl(address, length, -1),
+                null, null, null, convertors);
+    }
+
+    @Test
+    public final void testConvertsDependenciesByOffset() {
+        final EcuData rpm = parameter("P8", "0x00000E", 2, convertor("rpm", "x/4", "uint16"));
+        final EcuData iat = parameter("P11", "0x000012", 1,
+                convertor("C", "x-40", "uint8"), convertor("F", "32+9*(x-40)/5", "uint8"));
+        final EcuDerivedParameterConvertorImpl derived = new EcuDerivedParameterConvertorImpl(
+                "test", "P8/100+[P11:F]", "0.00", new HashMap<String, String>(), GAUGE);
+        derived.setEcuDatas(new EcuData[] {rpm, iat});
+
+        // 0x1F40 = 8000 / 4 = 2000 rpm, 0x46 = 70 - 40 = 30C = 86F
+        final byte[] response = {(byte) 0xAA, 0x1F, 0x40, 0x46};
+        assertEquals(106.0, derived.convert(new byte[] {0x1F, 0x40, 0x46}), 0.0);
+        assertEquals(106.0, derived.convert(response, 1, 3), 0.0);
+    }
+
+    @Test
+    public final void testSignedAndLittleEndianByOffset() {
+        final EcuParameterConvertorImpl signed = new EcuParameterConvertorImpl("raw", "x", "0",
+                -1, "int16", Settings.Endian.LITTLE, new HashMap<String, String>(), GAUGE);
+        assertEquals(-2.0, signed.convert(new byte[] {0x00, (byte) 0xFE, (byte) 0xFF}, 1, 2), 0.0);
+        assertEquals(65534.0, convertor("raw", "x", "uint16")
+                .convert(new byte[] {0x00, (byte) 0xFF, (byte) 0xFE}, 1, 2), 0.0);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.handler.file;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.text.DecimalFormatSymbols;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.logger.ecu.definition.EcuAddressImpl;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuParameterImpl;
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.ui.MessageListener;
+import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
+import com.romraider.logger.ecu.ui.playback.PlaybackLog;
+
+public class BinaryLogConverterTest {
+    private static final String NEW_LINE = System.getProperty("line.separator");
+    private static final MessageListener LISTENER = new MessageListener() {
+        public void reportStats(String message) {}
+        public void reportMessage(String message) {}
+        public void reportMessageInTitleBar(String message) {}
+        public void reportError(String error) {}
+        public void reportError(Exception e) {}
+        public void reportError(String error, Exception e) {}
+    };
+
+    private static LoggerData parameter(String id, String name, String units,
+            String format, Map<String, String> replaceMap) {
+        final EcuDataConvertor convertor = new EcuParameterConvertorImpl(units, "x",
+                format, -1, "uint8", Settings.Endian.BIG, replaceMap,
+                new GaugeMinMax(0, 100, 10));
+        return new EcuParameterImpl(id, name, "",
+                new EcuAddressImpl("0x000000", 1, -1), null, null, null,
+                new EcuDataConvertor[] {convertor});
+    }
+
+    @Test
+    public final void testConvertsToCsvLayout() throws Exception {
+        final Map<String, String> onOff = new HashMap<String, String>();
+        onOff.put("1", "On");
+        final LoggerData rpm = parameter("P8", "Engine Speed", "rpm", "0", new HashMap<String, String>());
+        final LoggerData afr = parameter("P58", "A/F Sensor #1", "AFR", "0.00", new HashMap<String, String>());
+        final LoggerData cl = parameter("E3", "CL/OL", "status", "0", onOff);
+
+        final File file = File.createTempFile("romraider", BinaryFileLogger.EXTENSION);
+        file.deleteOnExit();
+        final BinaryFileLogger logger = new BinaryFileLogger(LISTENER);
+        logger.open(file);
+        logger.writeSchema(new LoggerData[] {rpm, afr});
+        logger.writeRecord(1000L, new double[] {2500, 14.7});
+        logger.writeRecord(1050L, new double[] {2612, 12.346});
+        logger.writeSchema(new LoggerData[] {rpm, cl});
+        logger.writeRecord(1100L, new double[] {2700, 1});
+        logger.stop();
+
+        final StringWriter csv = new StringWriter();
+        final InputStream in = new FileInputStream(file);
+        try {
+            BinaryLogConverter.convert(in, csv, ",", false);
+        } finally {
+            in.close();
+        }
+        final String dp = String.valueOf(new DecimalFormatSymbols().getDecimalSeparator());
+        assertEquals(
+                "Time (msec),Engine Speed (rpm),A/F Sensor #1 (AFR)" + NEW_LINE +
+                "0,2500,14" + dp + "70" + NEW_LINE +
+                "50,2612,12" + dp + "35" + NEW_LINE +
+                "Time (msec),Engine Speed (rpm),CL/OL (status)" + NEW_LINE +
+                "100,2700,On" + NEW_LINE,
+                csv.toString());
+    }
+
+    @Test
+    public final void testConvertedLogReadsBackNonAsciiUnits() throws Exception {
+        final LoggerData ect = parameter("P2", "Coolant Temperature", "\u00B0C", "0",
+                new HashMap<String, String>());
+        final File file = File.createTempFile("romraider", BinaryFileLogger.EXTENSION);
+        file.deleteOnExit();
+        final BinaryFileLogger logger = new BinaryFileLogger(LISTENER);
+        logger.open(file);
+        logger.writeSchema(new LoggerData[] {ect});
+        logger.writeRecord(1000L, new double[] {85});
+        logger.stop();
+
+        final File csv = BinaryLogConverter.convert(file);
+        csv.deleteOnExit();
+        final PlaybackLog log = new PlaybackLog(csv);
+        assertEquals("Coolant Temperature", log.getName(1));
+        final Charset platform = Charset.defaultCharset();
+        assertEquals(new String("\u00B0C".getBytes(platform), platform), log.getUnits(1));
+        assertEquals(85.0, log.getValue(1, 0), 0.0);
+    }
+}
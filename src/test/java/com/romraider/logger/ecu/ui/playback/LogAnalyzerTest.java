@@ -0,0 +1,193 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.playback;
+
+import static com.romraider.logger.ecu.ui.playback.PlaybackLogTest.write;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.logger.ecu.definition.EcuAddressImpl;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuParameter;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuParameterImpl;
+import com.romraider.logger.ecu.definition.EcuSwitch;
+import com.romraider.logger.ecu.definition.ExternalData;
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
+import com.romraider.logger.ecu.ui.handler.maf.MafUpdateHandler;
+import com.romraider.logger.ecu.ui.tab.maf.MafTab;
+
+public class LogAnalyzerTest {
+    private static final double[] AXIS = {1.0, 1.5, 2.0, 2.5, 3.0};
+    private static final String HEADER =
+            "Time (msec),MAF Sensor Voltage (V),A/F Learning #1 (%),"
+            + "A/F Correction #1 (%),Engine Speed (rpm),Coolant Temperature (C),"
+            + "CL/OL Fueling (status),Fuel Injector #1 Pulse Width (ms),"
+            + "Engine Load (g/rev)\n";
+    private final List<LoggerData> loggerDatas = Arrays.asList(
+            parameter("P18", "MAF Sensor Voltage", "V"),
+            parameter("P4", "A/F Learning #1", "%"),
+            parameter("P3", "A/F Correction #1", "%"),
+            parameter("P8", "Engine Speed", "rpm"),
+            parameter("P2", "Coolant Temperature", "C"),
+            parameter("E33", "CL/OL Fueling", "status"),
+            parameter("E28", "Fuel Injector #1 Pulse Width", "ms"),
+            parameter("E2", "Engine Load", "g/rev"));
+
+    private static LoggerData parameter(String id, String name, String units) {
+        final EcuDataConvertor convertor = new EcuParameterConvertorImpl(units, "x",
+                "0.000", -1, "uint8", Settings.Endian.BIG, new HashMap<String, String>(),
+                new GaugeMinMax(0, 100, 10));
+        return new EcuParameterImpl(id, name, "",
+                new EcuAddressImpl("0x000000", 1, -1), null, null, null,
+                new EcuDataConvertor[] {convertor});
+    }
+
+    /**
+     * A MAF tab filtering with a log filter and binning the data added.
+     */
+    private static final class BinningTab implements MafTab {
+        private final LogFilter filter;
+        private final MafCorrection correction = new MafCorrection(AXIS);
+
+        BinningTab(LogFilter filter) {
+            this.filter = filter;
+        }
+
+        public JPanel getPanel() { return null; }
+        public boolean isRecordData() { return true; }
+        public void addData(double mafv, double correction) {
+            this.correction.add(mafv, correction);
+        }
+        public void setEcuParams(List<EcuParameter> params) {}
+        public void setEcuSwitches(List<EcuSwitch> switches) {}
+        public void setExternalDatas(List<ExternalData> external) {}
+        public boolean isValidClOl(double value) { return filter.isValidClOl(value); }
+        public boolean isValidAfr(double value) { return filter.isValidAfr(value); }
+        public boolean isValidRpm(double value) { return filter.isValidRpm(value); }
+        public boolean isValidMaf(double value) { return filter.isValidMaf(value); }
+        public boolean isValidMafvChange(double value) { return filter.isValidMafvChange(value); }
+        public boolean isValidCoolantTemp(double value) { return filter.isValidCoolantTemp(value); }
+        public boolean isValidIntakeAirTemp(double value) { return filter.isValidIntakeAirTemp(value); }
+        public boolean isValidTipInThrottle(double value) { return filter.isValidTipInThrottle(value); }
+    }
+
+    // open loop every tenth line, high RPM every seventh line and a MAF
+    // voltage spike every 700 lines, on lines passing the other checks so
+    // the live and the batch dMAFv/dt compare the same lines
+    private static File log(int lines, double phase) throws Exception {
+        final StringBuilder text = new StringBuilder(HEADER);
+        for (int i = 0; i < lines; i++) {
+            double mafv = 1.2 + 1.4 * (0.5 + 0.5 * Math.sin(phase + i / 300.0));
+            if (i % 700 == 351) {
+                mafv += 0.2;
+            }
+            final double pulseWidth = 2.0 + (i % 50) * 0.1;
+            final double fuelcc = 0.01 * (pulseWidth - 0.8);
+            final double load = fuelcc * 2 * 14.7 * 732 / 1000;
+            text.append(String.format(Locale.US,
+                    "%d,%.3f,%.2f,%.2f,%d,%d,%d,%.3f,%.6f%n",
+                    i * 50, mafv, 1.5, 4 * (mafv - 2.0),
+                    i % 7 == 5 ? 5000 : 3000, 90, i % 10 == 3 ? 10 : 8,
+                    pulseWidth, load));
+        }
+        return write(text.toString());
+    }
+
+    @Test
+    public final void testMafMatchesHandlerReplay() throws Exception {
+        final LogFilter filter = new LogFilter();
+        final List<File> logs = Arrays.asList(log(3000, 0.0), log(2345, 1.0));
+        final MafCorrection batch = new LogAnalyzer(loggerDatas, filter)
+                .analyzeMaf(logs, AXIS);
+
+        final BinningTab tab = new BinningTab(filter);
+        for (File file : logs) {
+            final MafUpdateHandler handler = new MafUpdateHandler();
+            handler.setMafTab(tab);
+            final PlaybackManagerImpl manager = new PlaybackManagerImpl(loggerDatas, handler);
+            manager.load(file);
+            manager.replay();
+        }
+        // the handler adds data on the event dispatch thread
+        SwingUtilities.invokeAndWait(new Runnable() {
+            public void run() {
+            }
+        });
+        final MafCorrection replayed = tab.correction;
+
+        assertTrue(batch.getSampleCount() > 3000);
+        assertEquals(replayed.getSampleCount(), batch.getSampleCount());
+        for (int i = 0; i < AXIS.length; i++) {
+            assertEquals(replayed.getWeight(i), batch.getWeight(i), 1e-6);
+            assertEquals(replayed.getCorrection(i), batch.getCorrection(i), 1e-9);
+        }
+        // the correction is 1.5 + 4 * (MAFv - 2.0) percent, the samples
+        // around 2.0 volts are weighted towards it
+        assertEquals(1.5, batch.getCorrection(2), 0.25);
+    }
+
+    @Test
+    public final void testFitsInjectors() throws Exception {
+        final InjectorFit fit = new LogAnalyzer(loggerDatas, new LogFilter())
+                .analyzeInjectors(Arrays.asList(log(1000, 0.0), log(1000, 2.0)), 14.7, 732);
+        assertTrue(fit.getSampleCount() > 1000);
+        assertEquals(600.0, fit.getFlowScaling(), 0.1);
+        assertEquals(0.8, fit.getLatencyOffset(), 0.001);
+    }
+
+    @Test
+    public final void testSkipsLogsWithoutParameters() throws Exception {
+        final File other = write("Time (msec),Engine Speed (rpm)\n0,3000\n50,3000\n");
+        final MafCorrection correction = new LogAnalyzer(loggerDatas, new LogFilter())
+                .analyzeMaf(Arrays.asList(other), AXIS);
+        assertEquals(0, correction.getSampleCount());
+        assertTrue(Double.isNaN(correction.getCorrection(0)));
+    }
+
+    @Test
+    public final void testBinsBetweenAxisVoltages() {
+        final MafCorrection correction = new MafCorrection(AXIS);
+        correction.add(1.25, 10.0);
+        correction.add(1.5, 4.0);
+        correction.add(0.5, -2.0);
+        correction.add(3.5, 6.0);
+        assertEquals(4, correction.getSampleCount());
+        assertEquals(1.5, correction.getWeight(0), 1e-12);
+        assertEquals((0.5 * 10.0 - 2.0) / 1.5, correction.getCorrection(0), 1e-12);
+        assertEquals(1.5, correction.getWeight(1), 1e-12);
+        assertEquals((0.5 * 10.0 + 4.0) / 1.5, correction.getCorrection(1), 1e-12);
+        assertTrue(Double.isNaN(correction.getCorrection(2)));
+        assertEquals(6.0, correction.getCorrection(4), 1e-12);
+    }
+}
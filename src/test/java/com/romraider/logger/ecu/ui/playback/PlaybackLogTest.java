@@ -0,0 +1,149 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.playback;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+public class PlaybackLogTest {
+
+    static File write(String text) throws IOException {
+        return write(text, Charset.forName("UTF-8"));
+    }
+
+    static File write(String text, Charset charset) throws IOException {
+        final File file = File.createTempFile("romraider", ".csv");
+        file.deleteOnExit();
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(text.getBytes(charset));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    @Test
+    public final void testReadsHeadersTimesAndValues() throws Exception {
+        final PlaybackLog log = new PlaybackLog(write(
+                "Time (msec),Engine Speed (rpm),A/F Sensor #1 (AFR)\r\n" +
+                "0,2500,14.70\r\n" +
+                "50,2612,-1.5e1\r\n" +
+                "100,,On\r\n"));
+        assertEquals(3, log.getColumnCount());
+        assertEquals("Engine Speed", log.getName(1));
+        assertEquals("rpm", log.getUnits(1));
+        assertEquals("A/F Sensor #1", log.getName(2));
+        assertEquals("AFR", log.getUnits(2));
+        assertEquals(3, log.getLineCount());
+        assertEquals(50L, log.getTimestamp(1));
+        assertEquals(2612.0, log.getValue(1, 1), 0.0);
+        assertEquals(14.7, log.getValue(2, 0), 0.0);
+        assertEquals(-15.0, log.getValue(2, 1), 0.0);
+        assertTrue(Double.isNaN(log.getValue(1, 2)));
+        assertTrue(Double.isNaN(log.getValue(2, 2)));
+    }
+
+    @Test
+    public final void testParsesBlocksOnDemand() throws Exception {
+        final StringBuilder text = new StringBuilder("Time (msec),A (x),B (y)\n");
+        final int lines = PlaybackLog.BLOCK_LINES * 5 + 17;
+        for (int i = 0; i < lines; i++) {
+            text.append(i * 100).append(',').append(i).append(".25,")
+                    .append(-i).append('\n');
+        }
+        final PlaybackLog log = new PlaybackLog(write(text.toString()));
+        assertEquals(lines, log.getLineCount());
+        final int line = PlaybackLog.BLOCK_LINES * 3 + 5;
+        log.load(new int[] {1, 2}, line);
+        assertEquals(line + 0.25, log.getValue(1, line), 0.0);
+        assertEquals(-line, log.getValue(2, line), 0.0);
+        assertEquals(-(lines - 1), log.getValue(2, lines - 1), 0.0);
+        final double[] column = log.getColumn(1);
+        for (int i = 0; i < lines; i++) {
+            assertEquals(i + 0.25, column[i], 0.0);
+        }
+        assertEquals(line, log.findLine(line * 100L));
+        assertEquals(line, log.findLine(line * 100L - 99));
+        assertEquals(lines, log.findLine(Long.MAX_VALUE));
+    }
+
+    @Test
+    public final void testReadsDecimalCommaAndTimeOfDay() throws Exception {
+        final PlaybackLog log = new PlaybackLog(write(
+                "Time;Boost (psi)\n" +
+                "23:59:59.900;1,5\n" +
+                "00:00:00.050;-2,25\n"));
+        assertEquals("psi", log.getUnits(1));
+        assertEquals(86399900L, log.getTimestamp(0));
+        assertEquals(86400050L, log.getTimestamp(1));
+        assertEquals(1.5, log.getValue(1, 0), 0.0);
+        assertEquals(-2.25, log.getValue(1, 1), 0.0);
+    }
+
+    @Test
+    public final void testStopsAtChangedHeader() throws Exception {
+        final PlaybackLog log = new PlaybackLog(write(
+                "Time (msec),A (x)\n" +
+                "0,1\n" +
+                "Time (msec),A (x)\n" +
+                "10,2\n" +
+                "Time (msec),B (y)\n" +
+                "20,3\n"));
+        assertEquals(2, log.getLineCount());
+        assertEquals(10L, log.getTimestamp(1));
+        assertEquals(2.0, log.getValue(1, 1), 0.0);
+    }
+
+    @Test(expected = IOException.class)
+    public final void testRejectsOtherFiles() throws Exception {
+        new PlaybackLog(write("RPM,Load\n1000,1.2\n"));
+    }
+
+    @Test
+    public final void testReadsUtf8Units() throws Exception {
+        // a log saved in UTF-8 by another tool
+        final PlaybackLog log = new PlaybackLog(write(
+                "Time (msec),Coolant Temperature (\u00B0C)\r\n" +
+                "0,85\r\n"));
+        assertEquals("Coolant Temperature", log.getName(1));
+        assertEquals("\u00B0C", log.getUnits(1));
+        assertEquals(85.0, log.getValue(1, 0), 0.0);
+    }
+
+    @Test
+    public final void testReadsLogsInPlatformCharset() throws Exception {
+        // as written by the file logger
+        final Charset platform = Charset.defaultCharset();
+        final PlaybackLog log = new PlaybackLog(write(
+                "Time (msec),Coolant Temperature (\u00B0C)\r\n" +
+                "0,85\r\n", platform));
+        assertEquals(new String("\u00B0C".getBytes(platform), platform), log.getUnits(1));
+        assertEquals(85.0, log.getValue(1, 0), 0.0);
+    }
+}
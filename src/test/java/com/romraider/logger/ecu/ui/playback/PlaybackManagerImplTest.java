@@ -0,0 +1,200 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.playback;
+
+import static com.romraider.logger.ecu.ui.playback.PlaybackLogTest.write;
+import static java.lang.System.nanoTime;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.logger.ecu.comms.query.Response;
+import com.romraider.logger.ecu.definition.EcuAddressImpl;
+import com.romraider.logger.ecu.definition.EcuDataConvertor;
+import com.romraider.logger.ecu.definition.EcuParameterConvertorImpl;
+import com.romraider.logger.ecu.definition.EcuParameterImpl;
+import com.romraider.logger.ecu.definition.LoggerData;
+import com.romraider.logger.ecu.ui.handler.DataUpdateHandler;
+import com.romraider.logger.ecu.ui.handler.dash.GaugeMinMax;
+
+public class PlaybackManagerImplTest {
+    private final LoggerData rpm = parameter("P8", "Engine Speed", "rpm");
+    private final LoggerData afr = parameter("P58", "A/F Sensor #1", "AFR");
+    private final LoggerData boost = parameter("P24", "Manifold Relative Pressure", "psi");
+    private Recorder recorder;
+    private PlaybackManagerImpl manager;
+
+    private static LoggerData parameter(String id, String name, String units) {
+        final EcuDataConvertor convertor = new EcuParameterConvertorImpl(units, "x",
+                "0.00", -1, "uint8", Settings.Endian.BIG, new HashMap<String, String>(),
+                new GaugeMinMax(0, 100, 10));
+        return new EcuParameterImpl(id, name, "",
+                new EcuAddressImpl("0x000000", 1, -1), null, null, null,
+                new EcuDataConvertor[] {convertor});
+    }
+
+    /**
+     * Keeps the time and the values of every update.
+     */
+    private static final class Recorder implements DataUpdateHandler {
+        final Set<LoggerData> registered = new HashSet<LoggerData>();
+        final List<Long> times = new ArrayList<Long>();
+        final List<double[]> values = new ArrayList<double[]>();
+        private final LoggerData[] data;
+        int resets;
+
+        Recorder(LoggerData... data) {
+            this.data = data;
+        }
+
+        public void registerData(LoggerData loggerData) {
+            registered.add(loggerData);
+        }
+
+        public synchronized void handleDataUpdate(Response response) {
+            times.add(response.getTimestamp());
+            final double[] line = new double[data.length];
+            for (int i = 0; i < data.length; i++) {
+                line[i] = response.getData().contains(data[i])
+                        ? response.getDataValue(data[i]) : Double.NaN;
+            }
+            values.add(line);
+        }
+
+        public void deregisterData(LoggerData loggerData) {
+            registered.remove(loggerData);
+        }
+
+        public void cleanUp() {
+        }
+
+        public void reset() {
+            resets++;
+        }
+
+        synchronized int size() {
+            return times.size();
+        }
+    }
+
+    @Before
+    public void setUp() {
+        recorder = new Recorder(rpm, afr, boost);
+        manager = new PlaybackManagerImpl(Arrays.asList(rpm, afr, boost), recorder);
+    }
+
+    private static File log(int lines, int interval) throws Exception {
+        final StringBuilder text = new StringBuilder(
+                "Time (msec),Engine Speed (rpm),Unknown (x),A/F Sensor #1 (AFR),"
+                + "Manifold Relative Pressure (bar)\n");
+        for (int i = 0; i < lines; i++) {
+            text.append(i * interval).append(',').append(1000 + i).append(",7,")
+                    .append(14.7 - i * 0.01).append(",0.5\n");
+        }
+        return write(text.toString());
+    }
+
+    @Test
+    public final void testReplaysMatchedColumns() throws Exception {
+        manager.load(log(1000, 50));
+        assertEquals(new HashSet<LoggerData>(Arrays.asList(rpm, afr)), recorder.registered);
+        manager.replay();
+        assertEquals(1000, recorder.size());
+        assertEquals(1000, manager.getPosition());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i * 50L, (long) recorder.times.get(i));
+            final double[] line = recorder.values.get(i);
+            assertEquals(1000 + i, line[0], 0.0);
+            assertEquals(14.7 - i * 0.01, line[1], 1e-9);
+            // logged in other units
+            assertTrue(Double.isNaN(line[2]));
+        }
+    }
+
+    @Test
+    public final void testSeeksAndSteps() throws Exception {
+        manager.load(log(1000, 50));
+        manager.seek(20000);
+        assertEquals(400, manager.getPosition());
+        manager.step(1);
+        manager.step(5);
+        manager.step(-2);
+        manager.step(-1000);
+        assertEquals(4, recorder.size());
+        assertEquals(1400.0, recorder.values.get(0)[0], 0.0);
+        assertEquals(1405.0, recorder.values.get(1)[0], 0.0);
+        assertEquals(1403.0, recorder.values.get(2)[0], 0.0);
+        assertEquals(1000.0, recorder.values.get(3)[0], 0.0);
+        assertFalse(manager.isPlaying());
+    }
+
+    @Test
+    public final void testPlaysAtSpeed() throws Exception {
+        // two seconds of log
+        manager.load(log(41, 50));
+        final long start = nanoTime();
+        manager.play(100);
+        waitForEnd();
+        final long elapsed = (nanoTime() - start) / 1000000L;
+        assertEquals(41, recorder.size());
+        assertTrue("elapsed " + elapsed, elapsed >= 19);
+
+        manager.stop();
+        manager.reset();
+        assertEquals(1, recorder.resets);
+        manager.play(0);
+        waitForEnd();
+        assertEquals(82, recorder.size());
+    }
+
+    @Test
+    public final void testPausesAndResumes() throws Exception {
+        manager.load(log(100000, 50));
+        manager.play(1);
+        manager.pause();
+        final int position = manager.getPosition();
+        Thread.sleep(50);
+        assertEquals(position, manager.getPosition());
+        assertFalse(manager.isPlaying());
+        manager.play(0);
+        waitForEnd();
+        assertEquals(100000, recorder.size());
+    }
+
+    private void waitForEnd() throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000L;
+        while (manager.isPlaying() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertFalse(manager.isPlaying());
+    }
+}
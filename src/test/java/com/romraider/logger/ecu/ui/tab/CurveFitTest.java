@@ -0,0 +1,162 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.ecu.ui.tab;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CurveFitTest {
+
+    private static double cubic(double x) {
+        return 2 - 3 * x + 0.5 * x * x - 0.25 * x * x * x;
+    }
+
+    @Test
+    public final void testFitsPolynomialExactly() {
+        final PolynomialFit fit = new PolynomialFit(3);
+        assertFalse(fit.isFitted());
+        for (int i = 0; i < 50; i++) {
+            final double x = -2 + i * 0.1;
+            fit.add(x, cubic(x));
+        }
+        assertTrue(fit.isFitted());
+        assertArrayEquals(new double[] {-0.25, 0.5, -3, 2}, fit.getCoefficients(), 1e-9);
+        assertEquals(cubic(7.5), fit.value(7.5), 1e-8);
+        // 1st derivative: -3 + x - 0.75 * x^2
+        assertEquals(-3 + 1.5 - 0.75 * 2.25, fit.derivative(1.5), 1e-9);
+    }
+
+    @Test
+    public final void testLowerOrdersMatchSeparateFits() {
+        final PolynomialFit nested = new PolynomialFit(PolynomialFit.MAX_ORDER);
+        final PolynomialFit[] separate = new PolynomialFit[6];
+        for (int order = 0; order < separate.length; order++) {
+            separate[order] = new PolynomialFit(order, order);
+        }
+        for (int i = 0; i < 500; i++) {
+            final double x = 1 + 0.01 * i;
+            final double y = Math.log(x) + 0.01 * Math.sin(37 * i);
+            nested.add(x, y);
+            for (PolynomialFit fit : separate) {
+                fit.add(x, y);
+            }
+        }
+        for (int order = 0; order < separate.length; order++) {
+            nested.setOrder(order);
+            for (double x = 1; x <= 6; x += 0.25) {
+                assertEquals(separate[order].value(x), nested.value(x), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public final void testHighOrderOnLargeOffsets() {
+        // dyno times in ms, where the powers of x overflow the normal equations
+        final PolynomialFit fit = new PolynomialFit(19);
+        for (int i = 0; i <= 2000; i++) {
+            final double time = 3600000 + 10 * i;
+            fit.add(time, 3000 + 4000 * Math.sin(i / 1500.0));
+        }
+        for (int i = 0; i <= 2000; i += 97) {
+            final double time = 3600000 + 10 * i;
+            assertEquals(3000 + 4000 * Math.sin(i / 1500.0), fit.value(time), 1e-6);
+            assertEquals(4000 * Math.cos(i / 1500.0) / 15000, fit.derivative(time), 1e-6);
+        }
+    }
+
+    @Test
+    public final void testRefitsInSampleOrder() {
+        final PolynomialFit live = new PolynomialFit(4);
+        final PolynomialFit replay = new PolynomialFit(4);
+        for (int i = 0; i < 300; i++) {
+            final double x = (i * 7919) % 300 * 0.05;
+            live.add(x, Math.exp(-x));
+            live.value(0);
+        }
+        for (int i = 0; i < 300; i++) {
+            final double x = (i * 7919) % 300 * 0.05;
+            replay.add(x, Math.exp(-x));
+        }
+        for (double x = 0; x < 15; x += 0.5) {
+            assertEquals(replay.value(x), live.value(x), 0.0);
+        }
+    }
+
+    @Test
+    public final void testSmoothersFollowLines() {
+        final CurveFit[] fits = {new SmoothingSplineFit(), new LoessFit()};
+        for (CurveFit fit : fits) {
+            for (int i = 0; i < 400; i++) {
+                final double x = 0.5 + i * 0.01;
+                fit.add(x, 3 * x - 1);
+            }
+            assertTrue(fit.isFitted());
+            for (double x = 0; x <= 5; x += 0.125) {
+                assertEquals(fit.getClass().getName(), 3 * x - 1, fit.value(x), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public final void testSmoothersReduceNoise() {
+        final CurveFit[] fits = {new SmoothingSplineFit(), new LoessFit()};
+        for (CurveFit fit : fits) {
+            for (int i = 0; i < 2000; i++) {
+                final double x = i * 0.002;
+                fit.add(x, Math.sin(x) + (i % 2 == 0 ? 0.5 : -0.5));
+            }
+            for (double x = 0.5; x <= 3.5; x += 0.25) {
+                assertEquals(fit.getClass().getName(), Math.sin(x), fit.value(x), 0.03);
+            }
+        }
+    }
+
+    @Test
+    public final void testTrendlineFollowsData() {
+        final XYTrendline trendline = new XYTrendline();
+        for (int i = 0; i < 10; i++) {
+            trendline.add(i, 2 * i + 1);
+        }
+        assertEquals(0, trendline.getItemCount(0));
+        try {
+            trendline.calculate(new double[] {1});
+            assertTrue("expected interpolation required", false);
+        }
+        catch (IllegalStateException e) {
+            // not interpolated yet
+        }
+        trendline.update(1);
+        assertArrayEquals(new double[] {2, 1}, trendline.getPolynomialCoefficients(), 1e-9);
+        trendline.add(10, 21);
+        final int items = trendline.getItemCount(0);
+        assertTrue(items > 2);
+        assertEquals(10.0, trendline.getX(0, items - 1).doubleValue(), 1e-9);
+        assertEquals(21.0, trendline.getY(0, items - 1).doubleValue(), 1e-9);
+
+        trendline.update(new LoessFit());
+        assertArrayEquals(new double[] {5, 11}, trendline.calculate(new double[] {2, 5}), 1e-9);
+        trendline.clear();
+        assertEquals(0, trendline.getItemCount(0));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.external.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ExternalSamplesTest {
+
+    @Test
+    public final void testEmpty() {
+        final ExternalSamples samples = new ExternalSamples();
+        assertTrue(samples.isEmpty());
+        assertEquals(Long.MIN_VALUE, samples.getLatestTime());
+        assertTrue(Double.isNaN(samples.valueAt(0L)));
+    }
+
+    @Test
+    public final void testInterpolatesBetweenReadings() {
+        final ExternalSamples samples = new ExternalSamples();
+        samples.add(1000L, 10.0);
+        samples.add(2000L, 20.0);
+        samples.add(4000L, 0.0);
+        assertFalse(samples.isEmpty());
+        assertEquals(4000L, samples.getLatestTime());
+        assertEquals(10.0, samples.valueAt(1000L), 1e-12);
+        assertEquals(15.0, samples.valueAt(1500L), 1e-12);
+        assertEquals(20.0, samples.valueAt(2000L), 1e-12);
+        assertEquals(5.0, samples.valueAt(3500L), 1e-12);
+    }
+
+    @Test
+    public final void testKeepsNearestReadingOutsideRange() {
+        final ExternalSamples samples = new ExternalSamples();
+        samples.add(1000L, 10.0);
+        samples.add(2000L, 20.0);
+        assertEquals(10.0, samples.valueAt(0L), 1e-12);
+        assertEquals(20.0, samples.valueAt(5000L), 1e-12);
+    }
+
+    @Test
+    public final void testOverwritesOldestReadings() {
+        final ExternalSamples samples = new ExternalSamples();
+        for (int i = 0; i < 1000; i++) {
+            samples.add(i * 10L, i);
+        }
+        assertEquals(9990L, samples.getLatestTime());
+        assertEquals(900.5, samples.valueAt(9005L), 1e-12);
+        // readings before the ring are gone, the oldest kept is returned
+        final double oldest = samples.valueAt(0L);
+        assertTrue(oldest > 700.0 && oldest < 800.0);
+    }
+}
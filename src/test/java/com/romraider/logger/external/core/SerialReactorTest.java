@@ -0,0 +1,208 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.logger.external.core;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.romraider.io.serial.connection.SerialConnection;
+
+public class SerialReactorTest {
+
+    /**
+     * A connection without data events, holding the bytes written to it
+     * until they are read.
+     */
+    private static class QueuedConnection implements SerialConnection {
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private boolean closed;
+
+        public synchronized void write(byte[] bytes) {
+            pending.write(bytes, 0, bytes.length);
+        }
+
+        public synchronized int available() {
+            return pending.size();
+        }
+
+        public synchronized byte[] readAvailable() {
+            final byte[] bytes = pending.toByteArray();
+            pending.reset();
+            return bytes;
+        }
+
+        public synchronized void close() {
+            closed = true;
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        public boolean waitForBytes(int numBytes, long timeout) {
+            throw new UnsupportedOperationException();
+        }
+
+        public int read() {
+            throw new UnsupportedOperationException();
+        }
+
+        public String readLine() {
+            throw new UnsupportedOperationException();
+        }
+
+        public void read(byte[] bytes) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void readStaleData() {
+        }
+
+        public void sendBreak(int duration) {
+        }
+    }
+
+    private static final class Lines extends LineAssembler {
+        private final List<String> lines = new ArrayList<String>();
+
+        @Override
+        protected void lineReceived(String line) {
+            lines.add(line);
+        }
+    }
+
+    @Test
+    public final void testDeliversBytesOfEachPort() throws Exception {
+        final QueuedConnection first = new QueuedConnection();
+        final QueuedConnection second = new QueuedConnection();
+        final ByteArrayOutputStream firstBytes = new ByteArrayOutputStream();
+        final CountDownLatch received = new CountDownLatch(2);
+        first.write(new byte[] {1, 2, 3});
+        second.write(new byte[] {4});
+
+        final SerialReactor.Channel firstChannel = SerialReactor.getInstance().register(
+                "first", first, new ByteStreamListener() {
+                    public void bytesReceived(byte[] bytes) {
+                        firstBytes.write(bytes, 0, bytes.length);
+                        if (firstBytes.size() == 5) received.countDown();
+                    }
+                });
+        final SerialReactor.Channel secondChannel = SerialReactor.getInstance().register(
+                "second", second, new ByteStreamListener() {
+                    public void bytesReceived(byte[] bytes) {
+                        assertArrayEquals(new byte[] {4}, bytes);
+                        received.countDown();
+                    }
+                });
+        // picked up when the reactor looks for missed events
+        first.write(new byte[] {5, 6});
+        assertTrue(received.await(5, SECONDS));
+        assertArrayEquals(new byte[] {1, 2, 3, 5, 6}, firstBytes.toByteArray());
+
+        firstChannel.close();
+        secondChannel.close();
+        assertTrue(first.isClosed());
+        assertTrue(second.isClosed());
+    }
+
+    @Test
+    public final void testBusyPortDoesNotStarveOthers() throws Exception {
+        // always has bytes, so it is queued again after every read
+        final QueuedConnection busy = new QueuedConnection() {
+            @Override
+            public synchronized int available() {
+                return 1;
+            }
+
+            @Override
+            public synchronized byte[] readAvailable() {
+                return new byte[] {0};
+            }
+        };
+        final CountDownLatch polled = new CountDownLatch(1);
+        final QueuedConnection quiet = new QueuedConnection() {
+            @Override
+            public synchronized int available() {
+                polled.countDown();
+                return super.available();
+            }
+        };
+        final CountDownLatch received = new CountDownLatch(1);
+
+        final SerialReactor.Channel busyChannel = SerialReactor.getInstance().register(
+                "busy", busy, new ByteStreamListener() {
+                    public void bytesReceived(byte[] bytes) {
+                    }
+                });
+        final SerialReactor.Channel quietChannel = SerialReactor.getInstance().register(
+                "quiet", quiet, new ByteStreamListener() {
+                    public void bytesReceived(byte[] bytes) {
+                        assertArrayEquals(new byte[] {7}, bytes);
+                        received.countDown();
+                    }
+                });
+        // once read for the registration, without an event the quiet port
+        // is only read again by the sweep
+        assertTrue(polled.await(5, SECONDS));
+        quiet.write(new byte[] {7});
+        try {
+            assertTrue(received.await(5, SECONDS));
+        }
+        finally {
+            busyChannel.close();
+            quietChannel.close();
+        }
+    }
+
+    @Test
+    public final void testClosesPortOnListenerError() throws Exception {
+        final QueuedConnection connection = new QueuedConnection();
+        connection.write(new byte[] {1});
+        SerialReactor.getInstance().register("failing", connection,
+                new ByteStreamListener() {
+                    public void bytesReceived(byte[] bytes) {
+                        throw new IllegalStateException("bad packet");
+                    }
+                });
+        for (int i = 0; i < 100 && !connection.isClosed(); i++) {
+            Thread.sleep(50L);
+        }
+        assertTrue(connection.isClosed());
+    }
+
+    @Test
+    public final void testSplitsLines() {
+        final Lines lines = new Lines();
+        lines.bytesReceived("1.000\tReady\r0.9".getBytes());
+        lines.bytesReceived("50\r\n14.7,".getBytes());
+        lines.bytesReceived("900\n\n".getBytes());
+        assertEquals(Arrays.asList("1.000\tReady", "0.950", "14.7,900", ""), lines.lines);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.swing.JProgressPane;
+import com.romraider.util.SettingsManager;
+import com.romraider.xml.DOMRomUnmarshaller;
+import com.romraider.xml.DefinitionElement;
+import com.romraider.xml.DefinitionReader;
+
+public class ByteCellMappingTest {
+    private static final int IMAGE_SIZE = 0x1000;
+    private static final int WORDS = 0x100;
+    private static final int AXIS = 0x180;
+    private static final int FAR = 0x200;
+
+    private final Settings settings = SettingsManager.getSettings();
+    private boolean populateTablesOnDemand;
+    private Rom rom;
+
+    @BeforeClass
+    public static void setUpClass() {
+        // the default settings rather than those of the user, and no dialogs
+        SettingsManager.setTesting(true);
+    }
+
+    @Before
+    public final void setUp() throws Exception {
+        populateTablesOnDemand = settings.isPopulateTablesOnDemand();
+        settings.setPopulateTablesOnDemand(false);
+        rom = rom();
+    }
+
+    @After
+    public final void tearDown() {
+        settings.setPopulateTablesOnDemand(populateTablesOnDemand);
+    }
+
+    @Test
+    public final void testUpdateReloadsOverlappingCellsOnly() {
+        final byte[] image = rom.getBinary();
+        image[WORDS + 1] = 11;
+        image[WORDS + 3] = 33;
+        image[FAR] = 99;
+
+        rom.byteCellMapping.updateCells(WORDS + 3, 1);
+
+        final Table words = rom.getTableByName("Words");
+        assertEquals(0, words.getDataCell(0).getBinValue(), 0);
+        assertEquals(33, words.getDataCell(1).getBinValue(), 0);
+        assertEquals(33, rom.getTableByName("Low Byte").getDataCell(0).getBinValue(), 0);
+        assertEquals(0, rom.getTableByName("Far").getDataCell(0).getBinValue(), 0);
+
+        // a range covering the high byte of a word reloads that word
+        rom.byteCellMapping.updateCells(WORDS, 1);
+        assertEquals(11, words.getDataCell(0).getBinValue(), 0);
+    }
+
+    @Test
+    public final void testEditUpdatesOverlappingTable() throws Exception {
+        rom.getTableByName("Words").getDataCell(1).setBinValue(0x0102);
+
+        assertEquals(0x02, rom.getBinary()[WORDS + 3]);
+        assertEquals(0x02, rom.getTableByName("Low Byte").getDataCell(0).getBinValue(), 0);
+        assertEquals(0, rom.getTableByName("Far").getDataCell(0).getBinValue(), 0);
+    }
+
+    @Test
+    public final void testRemoveTableWithAxis() {
+        // 4 words, 4 axis cells, the low byte and the far byte
+        assertEquals(10, rom.byteCellMapping.size());
+
+        rom.byteCellMapping.remove(rom.getTableByName("Words"));
+        assertEquals(2, rom.byteCellMapping.size());
+
+        final byte[] image = rom.getBinary();
+        image[WORDS + 3] = 44;
+        image[AXIS] = 55;
+        rom.byteCellMapping.updateCells(WORDS, AXIS - WORDS + 1);
+        assertEquals(44, rom.getTableByName("Low Byte").getDataCell(0).getBinValue(), 0);
+        assertEquals(0, ((Table2D) rom.getTableByName("Words")).getAxis()
+                .getDataCell(0).getBinValue(), 0);
+
+        rom.byteCellMapping.clear();
+        assertEquals(0, rom.byteCellMapping.size());
+    }
+
+    private static Rom rom() throws Exception {
+        final byte[] image = new byte[IMAGE_SIZE];
+        System.arraycopy("MAPPING".getBytes(), 0, image, 0, 7);
+        final DefinitionElement root = DefinitionReader.read(
+                new ByteArrayInputStream(definition().getBytes("UTF-8")));
+        final DOMRomUnmarshaller unmarshaller = new DOMRomUnmarshaller();
+        final DefinitionElement romNode = unmarshaller.checkDefinitionMatch(root, image);
+        final JProgressPane progress = new JProgressPane();
+        final Rom rom = unmarshaller.unmarshallXMLDefinition(new File("mapping.xml"),
+                root, romNode, image, progress);
+        rom.populateTables(image, progress);
+        return rom;
+    }
+
+    // tables are listed from the highest address down so that the cells
+    // are not added to the mapping in address order
+    private static String definition() {
+        final String scaling = "<scaling units=\"raw\" expression=\"x\" to_byte=\"x\" format=\"0\" fineincrement=\"1\" coarseincrement=\"1\"/>";
+        return new StringBuilder()
+           .append("<roms><rom><romid><xmlid>MAPPING</xmlid>")
+           .append("<internalidaddress>0</internalidaddress>")
+           .append("<internalidstring>MAPPING</internalidstring>")
+           .append("<filesize>4kb</filesize><memmodel>SH7058</memmodel></romid>")
+           .append(String.format("<table type=\"1D\" name=\"Far\" category=\"Test\" storagetype=\"uint8\" storageaddress=\"0x%X\">", FAR))
+           .append(scaling).append("</table>")
+           .append(String.format("<table type=\"1D\" name=\"Low Byte\" category=\"Test\" storagetype=\"uint8\" storageaddress=\"0x%X\">", WORDS + 3))
+           .append(scaling).append("</table>")
+           .append(String.format("<table type=\"2D\" name=\"Words\" category=\"Test\" storagetype=\"uint16\" endian=\"big\" sizey=\"4\" storageaddress=\"0x%X\">", WORDS))
+           .append(scaling)
+           .append(String.format("<table type=\"Y Axis\" name=\"Axis\" storagetype=\"uint8\" storageaddress=\"0x%X\">", AXIS))
+           .append(scaling).append("</table></table>")
+           .append("</rom></roms>")
+           .toString();
+    }
+}
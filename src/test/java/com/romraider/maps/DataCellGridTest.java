@@ -0,0 +1,114 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.romraider.util.SettingsManager;
+
+public class DataCellGridTest {
+    private static final int COLUMNS = 3;
+    private static final int ROWS = 2;
+    // does not divide by the columns, the last column is a pixel wider
+    private static final int WIDTH = 31;
+    private static final int HEIGHT = 20;
+
+    @BeforeClass
+    public static void setUpClass() {
+        SettingsManager.setTesting(true);
+    }
+
+    @Test
+    public final void testCellsShareTheGrid() {
+        final DataCellGrid grid = grid();
+        final BufferedImage image = paint(grid, null);
+        assertEquals(color(0, 0), pixel(image, 0, 0));
+        assertEquals(color(0, 0), pixel(image, 9, 9));
+        assertEquals(color(1, 0), pixel(image, 10, 0));
+        assertEquals(color(2, 0), pixel(image, 20, 9));
+        assertEquals(color(2, 0), pixel(image, 30, 9));
+        assertEquals(color(0, 1), pixel(image, 0, 10));
+        assertEquals(color(2, 1), pixel(image, 30, 19));
+    }
+
+    @Test
+    public final void testOnlyCellsInTheClipPainted() {
+        final DataCellGrid grid = grid();
+        final BufferedImage image = paint(grid, new int[] {10, 0, 10, 10});
+        assertEquals(color(1, 0), pixel(image, 15, 5));
+        assertEquals(0, image.getRGB(5, 5));
+        assertEquals(0, image.getRGB(25, 5));
+        assertEquals(0, image.getRGB(15, 15));
+    }
+
+    @Test
+    public final void testPreferredSizeFromCellSize() {
+        final Dimension cellSize = SettingsManager.getSettings().getCellSize();
+        assertEquals(new Dimension(COLUMNS * cellSize.width, ROWS * cellSize.height),
+                new DataCellGrid(COLUMNS, ROWS).getPreferredSize());
+    }
+
+    private static DataCellGrid grid() {
+        final Table1D table = new Table1D();
+        final DataCellGrid grid = new DataCellGrid(COLUMNS, ROWS);
+        grid.setSize(WIDTH, HEIGHT);
+        for (int column = 0; column < COLUMNS; column++) {
+            for (int row = 0; row < ROWS; row++) {
+                // no view, the cell keeps the colour and text given here
+                final DataCellView cell = new DataCellView(new DataCell(table, "", 0), null);
+                cell.setBackground(color(column, row));
+                cell.setText("");
+                grid.setCell(column, row, cell);
+            }
+        }
+        return grid;
+    }
+
+    private static Color color(int column, int row) {
+        return new Color(column * 100, row * 100, 50);
+    }
+
+    private static BufferedImage paint(DataCellGrid grid, int[] clip) {
+        final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        final Graphics g = image.createGraphics();
+        try {
+            if (clip != null) {
+                g.setClip(clip[0], clip[1], clip[2], clip[3]);
+            }
+            grid.paintComponent(g);
+        }
+        finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static Color pixel(BufferedImage image, int x, int y) {
+        return new Color(image.getRGB(x, y));
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.romraider.swing.JProgressPane;
+import com.romraider.util.SettingsManager;
+import com.romraider.xml.DOMRomUnmarshaller;
+import com.romraider.xml.DefinitionElement;
+import com.romraider.xml.DefinitionReader;
+
+public class RomCompareTest {
+    private static final int IMAGE_SIZE = 0x1000;
+    private static final int MAP = 0x100;
+    private static final int MAP_X = MAP + 32;
+    private static final int MAP_Y = MAP_X + 8;
+    private static final int SCALAR = 0x200;
+
+    @BeforeClass
+    public static void setUpClass() {
+        // the default settings rather than those of the user, and no dialogs
+        SettingsManager.setTesting(true);
+    }
+
+    @Test
+    public final void testEqualImages() throws Exception {
+        final byte[] image = image();
+        final List<TableDiff> diffs = RomCompare.compare(
+                rom(definition(false), image), rom(definition(false), image.clone()), null);
+        assertEquals(2, diffs.size());
+        for (TableDiff diff : diffs) {
+            assertEquals(TableDiff.Status.EQUAL, diff.getStatus());
+            assertEquals(0, diff.getChangedCells());
+        }
+    }
+
+    @Test
+    public final void testChangedCells() throws Exception {
+        final byte[] image = image();
+        final byte[] changed = image.clone();
+        // cell 5 goes from 5 to 25 raw, 0.5 to 2.5 in real units
+        changed[MAP + 11] = 25;
+        changed[MAP + 13] = 7;
+        final Map<String, TableDiff> diffs = byName(RomCompare.compare(
+                rom(definition(false), image), rom(definition(false), changed), null));
+
+        final TableDiff map = diffs.get("Fuel Map");
+        assertEquals(TableDiff.Status.CHANGED, map.getStatus());
+        assertEquals(16, map.getCells());
+        assertEquals(2, map.getChangedCells());
+        assertEquals(12.5, map.getPercentChanged(), 1e-9);
+        assertEquals(2.0, map.getMaxDelta(), 1e-9);
+        assertFalse(map.isAxesChanged());
+        assertEquals(TableDiff.Status.EQUAL, diffs.get("Scalar").getStatus());
+    }
+
+    @Test
+    public final void testChangedAxis() throws Exception {
+        final byte[] image = image();
+        final byte[] changed = image.clone();
+        changed[MAP_Y + 1] = 99;
+        final TableDiff map = byName(RomCompare.compare(
+                rom(definition(false), image), rom(definition(false), changed), null))
+                .get("Fuel Map");
+        assertEquals(TableDiff.Status.CHANGED, map.getStatus());
+        assertEquals(0, map.getChangedCells());
+        assertTrue(map.isAxesChanged());
+    }
+
+    @Test
+    public final void testMissingTablesAndExport() throws Exception {
+        final byte[] image = image();
+        final int[] reported = new int[1];
+        final List<TableDiff> diffs = RomCompare.compare(
+                rom(definition(false), image), rom(definition(true), image.clone()),
+                new RomCompare.Listener() {
+                    @Override
+                    public void compared(TableDiff diff) {
+                        reported[0]++;
+                    }
+                });
+        assertEquals(3, diffs.size());
+        assertEquals(3, reported[0]);
+        assertEquals(TableDiff.Status.MISSING, byName(diffs).get("Extra, Table").getStatus());
+
+        final StringWriter csv = new StringWriter();
+        RomCompare.writeCsv(diffs, csv);
+        assertTrue(csv.toString().startsWith("Table,Status,"));
+        assertTrue(csv.toString().contains("\"Extra, Table\",MISSING,0,0"));
+    }
+
+    @Test
+    public final void testPopulatedTablesCountCells() throws Exception {
+        // the rows of the map are stored the other way round in one image,
+        // so it is compared as displayed rather than read from the images
+        final byte[] image = image();
+        final byte[] flipped = image.clone();
+        for (int row = 0; row < 4; row++) {
+            System.arraycopy(image, MAP + (3 - row) * 8, flipped, MAP + row * 8, 8);
+        }
+        // the first cell of the last row goes from 12 to 25 raw
+        flipped[MAP + 1] = 25;
+        final Rom left = rom(definition(false, false), image);
+        final Rom right = rom(definition(false, true), flipped);
+        assertTrue(RomCompare.compareImages(left, right, null).size() == 1);
+
+        final List<TableDiff> diffs = RomCompare.comparePopulated(left, right, null);
+        assertEquals(1, diffs.size());
+        final TableDiff map = diffs.get(0);
+        assertEquals("Fuel Map", map.getName());
+        assertEquals(TableDiff.Status.CHANGED, map.getStatus());
+        assertEquals(16, map.getCells());
+        assertEquals(1, map.getChangedCells());
+        assertEquals(1.3, map.getMaxDelta(), 1e-9);
+        assertFalse(map.isAxesChanged());
+    }
+
+    private static Map<String, TableDiff> byName(List<TableDiff> diffs) {
+        final Map<String, TableDiff> map = new HashMap<String, TableDiff>();
+        for (TableDiff diff : diffs) {
+            map.put(diff.getName(), diff);
+        }
+        return map;
+    }
+
+    private static Rom rom(String xml, byte[] image) throws Exception {
+        final DefinitionElement root = DefinitionReader.read(
+                new ByteArrayInputStream(xml.getBytes("UTF-8")));
+        final DOMRomUnmarshaller unmarshaller = new DOMRomUnmarshaller();
+        final DefinitionElement romNode = unmarshaller.checkDefinitionMatch(root, image);
+        final JProgressPane progress = new JProgressPane();
+        final Rom rom = unmarshaller.unmarshallXMLDefinition(new File("compare.xml"),
+                root, romNode, image, progress);
+        rom.populateTables(image, progress);
+        return rom;
+    }
+
+    private static String definition(boolean extra) {
+        return definition(extra, false);
+    }
+
+    private static String definition(boolean extra, boolean flipX) {
+        final StringBuilder xml = new StringBuilder();
+        xml.append("<roms><rom><romid><xmlid>COMPARE</xmlid>")
+           .append("<internalidaddress>0</internalidaddress>")
+           .append("<internalidstring>COMPARE</internalidstring>")
+           .append("<filesize>4kb</filesize><memmodel>SH7058</memmodel></romid>")
+           .append(String.format("<table type=\"3D\" name=\"Fuel Map\" category=\"Fuel\" storagetype=\"uint16\" endian=\"big\" sizex=\"4\" sizey=\"4\" flipx=\"%b\" storageaddress=\"0x%X\">", flipX, MAP))
+           .append("<scaling units=\"AFR\" expression=\"x*0.1\" to_byte=\"x/0.1\" format=\"0.0\" fineincrement=\"0.1\" coarseincrement=\"1\"/>")
+           .append(String.format("<table type=\"X Axis\" name=\"RPM\" storagetype=\"uint16\" storageaddress=\"0x%X\">", MAP_X))
+           .append("<scaling units=\"rpm\" expression=\"x\" to_byte=\"x\" format=\"0\" fineincrement=\"1\" coarseincrement=\"10\"/></table>")
+           .append(String.format("<table type=\"Y Axis\" name=\"Load\" storagetype=\"uint16\" storageaddress=\"0x%X\">", MAP_Y))
+           .append("<scaling units=\"g\" expression=\"x\" to_byte=\"x\" format=\"0\" fineincrement=\"1\" coarseincrement=\"10\"/></table>")
+           .append("</table>")
+           .append(String.format("<table type=\"1D\" name=\"Scalar\" category=\"Misc\" storagetype=\"uint8\" storageaddress=\"0x%X\">", SCALAR))
+           .append("<scaling units=\"raw\" expression=\"x\" to_byte=\"x\" format=\"0\" fineincrement=\"1\" coarseincrement=\"1\"/></table>");
+        if (extra) {
+            xml.append(String.format("<table type=\"1D\" name=\"Extra, Table\" category=\"Misc\" storagetype=\"uint8\" storageaddress=\"0x%X\">", SCALAR + 1))
+               .append("<scaling units=\"raw\" expression=\"x\" to_byte=\"x\" format=\"0\" fineincrement=\"1\" coarseincrement=\"1\"/></table>");
+        }
+        xml.append("</rom></roms>");
+        return xml.toString();
+    }
+
+    private static byte[] image() {
+        final byte[] image = new byte[IMAGE_SIZE];
+        System.arraycopy("COMPARE".getBytes(), 0, image, 0, 7);
+        for (int i = 0; i < 16; i++) {
+            image[MAP + i * 2 + 1] = (byte) i;
+        }
+        for (int i = 0; i < 4; i++) {
+            image[MAP_X + i * 2 + 1] = (byte) (i * 10);
+            image[MAP_Y + i * 2 + 1] = (byte) (i * 20);
+        }
+        image[SCALAR] = 42;
+        return image;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.romraider.Settings;
+import com.romraider.maps.checksum.ChecksumManager;
+import com.romraider.maps.checksum.ChecksumSTD;
+import com.romraider.swing.JProgressPane;
+import com.romraider.util.SettingsManager;
+import com.romraider.xml.DOMRomUnmarshaller;
+import com.romraider.xml.DefinitionElement;
+import com.romraider.xml.DefinitionReader;
+
+public class RomPopulateTest {
+    private static final int IMAGE_SIZE = 0x1000;
+    private static final int TABLES = 4;
+    private static final int CELLS = 4;
+    private static final int TABLE_BYTES = 16;
+    private static final int FIRST = 0x100;
+    private static final int CHECKSUM = 0x800;
+
+    private final Settings settings = SettingsManager.getSettings();
+    private boolean populateTablesOnDemand;
+    private int tableCacheSize;
+    private boolean testing;
+
+    @BeforeClass
+    public static void setUpClass() {
+        // the default settings rather than those of the user, and no dialogs
+        SettingsManager.setTesting(true);
+    }
+
+    @Before
+    public final void setUp() {
+        populateTablesOnDemand = settings.isPopulateTablesOnDemand();
+        tableCacheSize = settings.getTableCacheSize();
+        testing = SettingsManager.getTesting();
+        settings.setPopulateTablesOnDemand(true);
+        settings.setTableCacheSize(2);
+    }
+
+    @After
+    public final void tearDown() {
+        settings.setPopulateTablesOnDemand(populateTablesOnDemand);
+        settings.setTableCacheSize(tableCacheSize);
+        SettingsManager.setTesting(testing);
+    }
+
+    @Test
+    public final void testTablesPopulatedOnFirstAccess() throws Exception {
+        final Rom rom = rom();
+        for (int i = 0; i < TABLES; i++) {
+            assertTrue(table(rom, i).isPopulationPending());
+        }
+        assertEquals(0, rom.byteCellMapping.size());
+
+        // reading an axis populates the table it belongs to
+        final Table2D table = table(rom, 1);
+        assertEquals(axisValue(1, 2), table.getAxis().getDataCell(2).getBinValue(), 0);
+        assertFalse(table.isPopulationPending());
+        assertEquals(cellValue(1, 3), table.getDataCell(3).getBinValue(), 0);
+        assertEquals(CELLS * 2, rom.byteCellMapping.size());
+        assertTrue(table(rom, 0).isPopulationPending());
+    }
+
+    @Test
+    public final void testOldestTablesReleased() throws Exception {
+        final Rom rom = rom();
+        for (int i = 0; i < 3; i++) {
+            table(rom, i).getData();
+        }
+        assertTrue(table(rom, 0).isPopulationPending());
+        assertFalse(table(rom, 1).isPopulationPending());
+        assertFalse(table(rom, 2).isPopulationPending());
+        assertEquals(2 * CELLS * 2, rom.byteCellMapping.size());
+
+        // a released table is read again, which releases the next oldest
+        assertEquals(cellValue(0, 1), table(rom, 0).getDataCell(1).getBinValue(), 0);
+        assertTrue(table(rom, 1).isPopulationPending());
+        assertEquals(2 * CELLS * 2, rom.byteCellMapping.size());
+    }
+
+    @Test
+    public final void testModifiedTablesKept() throws Exception {
+        final Rom rom = rom();
+        table(rom, 0).getDataCell(0).setBinValue(200);
+        table(rom, 1).getData();
+        table(rom, 2).getData();
+
+        assertFalse(table(rom, 0).isPopulationPending());
+        assertTrue(table(rom, 0).isModified());
+        assertTrue(table(rom, 1).isPopulationPending());
+        assertEquals(200, table(rom, 0).getDataCell(0).getBinValue(), 0);
+    }
+
+    @Test
+    public final void testParallelPopulate() throws Exception {
+        // enough tables to be split over several tasks
+        final int tables = 100;
+        settings.setPopulateTablesOnDemand(false);
+        SettingsManager.setTesting(true);
+        final Rom rom = rom(tables, true);
+
+        assertEquals(tables, rom.getTableNodes().size());
+        assertEquals(1, rom.getFaultyTables().size());
+        assertEquals("Out Of Bounds", rom.getFaultyTables().get(0));
+        assertEquals(null, rom.getTableByName("Out Of Bounds"));
+        assertEquals(tables * CELLS * 2, rom.byteCellMapping.size());
+        for (int i = 0; i < tables; i++) {
+            final Table2D table = table(rom, i);
+            assertFalse(table.isPopulationPending());
+            for (int j = 0; j < CELLS; j++) {
+                assertEquals(cellValue(i, j), table.getDataCell(j).getBinValue(), 0);
+                assertEquals(axisValue(i, j), table.getAxis().getDataCell(j).getBinValue(), 0);
+            }
+        }
+        // validated next to the tables while they were populated
+        assertEquals(rom.getTotalAmountOfChecksums(), rom.validateChecksum());
+    }
+
+    private static Table2D table(Rom rom, int index) {
+        return (Table2D) rom.getTableByName("Table " + index);
+    }
+
+    private static int cellValue(int table, int cell) {
+        return (table * 10 + cell) & 0xFF;
+    }
+
+    private static int axisValue(int table, int cell) {
+        return (table * 10 + cell + 100) & 0xFF;
+    }
+
+    private static Rom rom() throws Exception {
+        return rom(TABLES, false);
+    }
+
+    private static Rom rom(int tables, boolean outOfBounds) throws Exception {
+        final byte[] image = image(tables);
+        final DefinitionElement root = DefinitionReader.read(new ByteArrayInputStream(
+                definition(tables, outOfBounds).getBytes("UTF-8")));
+        final DOMRomUnmarshaller unmarshaller = new DOMRomUnmarshaller();
+        final DefinitionElement romNode = unmarshaller.checkDefinitionMatch(root, image);
+        final JProgressPane progress = new JProgressPane();
+        final Rom rom = unmarshaller.unmarshallXMLDefinition(new File("populate.xml"),
+                root, romNode, image, progress);
+        rom.populateTables(image, progress);
+        return rom;
+    }
+
+    private static String definition(int tables, boolean outOfBounds) {
+        final String scaling = "<scaling units=\"raw\" expression=\"x\" to_byte=\"x\" format=\"0\" fineincrement=\"1\" coarseincrement=\"1\"/>";
+        final StringBuilder xml = new StringBuilder();
+        xml.append("<roms><rom><romid><xmlid>POPULATE</xmlid>")
+           .append("<internalidaddress>0</internalidaddress>")
+           .append("<internalidstring>POPULATE</internalidstring>")
+           .append("<filesize>4kb</filesize><memmodel>SH7058</memmodel></romid>")
+           .append(checksum());
+        for (int i = 0; i < tables; i++) {
+            final int address = FIRST + i * TABLE_BYTES;
+            xml.append(String.format("<table type=\"2D\" name=\"Table %d\" category=\"Test\" storagetype=\"uint8\" sizey=\"%d\" storageaddress=\"0x%X\">",
+                    i, CELLS, address))
+               .append(scaling)
+               .append(String.format("<table type=\"Y Axis\" name=\"Axis\" storagetype=\"uint8\" storageaddress=\"0x%X\">",
+                    address + CELLS))
+               .append(scaling).append("</table></table>");
+        }
+        if (outOfBounds) {
+            xml.append(String.format("<table type=\"1D\" name=\"Out Of Bounds\" category=\"Test\" storagetype=\"uint8\" storageaddress=\"0x%X\">",
+                    IMAGE_SIZE + 1))
+               .append(scaling).append("</table>");
+        }
+        xml.append("</rom></roms>");
+        return xml.toString();
+    }
+
+    private static String checksum() {
+        return String.format(
+                "<checksum type=\"std\" start=\"0x%X\" end=\"0x%X\" sumloc=\"0x%X\" xorloc=\"0x%X\"/>",
+                CHECKSUM, IMAGE_SIZE, IMAGE_SIZE - 8, IMAGE_SIZE - 4);
+    }
+
+    private static byte[] image(int tables) {
+        final byte[] image = new byte[IMAGE_SIZE];
+        System.arraycopy("POPULATE".getBytes(), 0, image, 0, 8);
+        for (int i = 0; i < tables; i++) {
+            for (int j = 0; j < CELLS; j++) {
+                image[FIRST + i * TABLE_BYTES + j] = (byte) cellValue(i, j);
+                image[FIRST + i * TABLE_BYTES + CELLS + j] = (byte) axisValue(i, j);
+            }
+        }
+        for (int i = CHECKSUM; i < IMAGE_SIZE - 8; i++) {
+            image[i] = (byte) i;
+        }
+        final Map<String, String> vars = new HashMap<String, String>();
+        vars.put("start", Integer.toHexString(CHECKSUM));
+        vars.put("end", Integer.toHexString(IMAGE_SIZE));
+        vars.put("sumloc", Integer.toHexString(IMAGE_SIZE - 8));
+        vars.put("xorloc", Integer.toHexString(IMAGE_SIZE - 4));
+        final ChecksumManager checksum = new ChecksumSTD();
+        checksum.configure(vars);
+        checksum.update(image);
+        return image;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class SortedValuesTest {
+    private static final SortedValues AXIS =
+            new SortedValues(new double[] {800, 1200, 1600, 2000, 2400});
+
+    @Test
+    public final void testFloor() {
+        assertEquals(-1, AXIS.floor(500));
+        assertEquals(0, AXIS.floor(800));
+        assertEquals(1, AXIS.floor(1599.9));
+        assertEquals(2, AXIS.floor(1600));
+        assertEquals(4, AXIS.floor(9000));
+    }
+
+    @Test
+    public final void testNearest() {
+        assertEquals(0, AXIS.nearest(500));
+        assertEquals(1, AXIS.nearest(1300));
+        assertEquals(2, AXIS.nearest(1500));
+        assertEquals(1, AXIS.nearest(1400));
+        assertEquals(4, AXIS.nearest(9000));
+    }
+
+    @Test
+    public final void testUnsortedWithDuplicates() {
+        final SortedValues values =
+                new SortedValues(new double[] {3, 1, 2, 1, 3});
+        assertEquals(1, values.floor(1));
+        assertEquals(1, values.floor(1.5));
+        assertEquals(2, values.nearest(2.2));
+        assertEquals(0, values.nearest(3));
+        assertEquals(0, values.nearest(7));
+        assertEquals(-1, new SortedValues(new double[0]).nearest(1));
+    }
+}
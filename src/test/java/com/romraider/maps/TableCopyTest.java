@@ -0,0 +1,95 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class TableCopyTest {
+
+    private static Scale scale(String category, String unit) {
+        final Scale scale = new Scale();
+        scale.setCategory(category);
+        scale.setName(unit);
+        scale.setUnit(unit);
+        scale.setExpression("x*2");
+        return scale;
+    }
+
+    private static Table3D baseTable() {
+        final Table3D table = new Table3D();
+        table.setName("Base");
+        table.setStorageAddress(0x1000);
+        table.setStorageType(2);
+        table.setSizeX(4);
+        table.setSizeY(3);
+        table.getXAxis().setDataSize(4);
+        table.getYAxis().setDataSize(3);
+        final Scale scale = scale("Default", "rpm");
+        table.getScales().add(scale);
+        table.curScale = scale;
+        table.addPresetValue("Off", "00");
+        return table;
+    }
+
+    @Test
+    public void copySharesDefinition() {
+        final Table3D base = baseTable();
+        final Table3D copy = base.copy();
+
+        assertEquals("Base", copy.getName());
+        assertEquals(0x1000, copy.getStorageAddress());
+        assertEquals(2, copy.getStorageType());
+        assertEquals(4, copy.getSizeX());
+        assertEquals(3, copy.getSizeY());
+        assertEquals(4, copy.getXAxis().getDataSize());
+        assertSame(copy, copy.getXAxis().getAxisParent());
+        assertSame(base.getScales(), copy.getScales());
+        assertSame(base.getCurrentScale(), copy.getCurrentScale());
+    }
+
+    @Test
+    public void scalesCopiedOnWrite() {
+        final Table3D base = baseTable();
+        final Table3D copy = base.copy();
+        final Scale baseScale = base.getCurrentScale();
+
+        copy.updateIncrementDecrementValues(5, 50);
+        assertNotSame(base.getScales(), copy.getScales());
+        assertEquals(50.0, copy.getCurrentScale().getCoarseIncrement(), 0.0);
+        assertEquals(2.0, baseScale.getCoarseIncrement(), 0.0);
+        assertSame(baseScale, base.getCurrentScale());
+        assertNotSame(baseScale, copy.getCurrentScale());
+    }
+
+    @Test
+    public void presetsCopiedOnWrite() {
+        final Table1D base = new TableSwitch();
+        base.addPresetValue("Off", "00");
+        final Table1D copy = base.copy();
+
+        copy.addPresetValue("On", "01");
+        assertEquals(1, base.presetManager.getPresets().size());
+        assertEquals(2, copy.presetManager.getPresets().size());
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps;
+
+import static com.romraider.maps.Table.lowerBreakpoint;
+import static com.romraider.maps.Table.upperBreakpoint;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TableQueryTest {
+    private static final double[] AXIS = {800, 1200, 1200, 2000, 2400};
+
+    @Test
+    public final void testBreakpointsBetweenValues() {
+        assertEquals(0, lowerBreakpoint(AXIS, 1000, AXIS.length));
+        assertEquals(1, upperBreakpoint(AXIS, 1000, AXIS.length));
+        assertEquals(2, lowerBreakpoint(AXIS, 1600, AXIS.length));
+        assertEquals(3, upperBreakpoint(AXIS, 1600, AXIS.length));
+    }
+
+    @Test
+    public final void testBreakpointsOnValues() {
+        assertEquals(2, lowerBreakpoint(AXIS, 1200, AXIS.length));
+        assertEquals(1, upperBreakpoint(AXIS, 1200, AXIS.length));
+        assertEquals(3, lowerBreakpoint(AXIS, 2000, AXIS.length));
+        assertEquals(3, upperBreakpoint(AXIS, 2000, AXIS.length));
+    }
+
+    @Test
+    public final void testBreakpointsOutsideAxis() {
+        assertEquals(0, lowerBreakpoint(AXIS, 500, AXIS.length));
+        assertEquals(0, upperBreakpoint(AXIS, 500, AXIS.length));
+        assertEquals(4, lowerBreakpoint(AXIS, 3000, AXIS.length));
+        assertEquals(4, upperBreakpoint(AXIS, 3000, AXIS.length));
+        assertEquals(0, lowerBreakpoint(AXIS, Double.NaN, AXIS.length));
+        assertEquals(4, upperBreakpoint(AXIS, Double.NaN, AXIS.length));
+        assertEquals(2, upperBreakpoint(AXIS, 3000, 3));
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.maps.checksum;
+
+import static com.romraider.xml.RomAttributeParser.parseByteValue;
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.romraider.Settings;
+
+/**
+ * Edits an image between saves and checks that the checksums updated from
+ * the blocks written match the checksums calculated over the whole range.
+ */
+public class IncrementalChecksumTest {
+    private static final int SIZE = 0x80000;
+    private static final int[] E38_INDEX = {0x24, 0x48, 0x6b, 0x8e, 0xb1, 0xd4};
+    private final Random random = new Random(7);
+    private final byte[] image = new byte[SIZE];
+    private final DirtyRegions dirty = new DirtyRegions(SIZE);
+
+    private <T extends ChecksumManager> T checksum(T checksum, String... vars) {
+        final Map<String, String> map = new HashMap<String, String>();
+        for (int i = 0; i < vars.length; i += 2) {
+            map.put(vars[i], vars[i + 1]);
+        }
+        checksum.configure(map);
+        ((IncrementalChecksum) checksum).setDirtyRegions(dirty);
+        checksum.validate(image);
+        return checksum;
+    }
+
+    // write a few bytes anywhere in the image, as table edits do
+    private void edit() {
+        for (int i = 0; i < 4; i++) {
+            final int offset = random.nextInt(SIZE - 4);
+            final int length = 1 + random.nextInt(4);
+            for (int j = 0; j < length; j++) {
+                image[offset + j] = (byte) random.nextInt();
+            }
+            dirty.mark(offset, length);
+        }
+    }
+
+    private int word(int offset, int length) {
+        return (int) parseByteValue(image, Settings.Endian.BIG, offset, length, length == 4);
+    }
+
+    @Test
+    public final void testStd() {
+        random.nextBytes(image);
+        final ChecksumManager checksum = checksum(new ChecksumSTD(),
+                "start", "1002", "end", "7FFF0", "sumloc", "40002", "xorloc", "7FFEA");
+        for (int i = 0; i < 20; i++) {
+            edit();
+            checksum.update(image);
+            int sumt = 0;
+            int xort = 0;
+            for (int j = 0x1002; j < 0x7FFF0; j += 4) {
+                if (j == 0x40002 || j == 0x7FFEA) continue;
+                sumt += word(j, 4);
+                xort ^= word(j, 4);
+            }
+            assertEquals(sumt, word(0x40002, 4));
+            assertEquals(xort, word(0x7FFEA, 4));
+        }
+    }
+
+    @Test
+    public final void testAlt2() {
+        random.nextBytes(image);
+        // sumt and xort are both part of the calibration sum
+        final ChecksumManager checksum = checksum(new ChecksumALT2(),
+                "start", "0", "end", "7FFFE", "sumloc", "1F000", "xorloc", "1F004",
+                "skiploc", "20000");
+        for (int i = 0; i < 20; i++) {
+            edit();
+            checksum.update(image);
+            int sumt = 0;
+            int xort = 0;
+            for (int j = 4; j < 0x7FFFE; j += 4) {
+                if (j == 0x1F000 || j == 0x1F004 || j == 0x20000) continue;
+                sumt += word(j, 4);
+                xort ^= word(j, 4);
+            }
+            assertEquals(sumt, word(0x1F000, 4));
+            assertEquals(xort, word(0x1F004, 4));
+            short sum = 0;
+            for (int j = 2; j < 0x20000; j += 2) {
+                sum += (short) word(j, 2);
+            }
+            assertEquals(sum, (short) word(0, 2));
+            sum = 0;
+            for (int j = 0x20002; j < 0x7FFFE; j += 2) {
+                sum += (short) word(j, 2);
+            }
+            assertEquals(sum, (short) word(0x20000, 2));
+        }
+    }
+
+    @Test
+    public final void testByteXorAndMotronic() {
+        random.nextBytes(image);
+        final ChecksumManager xor = checksum(new ChecksumBYTEXOR(),
+                "start", "3", "end", "3FFFD", "xorloc", "20001");
+        final ChecksumManager motronic = checksum(new ChecksumMOTRONICDOUBLE(),
+                "start", "40001", "end", "5FFFE", "loc", "7FFF0",
+                "startsecond", "60003", "endsecond", "7FFEE");
+        for (int i = 0; i < 20; i++) {
+            edit();
+            xor.update(image);
+            motronic.update(image);
+            byte xort = 0;
+            for (int j = 3; j < 0x3FFFD; j++) {
+                if (j != 0x20001) xort ^= image[j];
+            }
+            assertEquals(xort, image[0x20001]);
+            short sum = ChecksumMOTRONICSINGLE.calculate((short) 0, image, 0x40001, 0x5FFFE);
+            sum = ChecksumMOTRONICSINGLE.calculate(sum, image, 0x60003, 0x7FFEE);
+            assertEquals(sum, (short) word(0x7FFF0, 2));
+        }
+    }
+
+    @Test
+    public final void testE38() {
+        random.nextBytes(image);
+        writeSegmentIndex();
+        final ChecksumE38PCM checksum = checksum(new ChecksumE38PCM());
+        for (int i = 0; i < 20; i++) {
+            edit();
+            writeSegmentIndex();
+            checksum.update(image);
+            for (int j = 0; j < E38_INDEX.length; j++) {
+                final int start = 0x20000 + j * 0x8000;
+                final int end = start + 0x7FFF;
+                assertEquals(checksum.segmentsum(image, start, end), (short) word(start, 2));
+                assertEquals(checksum.segmentcvn(image, start, end), (short) word(start + 0x1E, 2));
+            }
+        }
+    }
+
+    // six segments of 32kB from 0x20000, restored after random edits
+    private void writeSegmentIndex() {
+        for (int i = 0; i < E38_INDEX.length; i++) {
+            final int start = 0x20000 + i * 0x8000;
+            final int end = start + 0x7FFF;
+            final int offset = 0x10000 + E38_INDEX[i];
+            for (int j = 0; j < 4; j++) {
+                image[offset + j] = (byte) (start >>> (24 - 8 * j));
+                image[offset + 4 + j] = (byte) (end >>> (24 - 8 * j));
+            }
+            dirty.mark(offset, 8);
+        }
+    }
+}
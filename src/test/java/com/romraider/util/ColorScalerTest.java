@@ -0,0 +1,88 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.romraider.Settings;
+
+public class ColorScalerTest {
+    private static final Color BLUE = new Color(0, 0, 255);
+    private static final Color RED = new Color(255, 0, 0);
+
+    private final Settings settings = SettingsManager.getSettings();
+    private Color minColor;
+    private Color maxColor;
+
+    @BeforeClass
+    public static void setUpClass() {
+        SettingsManager.setTesting(true);
+    }
+
+    @Before
+    public final void setUp() {
+        minColor = settings.getMinColor();
+        maxColor = settings.getMaxColor();
+        settings.setMinColor(BLUE);
+        settings.setMaxColor(RED);
+    }
+
+    @After
+    public final void tearDown() {
+        settings.setMinColor(minColor);
+        settings.setMaxColor(maxColor);
+    }
+
+    @Test
+    public final void testEndsAreTheSettingsColors() {
+        assertEquals(BLUE, ColorScaler.getScaledColor(0.0));
+        assertEquals(RED, ColorScaler.getScaledColor(1.0));
+    }
+
+    @Test
+    public final void testHueInterpolatedHalfWay() {
+        // half way from blue to red in hue is green
+        final Color color = ColorScaler.getScaledColor(0.5);
+        assertTrue(color.toString(), color.getRed() <= 5);
+        assertTrue(color.toString(), color.getGreen() >= 250);
+        assertTrue(color.toString(), color.getBlue() <= 5);
+    }
+
+    @Test
+    public final void testScalesInOneStepShareAColor() {
+        assertSame(ColorScaler.getScaledColor(0.5), ColorScaler.getScaledColor(0.501));
+    }
+
+    @Test
+    public final void testGradientFollowsTheSettings() {
+        ColorScaler.getScaledColor(0.5);
+        settings.setMinColor(RED);
+        assertEquals(RED, ColorScaler.getScaledColor(0.5));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.nfunk.jep.JEP;
+
+public class CompiledExpressionTest {
+    private static final String[] EXPRESSIONS = {
+        "x", "x*.00390625", "(x*1.8)+32", "(x-760)*.01933677",
+        "(-x*.000224304213)+7.350001", "x/.84", "-x^2", "2^3^2",
+        "x%3", "-x%3", "x>1", "x<=2", "x==2", "x!=2", "2&&0.5", "x||0",
+        "!x", "if(x-2,3,4)", "if(x-2,3,4,5)", "abs(-x)", "sqrt(x)",
+        "log(x)", "ln(x)", "asin(x)", "acos(x/2)", "atan(x)",
+        "sinh(x/100)", "cosh(x/100)", "tanh(x)", "exp(x/10)", "atan2(1,x)", "pow(x,3)",
+        "mod(7,x)", "sum(1,2,x)", "sin(x)+cos(x)*tan(x)", "(x-32)/0",
+        "BitWise(24,x,1)", "BitWise(2,x,5)", "BitWise(0,x,7)",
+        "14.7/(1+x*.0078125)", "x*x*x-3*x+1"
+    };
+    private static final double[] VALUES = {0, 0.5, 1, 2, 3.5, 127, 255, -1, -40, 65535};
+
+    @Test
+    public final void testMatchesJep() {
+        for (String expression : EXPRESSIONS) {
+            final CompiledExpression compiled = CompiledExpression.compile(expression);
+            assertTrue(expression, compiled.isValid());
+            for (double x : VALUES) {
+                assertEquals(expression + " x=" + x,
+                        jep(expression, x), compiled.evaluate(x), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public final void testInterned() {
+        assertSame(CompiledExpression.compile("(x*1.8)+32"),
+                CompiledExpression.compile("(x*1.8)+32"));
+    }
+
+    @Test
+    public final void testInvalidIsNaN() {
+        final CompiledExpression compiled = CompiledExpression.compile("x +* 2");
+        assertFalse(compiled.isValid());
+        assertTrue(Double.isNaN(compiled.evaluate(1)));
+        assertTrue(Double.isNaN(CompiledExpression.compile("y*2").evaluate(1)));
+    }
+
+    @Test
+    public final void testNamedVariables() {
+        final CompiledExpression compiled =
+                CompiledExpression.compile("(P1-P2)/P3", "P3", "P1", "P2");
+        assertEquals(0, compiled.getSlot("P3"));
+        assertEquals(2, compiled.getSlot("P2"));
+        assertEquals(-1, compiled.getSlot("x"));
+        assertEquals(2.5, compiled.evaluate(new double[] {2, 10, 5}), 0.0);
+    }
+
+    @Test
+    public final void testUndeclaredVariables() {
+        final CompiledExpression compiled =
+                CompiledExpression.compileUndeclared("P8*P2+P8");
+        assertEquals(2, compiled.getVariableCount());
+        assertEquals(0, compiled.getSlot("P8"));
+        assertEquals(1, compiled.getSlot("P2"));
+        assertEquals(8.0, compiled.evaluate(new double[] {2, 3}), 0.0);
+    }
+
+    private static double jep(String expression, double x) {
+        final JEP parser = new JEP();
+        parser.addStandardFunctions();
+        parser.addFunction("BitWise", new BitWise());
+        parser.initSymTab();
+        parser.addVariable("x", x);
+        parser.parseExpression(expression);
+        return parser.getValue();
+    }
+}
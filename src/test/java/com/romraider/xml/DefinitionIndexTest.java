@@ -0,0 +1,112 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.xml;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class DefinitionIndexTest {
+    private static final String DEFINITION =
+            "<roms>\n" +
+            "  <rom>\n" +
+            "    <romid><xmlid>A2WC522S</xmlid>" +
+            "<internalidaddress>2000</internalidaddress>" +
+            "<internalidstring>A2WC522S</internalidstring></romid>\n" +
+            "  </rom>\n" +
+            "  <rom base=\"A2WC522S\">\n" +
+            "    <romid><xmlid>HEXID</xmlid>" +
+            "<internalidaddress>10</internalidaddress>" +
+            "<internalidstring>0xCAFE</internalidstring></romid>\n" +
+            "  </rom>\n" +
+            "  <scalingbase><romid><internalidaddress>0</internalidaddress>" +
+            "<internalidstring>force</internalidstring></romid></scalingbase>\n" +
+            "</roms>\n";
+
+    private static File write(String text, String suffix) throws IOException {
+        final File file = File.createTempFile("romraider", suffix);
+        file.deleteOnExit();
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(text.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static byte[] image(int address, byte... id) {
+        final byte[] image = new byte[0x4000];
+        System.arraycopy(id, 0, image, address, id.length);
+        return image;
+    }
+
+    @Test
+    public final void testMatchesIndexedRomIds() throws Exception {
+        final File definition = write(DEFINITION, ".xml");
+        final File indexFile = File.createTempFile("romraider", ".idx");
+        indexFile.deleteOnExit();
+        final DefinitionIndex index = new DefinitionIndex(indexFile);
+
+        assertTrue(index.mayMatch(definition, image(0x2000, "A2WC522S".getBytes("US-ASCII"))));
+        assertTrue(index.mayMatch(definition, image(0x10, (byte) 0xCA, (byte) 0xFE)));
+        assertFalse(index.mayMatch(definition, image(0x2000, "A2WC5000".getBytes("US-ASCII"))));
+
+        // reloaded from disk without rescanning the file
+        index.save();
+        final DefinitionIndex reloaded = new DefinitionIndex(indexFile);
+        assertTrue(reloaded.mayMatch(definition, image(0x10, (byte) 0xCA, (byte) 0xFE)));
+        assertFalse(reloaded.mayMatch(definition, image(0x10, (byte) 0xCA, (byte) 0xFF)));
+    }
+
+    @Test
+    public final void testRescansChangedFile() throws Exception {
+        final File definition = write(DEFINITION, ".xml");
+        final File indexFile = File.createTempFile("romraider", ".idx");
+        indexFile.deleteOnExit();
+        final DefinitionIndex index = new DefinitionIndex(indexFile);
+        final byte[] image = image(0x10, (byte) 0xBE, (byte) 0xEF);
+        assertFalse(index.mayMatch(definition, image));
+
+        final FileOutputStream out = new FileOutputStream(definition);
+        try {
+            out.write(DEFINITION.replace("0xCAFE", "0xBEEF").getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        definition.setLastModified(definition.lastModified() + 2000L);
+        assertTrue(index.mayMatch(definition, image));
+    }
+
+    @Test
+    public final void testUnindexableFilesMayMatch() throws Exception {
+        final byte[] image = image(0, (byte) 0);
+        final DefinitionIndex index = new DefinitionIndex(
+                File.createTempFile("romraider", ".idx"));
+        assertTrue(index.mayMatch(write("<roms><rom>", ".xml"), image));
+        assertTrue(index.mayMatch(write("<roms xmlns:xi=\"http://www.w3.org/2001/XInclude\">" +
+                "<xi:include href=\"other.xml\"/></roms>", ".xml"), image));
+    }
+}
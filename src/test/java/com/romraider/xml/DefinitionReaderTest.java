@@ -0,0 +1,111 @@
+/*
+ * RomRaider Open-Source Tuning, Logging and Reflashing
+ * Copyright (C) 2006-2022 RomRaider.com
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+
+package com.romraider.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+public class DefinitionReaderTest {
+    private static final String DEFINITION =
+            "<Roms>\n" +
+            "  <rom>\n" +
+            "    <romid><xmlid> A2WC522S </xmlid><noramoffset/></romid>\n" +
+            "    <table name=\"Fuel\" storageaddress=\"0x100\" skipCells=\"NaN\">\n" +
+            "      <description><![CDATA[Base <fuel>]]> map</description>\n" +
+            "      <data>1</data>\n" +
+            "    </table>\n" +
+            "  </rom>\n" +
+            "  <rom base=\"A2WC522S\"><table name=\"Fuel\" storageaddress=\"0x200\"/></rom>\n" +
+            "</Roms>\n";
+
+    private static InputStream stream(String text) throws Exception {
+        return new ByteArrayInputStream(text.getBytes("UTF-8"));
+    }
+
+    private static void assertSameElement(DefinitionElement expected, DefinitionElement actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getText(), actual.getText());
+        assertEquals(expected.getAttributeCount(), actual.getAttributeCount());
+        for (int i = 0; i < expected.getAttributeCount(); i++) {
+            assertEquals(expected.getAttributeName(i), actual.getAttributeName(i));
+            assertEquals(expected.getAttributeValue(i), actual.getAttributeValue(i));
+        }
+        assertEquals(expected.getChildren().size(), actual.getChildren().size());
+        for (int i = 0; i < expected.getChildren().size(); i++) {
+            assertSame(actual, actual.getChildren().get(i).getParent());
+            assertSameElement(expected.getChildren().get(i), actual.getChildren().get(i));
+        }
+    }
+
+    @Test
+    public final void testStreamMatchesDom() throws Exception {
+        final Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(stream(DEFINITION));
+        assertSameElement(DefinitionElement.fromNode(doc.getDocumentElement()),
+                DefinitionReader.read(stream(DEFINITION)));
+
+        final File file = new File("src/test/definitions/scalingbase_test.xml");
+        assertSameElement(DefinitionElement.fromNode(DocumentBuilderFactory.newInstance()
+                .newDocumentBuilder().parse(file).getDocumentElement()),
+                DefinitionReader.read(file));
+    }
+
+    @Test
+    public final void testElements() throws Exception {
+        final DefinitionElement root = DefinitionReader.read(stream(DEFINITION));
+        assertEquals("roms", root.getName());
+        assertEquals("", root.getText());
+
+        final DefinitionElement rom = root.getChildren().get(0);
+        final DefinitionElement romId = rom.getChildren().get(0);
+        assertEquals(" A2WC522S ", romId.getChildren().get(0).getText());
+        assertEquals("noramoffset", romId.getChildren().get(1).getName());
+
+        final DefinitionElement table = rom.getChildren().get(1);
+        assertEquals("0x100", table.getAttribute("storageaddress", "-1"));
+        assertEquals("none", table.getAttribute("base", "none"));
+        assertEquals(3, table.getAttribute("skipCells", 3));
+        assertEquals("Base <fuel> map", table.getChildren().get(0).getText());
+
+        // names and repeated values are shared between elements
+        final DefinitionElement derived = root.getChildren().get(1).getChildren().get(0);
+        assertSame(table.getAttributeName(0), derived.getAttributeName(0));
+        assertSame(table.getAttributeValue(0), derived.getAttributeValue(0));
+    }
+
+    @Test
+    public final void testFallsBackForXIncludeAndDtd() throws Exception {
+        assertNull(DefinitionReader.read(stream(
+                "<roms xmlns:xi=\"http://www.w3.org/2001/XInclude\">" +
+                "<xi:include href=\"other.xml\"/></roms>")));
+        assertNull(DefinitionReader.read(stream(
+                "<!DOCTYPE roms [<!ATTLIST rom base CDATA \"A\">]><roms><rom/></roms>")));
+    }
+}
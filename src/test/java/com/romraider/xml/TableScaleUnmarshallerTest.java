@@ -1,6 +1,6 @@
 /*
  * RomRaider Open-Source Tuning, Logging and Reflashing
- * Copyright (C) 2006-2021 RomRaider.com
+ * Copyright (C) 2006-2022 RomRaider.com
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -43,7 +43,8 @@ public class TableScaleUnmarshallerTest {
     @Test
     public void testScalingBase() {
         final List<Scale> expectedScales = buildExpectedScales();
-        tableScaleHandler.unmarshallBaseScales(document.getDocumentElement());
+        tableScaleHandler.unmarshallBaseScales(
+                DefinitionElement.fromNode(document.getDocumentElement()));
         final Map<String, Scale> scales = tableScaleHandler.getScales();
         for (final Scale scale : scales.values()) {
             System.out.println(scale);